@@ -0,0 +1,142 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.bench;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+import com.github.tamurashingo.juko.core.calculate.DirectionAreaResult;
+import com.github.tamurashingo.juko.core.calculate.GeometrySummary;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcExcludeOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcGeometrySummary;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcIncludeOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcMultiDirection;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcRasterOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.ParallelCalcIncludeOverlap;
+
+/**
+ * benchmarks of the area calculation.
+ * plants have {@link SyntheticData#TRIANGLES_PER_PLANT} triangles.
+ * 
+ * @author tamura shingo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CalcBenchmark {
+	
+	@Param
+	public Size size;
+	
+	private List<PlantObject> plants;
+	private CalcIncludeOverlap calc;
+	private CalcExcludeOverlap excludeCalc;
+	private ForkJoinPool pool;
+	private ParallelCalcIncludeOverlap parallelCalc;
+	private CalcRasterOverlap rasterCalc;
+	private CalcMultiDirection directionCalc;
+	private CalcGeometrySummary summaryCalc;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		plants = SyntheticData.createPlants(size.getTriangles(), 1L);
+		calc = new CalcIncludeOverlap();
+		excludeCalc = new CalcExcludeOverlap();
+		pool = new ForkJoinPool();
+		parallelCalc = new ParallelCalcIncludeOverlap(pool);
+		rasterCalc = new CalcRasterOverlap(pool);
+		
+		// 360 steps of a day at the elevation of 45 degrees
+		double[] azimuths = new double[360];
+		for (int ix = 0; ix < azimuths.length; ix++) {
+			azimuths[ix] = Math.toRadians(ix);
+		}
+		directionCalc = CalcMultiDirection.grid(new double[]{ Math.toRadians(45) }, azimuths);
+		summaryCalc = new CalcGeometrySummary();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+	
+	
+	@Benchmark
+	public AreaResult calcIncludeOverlap() {
+		return calc.calcArea(plants);
+	}
+	
+	@Benchmark
+	public List<PlantObject> calcIncludeOverlapLegacy() {
+		return calc.calc(plants);
+	}
+	
+	@Benchmark
+	public AreaResult parallelCalcIncludeOverlap() {
+		return parallelCalc.calcArea(plants);
+	}
+	
+	@Benchmark
+	public AreaResult calcExcludeOverlap() {
+		return excludeCalc.calcArea(plants);
+	}
+	
+	@Benchmark
+	public AreaResult calcRasterOverlap() {
+		return rasterCalc.calcArea(plants);
+	}
+	
+	@Benchmark
+	public DirectionAreaResult calcMultiDirection360() {
+		return directionCalc.calcArea(plants);
+	}
+	
+	@Benchmark
+	public List<GeometrySummary> calcGeometrySummary() {
+		return summaryCalc.calc(plants);
+	}
+}
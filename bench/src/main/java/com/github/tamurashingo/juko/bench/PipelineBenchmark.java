@@ -0,0 +1,113 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.bench;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcExcludeOverlap;
+import com.github.tamurashingo.juko.core.pipeline.PlantPipeline;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReaderException;
+import com.github.tamurashingo.juko.core.reader.impl.SimpleReader;
+
+/**
+ * benchmarks of {@code PlantPipeline}.
+ * <p>
+ * {@code size} triangles are written into {@link #FILES} files.
+ * "sequential" reads all files and then calculates them,
+ * and "pipeline" runs the same work in {@code PlantPipeline}.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PipelineBenchmark {
+	
+	private static final int FILES = 16;
+	
+	@Param
+	public Size size;
+	
+	private File[] files;
+	private String[] names;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		files = new File[FILES];
+		names = new String[FILES];
+		for (int ix = 0; ix < FILES; ix++) {
+			files[ix] = File.createTempFile("juko-bench", ".tsv");
+			SyntheticData.writeSimpleFile(files[ix], Math.max(1, size.getTriangles() / FILES), ix);
+			names[ix] = files[ix].getPath();
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		for (File file: files) {
+			file.delete();
+		}
+	}
+	
+	
+	@Benchmark
+	public AreaResult sequential() throws PlantObjectReaderException {
+		SimpleReader reader = new SimpleReader();
+		reader.open(names);
+		try {
+			return new CalcExcludeOverlap().calcArea(reader.read());
+		}
+		finally {
+			reader.close();
+		}
+	}
+	
+	@Benchmark
+	public AreaResult pipeline() throws PlantObjectReaderException {
+		return new PlantPipeline(new SimpleReader(), new CalcExcludeOverlap()).run(names).getAreaResult();
+	}
+}
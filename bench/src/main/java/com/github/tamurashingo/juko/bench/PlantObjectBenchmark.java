@@ -0,0 +1,128 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.Triangle;
+
+/**
+ * benchmarks of {@code PlantObject}.
+ * <p>
+ * "serialize" benchmarks use the Java serialization of {@code PlantObject}.
+ * "legacy" benchmarks serialize the triangles as {@code List<Triangle>},
+ * which is the format of the old {@code PlantObject}.
+ * the list is created in the setup, so that they measure only the serialization.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PlantObjectBenchmark {
+	
+	@Param
+	public Size size;
+	
+	private PlantObject plant;
+	private ArrayList<Triangle> triangles;
+	private byte[] serialized;
+	private byte[] legacy;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		plant = SyntheticData.createPlant(size.getTriangles(), 1L);
+		serialized = serialize(plant);
+		triangles = new ArrayList<>(plant.getTriangles());
+		legacy = serialize(triangles);
+	}
+	
+	
+	@Benchmark
+	public Object cloneObject() {
+		return plant.clone();
+	}
+	
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return serialize(plant);
+	}
+	
+	@Benchmark
+	public Object deserialize() throws Exception {
+		return deserialize(serialized);
+	}
+	
+	@Benchmark
+	public byte[] serializeLegacy() throws IOException {
+		return serialize(triangles);
+	}
+	
+	@Benchmark
+	public Object deserializeLegacy() throws Exception {
+		return deserialize(legacy);
+	}
+	
+	
+	private static byte[] serialize(Object obj) throws IOException {
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(buf)) {
+			out.writeObject(obj);
+		}
+		return buf.toByteArray();
+	}
+	
+	private static Object deserialize(byte[] buf) throws Exception {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf))) {
+			return in.readObject();
+		}
+	}
+}
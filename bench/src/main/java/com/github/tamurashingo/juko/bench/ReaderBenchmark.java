@@ -0,0 +1,125 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReader;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReaderException;
+import com.github.tamurashingo.juko.core.reader.impl.BinaryReader;
+import com.github.tamurashingo.juko.core.reader.impl.MappedReader;
+import com.github.tamurashingo.juko.core.reader.impl.SimpleReader;
+import com.github.tamurashingo.juko.core.reader.impl.SotsuronResearchReader;
+
+/**
+ * benchmarks of the readers.
+ * the files are created in the temporary directory.
+ * 
+ * @author tamura shingo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReaderBenchmark {
+	
+	@Param
+	public Size size;
+	
+	private File simpleFile;
+	private File sotsuronFile;
+	private File binaryFile;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		simpleFile = File.createTempFile("juko-bench", ".tsv");
+		sotsuronFile = File.createTempFile("juko-bench", ".tsv");
+		binaryFile = File.createTempFile("juko-bench", ".bin");
+		SyntheticData.writeSimpleFile(simpleFile, size.getTriangles(), 1L);
+		SyntheticData.writeSotsuronFile(sotsuronFile, size.getTriangles(), 2L);
+		SyntheticData.writeBinaryFile(binaryFile, size.getTriangles(), 3L);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		simpleFile.delete();
+		sotsuronFile.delete();
+		binaryFile.delete();
+	}
+	
+	
+	@Benchmark
+	public List<PlantObject> simpleReader() throws PlantObjectReaderException {
+		return read(new SimpleReader(), simpleFile);
+	}
+	
+	@Benchmark
+	public List<PlantObject> mappedReader() throws PlantObjectReaderException {
+		return read(new MappedReader(), simpleFile);
+	}
+	
+	@Benchmark
+	public List<PlantObject> sotsuronResearchReader() throws PlantObjectReaderException {
+		return read(new SotsuronResearchReader(), sotsuronFile);
+	}
+	
+	@Benchmark
+	public List<PlantObject> binaryReader() throws PlantObjectReaderException {
+		return read(new BinaryReader(), binaryFile);
+	}
+	
+	
+	private static List<PlantObject> read(PlantObjectReader reader, File file) throws PlantObjectReaderException {
+		reader.open(file.getPath());
+		try {
+			return reader.read();
+		}
+		finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.scene.SceneNode;
+
+/**
+ * benchmarks of {@code SceneNode}.
+ * <p>
+ * the scene has plants of {@link #BRANCHES} branches,
+ * and each branch has a leaf of {@link #TRIANGLES_PER_LEAF} triangles.
+ * "sway" moves the branches of one plant, and "swayAll" moves the branches of all plants.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SceneBenchmark {
+	
+	private static final int BRANCHES = 10;
+	private static final int TRIANGLES_PER_LEAF = 100;
+	
+	@Param
+	public Size size;
+	
+	private SceneNode root;
+	private SceneNode[][] branches;
+	private Affine4[] bases;
+	private int step;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		int plants = Math.max(1, size.getTriangles() / (BRANCHES * TRIANGLES_PER_LEAF));
+		PlantObject leaf = SyntheticData.createPlant(TRIANGLES_PER_LEAF, 1L);
+		
+		root = new SceneNode("field");
+		branches = new SceneNode[plants][BRANCHES];
+		bases = new Affine4[BRANCHES];
+		for (int b = 0; b < BRANCHES; b++) {
+			bases[b] = TransformUtil.createRotateZ(Math.PI * 2 * b / BRANCHES)
+					.multiply(TransformUtil.createTranslate(0.0, 0.0, 0.2 * b));
+		}
+		for (int p = 0; p < plants; p++) {
+			SceneNode plant = new SceneNode("plant" + p, TransformUtil.createTranslate(p % 32, p / 32, 0.0));
+			root.addChild(plant);
+			for (int b = 0; b < BRANCHES; b++) {
+				branches[p][b] = new SceneNode("branch" + b, bases[b]);
+				plant.addChild(branches[p][b]);
+				branches[p][b].addChild(new SceneNode("leaf", Affine4.IDENTITY, leaf));
+			}
+		}
+		root.update();
+	}
+	
+	
+	private void sway(SceneNode[] plant) {
+		double angle = Math.sin(step++ * 0.1) * 0.2;
+		Affine4 rot = TransformUtil.createRotateX(angle);
+		for (int b = 0; b < BRANCHES; b++) {
+			plant[b].setLocalTransform(bases[b].multiply(rot));
+		}
+	}
+	
+	@Benchmark
+	public int sway() {
+		sway(branches[step % branches.length]);
+		return root.update();
+	}
+	
+	@Benchmark
+	public int swayAll() {
+		for (SceneNode[] plant: branches) {
+			sway(plant);
+		}
+		return root.update();
+	}
+}
@@ -0,0 +1,129 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.spatial.TriangleBVH;
+import com.github.tamurashingo.juko.core.spatial.TriangleHit;
+
+/**
+ * benchmarks of {@code TriangleBVH}.
+ * <p>
+ * the hierarchy is built over {@code size} triangles,
+ * and 10000 rays are cast from above the plants.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SpatialBenchmark {
+	
+	private static final int RAYS = 10000;
+	
+	@Param
+	public Size size;
+	
+	private List<PlantObject> plants;
+	private ForkJoinPool pool;
+	private TriangleBVH bvh;
+	private double[] origins;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		plants = SyntheticData.createPlants(size.getTriangles(), 1L);
+		pool = new ForkJoinPool();
+		bvh = new TriangleBVH(pool, plants);
+		
+		double[] bounds = bvh.getBounds();
+		Random rand = new Random(2L);
+		origins = new double[RAYS * 2];
+		for (int ix = 0; ix < RAYS; ix++) {
+			origins[ix * 2] = bounds[0] + rand.nextDouble() * (bounds[3] - bounds[0]);
+			origins[ix * 2 + 1] = bounds[1] + rand.nextDouble() * (bounds[4] - bounds[1]);
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+	
+	
+	@Benchmark
+	public TriangleBVH build() {
+		return new TriangleBVH(plants);
+	}
+	
+	@Benchmark
+	public TriangleBVH buildParallel() {
+		return new TriangleBVH(pool, plants);
+	}
+	
+	@Benchmark
+	public TriangleBVH refit() {
+		bvh.refit();
+		return bvh;
+	}
+	
+	@Benchmark
+	public int intersect() {
+		double top = bvh.getBounds()[5] + 1.0;
+		TriangleHit hit = new TriangleHit();
+		int hits = 0;
+		for (int ix = 0; ix < RAYS; ix++) {
+			if (bvh.intersect(origins[ix * 2], origins[ix * 2 + 1], top, 0.0, 0.0, -1.0,
+					Double.POSITIVE_INFINITY, hit)) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+}
@@ -0,0 +1,208 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.bean.Triangle;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.writer.PlantObjectWriterException;
+import com.github.tamurashingo.juko.core.writer.impl.BinaryWriter;
+
+/**
+ * this class creates synthetic inputs for the benchmarks.
+ * the same seed gives the same data.
+ * 
+ * @author tamura shingo
+ *
+ */
+public class SyntheticData {
+	
+	/** number of triangles of a plant in {@link #createPlants(int, int, long)} */
+	public static final int TRIANGLES_PER_PLANT = 1000;
+	
+	/** triangles of a leaf in the research format */
+	private static final int TRIANGLES_PER_LEAF = 7;
+	
+	/** vertexes of a leaf in the research format */
+	private static final int POINTS_PER_LEAF = 9;
+	
+	
+	/**
+	 * no instance.
+	 */
+	private SyntheticData() {
+	}
+	
+	
+	/**
+	 * create a plant which has random small triangles in a 1m cube.
+	 * 
+	 * @param triangles the number of triangles
+	 * @param seed random seed
+	 * @return plant
+	 */
+	public static PlantObject createPlant(int triangles, long seed) {
+		Random rand = new Random(seed);
+		PlantObject plant = new PlantObject();
+		plant.setPlantType(PlantType.LEAF);
+		TriangleMesh mesh = plant.getMesh();
+		mesh.ensureCapacity(triangles);
+		for (int t = 0; t < triangles; t++) {
+			double x = rand.nextDouble();
+			double y = rand.nextDouble();
+			double z = rand.nextDouble();
+			mesh.add(x, y, z,
+					x + rand.nextDouble() * 0.05, y + rand.nextDouble() * 0.05, z + rand.nextDouble() * 0.01,
+					x + rand.nextDouble() * 0.05, y + rand.nextDouble() * 0.05, z + rand.nextDouble() * 0.01);
+		}
+		return plant;
+	}
+	
+	/**
+	 * create plants which have {@link #TRIANGLES_PER_PLANT} triangles.
+	 * 
+	 * @param triangles the number of triangles of all plants
+	 * @param seed random seed
+	 * @return plants
+	 */
+	public static List<PlantObject> createPlants(int triangles, long seed) {
+		List<PlantObject> plants = new ArrayList<>();
+		for (int rest = triangles; rest > 0; rest -= TRIANGLES_PER_PLANT) {
+			plants.add(createPlant(Math.min(rest, TRIANGLES_PER_PLANT), seed + plants.size()));
+		}
+		return plants;
+	}
+	
+	/**
+	 * create random triangles.
+	 * 
+	 * @param triangles the number of triangles
+	 * @param seed random seed
+	 * @return triangles
+	 */
+	public static List<Triangle> createTriangles(int triangles, long seed) {
+		TriangleMesh mesh = createPlant(triangles, seed).getMesh();
+		List<Triangle> list = new ArrayList<>(triangles);
+		for (int t = 0; t < triangles; t++) {
+			list.add(mesh.getTriangle(t));
+		}
+		return list;
+	}
+	
+	
+	/**
+	 * write a TSV file for {@code SimpleReader}.
+	 * 
+	 * @param file output file
+	 * @param triangles the number of triangles
+	 * @param seed random seed
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void writeSimpleFile(File file, int triangles, long seed) throws IOException {
+		writeTsv(file, createPlant(triangles, seed).getMesh());
+	}
+	
+	/**
+	 * write a TSV file for {@code SotsuronResearchReader}.
+	 * a leaf has 9 vertexes and 7 triangles.
+	 * 
+	 * @param file output file
+	 * @param triangles the number of triangles. rounded up to a multiple of 7.
+	 * @param seed random seed
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void writeSotsuronFile(File file, int triangles, long seed) throws IOException {
+		int leaves = (triangles + TRIANGLES_PER_LEAF - 1) / TRIANGLES_PER_LEAF;
+		// every 3 vertexes are written as a triangle, and the last is the origin
+		int points = leaves * POINTS_PER_LEAF + 1;
+		writeTsv(file, createPlant((points + 2) / 3, seed).getMesh(), points);
+	}
+	
+	/**
+	 * write a binary file for {@code BinaryReader}.
+	 * 
+	 * @param file output file
+	 * @param triangles the number of triangles of all plants
+	 * @param seed random seed
+	 * @throws PlantObjectWriterException if an I/O error occurs
+	 */
+	public static void writeBinaryFile(File file, int triangles, long seed) throws PlantObjectWriterException {
+		BinaryWriter writer = new BinaryWriter();
+		writer.open(file.getPath());
+		try {
+			writer.write(createPlants(triangles, seed));
+		}
+		finally {
+			writer.close();
+		}
+	}
+	
+	
+	/**
+	 * write all vertexes and the origin.
+	 */
+	private static void writeTsv(File file, TriangleMesh mesh) throws IOException {
+		writeTsv(file, mesh, mesh.size() * 3 + 1);
+	}
+	
+	/**
+	 * write vertexes. the last line is the origin.
+	 */
+	private static void writeTsv(File file, TriangleMesh mesh, int points) throws IOException {
+		double[] x = mesh.getXColumn();
+		double[] y = mesh.getYColumn();
+		double[] z = mesh.getZColumn();
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "US-ASCII"))) {
+			for (int ix = 0; ix < points - 1; ix++) {
+				out.write(format(x[ix]));
+				out.write('\t');
+				out.write(format(y[ix]));
+				out.write('\t');
+				out.write(format(z[ix]));
+				out.write('\n');
+			}
+			out.write("0.5\t0.5\t0.0\n");
+		}
+	}
+	
+	/**
+	 * 6 digits after the decimal point, like measured data.
+	 */
+	private static String format(double d) {
+		return Double.toString(Math.round(d * 1e6) / 1e6);
+	}
+}
@@ -0,0 +1,145 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.Transform;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.bean.Triangle;
+
+/**
+ * benchmarks of {@code Triangle.transform}, {@code Transform.multiply} and {@code TransformUtil}.
+ * <p>
+ * "matrix" benchmarks use {@code Transform} with a {@code RealMatrix},
+ * and "affine" benchmarks use {@code Affine4}.
+ * the transforms are applied to {@code size} triangles,
+ * and {@code size} transforms are multiplied or created.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TransformBenchmark {
+	
+	@Param
+	public Size size;
+	
+	private List<Triangle> triangles;
+	private Affine4 affine;
+	private Transform matrix;
+	private Affine4[] affines;
+	private Transform[] matrices;
+	private double[] angles;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		int n = size.getTriangles();
+		triangles = SyntheticData.createTriangles(n, 1L);
+		
+		affine = TransformUtil.createTranslate(0.1, 0.2, 0.3)
+				.multiply(TransformUtil.createRotateZ(0.5))
+				.multiply(TransformUtil.createRotateX(0.25));
+		matrix = new Transform(affine.getMatrix());
+		
+		Random rand = new Random(2L);
+		affines = new Affine4[n];
+		matrices = new Transform[n];
+		angles = new double[n];
+		for (int ix = 0; ix < n; ix++) {
+			angles[ix] = rand.nextDouble() * Math.PI * 2;
+			affines[ix] = TransformUtil.createRotateY(angles[ix]);
+			matrices[ix] = new Transform(affines[ix].getMatrix());
+		}
+	}
+	
+	
+	@Benchmark
+	public void triangleTransformAffine(Blackhole bh) {
+		for (Triangle t: triangles) {
+			bh.consume(t.transform(affine));
+		}
+	}
+	
+	@Benchmark
+	public void triangleTransformMatrix(Blackhole bh) {
+		for (Triangle t: triangles) {
+			bh.consume(t.transform(matrix));
+		}
+	}
+	
+	@Benchmark
+	public Transform transformMultiplyAffine() {
+		Transform result = Affine4.IDENTITY;
+		for (Affine4 a: affines) {
+			result = result.multiply(a);
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public Transform transformMultiplyMatrix() {
+		Transform result = matrices[0];
+		for (int ix = 1; ix < matrices.length; ix++) {
+			result = result.multiply(matrices[ix]);
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public void transformUtil(Blackhole bh) {
+		for (double angle: angles) {
+			bh.consume(TransformUtil.createRotateX(angle));
+			bh.consume(TransformUtil.createRotateY(angle));
+			bh.consume(TransformUtil.createRotateZ(angle));
+			bh.consume(TransformUtil.createTranslate(angle, angle, angle));
+			bh.consume(TransformUtil.createScale(angle, angle, angle));
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.bean;
+
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+
+/**
+ * <p>
+ * The <code>Affine4</code> class represents an affine transform matrix.
+ * the last row is always (0, 0, 0, 1), so only 12 elements are stored.
+ * </p>
+ * <table style="text-align:center; font-style:italic; border-left:1px solid black; border-right:1px solid black;">
+ * <tr><td>m00</td><td>m01</td><td>m02</td><td>m03<td></tr>
+ * <tr><td>m10</td><td>m11</td><td>m12</td><td>m13<td></tr>
+ * <tr><td>m20</td><td>m21</td><td>m22</td><td>m23<td></tr>
+ * <tr><td>0</td><td>0</td><td>0</td><td>1<td></tr>
+ * </table>
+ * <p>
+ * example.
+ * </p>
+ * <p>
+ * <code><pre>
+ * Affine4 rot = TransformUtil.createRotateX(radx).multiply(TransformUtil.createRotateZ(radz));
+ * 
+ * // transform all vertexes of the plant
+ * rot.applyTo(plant.getMesh());
+ * </pre></code>
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class Affine4 extends Transform {
+	
+	/** serialVersionUID */
+	private static final long serialVersionUID = 1L;
+	
+	/** identity matrix */
+	public static final Affine4 IDENTITY = new Affine4(
+			1, 0, 0, 0,
+			0, 1, 0, 0,
+			0, 0, 1, 0);
+	
+	private final double m00, m01, m02, m03;
+	private final double m10, m11, m12, m13;
+	private final double m20, m21, m22, m23;
+	
+	/** {@code RealMatrix} view, created on demand. */
+	transient private RealMatrix matrix;
+	
+	
+	/**
+	 * constructor.
+	 */
+	public Affine4(
+			double m00, double m01, double m02, double m03,
+			double m10, double m11, double m12, double m13,
+			double m20, double m21, double m22, double m23) {
+		this.m00 = m00; this.m01 = m01; this.m02 = m02; this.m03 = m03;
+		this.m10 = m10; this.m11 = m11; this.m12 = m12; this.m13 = m13;
+		this.m20 = m20; this.m21 = m21; this.m22 = m22; this.m23 = m23;
+	}
+	
+	
+	/**
+	 * convert a {@code Transform} to {@code Affine4}.
+	 * @param transform transform matrix
+	 * @return affine transform matrix
+	 * @throws IllegalArgumentException if the last row of {@code transform} is not (0, 0, 0, 1).
+	 */
+	public static Affine4 valueOf(Transform transform) {
+		if (transform instanceof Affine4) {
+			return (Affine4)transform;
+		}
+		double[][] d = transform.getMatrix().getData();
+		if (d.length != 4 || d[0].length != 4
+				|| d[3][0] != 0 || d[3][1] != 0 || d[3][2] != 0 || d[3][3] != 1) {
+			throw new IllegalArgumentException("not an affine transform");
+		}
+		return new Affine4(
+				d[0][0], d[0][1], d[0][2], d[0][3],
+				d[1][0], d[1][1], d[1][2], d[1][3],
+				d[2][0], d[2][1], d[2][2], d[2][3]);
+	}
+	
+	
+	/**
+	 * get an element.
+	 * @param row row (0 - 3)
+	 * @param column column (0 - 3)
+	 * @return element
+	 */
+	public double get(int row, int column) {
+		switch (row * 4 + column) {
+		case 0:  return m00;
+		case 1:  return m01;
+		case 2:  return m02;
+		case 3:  return m03;
+		case 4:  return m10;
+		case 5:  return m11;
+		case 6:  return m12;
+		case 7:  return m13;
+		case 8:  return m20;
+		case 9:  return m21;
+		case 10: return m22;
+		case 11: return m23;
+		case 12: case 13: case 14: return 0;
+		case 15: return 1;
+		default:
+			throw new IndexOutOfBoundsException("row:" + row + ", column:" + column);
+		}
+	}
+	
+	
+	@Override
+	public RealMatrix getMatrix() {
+		if (matrix == null) {
+			matrix = MatrixUtils.createRealMatrix(new double[][] {
+					{ m00, m01, m02, m03 },
+					{ m10, m11, m12, m13 },
+					{ m20, m21, m22, m23 },
+					{   0,   0,   0,   1 },
+			});
+		}
+		return matrix;
+	}
+	
+	
+	@Override
+	public Transform multiply(Transform bean) {
+		if (bean instanceof Affine4) {
+			return multiply((Affine4)bean);
+		}
+		return super.multiply(bean);
+	}
+	
+	
+	/**
+	 * create the new transform matrix.
+	 * the result applies {@code b} first, then this.
+	 * @param b
+	 * @return this &#215; b
+	 */
+	public Affine4 multiply(Affine4 b) {
+		return new Affine4(
+				m00 * b.m00 + m01 * b.m10 + m02 * b.m20,
+				m00 * b.m01 + m01 * b.m11 + m02 * b.m21,
+				m00 * b.m02 + m01 * b.m12 + m02 * b.m22,
+				m00 * b.m03 + m01 * b.m13 + m02 * b.m23 + m03,
+				
+				m10 * b.m00 + m11 * b.m10 + m12 * b.m20,
+				m10 * b.m01 + m11 * b.m11 + m12 * b.m21,
+				m10 * b.m02 + m11 * b.m12 + m12 * b.m22,
+				m10 * b.m03 + m11 * b.m13 + m12 * b.m23 + m13,
+				
+				m20 * b.m00 + m21 * b.m10 + m22 * b.m20,
+				m20 * b.m01 + m21 * b.m11 + m22 * b.m21,
+				m20 * b.m02 + m21 * b.m12 + m22 * b.m22,
+				m20 * b.m03 + m21 * b.m13 + m22 * b.m23 + m23);
+	}
+	
+	
+	/**
+	 * @return determinant of this matrix
+	 */
+	public double determinant() {
+		return m00 * (m11 * m22 - m12 * m21)
+				- m01 * (m10 * m22 - m12 * m20)
+				+ m02 * (m10 * m21 - m11 * m20);
+	}
+	
+	
+	/**
+	 * create the inverse matrix.
+	 * @return inverse matrix
+	 * @throws SingularMatrixException if this matrix is singular.
+	 */
+	public Affine4 inverse() {
+		double det = determinant();
+		if (det == 0 || Double.isNaN(det) || Double.isInfinite(det)) {
+			throw new SingularMatrixException();
+		}
+		double inv = 1.0 / det;
+		
+		double i00 =  (m11 * m22 - m12 * m21) * inv;
+		double i01 = -(m01 * m22 - m02 * m21) * inv;
+		double i02 =  (m01 * m12 - m02 * m11) * inv;
+		double i10 = -(m10 * m22 - m12 * m20) * inv;
+		double i11 =  (m00 * m22 - m02 * m20) * inv;
+		double i12 = -(m00 * m12 - m02 * m10) * inv;
+		double i20 =  (m10 * m21 - m11 * m20) * inv;
+		double i21 = -(m00 * m21 - m01 * m20) * inv;
+		double i22 =  (m00 * m11 - m01 * m10) * inv;
+		
+		return new Affine4(
+				i00, i01, i02, -(i00 * m03 + i01 * m13 + i02 * m23),
+				i10, i11, i12, -(i10 * m03 + i11 * m13 + i12 * m23),
+				i20, i21, i22, -(i20 * m03 + i21 * m13 + i22 * m23));
+	}
+	
+	
+	/**
+	 * transform a point.
+	 * @param p array contains the position of X, Y, Z. overwritten by the result.
+	 */
+	public void transformPoint(double[] p) {
+		double px = p[0];
+		double py = p[1];
+		double pz = p[2];
+		p[0] = m00 * px + m01 * py + m02 * pz + m03;
+		p[1] = m10 * px + m11 * py + m12 * pz + m13;
+		p[2] = m20 * px + m21 * py + m22 * pz + m23;
+	}
+	
+	
+	/**
+	 * transform vertexes in columns.
+	 * the source and the destination may be the same arrays.
+	 * 
+	 * @param x source X column
+	 * @param y source Y column
+	 * @param z source Z column
+	 * @param dx destination X column
+	 * @param dy destination Y column
+	 * @param dz destination Z column
+	 * @param from first index (inclusive)
+	 * @param to last index (exclusive)
+	 */
+	public void transform(double[] x, double[] y, double[] z,
+			double[] dx, double[] dy, double[] dz, int from, int to) {
+		for (int i = from; i < to; i++) {
+			double px = x[i];
+			double py = y[i];
+			double pz = z[i];
+			dx[i] = m00 * px + m01 * py + m02 * pz + m03;
+			dy[i] = m10 * px + m11 * py + m12 * pz + m13;
+			dz[i] = m20 * px + m21 * py + m22 * pz + m23;
+		}
+	}
+	
+	
+	/**
+	 * transform all vertexes of the mesh in place.
+	 * the area column is not changed, and all triangles are marked as dirty.
+	 * @param mesh target mesh
+	 */
+	public void applyTo(TriangleMesh mesh) {
+		double[] x = mesh.getXColumn();
+		double[] y = mesh.getYColumn();
+		double[] z = mesh.getZColumn();
+		transform(x, y, z, x, y, z, 0, mesh.size() * 3);
+		mesh.markAllDirty();
+	}
+	
+	
+	/**
+	 * transform all vertexes of the mesh into the destination mesh.
+	 * {@code dst} is resized to the size of {@code src}, and its area column is not changed.
+	 * all triangles of {@code dst} are marked as dirty.
+	 * @param src source mesh. not changed.
+	 * @param dst destination mesh
+	 */
+	public void applyTo(TriangleMesh src, TriangleMesh dst) {
+		if (src == dst) {
+			applyTo(src);
+			return;
+		}
+		dst.setSize(src.size());
+		transform(src.getXColumn(), src.getYColumn(), src.getZColumn(),
+				dst.getXColumn(), dst.getYColumn(), dst.getZColumn(),
+				0, src.size() * 3);
+		dst.markAllDirty();
+	}
+}
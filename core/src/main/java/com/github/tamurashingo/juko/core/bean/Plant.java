@@ -0,0 +1,101 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.bean;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+
+
+/**
+ * read-only view of a plant, which the calculators accept.
+ * <p>
+ * {@link PlantObject} has its own triangles, and can be changed.
+ * {@link PlantInstance} places a shared plant by a transform, and has no own triangles.
+ * </p>
+ * @author tamura shingo
+ *
+ */
+public abstract class Plant implements Cloneable {
+
+	protected PlantType plantType;
+
+
+	/**
+	 * returns the triangles.
+	 * @return the triangle storage
+	 */
+	public abstract TriangleMesh getMesh();
+
+	/**
+	 * @return true if any triangle is added or moved after {@link TriangleMesh#clearDirty()}
+	 */
+	public boolean isDirty() {
+		return getMesh().nextDirty(0) >= 0;
+	}
+
+	/**
+	 * returns the triangles.
+	 * <p>
+	 * the list is a read-only view of the mesh.
+	 * each {@code Triangle} is created on access, so changing it does not change this plant.
+	 * use {@link #getMesh()} for the bulk access.
+	 * </p>
+	 * @return the triangles
+	 */
+	public List<Triangle> getTriangles() {
+		return new AbstractList<Triangle>() {
+			@Override
+			public Triangle get(int index) {
+				return getMesh().getTriangle(index);
+			}
+
+			@Override
+			public int size() {
+				return getMesh().size();
+			}
+		};
+	}
+
+	/**
+	 * @return the plantType
+	 */
+	public PlantType getPlantType() {
+		return plantType;
+	}
+
+
+	@Override
+	public Object clone() {
+		try {
+			return super.clone();
+		}
+		catch (CloneNotSupportedException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
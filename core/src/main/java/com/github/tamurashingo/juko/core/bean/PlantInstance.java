@@ -0,0 +1,228 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.bean;
+
+import java.io.ObjectStreamException;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * a plant which places a shared plant by a transform.
+ * <p>
+ * an instance refers the triangles of the prototype, and does not copy them.
+ * so placing one plant many times costs the memory of one plant.
+ * an instance of an instance refers the original prototype with the combined transform.
+ * an instance has no own triangles, so it is a {@link Plant} and not a {@link PlantObject}.
+ * </p>
+ * <p>
+ * the calculators which know instances calculate them from the prototype,
+ * for example {@link com.github.tamurashingo.juko.core.calculate.impl.CalcIncludeOverlap}
+ * uses the area of the prototype if the transform keeps the projected area
+ * ({@link #getProjectedAreaScale()}).
+ * the other code calls {@link #getMesh()}, which creates a new transformed copy on each call.
+ * so each call costs the memory of the prototype, and changing the copy does not change the instance.
+ * {@link #toPlantObject()} creates a plain plant which has the copy.
+ * </p>
+ * <p>
+ * example.
+ * </p>
+ * <p>
+ * <code><pre>
+ * List&lt;Plant&gt; field = new ArrayList&lt;&gt;();
+ * for (int ix = 0; ix &lt; 1000; ix++) {
+ *     field.add(new PlantInstance(plant, TransformUtil.createTranslate(ix % 40, ix / 40, 0)
+ *             .multiply(TransformUtil.createRotateZ(angle[ix]))));
+ * }
+ * AreaResult result = new CalcIncludeOverlap().calcArea(field);
+ * </pre></code>
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class PlantInstance extends Plant implements java.io.Serializable {
+	
+	/** serialVersionUID */
+	private static final long serialVersionUID = 1L;
+	
+	/** shared plant */
+	private final PlantObject prototype;
+	
+	/** transform of the prototype */
+	private Affine4 transform;
+	
+	/** the transform is changed after {@link #clearDirty()} */
+	private boolean moved = false;
+	
+	
+	/**
+	 * create an instance.
+	 * the plant type is copied from the prototype.
+	 * @param prototype shared plant
+	 * @param transform affine transform of the prototype
+	 */
+	public PlantInstance(PlantObject prototype, Transform transform) {
+		this.prototype = prototype;
+		this.transform = Affine4.valueOf(transform);
+		this.plantType = prototype.getPlantType();
+	}
+	
+	/**
+	 * create an instance of an instance.
+	 * the instance refers the original prototype with the combined transform.
+	 * @param instance shared instance
+	 * @param transform affine transform of the instance
+	 */
+	public PlantInstance(PlantInstance instance, Transform transform) {
+		this(instance.prototype, Affine4.valueOf(transform).multiply(instance.transform));
+	}
+	
+	
+	/**
+	 * @return shared plant
+	 */
+	public PlantObject getPrototype() {
+		return prototype;
+	}
+	
+	/**
+	 * @return transform of the prototype
+	 */
+	public Affine4 getTransform() {
+		return transform;
+	}
+	
+	/**
+	 * @param transform affine transform of the prototype
+	 */
+	public void setTransform(Transform transform) {
+		this.transform = Affine4.valueOf(transform);
+		this.moved = true;
+	}
+	
+	/**
+	 * returns the ratio of the area projected to the XY plane.
+	 * <p>
+	 * if X and Y of the transformed vertexes do not depend on Z,
+	 * the projected area of every triangle is multiplied by the determinant of the XY part.
+	 * for example, translations and rotations about the Z axis keep the projected area (1.0).
+	 * </p>
+	 * @return the ratio, or NaN if the ratio depends on the triangle
+	 */
+	public double getProjectedAreaScale() {
+		if (transform.get(0, 2) != 0.0 || transform.get(1, 2) != 0.0) {
+			return Double.NaN;
+		}
+		return Math.abs(transform.get(0, 0) * transform.get(1, 1) - transform.get(0, 1) * transform.get(1, 0));
+	}
+	
+	
+	/**
+	 * creates a transformed copy of the prototype.
+	 * a new copy is created on each call, which costs the memory of the prototype.
+	 * the copy is not kept, so changing it does not change the instance.
+	 * @return the transformed triangles
+	 */
+	@Override
+	public TriangleMesh getMesh() {
+		TriangleMesh m = new TriangleMesh(0);
+		transform.applyTo(prototype.getMesh(), m);
+		m.clearDirty();
+		return m;
+	}
+	
+	/**
+	 * @return true if the transform is changed after {@link #clearDirty()},
+	 *         or any triangle of the prototype is added or moved
+	 */
+	@Override
+	public boolean isDirty() {
+		return moved || prototype.isDirty();
+	}
+	
+	/**
+	 * forget the change of the transform.
+	 * the dirty marks of the prototype are shared with the other instances,
+	 * so they are not cleared.
+	 */
+	public void clearDirty() {
+		moved = false;
+	}
+	
+	/**
+	 * returns the transformed triangles.
+	 * each {@code Triangle} is transformed from the prototype on access,
+	 * so the whole copy of {@link #getMesh()} is not created.
+	 * @return the triangles
+	 */
+	@Override
+	public List<Triangle> getTriangles() {
+		return new AbstractList<Triangle>() {
+			@Override
+			public Triangle get(int index) {
+				TriangleMesh mesh = prototype.getMesh();
+				if (index < 0 || index >= mesh.size()) {
+					throw new IndexOutOfBoundsException("index:" + index);
+				}
+				return mesh.getTriangle(index).transform(transform);
+			}
+
+			@Override
+			public int size() {
+				return prototype.getMesh().size();
+			}
+		};
+	}
+	
+	/**
+	 * creates a plain plant which has the transformed copy of the prototype.
+	 * @return new plant
+	 */
+	public PlantObject toPlantObject() {
+		PlantObject p = new PlantObject(getMesh());
+		p.setPlantType(plantType);
+		return p;
+	}
+	
+	/**
+	 * combine the transform with the transform of this instance.
+	 * the prototype is not changed.
+	 * @param transform affine transform
+	 */
+	public void applyTransform(Transform transform) {
+		setTransform(Affine4.valueOf(transform).multiply(this.transform));
+	}
+	
+	
+	/**
+	 * an instance is serialized as a {@code PlantObject} which has the transformed triangles.
+	 * @return plain plant
+	 * @throws ObjectStreamException
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		return toPlantObject();
+	}
+}
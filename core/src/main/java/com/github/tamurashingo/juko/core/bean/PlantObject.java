@@ -25,22 +25,73 @@
  */
 package com.github.tamurashingo.juko.core.bean;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.util.Collections;
 import java.util.List;
 
+import com.github.tamurashingo.juko.core.util.PlantObjectCodec;
+
 
 /**
  * The <code>PlantObject</code> class is the class of all 3D objects in the virtual field.
+ * <p>
+ * triangles are stored in a {@link TriangleMesh}.
+ * </p>
+ * <p>
+ * the calculators accept {@link Plant}, so a {@link PlantInstance} can be calculated with the plants.
+ * </p>
  * @author tamura shingo
  *
  */
-public class PlantObject implements java.io.Serializable, Cloneable {
+public class PlantObject extends Plant implements java.io.Serializable {
 	
 	/** serialVersionUID */
 	private static final long serialVersionUID = 1L;
 	
-	protected List<Triangle> triangles = new ArrayList<>();
-	protected PlantType plantType;
+	/**
+	 * serializable fields.
+	 * the old streams have the triangles as {@code List<Triangle>}.
+	 * the new streams have {@link #CODEC_RECORD}, and the triangles follow the fields (see {@code writeObject}).
+	 * the old versions of this class can not assign the string to the list,
+	 * so they fail to read the new streams instead of reading an empty plant.
+	 * 
+	 * @serialField triangles List the triangles, or {@link #CODEC_RECORD}
+	 * @serialField plantType PlantType the plant type
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("plantType", PlantType.class),
+		new ObjectStreamField("triangles", List.class),
+	};
+	
+	/** the value of {@code triangles} of the new streams */
+	private static final String CODEC_RECORD = "PlantObjectCodec";
+	
+	/** size of the heap buffer of the codec for the serialization */
+	private static final int CODEC_BUFFER_SIZE = 8 * 1024;
+	
+	protected TriangleMesh mesh;
+	
+	
+	/**
+	 * create an empty plant.
+	 */
+	public PlantObject() {
+		this(new TriangleMesh());
+	}
+	
+	/**
+	 * create a plant which has the mesh.
+	 * the mesh is not copied.
+	 * @param mesh triangles
+	 */
+	public PlantObject(TriangleMesh mesh) {
+		this.mesh = mesh;
+	}
 	
 	/**
 	 * @author tamura shingo
@@ -54,26 +105,42 @@ public class PlantObject implements java.io.Serializable, Cloneable {
 	}
 	
 	/**
-	 * @return the triangles
+	 * returns the triangle storage.
+	 * the mesh tracks the triangles which are added or moved, see {@link TriangleMesh#nextDirty(int)}.
+	 * @return the triangle storage
 	 */
-	public List<Triangle> getTriangles() {
-		return triangles;
+	@Override
+	public TriangleMesh getMesh() {
+		return mesh;
 	}
-
+	
+	/**
+	 * transform all triangles of this plant in place.
+	 * all triangles are marked as dirty.
+	 * @param transform affine transform
+	 */
+	public void applyTransform(Transform transform) {
+		Affine4.valueOf(transform).applyTo(getMesh());
+	}
+	
 	/**
 	 * add triangle to this plant.
 	 * @param triangle the triangle
 	 */
 	public void addTriangle(Triangle triangle) {
-		this.triangles.add(triangle);
+		getMesh().add(triangle);
 	}
 	
 	/**
-	 * @return the plantType
+	 * add triangle to this plant.
+	 * @param vertex1 vertex of the triangle. array contains the position of X, Y, Z.
+	 * @param vertex2 vertex of the triangle. array contains the position of X, Y, Z.
+	 * @param vertex3 vertex of the triangle. array contains the position of X, Y, Z.
 	 */
-	public PlantType getPlantType() {
-		return plantType;
+	public void addTriangle(double[] vertex1, double[] vertex2, double[] vertex3) {
+		getMesh().add(vertex1, vertex2, vertex3);
 	}
+	
 	/**
 	 * @param plantType the plantType to set
 	 */
@@ -81,18 +148,64 @@ public class PlantObject implements java.io.Serializable, Cloneable {
 		this.plantType = plantType;
 	}
 	
-	@Override
-	public Object clone() {
-		try {
-			PlantObject p = (PlantObject)super.clone();
-			p.triangles = new ArrayList<>(this.triangles.size());
-			for (Triangle triangle: this.triangles) {
-				p.triangles.add((Triangle)triangle.clone());
+	
+	/**
+	 * serialize object.
+	 * 
+	 * @serialData {@code triangles} is {@link #CODEC_RECORD}, and the triangles follow the fields
+	 *             as a record of {@link PlantObjectCodec} with the calculated areas.
+	 * @param stream output stream
+	 * @throws IOException
+	 */
+	private void writeObject(ObjectOutputStream stream) throws IOException {
+		ObjectOutputStream.PutField fields = stream.putFields();
+		fields.put("plantType", plantType);
+		fields.put("triangles", CODEC_RECORD);
+		stream.writeFields();
+		new PlantObjectCodec(CODEC_BUFFER_SIZE).write(this, true, Channels.newChannel(stream));
+	}
+	
+	
+	/**
+	 * deserialize object.
+	 * 
+	 * @serialData if {@code triangles} is {@link #CODEC_RECORD}, load the triangles
+	 *             from the record which follows the fields.
+	 *             otherwise the stream is the old format, and the triangles are loaded from the list.
+	 * @param stream input stream
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = stream.readFields();
+		plantType = (PlantType)fields.get("plantType", null);
+		
+		Object triangles = fields.get("triangles", null);
+		if (CODEC_RECORD.equals(triangles)) {
+			PlantObject p = new PlantObjectCodec(CODEC_BUFFER_SIZE).read(Channels.newChannel(stream));
+			if (p == null) {
+				throw new StreamCorruptedException("no triangles");
 			}
-			return p;
+			mesh = p.mesh;
+			return;
+		}
+		if (triangles != null && !(triangles instanceof List)) {
+			throw new StreamCorruptedException("triangles:" + triangles.getClass().getName());
 		}
-		catch (CloneNotSupportedException ex) {
-			throw new RuntimeException(ex);
+		
+		// old format
+		List<?> list = (triangles == null) ? Collections.emptyList() : (List<?>)triangles;
+		mesh = new TriangleMesh(list.size());
+		for (Object triangle: list) {
+			mesh.add((Triangle)triangle);
 		}
 	}
+	
+	
+	@Override
+	public Object clone() {
+		PlantObject p = (PlantObject)super.clone();
+		p.mesh = (TriangleMesh)this.mesh.clone();
+		return p;
+	}
 }
@@ -60,6 +60,12 @@ public class Transform implements java.io.Serializable {
 	/** transform matrix */
 	transient private RealMatrix m;
 	
+	/**
+	 * constructor for subclasses which provide {@link #getMatrix()} by themselves.
+	 */
+	protected Transform() {
+	}
+	
 	/**
 	 * constructor.
 	 * @param m
@@ -91,7 +97,8 @@ public class Transform implements java.io.Serializable {
 	 */
 	public Transform multiply(Transform bean) {
 		RealMatrix m2 = bean.getMatrix();
-		return new Transform(this.m.multiply(m2));
+		// subclasses provide the matrix by getMatrix()
+		return new Transform(getMatrix().multiply(m2));
 	}
 	
 	
@@ -104,7 +111,7 @@ public class Transform implements java.io.Serializable {
 		stream.writeUTF("transform version:" + serialVersionUID);
 		
 		/*- data must be 4x4 */
-		double[][] data = m.getData();
+		double[][] data = getMatrix().getData();
 		/*- */
 		stream.writeDouble(data[0][0]);
 		stream.writeDouble(data[0][1]);
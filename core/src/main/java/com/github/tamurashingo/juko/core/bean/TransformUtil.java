@@ -50,18 +50,14 @@ public class TransformUtil {
 	 * @param rad radian
 	 * @return
 	 */
-	public static Transform createRotateX(double rad) {
+	public static Affine4 createRotateX(double rad) {
 		double sin = Math.sin(rad);
 		double cos = Math.cos(rad);
 
-		double[][] rotx = {
-				{ 1,   0,    0, 0 },
-				{ 0, cos, -sin, 0 },
-				{ 0, sin,  cos, 0 },
-				{ 0,   0,    0, 1 },
-		};
-		
-		return new Transform(rotx);
+		return new Affine4(
+				1,   0,    0, 0,
+				0, cos, -sin, 0,
+				0, sin,  cos, 0);
 	}
 	
 
@@ -76,18 +72,14 @@ public class TransformUtil {
 	 * @param rad radian
 	 * @return
 	 */
-	public static Transform createRotateY(double rad) {
+	public static Affine4 createRotateY(double rad) {
 		double sin = Math.sin(rad);
 		double cos = Math.cos(rad);
 		
-		double[][] roty = {
-				{  cos, 0, sin, 0 },
-				{    0, 1,   0, 0 },
-				{ -sin, 0, cos, 0 },
-				{    0, 0,   0, 1 },
-		};
-		
-		return new Transform(roty);
+		return new Affine4(
+				 cos, 0, sin, 0,
+				   0, 1,   0, 0,
+				-sin, 0, cos, 0);
 	}
 	
 	/**
@@ -101,18 +93,14 @@ public class TransformUtil {
 	 * @param rad radian
 	 * @return
 	 */
-	public static Transform createRotateZ(double rad) {
+	public static Affine4 createRotateZ(double rad) {
 		double sin = Math.sin(rad);
 		double cos = Math.cos(rad);
 		
-		double[][] rotz = {
-				{ cos, -sin, 0, 0 },
-				{ sin,  cos, 0, 0 },
-				{   0,    0, 1, 0 },
-				{   0,    0, 0, 1 },
-		};
-
-		return new Transform(rotz);
+		return new Affine4(
+				cos, -sin, 0, 0,
+				sin,  cos, 0, 0,
+				  0,    0, 1, 0);
 	}
 	
 	
@@ -129,14 +117,11 @@ public class TransformUtil {
 	 * @param z
 	 * @return
 	 */
-	public static Transform createTranslate(double x, double y, double z) {
-		double[][] t = {
-				{ 1, 0, 0, x },
-				{ 0, 1, 0, y },
-				{ 0, 0, 1, z },
-				{ 0, 0, 0, 1 },
-		};
-		return new Transform(t);
+	public static Affine4 createTranslate(double x, double y, double z) {
+		return new Affine4(
+				1, 0, 0, x,
+				0, 1, 0, y,
+				0, 0, 1, z);
 	}
 	
 	/**
@@ -152,13 +137,10 @@ public class TransformUtil {
 	 * @param z
 	 * @return
 	 */
-	public static Transform createScale(double x, double y, double z) {
-		double[][] s = {
-				{ x, 0, 0, 0 },
-				{ 0, y, 0, 0 },
-				{ 0, 0, z, 0 },
-				{ 0, 0, 0, 1 },
-		};
-		return new Transform(s);
+	public static Affine4 createScale(double x, double y, double z) {
+		return new Affine4(
+				x, 0, 0, 0,
+				0, y, 0, 0,
+				0, 0, z, 0);
 	}
 }
@@ -35,6 +35,11 @@ import org.apache.commons.math3.linear.RealMatrix;
 
 /**
  * this class represents a triangle in 3-dimensional coordinate space.
+ * <p>
+ * the vertexes are held as nine doubles.
+ * use {@link #get(int, int)} or {@link #getPosition(int, double[])}
+ * to read them without allocation.
+ * </p>
  * 
  * @author tamura shingo
  *
@@ -45,11 +50,14 @@ public class Triangle implements java.io.Serializable, Cloneable {
 	private static final long serialVersionUID = 1L;
 	
 	/** vertex 1 */
-	transient private RealMatrix v1;
+	transient private double x1, y1, z1;
 	/** vertex 2 */
-	transient private RealMatrix v2;
+	transient private double x2, y2, z2;
 	/** vertex 3 */
-	transient private RealMatrix v3;
+	transient private double x3, y3, z3;
+	
+	/** area in 3D. NaN until calculated */
+	transient private double surfaceArea = Double.NaN;
 	
 	/** area */
 	private double calculatedArea;
@@ -62,26 +70,35 @@ public class Triangle implements java.io.Serializable, Cloneable {
 	 * @param vertex3 vertex of the triangle. array contains the position of X, Y, Z.
 	 */
 	public Triangle(double[]vertex1, double[]vertex2, double[]vertex3) {
-		double[][] _v1 = { {vertex1[0]}, {vertex1[1]}, {vertex1[2]}, {1} };
-		double[][] _v2 = { {vertex2[0]}, {vertex2[1]}, {vertex2[2]}, {1} };
-		double[][] _v3 = { {vertex3[0]}, {vertex3[1]}, {vertex3[2]}, {1} };
-		
-		v1 = MatrixUtils.createRealMatrix(_v1);
-		v2 = MatrixUtils.createRealMatrix(_v2);
-		v3 = MatrixUtils.createRealMatrix(_v3);
+		this(vertex1[0], vertex1[1], vertex1[2],
+				vertex2[0], vertex2[1], vertex2[2],
+				vertex3[0], vertex3[1], vertex3[2]);
 	}
 	
 	
 	/**
 	 * create a new triangle.
-	 * @param v1
-	 * @param v2
-	 * @param v3
+	 * @param v1 column vector of the vertex 1 (X, Y, Z, 1)
+	 * @param v2 column vector of the vertex 2 (X, Y, Z, 1)
+	 * @param v3 column vector of the vertex 3 (X, Y, Z, 1)
 	 */
 	public Triangle(RealMatrix v1, RealMatrix v2, RealMatrix v3) {
-		this.v1 = v1;
-		this.v2 = v2;
-		this.v3 = v3;
+		this(v1.getEntry(0, 0), v1.getEntry(1, 0), v1.getEntry(2, 0),
+				v2.getEntry(0, 0), v2.getEntry(1, 0), v2.getEntry(2, 0),
+				v3.getEntry(0, 0), v3.getEntry(1, 0), v3.getEntry(2, 0));
+	}
+	
+	
+	/**
+	 * create a new triangle.
+	 */
+	public Triangle(
+			double x1, double y1, double z1,
+			double x2, double y2, double z2,
+			double x3, double y3, double z3) {
+		this.x1 = x1; this.y1 = y1; this.z1 = z1;
+		this.x2 = x2; this.y2 = y2; this.z2 = z2;
+		this.x3 = x3; this.y3 = y3; this.z3 = z3;
 	}
 	
 	
@@ -91,12 +108,25 @@ public class Triangle implements java.io.Serializable, Cloneable {
 	 * @return transformed triangle
 	 */
 	public Triangle transform(Transform transform) {
-		RealMatrix m = transform.getMatrix();
-		RealMatrix _v1 = m.multiply(v1);
-		RealMatrix _v2 = m.multiply(v2);
-		RealMatrix _v3 = m.multiply(v3);
-		
-		return new Triangle(_v1, _v2, _v3);
+		Affine4 a;
+		if (transform instanceof Affine4) {
+			a = (Affine4)transform;
+		}
+		else {
+			RealMatrix m = transform.getMatrix();
+			if (m.getEntry(3, 0) != 0 || m.getEntry(3, 1) != 0 || m.getEntry(3, 2) != 0 || m.getEntry(3, 3) != 1) {
+				// projective transform
+				return new Triangle(m.multiply(column(x1, y1, z1)),
+						m.multiply(column(x2, y2, z2)),
+						m.multiply(column(x3, y3, z3)));
+			}
+			a = Affine4.valueOf(transform);
+		}
+		double[] x = { x1, x2, x3 };
+		double[] y = { y1, y2, y3 };
+		double[] z = { z1, z2, z3 };
+		a.transform(x, y, z, x, y, z, 0, 3);
+		return new Triangle(x[0], y[0], z[0], x[1], y[1], z[1], x[2], y[2], z[2]);
 	}
 	
 	/**
@@ -120,25 +150,128 @@ public class Triangle implements java.io.Serializable, Cloneable {
 	 */
 	public double[][] getPosition() {
 		return new double[][] {
-				getPosition(v1),
-				getPosition(v2),
-				getPosition(v3),
+				{ x1, y1, z1 },
+				{ x2, y2, z2 },
+				{ x3, y3, z3 },
 		};
 	}
 	
+	/**
+	 * copy a vertex into the buffer.
+	 * @param vertex index of the vertex (0, 1, 2)
+	 * @param dst destination. X, Y, Z are stored
+	 * @return {@code dst}
+	 */
+	public double[] getPosition(int vertex, double[] dst) {
+		dst[0] = get(vertex, 0);
+		dst[1] = get(vertex, 1);
+		dst[2] = get(vertex, 2);
+		return dst;
+	}
 	
 	/**
-	 * returns the address about <code>RealMatrix</code> object.
-	 * 
-	 * @param v target <code>RealMatrix</code>
-	 * @return array about the position of X, Y, Z.
-	 */
-	private double[] getPosition(RealMatrix v) {
-		return new double[]{ 
-				v.getRow(0)[0],
-				v.getRow(1)[0],
-				v.getRow(2)[0],
-		};
+	 * copy all vertexes into the buffer.
+	 * @param dst destination. X1, Y1, Z1, X2, ... Z3 are stored
+	 * @return {@code dst}
+	 */
+	public double[] getPosition(double[] dst) {
+		dst[0] = x1; dst[1] = y1; dst[2] = z1;
+		dst[3] = x2; dst[4] = y2; dst[5] = z2;
+		dst[6] = x3; dst[7] = y3; dst[8] = z3;
+		return dst;
+	}
+	
+	/**
+	 * get a coordinate of a vertex.
+	 * @param vertex index of the vertex (0, 1, 2)
+	 * @param axis 0: X, 1: Y, 2: Z
+	 * @return coordinate
+	 */
+	public double get(int vertex, int axis) {
+		switch (vertex * 3 + axis) {
+		case 0: return x1;
+		case 1: return y1;
+		case 2: return z1;
+		case 3: return x2;
+		case 4: return y2;
+		case 5: return z2;
+		case 6: return x3;
+		case 7: return y3;
+		case 8: return z3;
+		default:
+			throw new IndexOutOfBoundsException("vertex:" + vertex + ", axis:" + axis);
+		}
+	}
+	
+	/**
+	 * @param vertex index of the vertex (0, 1, 2)
+	 * @return position of X
+	 */
+	public double getX(int vertex) {
+		return get(vertex, 0);
+	}
+	
+	/**
+	 * @param vertex index of the vertex (0, 1, 2)
+	 * @return position of Y
+	 */
+	public double getY(int vertex) {
+		return get(vertex, 1);
+	}
+	
+	/**
+	 * @param vertex index of the vertex (0, 1, 2)
+	 * @return position of Z
+	 */
+	public double getZ(int vertex) {
+		return get(vertex, 2);
+	}
+	
+	
+	/**
+	 * calculate the normal vector, the cross product of V1V2 and V1V3.
+	 * the length is twice the area.
+	 * @param dst destination. X, Y, Z are stored
+	 * @return {@code dst}
+	 */
+	public double[] getNormal(double[] dst) {
+		double ABx = x2 - x1, ABy = y2 - y1, ABz = z2 - z1;
+		double ACx = x3 - x1, ACy = y3 - y1, ACz = z3 - z1;
+		dst[0] = ABy * ACz - ABz * ACy;
+		dst[1] = ABz * ACx - ABx * ACz;
+		dst[2] = ABx * ACy - ABy * ACx;
+		return dst;
+	}
+	
+	/**
+	 * returns the area in 3D. the area is calculated on the first call.
+	 * @return area
+	 */
+	public double getSurfaceArea() {
+		if (Double.isNaN(surfaceArea)) {
+			double ABx = x2 - x1, ABy = y2 - y1, ABz = z2 - z1;
+			double ACx = x3 - x1, ACy = y3 - y1, ACz = z3 - z1;
+			double nx = ABy * ACz - ABz * ACy;
+			double ny = ABz * ACx - ABx * ACz;
+			double nz = ABx * ACy - ABy * ACx;
+			surfaceArea = Math.sqrt(nx * nx + ny * ny + nz * nz) / 2.0;
+		}
+		return surfaceArea;
+	}
+	
+	/**
+	 * @return area projected to the XY plane
+	 */
+	public double getProjectedArea() {
+		return Math.abs((x2 - x1) * (y3 - y1) - (y2 - y1) * (x3 - x1)) / 2.0;
+	}
+	
+	
+	/**
+	 * @return column vector (X, Y, Z, 1)
+	 */
+	private static RealMatrix column(double x, double y, double z) {
+		return MatrixUtils.createColumnRealMatrix(new double[]{ x, y, z, 1 });
 	}
 	
 	/**
@@ -152,24 +285,24 @@ public class Triangle implements java.io.Serializable, Cloneable {
 		stream.writeUTF("triangle version:" + serialVersionUID);
 		
 		/*- v1 */
-		stream.writeDouble(v1.getRow(0)[0]);
-		stream.writeDouble(v1.getRow(1)[0]);
-		stream.writeDouble(v1.getRow(2)[0]);
+		stream.writeDouble(x1);
+		stream.writeDouble(y1);
+		stream.writeDouble(z1);
 		/*- v2 */
-		stream.writeDouble(v2.getRow(0)[0]);
-		stream.writeDouble(v2.getRow(1)[0]);
-		stream.writeDouble(v2.getRow(2)[0]);
+		stream.writeDouble(x2);
+		stream.writeDouble(y2);
+		stream.writeDouble(z2);
 		/*- v3 */
-		stream.writeDouble(v3.getRow(0)[0]);
-		stream.writeDouble(v3.getRow(1)[0]);
-		stream.writeDouble(v3.getRow(2)[0]);
+		stream.writeDouble(x3);
+		stream.writeDouble(y3);
+		stream.writeDouble(z3);
 	}
 	
 	
 	/**
 	 * deserialize object.
 	 * 
-	 * @serialData load v1, v2, v3 raw data and generate.
+	 * @serialData load v1, v2, v3 raw data.
 	 * @param stream
 	 * @throws IOException
 	 */
@@ -177,39 +310,23 @@ public class Triangle implements java.io.Serializable, Cloneable {
 		/* version info > /dev/null */
 		stream.readUTF();
 		
-		double[][] _v1 = {
-				{ stream.readDouble() },
-				{ stream.readDouble() },
-				{ stream.readDouble() },
-				{ 1 }
-		};
-		double[][] _v2 = {
-				{ stream.readDouble() },
-				{ stream.readDouble() },
-				{ stream.readDouble() },
-				{ 1 }
-		};
-		double[][] _v3 = {
-				{ stream.readDouble() },
-				{ stream.readDouble() },
-				{ stream.readDouble() },
-				{ 1 }
-		};
-		
-		v1 = MatrixUtils.createRealMatrix(_v1);
-		v2 = MatrixUtils.createRealMatrix(_v2);
-		v3 = MatrixUtils.createRealMatrix(_v3);
+		x1 = stream.readDouble();
+		y1 = stream.readDouble();
+		z1 = stream.readDouble();
+		x2 = stream.readDouble();
+		y2 = stream.readDouble();
+		z2 = stream.readDouble();
+		x3 = stream.readDouble();
+		y3 = stream.readDouble();
+		z3 = stream.readDouble();
+		surfaceArea = Double.NaN;
 	}
 	
 	
 	@Override
 	public Object clone() {
 		try {
-			Triangle t = (Triangle) super.clone();
-			t.v1 = this.v1.copy();
-			t.v2 = this.v2.copy();
-			t.v3 = this.v3.copy();
-			return t;
+			return super.clone();
 		}
 		catch (CloneNotSupportedException ex) {
 			throw new RuntimeException(ex);
@@ -217,4 +334,3 @@ public class Triangle implements java.io.Serializable, Cloneable {
 	}
 
 }
-
@@ -0,0 +1,589 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.bean;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * <p>
+ * this class holds triangles in flat primitive arrays.
+ * </p>
+ * <p>
+ * vertexes are stored in the X, Y and Z columns.
+ * the vertex {@code v} (0, 1, 2) of the triangle {@code t} is stored at
+ * the index {@code t * 3 + v} of each column.
+ * the area column has one entry per triangle.
+ * </p>
+ * <p>
+ * the triangles which are added or moved are marked as dirty,
+ * so that a calculator can recalculate only the changed triangles.
+ * the vertexes written into the columns directly must be marked by {@link #markDirty(int, int)}.
+ * </p>
+ * <p>
+ * the dirty marks belong to the owner of the mesh.
+ * a calculator which keeps its own results tracks the changes by a cursor instead
+ * (see {@link #getChangeCursor()} and {@link #getChanges(long, BitSet)}),
+ * so that several calculators can share a mesh without clearing the marks of the others.
+ * </p>
+ * <p>
+ * example.
+ * </p>
+ * <p>
+ * <code><pre>
+ * TriangleMesh mesh = plant.getMesh();
+ * double[] x = mesh.getXColumn();
+ * double[] y = mesh.getYColumn();
+ * for (int t = 0; t < mesh.size(); t++) {
+ *     int i = t * 3;
+ *     double ABx = x[i + 1] - x[i];
+ *     ...
+ * }
+ * </pre></code>
+ * </p>
+ *
+ * @author tamura shingo
+ *
+ */
+public class TriangleMesh implements Cloneable {
+
+	/** default capacity (number of triangles) */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** X column */
+	private double[] x;
+	/** Y column */
+	private double[] y;
+	/** Z column */
+	private double[] z;
+	/** calculated area column */
+	private double[] area;
+
+	/** number of triangles */
+	private int size;
+
+	/** triangles which are changed after {@link #clearDirty()} */
+	private BitSet dirty = new BitSet();
+
+	/** triangles which are moved in the current epoch. {@code ~n} means that the size is reduced to {@code n} */
+	private int[] changes = new int[0];
+	/** number of the recorded changes */
+	private int changeCount;
+	/** incremented when the recorded changes are discarded */
+	private int epoch;
+
+
+	/**
+	 * create an empty mesh.
+	 */
+	public TriangleMesh() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * create an empty mesh with the specified capacity.
+	 * @param capacity initial number of triangles
+	 */
+	public TriangleMesh(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity:" + capacity);
+		}
+		this.x = new double[capacity * 3];
+		this.y = new double[capacity * 3];
+		this.z = new double[capacity * 3];
+		this.area = new double[capacity];
+	}
+
+
+	/**
+	 * create a mesh which uses the given columns without copying.
+	 * the vertex {@code v} of the triangle {@code t} is the index {@code t * 3 + v} of each column,
+	 * and the entries after {@code size * 3} are ignored.
+	 * the columns are replaced when the capacity is increased.
+	 * the area column is created for {@code size} triangles, and grows when triangles are added.
+	 * the unused entries of the given columns are kept, so call {@link #trimToSize()} to release them.
+	 * all triangles are marked as dirty.
+	 * 
+	 * @param x X column
+	 * @param y Y column
+	 * @param z Z column
+	 * @param size the number of triangles
+	 * @return mesh
+	 * @throws IllegalArgumentException if a column is shorter than {@code size * 3}
+	 */
+	public static TriangleMesh wrap(double[] x, double[] y, double[] z, int size) {
+		int capacity = Math.min(x.length, Math.min(y.length, z.length)) / 3;
+		if (size < 0 || size > capacity) {
+			throw new IllegalArgumentException("size:" + size + ", capacity:" + capacity);
+		}
+		TriangleMesh mesh = new TriangleMesh(0);
+		mesh.x = x;
+		mesh.y = y;
+		mesh.z = z;
+		mesh.area = new double[size];
+		mesh.size = size;
+		mesh.dirty.set(0, size);
+		return mesh;
+	}
+
+
+	/**
+	 * @return the number of triangles
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * add a triangle.
+	 * @param vertex1 vertex of the triangle. array contains the position of X, Y, Z.
+	 * @param vertex2 vertex of the triangle. array contains the position of X, Y, Z.
+	 * @param vertex3 vertex of the triangle. array contains the position of X, Y, Z.
+	 * @return index of the added triangle
+	 */
+	public int add(double[] vertex1, double[] vertex2, double[] vertex3) {
+		return add(vertex1[0], vertex1[1], vertex1[2],
+				vertex2[0], vertex2[1], vertex2[2],
+				vertex3[0], vertex3[1], vertex3[2]);
+	}
+
+	/**
+	 * add a triangle.
+	 * @return index of the added triangle
+	 */
+	public int add(double x1, double y1, double z1,
+			double x2, double y2, double z2,
+			double x3, double y3, double z3) {
+		ensureCapacity(size + 1);
+		int t = size++;
+		int i = t * 3;
+		x[i] = x1; y[i] = y1; z[i] = z1;
+		i++;
+		x[i] = x2; y[i] = y2; z[i] = z2;
+		i++;
+		x[i] = x3; y[i] = y3; z[i] = z3;
+		area[t] = 0.0;
+		dirty.set(t);
+		return t;
+	}
+
+	/**
+	 * add a triangle.
+	 * @param triangle the triangle
+	 * @return index of the added triangle
+	 */
+	public int add(Triangle triangle) {
+		int t = add(triangle.getX(0), triangle.getY(0), triangle.getZ(0),
+				triangle.getX(1), triangle.getY(1), triangle.getZ(1),
+				triangle.getX(2), triangle.getY(2), triangle.getZ(2));
+		area[t] = triangle.getCalculatedArea();
+		return t;
+	}
+
+
+	/**
+	 * @param triangle index of the triangle
+	 * @param vertex index of the vertex (0, 1, 2)
+	 * @return position of X
+	 */
+	public double getX(int triangle, int vertex) {
+		return x[index(triangle, vertex)];
+	}
+
+	/**
+	 * @param triangle index of the triangle
+	 * @param vertex index of the vertex (0, 1, 2)
+	 * @return position of Y
+	 */
+	public double getY(int triangle, int vertex) {
+		return y[index(triangle, vertex)];
+	}
+
+	/**
+	 * @param triangle index of the triangle
+	 * @param vertex index of the vertex (0, 1, 2)
+	 * @return position of Z
+	 */
+	public double getZ(int triangle, int vertex) {
+		return z[index(triangle, vertex)];
+	}
+
+	/**
+	 * move a vertex.
+	 * the triangle is marked as dirty.
+	 * @param triangle index of the triangle
+	 * @param vertex index of the vertex (0, 1, 2)
+	 * @param px position of X
+	 * @param py position of Y
+	 * @param pz position of Z
+	 */
+	public void setVertex(int triangle, int vertex, double px, double py, double pz) {
+		int i = index(triangle, vertex);
+		x[i] = px;
+		y[i] = py;
+		z[i] = pz;
+		dirty.set(triangle);
+		recordChange(triangle);
+	}
+
+	/**
+	 * @param triangle index of the triangle
+	 * @return the calculated area
+	 */
+	public double getArea(int triangle) {
+		checkIndex(triangle);
+		return area[triangle];
+	}
+
+	/**
+	 * @param triangle index of the triangle
+	 * @param a the calculated area
+	 */
+	public void setArea(int triangle, double a) {
+		checkIndex(triangle);
+		area[triangle] = a;
+	}
+
+
+	/**
+	 * returns the X column.
+	 * the array is not copied and may be longer than {@code size() * 3}.
+	 * @return X column
+	 */
+	public double[] getXColumn() {
+		return x;
+	}
+
+	/**
+	 * returns the Y column.
+	 * the array is not copied and may be longer than {@code size() * 3}.
+	 * @return Y column
+	 */
+	public double[] getYColumn() {
+		return y;
+	}
+
+	/**
+	 * returns the Z column.
+	 * the array is not copied and may be longer than {@code size() * 3}.
+	 * @return Z column
+	 */
+	public double[] getZColumn() {
+		return z;
+	}
+
+	/**
+	 * returns the calculated area column.
+	 * the array is not copied and may be longer than {@code size()}.
+	 * @return area column
+	 */
+	public double[] getAreaColumn() {
+		return area;
+	}
+
+
+	/**
+	 * @param triangle index of the triangle
+	 * @return true if the triangle is added or moved after {@link #clearDirty()}
+	 */
+	public boolean isDirty(int triangle) {
+		checkIndex(triangle);
+		return dirty.get(triangle);
+	}
+
+	/**
+	 * returns the next dirty triangle.
+	 * <p>
+	 * <code><pre>
+	 * for (int t = mesh.nextDirty(0); t >= 0; t = mesh.nextDirty(t + 1)) {
+	 *     ...
+	 * }
+	 * </pre></code>
+	 * </p>
+	 * @param from index to start checking from (inclusive)
+	 * @return index of the next dirty triangle, or -1 if there is no such triangle
+	 */
+	public int nextDirty(int from) {
+		return dirty.nextSetBit(from);
+	}
+
+	/**
+	 * @return the number of dirty triangles
+	 */
+	public int getDirtyCount() {
+		return dirty.cardinality();
+	}
+
+	/**
+	 * mark the triangle as dirty.
+	 * @param triangle index of the triangle
+	 */
+	public void markDirty(int triangle) {
+		checkIndex(triangle);
+		dirty.set(triangle);
+		recordChange(triangle);
+	}
+
+	/**
+	 * mark the triangles in the range as dirty.
+	 * @param from first triangle (inclusive)
+	 * @param to last triangle (exclusive)
+	 */
+	public void markDirty(int from, int to) {
+		if (from < 0 || to > size || from > to) {
+			throw new IndexOutOfBoundsException("from:" + from + ", to:" + to + ", size:" + size);
+		}
+		dirty.set(from, to);
+		if (to - from > changeLimit() - changeCount) {
+			discardChanges();
+		}
+		else {
+			for (int t = from; t < to; t++) {
+				recordChange(t);
+			}
+		}
+	}
+
+	/**
+	 * mark all triangles as dirty.
+	 */
+	public void markAllDirty() {
+		dirty.set(0, size);
+		discardChanges();
+	}
+
+	/**
+	 * clear the dirty marks.
+	 * the changes tracked by cursors are not cleared.
+	 */
+	public void clearDirty() {
+		dirty.clear();
+	}
+
+
+	/**
+	 * returns the cursor of the current changes.
+	 * the cursor is passed to {@link #getChanges(long, BitSet)} later.
+	 * @return cursor
+	 */
+	public long getChangeCursor() {
+		return ((long)epoch << 32) | changeCount;
+	}
+
+	/**
+	 * collects the triangles which are changed after the cursor is taken.
+	 * <p>
+	 * the moved triangles are set to {@code changed}.
+	 * the added triangles are not set, but they are at or after the returned index,
+	 * which is the smallest number of triangles after the cursor is taken.
+	 * if the changes are not recorded anymore
+	 * (too many changes, or all triangles are changed), returns -1.
+	 * </p>
+	 * <p>
+	 * <code><pre>
+	 * int stable = mesh.getChanges(cursor, changed);
+	 * // the triangles [0, min(stable, lastSize)) except changed are not changed
+	 * cursor = mesh.getChangeCursor();
+	 * </pre></code>
+	 * </p>
+	 * @param cursor the cursor returned by {@link #getChangeCursor()}
+	 * @param changed receives the moved triangles
+	 * @return the smallest number of triangles after the cursor, or -1 if the changes are unknown
+	 */
+	public int getChanges(long cursor, BitSet changed) {
+		int from = (int)cursor;
+		if ((int)(cursor >>> 32) != epoch || from < 0 || from > changeCount) {
+			return -1;
+		}
+		int stable = size;
+		for (int i = from; i < changeCount; i++) {
+			int t = changes[i];
+			if (t < 0) {
+				stable = Math.min(stable, ~t);
+			}
+			else if (t < size) {
+				changed.set(t);
+			}
+		}
+		return stable;
+	}
+
+	/**
+	 * record a change for the cursors.
+	 * @param change index of the moved triangle, or {@code ~size} if the size is reduced
+	 */
+	private void recordChange(int change) {
+		if (changeCount == changes.length) {
+			int limit = changeLimit();
+			if (changeCount >= limit) {
+				// recalculating all triangles is as cheap as tracking them
+				discardChanges();
+			}
+			else {
+				changes = Arrays.copyOf(changes, Math.min(limit, Math.max(16, changeCount * 2)));
+			}
+		}
+		changes[changeCount++] = change;
+	}
+
+	/**
+	 * @return the maximum number of the recorded changes
+	 */
+	private int changeLimit() {
+		return Math.max(64, size >> 2);
+	}
+
+	/**
+	 * discard the recorded changes, so that the cursors taken before are expired.
+	 */
+	private void discardChanges() {
+		epoch++;
+		changeCount = 0;
+	}
+
+
+	/**
+	 * create a new {@code Triangle} from the stored vertexes.
+	 * @param triangle index of the triangle
+	 * @return new triangle
+	 */
+	public Triangle getTriangle(int triangle) {
+		int i = index(triangle, 0);
+		Triangle t = new Triangle(
+				x[i],     y[i],     z[i],
+				x[i + 1], y[i + 1], z[i + 1],
+				x[i + 2], y[i + 2], z[i + 2]);
+		t.setCalculatedArea(area[triangle]);
+		return t;
+	}
+
+
+	/**
+	 * increase the capacity.
+	 * @param capacity required number of triangles
+	 */
+	public void ensureCapacity(int capacity) {
+		int current = vertexCapacity();
+		if (capacity > current) {
+			int newCapacity = Math.max(capacity, current + (current >> 1) + 1);
+			x = Arrays.copyOf(x, newCapacity * 3);
+			y = Arrays.copyOf(y, newCapacity * 3);
+			z = Arrays.copyOf(z, newCapacity * 3);
+			current = newCapacity;
+		}
+		if (capacity > area.length) {
+			// the area column of a wrapped mesh is shorter than the vertex columns
+			area = Arrays.copyOf(area, Math.min(current, Math.max(capacity, area.length + (area.length >> 1) + 1)));
+		}
+	}
+	
+	/**
+	 * @return the number of triangles which the vertex columns can hold
+	 */
+	private int vertexCapacity() {
+		return Math.min(x.length, Math.min(y.length, z.length)) / 3;
+	}
+
+	/**
+	 * change the number of triangles.
+	 * added triangles are filled with zero, and marked as dirty.
+	 * @param newSize the number of triangles
+	 */
+	public void setSize(int newSize) {
+		if (newSize < 0) {
+			throw new IllegalArgumentException("size:" + newSize);
+		}
+		ensureCapacity(newSize);
+		if (newSize > size) {
+			Arrays.fill(x, size * 3, newSize * 3, 0.0);
+			Arrays.fill(y, size * 3, newSize * 3, 0.0);
+			Arrays.fill(z, size * 3, newSize * 3, 0.0);
+			Arrays.fill(area, size, newSize, 0.0);
+			dirty.set(size, newSize);
+		}
+		else if (newSize < size) {
+			dirty.clear(newSize, size);
+			recordChange(~newSize);
+		}
+		size = newSize;
+	}
+
+	/**
+	 * trim the capacity to the number of triangles.
+	 */
+	public void trimToSize() {
+		if (x.length == size * 3 && y.length == size * 3 && z.length == size * 3 && area.length == size) {
+			return;
+		}
+		x = Arrays.copyOf(x, size * 3);
+		y = Arrays.copyOf(y, size * 3);
+		z = Arrays.copyOf(z, size * 3);
+		area = Arrays.copyOf(area, size);
+	}
+
+
+	/**
+	 * @param triangle index of the triangle
+	 * @param vertex index of the vertex
+	 * @return index of the columns
+	 */
+	private int index(int triangle, int vertex) {
+		checkIndex(triangle);
+		if (vertex < 0 || vertex > 2) {
+			throw new IndexOutOfBoundsException("vertex:" + vertex);
+		}
+		return triangle * 3 + vertex;
+	}
+
+	/**
+	 * @param triangle index of the triangle
+	 */
+	private void checkIndex(int triangle) {
+		if (triangle < 0 || triangle >= size) {
+			throw new IndexOutOfBoundsException("triangle:" + triangle + ", size:" + size);
+		}
+	}
+
+
+	@Override
+	public Object clone() {
+		try {
+			TriangleMesh m = (TriangleMesh)super.clone();
+			m.x = Arrays.copyOf(this.x, size * 3);
+			m.y = Arrays.copyOf(this.y, size * 3);
+			m.z = Arrays.copyOf(this.z, size * 3);
+			m.area = Arrays.copyOf(this.area, size);
+			m.dirty = (BitSet)this.dirty.clone();
+			m.changes = new int[0];
+			m.changeCount = 0;
+			return m;
+		}
+		catch (CloneNotSupportedException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.PlantInstance;
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+
+/**
+ * base class of {@code CalcIF}.
+ * <p>
+ * subclasses implement {@link #calcArea(List)}.
+ * {@link #calc(List)} copies the plants and sets the calculated area to them.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public abstract class AbstractCalc implements CalcIF {
+
+	@Override
+	public List<PlantObject> calc(List<? extends Plant> plants) {
+		AreaResult result = calcArea(plants);
+		List<PlantObject> list = new ArrayList<>(plants.size());
+		for (int ix = 0; ix < result.size(); ix++) {
+			Plant plant = result.getPlant(ix);
+			PlantObject p = (plant instanceof PlantInstance)
+					? ((PlantInstance)plant).toPlantObject() : (PlantObject)plant.clone();
+			TriangleMesh mesh = p.getMesh();
+			System.arraycopy(result.getAreas(ix), 0, mesh.getAreaColumn(), 0, mesh.size());
+			list.add(p);
+		}
+		return list;
+	}
+}
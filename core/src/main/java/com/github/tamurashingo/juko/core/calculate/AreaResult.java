@@ -0,0 +1,167 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+
+/**
+ * the result of {@link CalcIF#calcArea(List)}.
+ * <p>
+ * this class holds the calculated area of each triangle and the total area of each plant.
+ * the plants are referenced, not copied.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class AreaResult {
+	
+	/** calculated plants */
+	private final List<Plant> plants;
+	
+	/** area of each triangle. {@code areas[plant][triangle]} */
+	private final double[][] areas;
+	
+	/** total area of each plant */
+	private final double[] totals;
+	
+	
+	/**
+	 * create a result and sum the area of each plant.
+	 * @param plants calculated plants
+	 * @param areas area of each triangle. {@code areas[plant][triangle]}
+	 */
+	public AreaResult(List<? extends Plant> plants, double[][] areas) {
+		this(plants, areas, sum(areas));
+	}
+	
+	/**
+	 * create a result.
+	 * @param plants calculated plants
+	 * @param areas area of each triangle. {@code areas[plant][triangle]}
+	 * @param totals total area of each plant
+	 */
+	public AreaResult(List<? extends Plant> plants, double[][] areas, double[] totals) {
+		if (plants.size() != areas.length || plants.size() != totals.length) {
+			throw new IllegalArgumentException("size mismatch");
+		}
+		this.plants = Collections.unmodifiableList(new ArrayList<Plant>(plants));
+		this.areas = areas;
+		this.totals = totals;
+	}
+	
+	
+	/**
+	 * @return the number of plants
+	 */
+	public int size() {
+		return plants.size();
+	}
+	
+	/**
+	 * @return the calculated plants
+	 */
+	public List<Plant> getPlants() {
+		return plants;
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the calculated plant
+	 */
+	public Plant getPlant(int plant) {
+		return plants.get(plant);
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @param triangle index of the triangle
+	 * @return the calculated area of the triangle
+	 */
+	public double getArea(int plant, int triangle) {
+		return areas[plant][triangle];
+	}
+	
+	/**
+	 * returns the area column of the plant.
+	 * the array is not copied, so it must not be changed.
+	 * @param plant index of the plant
+	 * @return the calculated area of each triangle
+	 */
+	public double[] getAreas(int plant) {
+		return areas[plant];
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the total area of the plant
+	 */
+	public double getTotalArea(int plant) {
+		return totals[plant];
+	}
+	
+	/**
+	 * @return the total area of all plants
+	 */
+	public double getTotalArea() {
+		double total = 0.0;
+		for (double t: totals) {
+			total += t;
+		}
+		return total;
+	}
+	
+	
+	/**
+	 * sum the area of each plant.
+	 * @param areas area of each triangle
+	 * @return total area of each plant
+	 */
+	private static double[] sum(double[][] areas) {
+		double[] totals = new double[areas.length];
+		for (int ix = 0; ix < areas.length; ix++) {
+			totals[ix] = sum(areas[ix]);
+		}
+		return totals;
+	}
+	
+	/**
+	 * sum the area.
+	 * @param areas area of each triangle
+	 * @return total area
+	 */
+	public static double sum(double[] areas) {
+		double total = 0.0;
+		for (double a: areas) {
+			total += a;
+		}
+		return total;
+	}
+}
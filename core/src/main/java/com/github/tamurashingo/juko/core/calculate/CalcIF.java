@@ -27,16 +27,35 @@ package com.github.tamurashingo.juko.core.calculate;
 
 import java.util.List;
 
+import com.github.tamurashingo.juko.core.bean.Plant;
 import com.github.tamurashingo.juko.core.bean.PlantObject;
 
+/**
+ * calculator interface for the area of {@code Plant}s.
+ * 
+ * @author tamura shingo
+ *
+ */
 public interface CalcIF {
 	
 	/**
+	 * copy the plants and set the calculated area to them.
+	 * {@link #calcArea(List)} is preferred, because it does not copy the plants.
+	 * 
+	 * @param plants
+	 * @return new {@code PlantObject} which was set calculated area. an instance is copied with the transformed triangles
+	 */
+	public List<PlantObject> calc(List<? extends Plant> plants);
+	
+	
+	/**
+	 * calculate the area of the plants.
+	 * the plants are not changed, so they can be shared among calculations.
 	 * 
 	 * @param plants
-	 * @return new {@code PlantObject} which was set calculated area
+	 * @return calculated area of each triangle and each plant
 	 */
-	public List<PlantObject> calc(List<PlantObject> plants);
+	public AreaResult calcArea(List<? extends Plant> plants);
 	
 
 }
@@ -0,0 +1,156 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+
+/**
+ * the projected area of plants for some directions.
+ * <p>
+ * {@code getArea(direction, plant)} is the area of the plant
+ * projected to the plane perpendicular to the direction,
+ * out of consideration of overlap among each objects.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class DirectionAreaResult {
+	
+	/** calculated plants */
+	private final List<Plant> plants;
+	
+	/** elevation of each direction (radian) */
+	private final double[] elevations;
+	
+	/** azimuth of each direction (radian) */
+	private final double[] azimuths;
+	
+	/** projected area. {@code areas[direction][plant]} */
+	private final double[][] areas;
+	
+	/** surface area of each plant */
+	private final double[] surfaceAreas;
+	
+	
+	/**
+	 * create a result.
+	 * @param plants calculated plants
+	 * @param elevations elevation of each direction (radian)
+	 * @param azimuths azimuth of each direction (radian)
+	 * @param areas projected area. {@code areas[direction][plant]}
+	 * @param surfaceAreas surface area of each plant
+	 */
+	public DirectionAreaResult(List<? extends Plant> plants, double[] elevations, double[] azimuths,
+			double[][] areas, double[] surfaceAreas) {
+		if (elevations.length != azimuths.length || elevations.length != areas.length
+				|| plants.size() != surfaceAreas.length) {
+			throw new IllegalArgumentException("size mismatch");
+		}
+		this.plants = Collections.unmodifiableList(new ArrayList<Plant>(plants));
+		this.elevations = elevations;
+		this.azimuths = azimuths;
+		this.areas = areas;
+		this.surfaceAreas = surfaceAreas;
+	}
+	
+	
+	/**
+	 * @return the number of plants
+	 */
+	public int size() {
+		return plants.size();
+	}
+	
+	/**
+	 * @return the calculated plants
+	 */
+	public List<Plant> getPlants() {
+		return plants;
+	}
+	
+	/**
+	 * @return the number of directions
+	 */
+	public int getDirectionCount() {
+		return areas.length;
+	}
+	
+	/**
+	 * @param direction index of the direction
+	 * @return elevation of the direction (radian)
+	 */
+	public double getElevation(int direction) {
+		return elevations[direction];
+	}
+	
+	/**
+	 * @param direction index of the direction
+	 * @return azimuth of the direction (radian)
+	 */
+	public double getAzimuth(int direction) {
+		return azimuths[direction];
+	}
+	
+	/**
+	 * @param direction index of the direction
+	 * @param plant index of the plant
+	 * @return the projected area of the plant
+	 */
+	public double getArea(int direction, int plant) {
+		return areas[direction][plant];
+	}
+	
+	/**
+	 * returns the projected area of each plant.
+	 * the array is not copied, so it must not be changed.
+	 * @param direction index of the direction
+	 * @return the projected area of each plant
+	 */
+	public double[] getAreas(int direction) {
+		return areas[direction];
+	}
+	
+	/**
+	 * @param direction index of the direction
+	 * @return the projected area of all plants
+	 */
+	public double getTotalArea(int direction) {
+		return AreaResult.sum(areas[direction]);
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the area of the triangles in 3D
+	 */
+	public double getSurfaceArea(int plant) {
+		return surfaceAreas[plant];
+	}
+}
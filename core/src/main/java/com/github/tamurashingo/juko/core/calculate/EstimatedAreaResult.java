@@ -0,0 +1,131 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate;
+
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+
+/**
+ * the result of a calculator which estimates the union area by sampling.
+ * <p>
+ * the total area of each plant is the estimated area of the union of its triangles,
+ * with a confidence interval of {@link #getConfidenceLevel()}.
+ * the area of each triangle is its own projected area.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class EstimatedAreaResult extends UnionAreaResult {
+	
+	/** confidence level of the intervals */
+	private final double confidenceLevel;
+	
+	/** standard error of each estimate */
+	private final double[] standardErrors;
+	
+	/** half width of the confidence interval of each estimate */
+	private final double[] halfWidths;
+	
+	/** number of sample points of each plant */
+	private final long[] samples;
+	
+	
+	/**
+	 * create a result.
+	 * @param plants calculated plants
+	 * @param areas projected area of each triangle. {@code areas[plant][triangle]}
+	 * @param unions estimated union area of each plant
+	 * @param standardErrors standard error of each estimate
+	 * @param halfWidths half width of the confidence interval of each estimate
+	 * @param samples number of sample points of each plant
+	 * @param confidenceLevel confidence level of the intervals
+	 */
+	public EstimatedAreaResult(List<? extends Plant> plants, double[][] areas, double[] unions,
+			double[] standardErrors, double[] halfWidths, long[] samples, double confidenceLevel) {
+		super(plants, areas, unions);
+		if (standardErrors.length != areas.length || halfWidths.length != areas.length
+				|| samples.length != areas.length) {
+			throw new IllegalArgumentException("size mismatch");
+		}
+		this.standardErrors = standardErrors;
+		this.halfWidths = halfWidths;
+		this.samples = samples;
+		this.confidenceLevel = confidenceLevel;
+	}
+	
+	
+	/**
+	 * @return confidence level of the intervals (for example 0.95)
+	 */
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return standard error of the estimated union area
+	 */
+	public double getStandardError(int plant) {
+		return standardErrors[plant];
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return lower bound of the confidence interval of the union area
+	 */
+	public double getLowerBound(int plant) {
+		return Math.max(0.0, getUnionArea(plant) - halfWidths[plant]);
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return upper bound of the confidence interval of the union area
+	 */
+	public double getUpperBound(int plant) {
+		return getUnionArea(plant) + halfWidths[plant];
+	}
+	
+	/**
+	 * the half width of the confidence interval relative to the estimate.
+	 * 0 if the estimate is 0.
+	 * @param plant index of the plant
+	 * @return relative error
+	 */
+	public double getRelativeError(int plant) {
+		double union = getUnionArea(plant);
+		return (union > 0.0) ? halfWidths[plant] / union : 0.0;
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return number of sample points
+	 */
+	public long getSampleCount(int plant) {
+		return samples[plant];
+	}
+}
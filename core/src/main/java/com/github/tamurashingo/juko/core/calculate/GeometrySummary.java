@@ -0,0 +1,193 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * geometric metrics of a plant.
+ * <p>
+ * only the metrics which are calculated are available.
+ * the getter of a metric which is not calculated throws {@code IllegalStateException}.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class GeometrySummary {
+	
+	/**
+	 * @author tamura shingo
+	 *
+	 */
+	public static enum Metric {
+		/** area projected to the XY plane */
+		PROJECTED_AREA,
+		/** 3D surface area */
+		SURFACE_AREA,
+		/** axis aligned bounding box */
+		BOUNDS,
+		/** centroid of the surface */
+		CENTROID,
+		/** mean inclination angle of the triangles */
+		INCLINATION,
+		/** distribution of the inclination angles */
+		INCLINATION_DISTRIBUTION,
+	}
+	
+	/** calculated metrics */
+	private final Set<Metric> metrics;
+	
+	/** number of triangles */
+	private final int triangleCount;
+	
+	private final double projectedArea;
+	private final double surfaceArea;
+	/** {@code minX, minY, minZ, maxX, maxY, maxZ} */
+	private final double[] bounds;
+	/** {@code X, Y, Z} */
+	private final double[] centroid;
+	private final double meanInclination;
+	private final double[] inclinationDistribution;
+	
+	
+	/**
+	 * create a summary.
+	 * the values of the metrics which are not calculated are ignored.
+	 * 
+	 * @param metrics calculated metrics
+	 * @param triangleCount number of triangles
+	 * @param projectedArea area projected to the XY plane
+	 * @param surfaceArea 3D surface area
+	 * @param bounds bounding box. {@code minX, minY, minZ, maxX, maxY, maxZ}
+	 * @param centroid centroid of the surface. {@code X, Y, Z}
+	 * @param meanInclination mean inclination angle (radian)
+	 * @param inclinationDistribution ratio of the surface area in each range of the inclination angle
+	 */
+	public GeometrySummary(Set<Metric> metrics, int triangleCount,
+			double projectedArea, double surfaceArea, double[] bounds, double[] centroid,
+			double meanInclination, double[] inclinationDistribution) {
+		this.metrics = Collections.unmodifiableSet(metrics.isEmpty()
+				? EnumSet.noneOf(Metric.class) : EnumSet.copyOf(metrics));
+		this.triangleCount = triangleCount;
+		this.projectedArea = projectedArea;
+		this.surfaceArea = surfaceArea;
+		this.bounds = bounds;
+		this.centroid = centroid;
+		this.meanInclination = meanInclination;
+		this.inclinationDistribution = inclinationDistribution;
+	}
+	
+	
+	/**
+	 * @return calculated metrics
+	 */
+	public Set<Metric> getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * @param metric metric
+	 * @return true if the metric is calculated
+	 */
+	public boolean has(Metric metric) {
+		return metrics.contains(metric);
+	}
+	
+	/**
+	 * @return the number of triangles
+	 */
+	public int getTriangleCount() {
+		return triangleCount;
+	}
+	
+	/**
+	 * @return the area projected to the XY plane, out of consideration of overlap
+	 */
+	public double getProjectedArea() {
+		check(Metric.PROJECTED_AREA);
+		return projectedArea;
+	}
+	
+	/**
+	 * @return the 3D surface area
+	 */
+	public double getSurfaceArea() {
+		check(Metric.SURFACE_AREA);
+		return surfaceArea;
+	}
+	
+	/**
+	 * returns the bounding box.
+	 * all values are NaN if the plant has no triangle.
+	 * @return {@code minX, minY, minZ, maxX, maxY, maxZ}
+	 */
+	public double[] getBounds() {
+		check(Metric.BOUNDS);
+		return bounds.clone();
+	}
+	
+	/**
+	 * returns the centroid of the surface, which is weighted by the area of the triangles.
+	 * all values are NaN if the plant has no area.
+	 * @return {@code X, Y, Z}
+	 */
+	public double[] getCentroid() {
+		check(Metric.CENTROID);
+		return centroid.clone();
+	}
+	
+	/**
+	 * returns the mean inclination angle, which is weighted by the area of the triangles.
+	 * the inclination angle is the angle between the triangle and the XY plane (0 - PI/2).
+	 * NaN if the plant has no area.
+	 * @return mean inclination angle (radian)
+	 */
+	public double getMeanInclination() {
+		check(Metric.INCLINATION);
+		return meanInclination;
+	}
+	
+	/**
+	 * returns the distribution of the inclination angles.
+	 * the entry {@code k} is the ratio of the surface area whose inclination angle is
+	 * in [k, k + 1) * (PI/2) / length. the sum is 1, or 0 if the plant has no area.
+	 * @return ratio of the surface area in each range
+	 */
+	public double[] getInclinationDistribution() {
+		check(Metric.INCLINATION_DISTRIBUTION);
+		return inclinationDistribution.clone();
+	}
+	
+	
+	private void check(Metric metric) {
+		if (!metrics.contains(metric)) {
+			throw new IllegalStateException(metric + " is not calculated");
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate;
+
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+
+/**
+ * the result of a raster calculator.
+ * <p>
+ * the area of each triangle is its visible area from above,
+ * and the total area of each plant is the covered area.
+ * so {@link #getTotalArea(int)} is the sum of {@link #getAreas(int)}.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class RasterAreaResult extends AreaResult {
+	
+	/** coverage grid of each plant */
+	private final RasterCoverage[] coverages;
+	
+	
+	/**
+	 * create a result.
+	 * @param plants calculated plants
+	 * @param areas visible area of each triangle. {@code areas[plant][triangle]}
+	 * @param covered covered area of each plant
+	 * @param coverages coverage grid of each plant
+	 */
+	public RasterAreaResult(List<? extends Plant> plants, double[][] areas, double[] covered,
+			RasterCoverage[] coverages) {
+		super(plants, areas, covered);
+		if (coverages.length != areas.length) {
+			throw new IllegalArgumentException("size mismatch");
+		}
+		this.coverages = coverages;
+	}
+	
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the covered area. same as {@link #getTotalArea(int)}
+	 */
+	public double getCoveredArea(int plant) {
+		return getTotalArea(plant);
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the coverage grid
+	 */
+	public RasterCoverage getCoverage(int plant) {
+		return coverages[plant];
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the number of pixels of each depth
+	 * @see RasterCoverage#getDepthHistogram()
+	 */
+	public long[] getDepthHistogram(int plant) {
+		return coverages[plant].getDepthHistogram();
+	}
+}
@@ -0,0 +1,166 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate;
+
+/**
+ * the coverage grid of a plant projected to the XY plane.
+ * <p>
+ * the pixel ({@code column}, {@code row}) is the square from
+ * ({@code minX + column * pixelSize}, {@code minY + row * pixelSize})
+ * to ({@code minX + (column + 1) * pixelSize}, {@code minY + (row + 1) * pixelSize}),
+ * and it is covered by a triangle if its center is in the triangle.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class RasterCoverage {
+	
+	private final double minX;
+	private final double minY;
+	private final double pixelSize;
+	private final int width;
+	private final int height;
+	
+	/** top triangle of each pixel. {@code top[row * width + column]} */
+	private final int[] top;
+	
+	/** number of pixels of each depth */
+	private final long[] histogram;
+	
+	
+	/**
+	 * create a coverage grid.
+	 * @param minX lower bound of X
+	 * @param minY lower bound of Y
+	 * @param pixelSize length of a side of a pixel
+	 * @param width number of pixels along X
+	 * @param height number of pixels along Y
+	 * @param top top triangle of each pixel, -1 if not covered. null if not kept
+	 * @param histogram number of pixels of each depth
+	 */
+	public RasterCoverage(double minX, double minY, double pixelSize, int width, int height,
+			int[] top, long[] histogram) {
+		this.minX = minX;
+		this.minY = minY;
+		this.pixelSize = pixelSize;
+		this.width = width;
+		this.height = height;
+		this.top = top;
+		this.histogram = histogram;
+	}
+	
+	
+	/**
+	 * @return lower bound of X
+	 */
+	public double getMinX() {
+		return minX;
+	}
+	
+	/**
+	 * @return lower bound of Y
+	 */
+	public double getMinY() {
+		return minY;
+	}
+	
+	/**
+	 * @return length of a side of a pixel
+	 */
+	public double getPixelSize() {
+		return pixelSize;
+	}
+	
+	/**
+	 * @return number of pixels along X
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * @return number of pixels along Y
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * @return true if the top triangles are kept
+	 */
+	public boolean hasTopTriangles() {
+		return top != null;
+	}
+	
+	/**
+	 * returns the triangle which has the highest Z at the center of the pixel.
+	 * @param column column of the pixel
+	 * @param row row of the pixel
+	 * @return index of the triangle, or -1 if the pixel is not covered
+	 * @throws IllegalStateException if the top triangles are not kept
+	 */
+	public int getTopTriangle(int column, int row) {
+		if (top == null) {
+			throw new IllegalStateException("top triangles are not kept");
+		}
+		if (column < 0 || column >= width || row < 0 || row >= height) {
+			throw new IndexOutOfBoundsException("column:" + column + ", row:" + row);
+		}
+		return top[row * width + column];
+	}
+	
+	/**
+	 * returns the top triangle of each pixel.
+	 * the array is not copied, so it must not be changed.
+	 * @return {@code top[row * width + column]}, or null if not kept
+	 */
+	public int[] getTopTriangles() {
+		return top;
+	}
+	
+	/**
+	 * returns the number of pixels of each depth.
+	 * {@code histogram[d]} is the number of pixels which are covered by {@code d} triangles,
+	 * and the last entry counts the deeper pixels too.
+	 * the array is not copied, so it must not be changed.
+	 * @return histogram
+	 */
+	public long[] getDepthHistogram() {
+		return histogram;
+	}
+	
+	/**
+	 * @return the number of covered pixels
+	 */
+	public long getCoveredPixels() {
+		long covered = 0;
+		for (int d = 1; d < histogram.length; d++) {
+			covered += histogram[d];
+		}
+		return covered;
+	}
+}
@@ -0,0 +1,113 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate;
+
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+
+/**
+ * the result of a calculator which casts shadows.
+ * <p>
+ * the area of each triangle is its sunlit area, projected to the plane perpendicular to the light.
+ * the triangles of {@code SHIELD} plants have no area.
+ * {@link #getProjectedArea(int)} is the area of the same triangles without shadows.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class ShadingAreaResult extends AreaResult {
+	
+	/** projected area of each plant without shadows */
+	private final double[] projected;
+	
+	
+	/**
+	 * create a result.
+	 * @param plants calculated plants
+	 * @param areas sunlit area of each triangle. {@code areas[plant][triangle]}
+	 * @param projected projected area of each plant without shadows
+	 */
+	public ShadingAreaResult(List<? extends Plant> plants, double[][] areas, double[] projected) {
+		super(plants, areas);
+		if (projected.length != areas.length) {
+			throw new IllegalArgumentException("size mismatch");
+		}
+		this.projected = projected;
+	}
+	
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the sunlit area. same as {@link #getTotalArea(int)}
+	 */
+	public double getSunlitArea(int plant) {
+		return getTotalArea(plant);
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the projected area without shadows
+	 */
+	public double getProjectedArea(int plant) {
+		return projected[plant];
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the area in shadow
+	 */
+	public double getShadedArea(int plant) {
+		return Math.max(0.0, getProjectedArea(plant) - getSunlitArea(plant));
+	}
+	
+	/**
+	 * the ratio of the sunlit area.
+	 * {@code sunlit / projected}. 0 if the plant has no area.
+	 * @param plant index of the plant
+	 * @return sunlit ratio (0 &lt;= ratio &lt;= 1)
+	 */
+	public double getSunlitRatio(int plant) {
+		return ratio(getSunlitArea(plant), getProjectedArea(plant));
+	}
+	
+	/**
+	 * the ratio of the sunlit area of all plants.
+	 * @return sunlit ratio (0 &lt;= ratio &lt;= 1)
+	 */
+	public double getSunlitRatio() {
+		return ratio(getTotalArea(), sum(projected));
+	}
+	
+	
+	private static double ratio(double sunlit, double projected) {
+		if (projected <= 0.0) {
+			return 0.0;
+		}
+		return Math.min(1.0, sunlit / projected);
+	}
+}
@@ -0,0 +1,106 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate;
+
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+
+/**
+ * the result of a calculator which excludes overlap.
+ * <p>
+ * the area of each triangle is its own projected area,
+ * and the total area of each plant is the area of the union of its triangles.
+ * so {@link #getTotalArea(int)} is not the sum of {@link #getAreas(int)}.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class UnionAreaResult extends AreaResult {
+	
+	/** sum of the triangle areas of each plant */
+	private final double[] included;
+	
+	
+	/**
+	 * create a result.
+	 * @param plants calculated plants
+	 * @param areas projected area of each triangle. {@code areas[plant][triangle]}
+	 * @param unions union area of each plant
+	 */
+	public UnionAreaResult(List<? extends Plant> plants, double[][] areas, double[] unions) {
+		super(plants, areas, unions);
+		this.included = new double[areas.length];
+		for (int ix = 0; ix < areas.length; ix++) {
+			included[ix] = sum(areas[ix]);
+		}
+	}
+	
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the area of the union of the triangles. same as {@link #getTotalArea(int)}
+	 */
+	public double getUnionArea(int plant) {
+		return getTotalArea(plant);
+	}
+	
+	/**
+	 * @param plant index of the plant
+	 * @return the sum of the triangle areas, which counts overlap twice
+	 */
+	public double getIncludedArea(int plant) {
+		return included[plant];
+	}
+	
+	/**
+	 * the ratio of the overlapped area.
+	 * {@code 1 - union / included}. 0 if the plant has no area.
+	 * @param plant index of the plant
+	 * @return overlap ratio (0 &lt;= ratio &lt; 1)
+	 */
+	public double getOverlapRatio(int plant) {
+		return ratio(getUnionArea(plant), getIncludedArea(plant));
+	}
+	
+	/**
+	 * the ratio of the overlapped area of all plants.
+	 * overlap among plants is not considered.
+	 * @return overlap ratio (0 &lt;= ratio &lt; 1)
+	 */
+	public double getOverlapRatio() {
+		return ratio(getTotalArea(), sum(included));
+	}
+	
+	
+	private static double ratio(double union, double included) {
+		if (included <= 0.0) {
+			return 0.0;
+		}
+		return Math.max(0.0, 1.0 - union / included);
+	}
+}
@@ -0,0 +1,358 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate.impl;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.tamurashingo.juko.core.bean.PlantInstance;
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.AbstractCalc;
+import com.github.tamurashingo.juko.core.calculate.UnionAreaResult;
+
+/**
+ * Calculate an area of plants, in consideration of overlap among triangles of each plant.
+ * <p>
+ * the total area of a plant is the exact area of the union of its triangles projected to the XY plane.
+ * the area of each triangle is its own projected area, same as {@link CalcIncludeOverlap}.
+ * overlap among plants is not considered.
+ * </p>
+ * <p>
+ * the union area is computed from its boundary (Green's theorem).
+ * every triangle is oriented counterclockwise, and each edge contributes
+ * 1/2|P_{x}D_{y} - P_{y}D_{x}| for the parts which are not covered by other triangles.
+ * the triangles which may cover an edge are found from a uniform grid,
+ * so the cost is proportional to the number of triangles and the overlaps near each edge.
+ * when edges of two triangles lie on the same line with the same direction,
+ * only the one of the smaller index is counted.
+ * </p>
+ * <p>
+ * if the transform of a {@link PlantInstance} keeps the ratio of the projected area,
+ * the union of the prototype is calculated once and scaled.
+ * otherwise the transformed copy of the instance is calculated.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class CalcExcludeOverlap extends AbstractCalc {
+	
+	/** size of a cell of the grid relative to the triangles */
+	private static final double GRID_SCALE = 1.0;
+	
+	@Override
+	public UnionAreaResult calcArea(List<? extends Plant> plants) {
+		double[][] areas = new double[plants.size()][];
+		double[] unions = new double[plants.size()];
+		Map<PlantObject, double[]> prototypeAreas = new IdentityHashMap<>();
+		Map<PlantObject, Double> prototypeUnions = new IdentityHashMap<>();
+		int ix = 0;
+		for (Plant plant: plants) {
+			if (plant instanceof PlantInstance
+					&& !Double.isNaN(((PlantInstance)plant).getProjectedAreaScale())) {
+				PlantInstance instance = (PlantInstance)plant;
+				PlantObject prototype = instance.getPrototype();
+				Double union = prototypeUnions.get(prototype);
+				if (union == null) {
+					TriangleMesh mesh = prototype.getMesh();
+					union = new Union(mesh).area(0, mesh.size());
+					prototypeUnions.put(prototype, union);
+				}
+				areas[ix] = CalcIncludeOverlap.calc(instance, prototypeAreas);
+				unions[ix] = union * instance.getProjectedAreaScale();
+				ix++;
+				continue;
+			}
+			TriangleMesh mesh = plant.getMesh();
+			areas[ix] = new double[mesh.size()];
+			CalcIncludeOverlap.calc(mesh.getXColumn(), mesh.getYColumn(), areas[ix], 0, mesh.size());
+			unions[ix] = new Union(mesh).area(0, mesh.size());
+			ix++;
+		}
+		return new UnionAreaResult(plants, areas, unions);
+	}
+	
+	
+	/**
+	 * union of the triangles of a mesh.
+	 * an instance has work areas, so it should be used by one thread.
+	 */
+	static class Union {
+		
+		/** number of triangles */
+		private final int size;
+		/** X column, counterclockwise and moved near the origin */
+		private final double[] x;
+		/** Y column, counterclockwise and moved near the origin */
+		private final double[] y;
+		/** false if the triangle has no area */
+		private final boolean[] valid;
+		/** grid of the valid triangles */
+		private final TriangleGrid grid;
+		
+		/** the triangle has been tested for the current edge if {@code mark[t] == stamp} */
+		private final int[] mark;
+		private int stamp = 0;
+		
+		/** covered intervals of the current edge */
+		private double[] lo = new double[16];
+		private double[] hi = new double[16];
+		private int count;
+		
+		
+		/**
+		 * prepare the triangles.
+		 * @param mesh triangles
+		 */
+		Union(TriangleMesh mesh) {
+			this(mesh.getXColumn(), mesh.getYColumn(), mesh.size());
+		}
+		
+		/**
+		 * prepare the triangles.
+		 * @param srcX X column
+		 * @param srcY Y column
+		 * @param size number of triangles
+		 */
+		Union(double[] srcX, double[] srcY, int size) {
+			this.size = size;
+			this.x = new double[size * 3];
+			this.y = new double[size * 3];
+			this.valid = new boolean[size];
+			this.mark = new int[size];
+			
+			// nearby triangles are stored close together, so the candidates are in the cache.
+			// the order does not change the union.
+			int[] order = spatialOrder(srcX, srcY, size);
+			
+			// coordinates near the origin lose less precision in the cross products
+			double refX = (size > 0) ? srcX[0] : 0.0;
+			double refY = (size > 0) ? srcY[0] : 0.0;
+			for (int t = 0; t < size; t++) {
+				int i = t * 3;
+				int k = order[t] * 3;
+				double x0 = srcX[k] - refX, y0 = srcY[k] - refY;
+				double x1 = srcX[k + 1] - refX, y1 = srcY[k + 1] - refY;
+				double x2 = srcX[k + 2] - refX, y2 = srcY[k + 2] - refY;
+				double cross = (x1 - x0) * (y2 - y0) - (y1 - y0) * (x2 - x0);
+				valid[t] = (cross != 0.0);
+				x[i] = x0;
+				y[i] = y0;
+				if (cross >= 0.0) {
+					x[i + 1] = x1; y[i + 1] = y1;
+					x[i + 2] = x2; y[i + 2] = y2;
+				}
+				else {
+					x[i + 1] = x2; y[i + 1] = y2;
+					x[i + 2] = x1; y[i + 2] = y1;
+				}
+			}
+			this.grid = TriangleGrid.create(x, y, valid, size, GRID_SCALE);
+		}
+		
+		
+		/**
+		 * sort the triangles by the cell of the first vertex.
+		 * @return indexes of the triangles in the sorted order
+		 */
+		private static int[] spatialOrder(double[] srcX, double[] srcY, int size) {
+			TriangleGrid cells = TriangleGrid.create(srcX, srcY, null, size, GRID_SCALE);
+			int[] key = new int[size];
+			int[] first = new int[cells.nx * cells.ny + 1];
+			for (int t = 0; t < size; t++) {
+				key[t] = cells.cellY(srcY[t * 3]) * cells.nx + cells.cellX(srcX[t * 3]);
+				first[key[t] + 1]++;
+			}
+			for (int c = 0; c < cells.nx * cells.ny; c++) {
+				first[c + 1] += first[c];
+			}
+			int[] order = new int[size];
+			for (int t = 0; t < size; t++) {
+				order[first[key[t]]++] = t;
+			}
+			return order;
+		}
+		
+		
+		/**
+		 * sum the boundary of the union on the edges of the triangles in the range.
+		 * the sum of all triangles is the union area.
+		 * 
+		 * @param from first triangle (inclusive)
+		 * @param to last triangle (exclusive)
+		 * @return partial area
+		 */
+		double area(int from, int to) {
+			double sum = 0.0;
+			for (int t = from; t < to; t++) {
+				if (!valid[t]) {
+					continue;
+				}
+				int i = t * 3;
+				for (int j = 0; j < 3; j++) {
+					int a = i + j;
+					int b = i + (j + 1) % 3;
+					double dx = x[b] - x[a];
+					double dy = y[b] - y[a];
+					double kept = 1.0 - covered(t, x[a], y[a], dx, dy);
+					if (kept > 0.0) {
+						sum += kept * (x[a] * dy - y[a] * dx) / 2.0;
+					}
+				}
+			}
+			return sum;
+		}
+		
+		
+		/**
+		 * compute the covered length of an edge.
+		 * 
+		 * @param t triangle of the edge
+		 * @param ax start of the edge
+		 * @param ay start of the edge
+		 * @param dx direction of the edge
+		 * @param dy direction of the edge
+		 * @return covered length (0 to 1) as the ratio of the edge
+		 */
+		private double covered(int t, double ax, double ay, double dx, double dy) {
+			if (++stamp == 0) {
+				Arrays.fill(mark, 0);
+				stamp = 1;
+			}
+			mark[t] = stamp;
+			count = 0;
+			
+			int cx0 = grid.cellX(Math.min(ax, ax + dx));
+			int cx1 = grid.cellX(Math.max(ax, ax + dx));
+			int cy0 = grid.cellY(Math.min(ay, ay + dy));
+			int cy1 = grid.cellY(Math.max(ay, ay + dy));
+			for (int cy = cy0; cy <= cy1; cy++) {
+				for (int cx = cx0; cx <= cx1; cx++) {
+					int c = cy * grid.nx + cx;
+					for (int k = grid.start[c]; k < grid.start[c + 1]; k++) {
+						int u = grid.items[k];
+						if (mark[u] != stamp) {
+							mark[u] = stamp;
+							clip(t, u, ax, ay, dx, dy);
+						}
+					}
+				}
+			}
+			return merge();
+		}
+		
+		/**
+		 * add the interval of the edge which is in the triangle {@code u}.
+		 */
+		private void clip(int t, int u, double ax, double ay, double dx, double dy) {
+			double s0 = 0.0;
+			double s1 = 1.0;
+			int i = u * 3;
+			for (int j = 0; j < 3; j++) {
+				double px = x[i + j];
+				double py = y[i + j];
+				double ex = x[i + (j + 1) % 3] - px;
+				double ey = y[i + (j + 1) % 3] - py;
+				// inside if a + b * s > 0
+				double a = ex * (ay - py) - ey * (ax - px);
+				double b = ex * dy - ey * dx;
+				if (b == 0.0) {
+					if (a == 0.0) {
+						collinear(t, u, ax, ay, dx, dy, px, py, ex, ey);
+						return;
+					}
+					if (a < 0.0) {
+						return;
+					}
+				}
+				else if (b > 0.0) {
+					s0 = Math.max(s0, -a / b);
+				}
+				else {
+					s1 = Math.min(s1, -a / b);
+				}
+			}
+			if (s0 < s1) {
+				add(s0, s1);
+			}
+		}
+		
+		/**
+		 * the edge lies on the line of an edge of {@code u}.
+		 * if both have the same direction, the common part is counted by the smaller index.
+		 */
+		private void collinear(int t, int u, double ax, double ay, double dx, double dy,
+				double px, double py, double ex, double ey) {
+			if (u > t || ex * dx + ey * dy <= 0.0) {
+				return;
+			}
+			double len2 = dx * dx + dy * dy;
+			double sp = ((px - ax) * dx + (py - ay) * dy) / len2;
+			double sq = ((px + ex - ax) * dx + (py + ey - ay) * dy) / len2;
+			double s0 = Math.max(0.0, Math.min(sp, sq));
+			double s1 = Math.min(1.0, Math.max(sp, sq));
+			if (s0 < s1) {
+				add(s0, s1);
+			}
+		}
+		
+		private void add(double s0, double s1) {
+			if (count == lo.length) {
+				lo = Arrays.copyOf(lo, count * 2);
+				hi = Arrays.copyOf(hi, count * 2);
+			}
+			// insertion sort by the start
+			int ix = count++;
+			while (ix > 0 && lo[ix - 1] > s0) {
+				lo[ix] = lo[ix - 1];
+				hi[ix] = hi[ix - 1];
+				ix--;
+			}
+			lo[ix] = s0;
+			hi[ix] = s1;
+		}
+		
+		/**
+		 * @return the length of the union of the intervals
+		 */
+		private double merge() {
+			double total = 0.0;
+			double end = 0.0;
+			for (int ix = 0; ix < count; ix++) {
+				double s0 = Math.max(lo[ix], end);
+				if (hi[ix] > s0) {
+					total += hi[ix] - s0;
+					end = hi[ix];
+				}
+			}
+			return total;
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.GeometrySummary;
+import com.github.tamurashingo.juko.core.calculate.GeometrySummary.Metric;
+
+/**
+ * Calculate geometric metrics of plants in one pass over the triangles.
+ * <p>
+ * the metrics are selected by {@link Metric}, and the work of the other metrics is skipped.
+ * all selected metrics are accumulated in one loop over the columns of the mesh,
+ * so each vertex is read once, and no {@code Triangle} is created.
+ * </p>
+ * <p>
+ * example.
+ * </p>
+ * <p>
+ * <code><pre>
+ * CalcGeometrySummary calc = new CalcGeometrySummary(Metric.SURFACE_AREA, Metric.INCLINATION);
+ * GeometrySummary summary = calc.calc(plant);
+ * double angle = summary.getMeanInclination();
+ * </pre></code>
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class CalcGeometrySummary {
+	
+	/** default number of ranges of the inclination distribution (10 degrees each) */
+	public static final int DEFAULT_INCLINATION_BINS = 9;
+	
+	/** selected metrics */
+	private final Set<Metric> metrics;
+	
+	/** number of ranges of the inclination distribution */
+	private int inclinationBins = DEFAULT_INCLINATION_BINS;
+	
+	
+	/**
+	 * create a calculator for all metrics.
+	 */
+	public CalcGeometrySummary() {
+		this(EnumSet.allOf(Metric.class));
+	}
+	
+	/**
+	 * create a calculator for the metrics.
+	 * @param first metric
+	 * @param rest other metrics
+	 */
+	public CalcGeometrySummary(Metric first, Metric... rest) {
+		this(EnumSet.of(first, rest));
+	}
+	
+	/**
+	 * create a calculator for the metrics.
+	 * @param metrics metrics
+	 */
+	public CalcGeometrySummary(Set<Metric> metrics) {
+		this.metrics = metrics.isEmpty() ? EnumSet.noneOf(Metric.class) : EnumSet.copyOf(metrics);
+	}
+	
+	
+	/**
+	 * @return number of ranges of the inclination distribution
+	 */
+	public int getInclinationBins() {
+		return inclinationBins;
+	}
+	
+	/**
+	 * @param inclinationBins number of ranges of the inclination distribution
+	 */
+	public void setInclinationBins(int inclinationBins) {
+		if (inclinationBins < 1) {
+			throw new IllegalArgumentException("inclinationBins:" + inclinationBins);
+		}
+		this.inclinationBins = inclinationBins;
+	}
+	
+	
+	/**
+	 * calculate the metrics of the plants.
+	 * @param plants plants
+	 * @return summary of each plant
+	 */
+	public List<GeometrySummary> calc(List<? extends Plant> plants) {
+		List<GeometrySummary> list = new ArrayList<>(plants.size());
+		for (Plant plant: plants) {
+			list.add(calc(plant));
+		}
+		return list;
+	}
+	
+	/**
+	 * calculate the metrics of the plant.
+	 * @param plant plant
+	 * @return summary
+	 */
+	public GeometrySummary calc(Plant plant) {
+		TriangleMesh mesh = plant.getMesh();
+		double[] x = mesh.getXColumn();
+		double[] y = mesh.getYColumn();
+		double[] z = mesh.getZColumn();
+		int size = mesh.size();
+		
+		boolean projected = metrics.contains(Metric.PROJECTED_AREA);
+		boolean bounding = metrics.contains(Metric.BOUNDS);
+		boolean centroid = metrics.contains(Metric.CENTROID);
+		boolean inclination = metrics.contains(Metric.INCLINATION);
+		boolean distribution = metrics.contains(Metric.INCLINATION_DISTRIBUTION);
+		// the surface area is the weight of the others
+		boolean surface = metrics.contains(Metric.SURFACE_AREA) || centroid || inclination || distribution;
+		boolean angle = inclination || distribution;
+		int bins = inclinationBins;
+		double binScale = bins / (Math.PI / 2);
+		
+		double projectedSum = 0.0;
+		double surfaceSum = 0.0;
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		double cx = 0.0, cy = 0.0, cz = 0.0;
+		double angleSum = 0.0;
+		double[] histogram = distribution ? new double[bins] : null;
+		
+		for (int i = 0, end = size * 3; i < end; i += 3) {
+			double ax = x[i], ay = y[i], az = z[i];
+			double bx = x[i + 1], by = y[i + 1], bz = z[i + 1];
+			double qx = x[i + 2], qy = y[i + 2], qz = z[i + 2];
+			
+			if (bounding) {
+				minX = Math.min(minX, Math.min(ax, Math.min(bx, qx)));
+				minY = Math.min(minY, Math.min(ay, Math.min(by, qy)));
+				minZ = Math.min(minZ, Math.min(az, Math.min(bz, qz)));
+				maxX = Math.max(maxX, Math.max(ax, Math.max(bx, qx)));
+				maxY = Math.max(maxY, Math.max(ay, Math.max(by, qy)));
+				maxZ = Math.max(maxZ, Math.max(az, Math.max(bz, qz)));
+			}
+			if (!projected && !surface) {
+				continue;
+			}
+			
+			// N = AB x AC
+			double abx = bx - ax, aby = by - ay, abz = bz - az;
+			double acx = qx - ax, acy = qy - ay, acz = qz - az;
+			double nz = abx * acy - aby * acx;
+			if (projected) {
+				projectedSum += Math.abs(nz) / 2.0;
+			}
+			if (!surface) {
+				continue;
+			}
+			double nx = aby * acz - abz * acy;
+			double ny = abz * acx - abx * acz;
+			double horizontal = Math.sqrt(nx * nx + ny * ny);
+			double area = Math.sqrt(nx * nx + ny * ny + nz * nz) / 2.0;
+			surfaceSum += area;
+			if (centroid) {
+				cx += area * (ax + bx + qx);
+				cy += area * (ay + by + qy);
+				cz += area * (az + bz + qz);
+			}
+			if (angle) {
+				// the angle between the normal and the Z axis
+				double theta = Math.atan2(horizontal, Math.abs(nz));
+				angleSum += area * theta;
+				if (distribution) {
+					histogram[Math.min(bins - 1, (int)(theta * binScale))] += area;
+				}
+			}
+		}
+		
+		double[] bounds = null;
+		if (bounding) {
+			bounds = (size == 0) ? nan(6) : new double[]{ minX, minY, minZ, maxX, maxY, maxZ };
+		}
+		double[] center = null;
+		if (centroid) {
+			center = (surfaceSum > 0.0)
+					? new double[]{ cx / surfaceSum / 3, cy / surfaceSum / 3, cz / surfaceSum / 3 }
+					: nan(3);
+		}
+		if (distribution && surfaceSum > 0.0) {
+			for (int k = 0; k < bins; k++) {
+				histogram[k] /= surfaceSum;
+			}
+		}
+		double meanAngle = (surfaceSum > 0.0) ? angleSum / surfaceSum : Double.NaN;
+		return new GeometrySummary(metrics, size, projectedSum, surfaceSum, bounds, center, meanAngle, histogram);
+	}
+	
+	private static double[] nan(int length) {
+		double[] d = new double[length];
+		Arrays.fill(d, Double.NaN);
+		return d;
+	}
+}
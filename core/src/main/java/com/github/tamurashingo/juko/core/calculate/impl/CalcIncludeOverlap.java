@@ -25,54 +25,150 @@
  */
 package com.github.tamurashingo.juko.core.calculate.impl;
 
-import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.PlantInstance;
+import com.github.tamurashingo.juko.core.bean.Plant;
 import com.github.tamurashingo.juko.core.bean.PlantObject;
-import com.github.tamurashingo.juko.core.bean.Triangle;
-import com.github.tamurashingo.juko.core.calculate.CalcIF;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.AbstractCalc;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
 
 /**
  * Calculate an area of plants, out of consideration of overlap among each objects.
  * 
  * 1/2|{A_{x}B_{y} - A_{y}B_{x}|
  * 
+ * <p>
+ * {@link PlantInstance} is calculated from its prototype without the transformed copy.
+ * if the transform keeps the ratio of the projected area, the area of the prototype
+ * is calculated once and scaled, otherwise the transform is evaluated for each triangle.
+ * </p>
+ * 
  * @author tamura shingo
  *
  */
-public class CalcIncludeOverlap implements CalcIF {
+public class CalcIncludeOverlap extends AbstractCalc {
 
 	@Override
-	public List<PlantObject> calc(List<PlantObject> plants) {
-		List<PlantObject> list = new ArrayList<>(plants.size());
-		for (PlantObject plant: plants) {
-			PlantObject p = (PlantObject)plant.clone();
-			calc(p);
-			list.add(p);
+	public AreaResult calcArea(List<? extends Plant> plants) {
+		double[][] areas = new double[plants.size()][];
+		Map<PlantObject, double[]> prototypes = new IdentityHashMap<>();
+		int ix = 0;
+		for (Plant plant: plants) {
+			if (plant instanceof PlantInstance) {
+				areas[ix++] = calc((PlantInstance)plant, prototypes);
+			}
+			else {
+				areas[ix++] = calc(plant);
+			}
 		}
-		return list;
+		return new AreaResult(plants, areas);
 	}
 	
 
 	/**
 	 * calculate an area of triangles.
 	 * @param plant
+	 * @return area of each triangle
 	 */
-	private void calc(PlantObject plant) {
-		for (Triangle t: plant.getTriangles()) {
-			double[][] v = t.getPosition();
-			
+	private double[] calc(Plant plant) {
+		TriangleMesh mesh = plant.getMesh();
+		double[] area = new double[mesh.size()];
+		calc(mesh.getXColumn(), mesh.getYColumn(), area, 0, mesh.size());
+		return area;
+	}
+	
+	
+	/**
+	 * calculate an area of triangles of an instance.
+	 * @param plant instance
+	 * @param prototypes the area of the prototypes which are already calculated. may be null
+	 * @return area of each triangle
+	 */
+	static double[] calc(PlantInstance plant, Map<PlantObject, double[]> prototypes) {
+		TriangleMesh mesh = plant.getPrototype().getMesh();
+		double scale = plant.getProjectedAreaScale();
+		double[] area;
+		if (Double.isNaN(scale)) {
+			area = new double[mesh.size()];
+			calc(mesh.getXColumn(), mesh.getYColumn(), mesh.getZColumn(), plant.getTransform(), area, 0, mesh.size());
+			return area;
+		}
+		
+		double[] base = (prototypes == null) ? null : prototypes.get(plant.getPrototype());
+		if (base == null) {
+			base = new double[mesh.size()];
+			calc(mesh.getXColumn(), mesh.getYColumn(), base, 0, mesh.size());
+			if (prototypes != null) {
+				prototypes.put(plant.getPrototype(), base);
+			}
+		}
+		area = new double[base.length];
+		for (int t = 0; t < area.length; t++) {
+			area[t] = base[t] * scale;
+		}
+		return area;
+	}
+	
+	
+	/**
+	 * calculate an area of triangles in the range.
+	 * @param x X column
+	 * @param y Y column
+	 * @param area destination of the calculated area
+	 * @param from first triangle (inclusive)
+	 * @param to last triangle (exclusive)
+	 */
+	static void calc(double[] x, double[] y, double[] area, int from, int to) {
+		for (int t = from, i = from * 3; t < to; t++, i += 3) {
 			// AB-> = (b1-a1, b2-a2)
 			// AC-> = (c1-a1, c2-a2)
 			// S = 1/2 AB-> AC->
 			// S = 1/2 |AB_{x}AC_{y} - AB_{y}AC_{x}|
 			
-			double ABx = v[1][0] - v[0][0];
-			double ABy = v[1][1] - v[0][1];
-			double ACx = v[2][0] - v[0][0];
-			double ACy = v[2][1] - v[0][1];
+			double ABx = x[i + 1] - x[i];
+			double ABy = y[i + 1] - y[i];
+			double ACx = x[i + 2] - x[i];
+			double ACy = y[i + 2] - y[i];
+			
+			area[t] = Math.abs(ABx*ACy - ABy*ACx) / 2.0;
+		}
+	}
+	
+	
+	/**
+	 * calculate an area of transformed triangles in the range.
+	 * the translation is not needed, because only the edges are used.
+	 * @param x X column
+	 * @param y Y column
+	 * @param z Z column
+	 * @param transform the transform of the triangles
+	 * @param area destination of the calculated area
+	 * @param from first triangle (inclusive)
+	 * @param to last triangle (exclusive)
+	 */
+	static void calc(double[] x, double[] y, double[] z, Affine4 transform,
+			double[] area, int from, int to) {
+		double m00 = transform.get(0, 0), m01 = transform.get(0, 1), m02 = transform.get(0, 2);
+		double m10 = transform.get(1, 0), m11 = transform.get(1, 1), m12 = transform.get(1, 2);
+		for (int t = from, i = from * 3; t < to; t++, i += 3) {
+			double bx = x[i + 1] - x[i];
+			double by = y[i + 1] - y[i];
+			double bz = z[i + 1] - z[i];
+			double cx = x[i + 2] - x[i];
+			double cy = y[i + 2] - y[i];
+			double cz = z[i + 2] - z[i];
+			
+			double ABx = m00 * bx + m01 * by + m02 * bz;
+			double ABy = m10 * bx + m11 * by + m12 * bz;
+			double ACx = m00 * cx + m01 * cy + m02 * cz;
+			double ACy = m10 * cx + m11 * cy + m12 * cz;
 			
-			t.setCalculatedArea(Math.abs(ABx*ACy - ABy*ACx) / 2.0);
+			area[t] = Math.abs(ABx*ACy - ABy*ACx) / 2.0;
 		}
 	}
 }
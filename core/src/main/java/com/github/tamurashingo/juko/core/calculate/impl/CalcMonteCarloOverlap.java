@@ -0,0 +1,438 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate.impl;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.AbstractCalc;
+import com.github.tamurashingo.juko.core.calculate.EstimatedAreaResult;
+
+/**
+ * Estimate an area of plants by random sampling, in consideration of overlap among triangles of each plant.
+ * <p>
+ * the bounding box of a plant on the XY plane is split into {@code strata * strata} cells,
+ * and a batch takes a random point in each cell.
+ * the ratio of the points covered by any triangle, times the area of the box, is the estimate of a batch.
+ * the union area is the mean of the batches, and the confidence interval is calculated
+ * from the variance of the batches by the t distribution.
+ * </p>
+ * <p>
+ * the batches run in parallel, {@value #ROUND} batches at a time.
+ * after {@link #getMinBatches()} batches, the sampling stops at the end of a round
+ * if the half width of the confidence interval is at most {@link #getTargetRelativeError()} of the estimate.
+ * a few batches can underestimate the variance by chance and stop too early,
+ * so the minimum keeps the stopping rule from biasing the estimate.
+ * the interval is still approximate, because the number of batches depends on the samples.
+ * each batch has its own random numbers made from the seed,
+ * so the result depends only on the seed, not on the parallelism.
+ * </p>
+ * <p>
+ * the area of each triangle is its projected area, the same as {@link CalcIncludeOverlap}.
+ * overlap among plants is not considered.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class CalcMonteCarloOverlap extends AbstractCalc {
+	
+	/** default number of cells along a side of the box */
+	public static final int DEFAULT_STRATA = 32;
+	
+	/** default target of the relative error */
+	public static final double DEFAULT_TARGET_RELATIVE_ERROR = 0.01;
+	
+	/** default confidence level */
+	public static final double DEFAULT_CONFIDENCE_LEVEL = 0.95;
+	
+	/** number of batches which run at a time */
+	public static final int ROUND = 8;
+	
+	/** default smallest number of batches */
+	public static final int DEFAULT_MIN_BATCHES = 32;
+	
+	/** default largest number of batches */
+	public static final int DEFAULT_MAX_BATCHES = 4096;
+	
+	/** the pool which runs the batches */
+	private final ForkJoinPool pool;
+	
+	/** true if the pool is created by this calculator */
+	private final boolean ownPool;
+	
+	private long seed = 0L;
+	private int strata = DEFAULT_STRATA;
+	private double targetRelativeError = DEFAULT_TARGET_RELATIVE_ERROR;
+	private double confidenceLevel = DEFAULT_CONFIDENCE_LEVEL;
+	private int minBatches = DEFAULT_MIN_BATCHES;
+	private int maxBatches = DEFAULT_MAX_BATCHES;
+	
+	
+	/**
+	 * create a calculator which runs on the pool shared by the calculators.
+	 * the shared pool uses all available processors.
+	 */
+	public CalcMonteCarloOverlap() {
+		this(DefaultPool.POOL, false);
+	}
+	
+	/**
+	 * create a calculator with the specified parallelism.
+	 * the pool is created by this calculator, and is released by {@link #shutdown()}.
+	 * @param parallelism the number of worker threads
+	 */
+	public CalcMonteCarloOverlap(int parallelism) {
+		this(new ForkJoinPool(parallelism), true);
+	}
+	
+	/**
+	 * create a calculator which runs on the given pool.
+	 * @param pool fork/join pool
+	 */
+	public CalcMonteCarloOverlap(ForkJoinPool pool) {
+		this(pool, false);
+	}
+	
+	private CalcMonteCarloOverlap(ForkJoinPool pool, boolean ownPool) {
+		this.pool = pool;
+		this.ownPool = ownPool;
+	}
+	
+	
+	/**
+	 * shut down the pool if it is created by this calculator.
+	 * the shared pool and the given pool are not shut down.
+	 */
+	public void shutdown() {
+		if (ownPool) {
+			pool.shutdown();
+		}
+	}
+	
+	
+	/**
+	 * @return seed of the random numbers
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * @param seed seed of the random numbers
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * @return number of cells along a side of the box
+	 */
+	public int getStrata() {
+		return strata;
+	}
+	
+	/**
+	 * @param strata number of cells along a side of the box. a batch has {@code strata * strata} points
+	 */
+	public void setStrata(int strata) {
+		if (strata < 1) {
+			throw new IllegalArgumentException("strata:" + strata);
+		}
+		this.strata = strata;
+	}
+	
+	/**
+	 * @return target of the relative error
+	 */
+	public double getTargetRelativeError() {
+		return targetRelativeError;
+	}
+	
+	/**
+	 * @param targetRelativeError target of the half width of the confidence interval relative to the estimate
+	 */
+	public void setTargetRelativeError(double targetRelativeError) {
+		if (!(targetRelativeError > 0.0)) {
+			throw new IllegalArgumentException("targetRelativeError:" + targetRelativeError);
+		}
+		this.targetRelativeError = targetRelativeError;
+	}
+	
+	/**
+	 * @return confidence level
+	 */
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+	
+	/**
+	 * @param confidenceLevel confidence level (0 &lt; level &lt; 1)
+	 */
+	public void setConfidenceLevel(double confidenceLevel) {
+		if (!(confidenceLevel > 0.0 && confidenceLevel < 1.0)) {
+			throw new IllegalArgumentException("confidenceLevel:" + confidenceLevel);
+		}
+		this.confidenceLevel = confidenceLevel;
+	}
+	
+	/**
+	 * @return the smallest number of batches of a plant
+	 */
+	public int getMinBatches() {
+		return minBatches;
+	}
+	
+	/**
+	 * @param minBatches the smallest number of batches of a plant
+	 * before the target is tested. at most {@link #getMaxBatches()} batches run
+	 */
+	public void setMinBatches(int minBatches) {
+		if (minBatches < 2) {
+			throw new IllegalArgumentException("minBatches:" + minBatches);
+		}
+		this.minBatches = minBatches;
+	}
+	
+	/**
+	 * @return the largest number of batches of a plant
+	 */
+	public int getMaxBatches() {
+		return maxBatches;
+	}
+	
+	/**
+	 * @param maxBatches the largest number of batches of a plant.
+	 * the sampling stops even if the target is not reached
+	 */
+	public void setMaxBatches(int maxBatches) {
+		if (maxBatches < ROUND) {
+			throw new IllegalArgumentException("maxBatches:" + maxBatches);
+		}
+		this.maxBatches = maxBatches;
+	}
+	
+	
+	@Override
+	public EstimatedAreaResult calcArea(List<? extends Plant> plants) {
+		int n = plants.size();
+		double[][] areas = new double[n][];
+		double[] unions = new double[n];
+		double[] errors = new double[n];
+		double[] halfWidths = new double[n];
+		long[] samples = new long[n];
+		
+		int ix = 0;
+		for (Plant plant: plants) {
+			TriangleMesh mesh = plant.getMesh();
+			areas[ix] = new double[mesh.size()];
+			CalcIncludeOverlap.calc(mesh.getXColumn(), mesh.getYColumn(), areas[ix], 0, mesh.size());
+			
+			Sampler sampler = new Sampler(mesh, areas[ix], ix);
+			if (sampler.boxArea > 0.0) {
+				double[] estimate = sampler.run();
+				unions[ix] = estimate[0];
+				errors[ix] = estimate[1];
+				halfWidths[ix] = estimate[2];
+				samples[ix] = (long)estimate[3] * strata * strata;
+			}
+			ix++;
+		}
+		return new EstimatedAreaResult(plants, areas, unions, errors, halfWidths, samples, confidenceLevel);
+	}
+	
+	
+	/**
+	 * samples the points of a plant.
+	 */
+	private class Sampler {
+		
+		private final double[] x;
+		private final double[] y;
+		private final TriangleGrid grid;
+		private final int plant;
+		
+		private final double minX;
+		private final double minY;
+		private final double width;
+		private final double height;
+		private final double boxArea;
+		
+		Sampler(TriangleMesh mesh, double[] area, int plant) {
+			this.x = mesh.getXColumn();
+			this.y = mesh.getYColumn();
+			this.plant = plant;
+			
+			// triangles without area cover no point
+			int size = mesh.size();
+			boolean[] valid = new boolean[size];
+			double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+			double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+			for (int t = 0; t < size; t++) {
+				if (area[t] > 0.0) {
+					valid[t] = true;
+					int i = t * 3;
+					x0 = Math.min(x0, Math.min(x[i], Math.min(x[i + 1], x[i + 2])));
+					x1 = Math.max(x1, Math.max(x[i], Math.max(x[i + 1], x[i + 2])));
+					y0 = Math.min(y0, Math.min(y[i], Math.min(y[i + 1], y[i + 2])));
+					y1 = Math.max(y1, Math.max(y[i], Math.max(y[i + 1], y[i + 2])));
+				}
+			}
+			this.minX = x0;
+			this.minY = y0;
+			this.width = x1 - x0;
+			this.height = y1 - y0;
+			this.boxArea = (x1 > x0 && y1 > y0) ? width * height : 0.0;
+			this.grid = (boxArea > 0.0) ? TriangleGrid.create(x, y, valid, size, 1.0) : null;
+		}
+		
+		/**
+		 * run rounds of batches until the minimum number of batches is run and the target is reached.
+		 * @return {mean, standard error, half width, number of batches}
+		 */
+		double[] run() {
+			double[] estimates = new double[maxBatches];
+			int batches = 0;
+			double mean = 0.0;
+			double error = 0.0;
+			double halfWidth = 0.0;
+			while (batches < maxBatches) {
+				int next = Math.min(maxBatches, batches + ROUND);
+				pool.invoke(new BatchTask(this, estimates, batches, next));
+				batches = next;
+				
+				double sum = 0.0;
+				for (int b = 0; b < batches; b++) {
+					sum += estimates[b];
+				}
+				mean = sum / batches;
+				double sq = 0.0;
+				for (int b = 0; b < batches; b++) {
+					sq += (estimates[b] - mean) * (estimates[b] - mean);
+				}
+				error = Math.sqrt(sq / (batches - 1) / batches);
+				double t = new TDistribution(batches - 1).inverseCumulativeProbability(0.5 + confidenceLevel / 2);
+				halfWidth = t * error;
+				if (batches >= minBatches && halfWidth <= targetRelativeError * mean) {
+					break;
+				}
+			}
+			return new double[]{ mean, error, halfWidth, batches };
+		}
+		
+		/**
+		 * estimate the union area by a batch.
+		 * @param batch index of the batch
+		 * @return estimated area
+		 */
+		double sample(int batch) {
+			Random rand = new Random(mix(mix(seed + plant) + batch));
+			int covered = 0;
+			double cellW = width / strata;
+			double cellH = height / strata;
+			for (int row = 0; row < strata; row++) {
+				for (int col = 0; col < strata; col++) {
+					double px = minX + (col + rand.nextDouble()) * cellW;
+					double py = minY + (row + rand.nextDouble()) * cellH;
+					if (isCovered(px, py)) {
+						covered++;
+					}
+				}
+			}
+			return boxArea * covered / ((double)strata * strata);
+		}
+		
+		/**
+		 * @return true if any triangle covers the point
+		 */
+		private boolean isCovered(double px, double py) {
+			int c = grid.cellY(py) * grid.nx + grid.cellX(px);
+			for (int k = grid.start[c]; k < grid.start[c + 1]; k++) {
+				int i = grid.items[k] * 3;
+				double ax = x[i], ay = y[i];
+				double bx = x[i + 1], by = y[i + 1];
+				double cx = x[i + 2], cy = y[i + 2];
+				double d1 = (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+				double d2 = (cx - bx) * (py - by) - (cy - by) * (px - bx);
+				double d3 = (ax - cx) * (py - cy) - (ay - cy) * (px - cx);
+				if ((d1 >= 0 && d2 >= 0 && d3 >= 0) || (d1 <= 0 && d2 <= 0 && d3 <= 0)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+	
+	
+	/**
+	 * the finalizer of SplitMix64.
+	 * {@code Random} made from close seeds generates correlated numbers,
+	 * so the seed of each batch is scrambled.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	
+	/**
+	 * runs the batches in the range.
+	 */
+	private static class BatchTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Sampler sampler;
+		private final double[] estimates;
+		private final int from;
+		private final int to;
+		
+		BatchTask(Sampler sampler, double[] estimates, int from, int to) {
+			this.sampler = sampler;
+			this.estimates = estimates;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new BatchTask(sampler, estimates, from, mid),
+						new BatchTask(sampler, estimates, mid, to));
+				return;
+			}
+			estimates[from] = sampler.sample(from);
+		}
+	}
+}
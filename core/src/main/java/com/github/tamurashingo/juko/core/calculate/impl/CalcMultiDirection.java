@@ -0,0 +1,197 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate.impl;
+
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.DirectionAreaResult;
+
+/**
+ * Calculate an area of plants projected to the planes perpendicular to some directions,
+ * out of consideration of overlap among each objects.
+ * <p>
+ * the direction of the elevation {@code el} and the azimuth {@code az} is
+ * (cos(el)cos(az), cos(el)sin(az), sin(el)).
+ * the elevation of 90 degrees is the Z axis, the same as {@link CalcIncludeOverlap}.
+ * </p>
+ * <p>
+ * the projected area of a triangle to the direction {@code D} is
+ * 1/2|N&middot;D|, where {@code N} is the cross product of two edges of the triangle.
+ * {@code N} is computed once for each triangle, and all directions are summed
+ * in one pass over the triangles, instead of transforming the plants for each direction.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class CalcMultiDirection {
+	
+	/** number of triangles whose normals are kept at a time */
+	private static final int BLOCK = 1024;
+	
+	private final double[] elevations;
+	private final double[] azimuths;
+	/** unit vector of each direction */
+	private final double[] dx;
+	private final double[] dy;
+	private final double[] dz;
+	
+	
+	/**
+	 * create a calculator for the directions.
+	 * @param elevations elevation of each direction (radian)
+	 * @param azimuths azimuth of each direction (radian)
+	 */
+	public CalcMultiDirection(double[] elevations, double[] azimuths) {
+		if (elevations.length != azimuths.length) {
+			throw new IllegalArgumentException("size mismatch");
+		}
+		int n = elevations.length;
+		this.elevations = elevations.clone();
+		this.azimuths = azimuths.clone();
+		this.dx = new double[n];
+		this.dy = new double[n];
+		this.dz = new double[n];
+		for (int d = 0; d < n; d++) {
+			double cosEl = Math.cos(elevations[d]);
+			dx[d] = cosEl * Math.cos(azimuths[d]);
+			dy[d] = cosEl * Math.sin(azimuths[d]);
+			dz[d] = Math.sin(elevations[d]);
+		}
+	}
+	
+	/**
+	 * create a calculator for every pair of the elevations and the azimuths.
+	 * the direction {@code e * azimuths.length + a} is ({@code elevations[e]}, {@code azimuths[a]}).
+	 * 
+	 * @param elevations elevations (radian)
+	 * @param azimuths azimuths (radian)
+	 * @return calculator
+	 */
+	public static CalcMultiDirection grid(double[] elevations, double[] azimuths) {
+		double[] el = new double[elevations.length * azimuths.length];
+		double[] az = new double[el.length];
+		for (int e = 0; e < elevations.length; e++) {
+			for (int a = 0; a < azimuths.length; a++) {
+				el[e * azimuths.length + a] = elevations[e];
+				az[e * azimuths.length + a] = azimuths[a];
+			}
+		}
+		return new CalcMultiDirection(el, az);
+	}
+	
+	
+	/**
+	 * @return the number of directions
+	 */
+	public int getDirectionCount() {
+		return elevations.length;
+	}
+	
+	/**
+	 * @param direction index of the direction
+	 * @return unit vector of the direction (X, Y, Z)
+	 */
+	public double[] getDirection(int direction) {
+		return new double[]{ dx[direction], dy[direction], dz[direction] };
+	}
+	
+	
+	/**
+	 * calculate the projected area of the plants for all directions.
+	 * @param plants
+	 * @return projected area of each direction and each plant
+	 */
+	public DirectionAreaResult calcArea(List<? extends Plant> plants) {
+		int directions = elevations.length;
+		double[][] areas = new double[directions][plants.size()];
+		double[] surfaceAreas = new double[plants.size()];
+		
+		double[] sums = new double[directions];
+		int ix = 0;
+		for (Plant plant: plants) {
+			surfaceAreas[ix] = calc(plant.getMesh(), sums);
+			for (int d = 0; d < directions; d++) {
+				areas[d][ix] = sums[d];
+			}
+			ix++;
+		}
+		return new DirectionAreaResult(plants, elevations.clone(), azimuths.clone(), areas, surfaceAreas);
+	}
+	
+	
+	/**
+	 * calculate the projected area of a mesh.
+	 * @param mesh triangles
+	 * @param sums destination of the projected area of each direction
+	 * @return surface area
+	 */
+	private double calc(TriangleMesh mesh, double[] sums) {
+		double[] x = mesh.getXColumn();
+		double[] y = mesh.getYColumn();
+		double[] z = mesh.getZColumn();
+		int size = mesh.size();
+		int directions = sums.length;
+		
+		double[] nx = new double[Math.min(BLOCK, size)];
+		double[] ny = new double[nx.length];
+		double[] nz = new double[nx.length];
+		double surface = 0.0;
+		for (int d = 0; d < directions; d++) {
+			sums[d] = 0.0;
+		}
+		
+		for (int from = 0; from < size; from += BLOCK) {
+			int n = Math.min(BLOCK, size - from);
+			
+			// N = AB x AC
+			for (int k = 0, i = from * 3; k < n; k++, i += 3) {
+				double ABx = x[i + 1] - x[i];
+				double ABy = y[i + 1] - y[i];
+				double ABz = z[i + 1] - z[i];
+				double ACx = x[i + 2] - x[i];
+				double ACy = y[i + 2] - y[i];
+				double ACz = z[i + 2] - z[i];
+				nx[k] = ABy * ACz - ABz * ACy;
+				ny[k] = ABz * ACx - ABx * ACz;
+				nz[k] = ABx * ACy - ABy * ACx;
+				surface += Math.sqrt(nx[k] * nx[k] + ny[k] * ny[k] + nz[k] * nz[k]) / 2.0;
+			}
+			
+			for (int d = 0; d < directions; d++) {
+				double ux = dx[d], uy = dy[d], uz = dz[d];
+				double sum = 0.0;
+				for (int k = 0; k < n; k++) {
+					sum += Math.abs(nx[k] * ux + ny[k] * uy + nz[k] * uz);
+				}
+				sums[d] += sum / 2.0;
+			}
+		}
+		return surface;
+	}
+}
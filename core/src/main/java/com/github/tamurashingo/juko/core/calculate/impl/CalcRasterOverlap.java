@@ -0,0 +1,418 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.AbstractCalc;
+import com.github.tamurashingo.juko.core.calculate.RasterAreaResult;
+import com.github.tamurashingo.juko.core.calculate.RasterCoverage;
+
+/**
+ * Calculate an area of plants on a grid of pixels, in consideration of overlap among triangles of each plant.
+ * <p>
+ * the triangles are projected to the XY plane and drawn with a Z buffer.
+ * a pixel is covered by a triangle if its center is in the triangle,
+ * and the triangle which has the highest Z at the center is visible.
+ * the area of each triangle is its visible area, and the total is the covered area.
+ * overlap among plants is not considered.
+ * </p>
+ * <p>
+ * the longer side of the bounding box of a plant has {@link #getResolution()} pixels.
+ * the error of the area is about the perimeter of the triangles times the size of a pixel,
+ * so a higher resolution is more accurate and slower.
+ * the grid is split into tiles of {@value #TILE_SIZE} pixels, which are drawn in parallel.
+ * the result does not depend on the parallelism.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class CalcRasterOverlap extends AbstractCalc {
+	
+	/** default number of pixels along the longer side */
+	public static final int DEFAULT_RESOLUTION = 1024;
+	
+	/** number of pixels along a side of a tile */
+	public static final int TILE_SIZE = 64;
+	
+	/** the last entry of the depth histogram */
+	public static final int MAX_DEPTH = 64;
+	
+	/** the pool which runs the tasks */
+	private final ForkJoinPool pool;
+	
+	/** true if the pool is created by this calculator */
+	private final boolean ownPool;
+	
+	/** number of pixels along the longer side */
+	private int resolution = DEFAULT_RESOLUTION;
+	
+	/** if true, the top triangle of each pixel is kept in the result */
+	private boolean keepTopTriangles = true;
+	
+	
+	/**
+	 * create a calculator which runs on the pool shared by the calculators.
+	 * the shared pool uses all available processors.
+	 */
+	public CalcRasterOverlap() {
+		this(DefaultPool.POOL, false);
+	}
+	
+	/**
+	 * create a calculator with the specified parallelism.
+	 * the pool is created by this calculator, and is released by {@link #shutdown()}.
+	 * @param parallelism the number of worker threads
+	 */
+	public CalcRasterOverlap(int parallelism) {
+		this(new ForkJoinPool(parallelism), true);
+	}
+	
+	/**
+	 * create a calculator which runs on the given pool.
+	 * @param pool fork/join pool
+	 */
+	public CalcRasterOverlap(ForkJoinPool pool) {
+		this(pool, false);
+	}
+	
+	private CalcRasterOverlap(ForkJoinPool pool, boolean ownPool) {
+		this.pool = pool;
+		this.ownPool = ownPool;
+	}
+	
+	
+	/**
+	 * shut down the pool if it is created by this calculator.
+	 * the shared pool and the given pool are not shut down.
+	 */
+	public void shutdown() {
+		if (ownPool) {
+			pool.shutdown();
+		}
+	}
+	
+	
+	/**
+	 * @return number of pixels along the longer side of a plant
+	 */
+	public int getResolution() {
+		return resolution;
+	}
+	
+	/**
+	 * @param resolution number of pixels along the longer side of a plant
+	 */
+	public void setResolution(int resolution) {
+		if (resolution < 1) {
+			throw new IllegalArgumentException("resolution:" + resolution);
+		}
+		this.resolution = resolution;
+	}
+	
+	/**
+	 * @return true if the top triangle of each pixel is kept in the result
+	 */
+	public boolean isKeepTopTriangles() {
+		return keepTopTriangles;
+	}
+	
+	/**
+	 * @param keepTopTriangles if true, the top triangle of each pixel is kept in the result
+	 */
+	public void setKeepTopTriangles(boolean keepTopTriangles) {
+		this.keepTopTriangles = keepTopTriangles;
+	}
+	
+	
+	@Override
+	public RasterAreaResult calcArea(List<? extends Plant> plants) {
+		double[][] areas = new double[plants.size()][];
+		double[] covered = new double[plants.size()];
+		RasterCoverage[] coverages = new RasterCoverage[plants.size()];
+		int ix = 0;
+		for (Plant plant: plants) {
+			Raster raster = new Raster(plant.getMesh(), resolution);
+			if (raster.tiles > 0) {
+				pool.invoke(new TileTask(raster, 0, raster.tiles));
+			}
+			areas[ix] = raster.visibleAreas();
+			covered[ix] = raster.coveredArea();
+			coverages[ix] = raster.coverage(keepTopTriangles);
+			ix++;
+		}
+		return new RasterAreaResult(plants, areas, covered, coverages);
+	}
+	
+	
+	/**
+	 * draws the tiles in the range.
+	 */
+	private static class TileTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Raster raster;
+		private final int from;
+		private final int to;
+		
+		TileTask(Raster raster, int from, int to) {
+			this.raster = raster;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new TileTask(raster, from, mid),
+						new TileTask(raster, mid, to));
+				return;
+			}
+			raster.draw(from);
+		}
+	}
+	
+	
+	/**
+	 * the pixels of a plant.
+	 * each tile is drawn by one thread, and writes only its own pixels.
+	 */
+	private static class Raster {
+		
+		private final TriangleMesh mesh;
+		private final double minX;
+		private final double minY;
+		private final double pixelSize;
+		private final int width;
+		private final int height;
+		
+		/** number of tiles along X */
+		private final int tilesX;
+		/** number of tiles */
+		final int tiles;
+		/** triangles of each tile */
+		private final TriangleGrid grid;
+		
+		/** top triangle of each pixel */
+		private final int[] top;
+		/** depth histogram of each tile */
+		private final long[][] histograms;
+		
+		
+		Raster(TriangleMesh mesh, int resolution) {
+			this.mesh = mesh;
+			double[] x = mesh.getXColumn();
+			double[] y = mesh.getYColumn();
+			int n = mesh.size() * 3;
+			double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+			double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < n; i++) {
+				x0 = Math.min(x0, x[i]);
+				x1 = Math.max(x1, x[i]);
+				y0 = Math.min(y0, y[i]);
+				y1 = Math.max(y1, y[i]);
+			}
+			double size = (n > 0) ? Math.max(x1 - x0, y1 - y0) / resolution : 0.0;
+			
+			if (size > 0.0) {
+				this.minX = x0;
+				this.minY = y0;
+				this.pixelSize = size;
+				this.width = (int)Math.max(1, Math.min(resolution, Math.ceil((x1 - x0) / size)));
+				this.height = (int)Math.max(1, Math.min(resolution, Math.ceil((y1 - y0) / size)));
+			}
+			else {
+				// no area
+				this.minX = this.minY = this.pixelSize = 0.0;
+				this.width = this.height = 0;
+			}
+			
+			this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+			int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+			this.tiles = tilesX * tilesY;
+			this.grid = (tiles > 0)
+					? new TriangleGrid(x, y, null, mesh.size(), minX, minY,
+							TILE_SIZE * pixelSize, TILE_SIZE * pixelSize, tilesX, tilesY)
+					: null;
+			this.top = new int[width * height];
+			this.histograms = new long[tiles][];
+		}
+		
+		
+		/**
+		 * draw the triangles of a tile.
+		 * @param tile index of the tile
+		 */
+		void draw(int tile) {
+			int c0 = (tile % tilesX) * TILE_SIZE;
+			int r0 = (tile / tilesX) * TILE_SIZE;
+			int cw = Math.min(TILE_SIZE, width - c0);
+			int rh = Math.min(TILE_SIZE, height - r0);
+			
+			double[] zbuf = new double[cw * rh];
+			int[] depth = new int[cw * rh];
+			int[] visible = new int[cw * rh];
+			Arrays.fill(zbuf, Double.NEGATIVE_INFINITY);
+			Arrays.fill(visible, -1);
+			
+			double[] x = mesh.getXColumn();
+			double[] y = mesh.getYColumn();
+			double[] z = mesh.getZColumn();
+			
+			// triangles are in ascending order, so the smaller index wins at the same Z
+			for (int k = grid.start[tile]; k < grid.start[tile + 1]; k++) {
+				int t = grid.items[k];
+				int a = t * 3;
+				int b = a + 1;
+				int c = a + 2;
+				double cross = (x[b] - x[a]) * (y[c] - y[a]) - (y[b] - y[a]) * (x[c] - x[a]);
+				if (cross == 0.0) {
+					continue;
+				}
+				if (cross < 0.0) {
+					// counterclockwise
+					b = a + 2;
+					c = a + 1;
+					cross = -cross;
+				}
+				
+				double tx0 = Math.min(x[a], Math.min(x[b], x[c]));
+				double tx1 = Math.max(x[a], Math.max(x[b], x[c]));
+				double ty0 = Math.min(y[a], Math.min(y[b], y[c]));
+				double ty1 = Math.max(y[a], Math.max(y[b], y[c]));
+				int col0 = Math.max(c0, (int)Math.ceil((tx0 - minX) / pixelSize - 0.5));
+				int col1 = Math.min(c0 + cw - 1, (int)Math.floor((tx1 - minX) / pixelSize - 0.5));
+				int row0 = Math.max(r0, (int)Math.ceil((ty0 - minY) / pixelSize - 0.5));
+				int row1 = Math.min(r0 + rh - 1, (int)Math.floor((ty1 - minY) / pixelSize - 0.5));
+				
+				for (int row = row0; row <= row1; row++) {
+					double py = minY + (row + 0.5) * pixelSize;
+					for (int col = col0; col <= col1; col++) {
+						double px = minX + (col + 0.5) * pixelSize;
+						// weight of each vertex is the area of the opposite side
+						double wa = edge(x[b], y[b], x[c], y[c], px, py);
+						double wb = edge(x[c], y[c], x[a], y[a], px, py);
+						double wc = edge(x[a], y[a], x[b], y[b], px, py);
+						if (!inside(wa, x[b], y[b], x[c], y[c])
+								|| !inside(wb, x[c], y[c], x[a], y[a])
+								|| !inside(wc, x[a], y[a], x[b], y[b])) {
+							continue;
+						}
+						int p = (row - r0) * cw + (col - c0);
+						depth[p]++;
+						double pz = (wa * z[a] + wb * z[b] + wc * z[c]) / cross;
+						if (pz > zbuf[p]) {
+							zbuf[p] = pz;
+							visible[p] = t;
+						}
+					}
+				}
+			}
+			
+			long[] histogram = new long[MAX_DEPTH + 1];
+			for (int row = 0; row < rh; row++) {
+				System.arraycopy(visible, row * cw, top, (r0 + row) * width + c0, cw);
+				for (int col = 0; col < cw; col++) {
+					histogram[Math.min(depth[row * cw + col], MAX_DEPTH)]++;
+				}
+			}
+			histograms[tile] = histogram;
+		}
+		
+		/**
+		 * twice the signed area of the triangle (a, b, p).
+		 */
+		private static double edge(double ax, double ay, double bx, double by, double px, double py) {
+			return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+		}
+		
+		/**
+		 * a point on an edge belongs to one of the triangles which share the edge.
+		 */
+		private static boolean inside(double w, double ax, double ay, double bx, double by) {
+			if (w != 0.0) {
+				return w > 0.0;
+			}
+			double ey = by - ay;
+			return ey > 0.0 || (ey == 0.0 && bx < ax);
+		}
+		
+		
+		/**
+		 * @return visible area of each triangle
+		 */
+		double[] visibleAreas() {
+			int[] count = new int[mesh.size()];
+			for (int t: top) {
+				if (t >= 0) {
+					count[t]++;
+				}
+			}
+			double pixelArea = pixelSize * pixelSize;
+			double[] areas = new double[count.length];
+			for (int t = 0; t < count.length; t++) {
+				areas[t] = count[t] * pixelArea;
+			}
+			return areas;
+		}
+		
+		/**
+		 * @return covered area
+		 */
+		double coveredArea() {
+			long covered = 0;
+			for (int t: top) {
+				if (t >= 0) {
+					covered++;
+				}
+			}
+			return covered * pixelSize * pixelSize;
+		}
+		
+		/**
+		 * @param keepTop if true, the top triangles are kept
+		 * @return coverage grid
+		 */
+		RasterCoverage coverage(boolean keepTop) {
+			long[] histogram = new long[MAX_DEPTH + 1];
+			for (long[] h: histograms) {
+				for (int d = 0; d <= MAX_DEPTH; d++) {
+					histogram[d] += h[d];
+				}
+			}
+			return new RasterCoverage(minX, minY, pixelSize, width, height,
+					keepTop ? top : null, histogram);
+		}
+	}
+}
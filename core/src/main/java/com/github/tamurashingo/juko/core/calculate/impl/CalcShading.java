@@ -0,0 +1,297 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate.impl;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.AbstractCalc;
+import com.github.tamurashingo.juko.core.calculate.ShadingAreaResult;
+import com.github.tamurashingo.juko.core.spatial.TriangleBVH;
+
+/**
+ * Calculate the sunlit area of {@code LEAF} plants, in consideration of shadows of all plants.
+ * <p>
+ * the light comes from the direction of the elevation {@code el} and the azimuth {@code az},
+ * (cos(el)cos(az), cos(el)sin(az), sin(el)), the same as {@link CalcMultiDirection}.
+ * the default is the Z axis, so that the area without shadows is the same as {@link CalcIncludeOverlap}.
+ * </p>
+ * <p>
+ * each triangle is split into {@code samples * samples} congruent small triangles,
+ * and a ray is cast from the center of each small triangle toward the light.
+ * the sunlit area of the triangle is its projected area times the ratio of the rays which reach the light.
+ * {@code SHIELD} and {@code LEAF} triangles cast shadows, and {@code SHIELD} triangles have no area.
+ * the rays are tested with a {@link TriangleBVH} in parallel.
+ * the result does not depend on the parallelism.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class CalcShading extends AbstractCalc {
+	
+	/** default number of samples along an edge of a triangle */
+	public static final int DEFAULT_SAMPLES = 4;
+	
+	/** number of triangles per task */
+	private static final int THRESHOLD = 1024;
+	
+	/** the pool which runs the tasks */
+	private final ForkJoinPool pool;
+	
+	/** true if the pool is created by this calculator */
+	private final boolean ownPool;
+	
+	/** number of samples along an edge */
+	private int samples = DEFAULT_SAMPLES;
+	
+	private double elevation = Math.PI / 2;
+	private double azimuth = 0.0;
+	
+	
+	/**
+	 * create a calculator which runs on the pool shared by the calculators.
+	 * the shared pool uses all available processors.
+	 */
+	public CalcShading() {
+		this(DefaultPool.POOL, false);
+	}
+	
+	/**
+	 * create a calculator with the specified parallelism.
+	 * the pool is created by this calculator, and is released by {@link #shutdown()}.
+	 * @param parallelism the number of worker threads
+	 */
+	public CalcShading(int parallelism) {
+		this(new ForkJoinPool(parallelism), true);
+	}
+	
+	/**
+	 * create a calculator which runs on the given pool.
+	 * @param pool fork/join pool
+	 */
+	public CalcShading(ForkJoinPool pool) {
+		this(pool, false);
+	}
+	
+	private CalcShading(ForkJoinPool pool, boolean ownPool) {
+		this.pool = pool;
+		this.ownPool = ownPool;
+	}
+	
+	
+	/**
+	 * shut down the pool if it is created by this calculator.
+	 * the shared pool and the given pool are not shut down.
+	 */
+	public void shutdown() {
+		if (ownPool) {
+			pool.shutdown();
+		}
+	}
+	
+	
+	/**
+	 * @return number of samples along an edge of a triangle
+	 */
+	public int getSamples() {
+		return samples;
+	}
+	
+	/**
+	 * set the number of samples along an edge of a triangle.
+	 * {@code samples * samples} rays are cast for each triangle.
+	 * @param samples number of samples along an edge
+	 */
+	public void setSamples(int samples) {
+		if (samples < 1) {
+			throw new IllegalArgumentException("samples:" + samples);
+		}
+		this.samples = samples;
+	}
+	
+	/**
+	 * @return elevation of the light (radian)
+	 */
+	public double getElevation() {
+		return elevation;
+	}
+	
+	/**
+	 * @return azimuth of the light (radian)
+	 */
+	public double getAzimuth() {
+		return azimuth;
+	}
+	
+	/**
+	 * @param elevation elevation of the light (radian)
+	 * @param azimuth azimuth of the light (radian)
+	 */
+	public void setLightDirection(double elevation, double azimuth) {
+		this.elevation = elevation;
+		this.azimuth = azimuth;
+	}
+	
+	
+	@Override
+	public ShadingAreaResult calcArea(List<? extends Plant> plants) {
+		double cosEl = Math.cos(elevation);
+		double[] light = { cosEl * Math.cos(azimuth), cosEl * Math.sin(azimuth), Math.sin(elevation) };
+		
+		Plant[] src = plants.toArray(new Plant[plants.size()]);
+		TriangleMesh[] meshes = new TriangleMesh[src.length];
+		double[][] areas = new double[src.length][];
+		double[] projected = new double[src.length];
+		for (int p = 0; p < src.length; p++) {
+			TriangleMesh mesh = meshes[p] = src[p].getMesh();
+			areas[p] = new double[mesh.size()];
+			if (!isShield(src[p])) {
+				for (int t = 0; t < mesh.size(); t++) {
+					projected[p] += projectedArea(mesh, t, light);
+				}
+			}
+		}
+		
+		TriangleBVH bvh = new TriangleBVH(pool, meshes);
+		if (bvh.size() > 0) {
+			pool.invoke(new ShadeTask(bvh, src, meshes, areas, light, 0, bvh.size()));
+		}
+		return new ShadingAreaResult(plants, areas, projected);
+	}
+	
+	
+	private static boolean isShield(Plant plant) {
+		return plant.getPlantType() == PlantType.SHIELD;
+	}
+	
+	/**
+	 * @return 1/2|N&middot;L|
+	 */
+	private static double projectedArea(TriangleMesh mesh, int triangle, double[] light) {
+		double[] x = mesh.getXColumn();
+		double[] y = mesh.getYColumn();
+		double[] z = mesh.getZColumn();
+		int i = triangle * 3;
+		double abx = x[i + 1] - x[i], aby = y[i + 1] - y[i], abz = z[i + 1] - z[i];
+		double acx = x[i + 2] - x[i], acy = y[i + 2] - y[i], acz = z[i + 2] - z[i];
+		double nx = aby * acz - abz * acy;
+		double ny = abz * acx - abx * acz;
+		double nz = abx * acy - aby * acx;
+		return Math.abs(nx * light[0] + ny * light[1] + nz * light[2]) / 2;
+	}
+	
+	
+	/**
+	 * casts the rays of the triangles in the range.
+	 */
+	private class ShadeTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final TriangleBVH bvh;
+		private final Plant[] src;
+		private final TriangleMesh[] meshes;
+		private final double[][] areas;
+		private final double[] light;
+		private final int from;
+		private final int to;
+		
+		ShadeTask(TriangleBVH bvh, Plant[] src, TriangleMesh[] meshes, double[][] areas, double[] light, int from, int to) {
+			this.bvh = bvh;
+			this.src = src;
+			this.meshes = meshes;
+			this.areas = areas;
+			this.light = light;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > THRESHOLD) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ShadeTask(bvh, src, meshes, areas, light, from, mid),
+						new ShadeTask(bvh, src, meshes, areas, light, mid, to));
+				return;
+			}
+			
+			int n = samples;
+			double step = 1.0 / n;
+			int p = bvh.getMeshIndex(from);
+			int t = bvh.getTriangleIndex(from);
+			for (int prim = from; prim < to; prim++, t++) {
+				while (t >= meshes[p].size()) {
+					p++;
+					t = 0;
+				}
+				if (isShield(src[p])) {
+					continue;
+				}
+				TriangleMesh mesh = meshes[p];
+				double area = projectedArea(mesh, t, light);
+				if (area == 0.0) {
+					continue;
+				}
+				
+				int i = t * 3;
+				double[] x = mesh.getXColumn();
+				double[] y = mesh.getYColumn();
+				double[] z = mesh.getZColumn();
+				double abx = x[i + 1] - x[i], aby = y[i + 1] - y[i], abz = z[i + 1] - z[i];
+				double acx = x[i + 2] - x[i], acy = y[i + 2] - y[i], acz = z[i + 2] - z[i];
+				
+				// centers of the small triangles, (u, v) in the barycentric coordinates
+				int lit = 0;
+				for (int a = 0; a < n; a++) {
+					for (int b = 0; a + b < n; b++) {
+						double u = (a + 1.0 / 3) * step;
+						double v = (b + 1.0 / 3) * step;
+						if (isLit(x[i] + abx * u + acx * v, y[i] + aby * u + acy * v, z[i] + abz * u + acz * v, prim)) {
+							lit++;
+						}
+						if (a + b < n - 1) {
+							u = (a + 2.0 / 3) * step;
+							v = (b + 2.0 / 3) * step;
+							if (isLit(x[i] + abx * u + acx * v, y[i] + aby * u + acy * v, z[i] + abz * u + acz * v, prim)) {
+								lit++;
+							}
+						}
+					}
+				}
+				areas[p][t] = area * lit / (n * n);
+			}
+		}
+		
+		private boolean isLit(double px, double py, double pz, int prim) {
+			return !bvh.occluded(px, py, pz, light[0], light[1], light[2], Double.POSITIVE_INFINITY, prim);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.AbstractCalc;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+
+/**
+ * Calculate an area of plants out of consideration of overlap among each objects,
+ * recalculating only the changed triangles.
+ * <p>
+ * the calculator keeps the area of each triangle of the plants of the last calculation.
+ * the next calculation recalculates the triangles of each mesh which are changed after the last calculation
+ * (see {@link TriangleMesh#getChanges(long, BitSet)}), and updates the total by the difference.
+ * the plants and the dirty marks of the meshes are not changed,
+ * so several calculators can share the plants.
+ * the cost of a calculation is proportional to the number of changed triangles,
+ * plus copying the areas of the changed plants.
+ * the result is the same as {@link CalcIncludeOverlap}, except the rounding error of the totals.
+ * </p>
+ * <p>
+ * the plants are identified by the instance. a plant which is not calculated last time,
+ * or whose mesh is replaced, is calculated fully.
+ * so {@link com.github.tamurashingo.juko.core.bean.PlantInstance} is calculated fully every time,
+ * because it returns a new mesh.
+ * the arrays of the result are copy-on-write. the array of a changed plant is replaced by a new array,
+ * so the arrays are not changed by the next calculation, and an unchanged plant is shared by the results.
+ * the caller must not change the arrays.
+ * this class is not thread-safe.
+ * </p>
+ * <p>
+ * example.
+ * </p>
+ * <p>
+ * <code><pre>
+ * IncrementalCalcIncludeOverlap calc = new IncrementalCalcIncludeOverlap();
+ * while (growing) {
+ *     plant.getMesh().setVertex(t, v, x, y, z);
+ *     AreaResult result = calc.calcArea(plants);
+ *     ...
+ * }
+ * </pre></code>
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class IncrementalCalcIncludeOverlap extends AbstractCalc {
+	
+	/** the state of the plants of the last calculation */
+	private Map<Plant, State> states = new IdentityHashMap<>();
+	
+	/** number of triangles calculated by the last calculation */
+	private int recalculated;
+	
+	
+	/**
+	 * @return the number of triangles calculated by the last calculation
+	 */
+	public int getRecalculatedCount() {
+		return recalculated;
+	}
+	
+	/**
+	 * forget the last calculation, so that the next calculation calculates all triangles.
+	 * this also clears the rounding error of the totals.
+	 */
+	public void reset() {
+		states.clear();
+	}
+	
+	
+	@Override
+	public AreaResult calcArea(List<? extends Plant> plants) {
+		Map<Plant, State> next = new IdentityHashMap<>();
+		double[][] areas = new double[plants.size()][];
+		double[] totals = new double[plants.size()];
+		recalculated = 0;
+		
+		int ix = 0;
+		for (Plant plant: plants) {
+			State state = next.get(plant);
+			if (state == null) {
+				state = states.get(plant);
+				TriangleMesh mesh = plant.getMesh();
+				if (state == null || state.mesh != mesh) {
+					state = new State(mesh);
+				}
+				recalculated += state.update();
+				next.put(plant, state);
+			}
+			areas[ix] = state.area;
+			totals[ix] = state.total;
+			ix++;
+		}
+		// the plants which are not given are forgotten
+		states = next;
+		return new AreaResult(plants, areas, totals);
+	}
+	
+	
+	/**
+	 * the area of the triangles of a mesh.
+	 */
+	private static class State {
+		
+		private final TriangleMesh mesh;
+		/** the areas of the last calculation. published by the results, so never changed */
+		private double[] area = new double[0];
+		private double total;
+		/** cursor of the changes of the mesh at the last calculation */
+		private long cursor;
+		
+		State(TriangleMesh mesh) {
+			this.mesh = mesh;
+		}
+		
+		/**
+		 * recalculate the changed triangles.
+		 * @return the number of calculated triangles
+		 */
+		int update() {
+			int size = mesh.size();
+			BitSet changed = new BitSet();
+			// the triangles after stable are removed or added
+			int stable = Math.min(mesh.getChanges(cursor, changed), area.length);
+			if (stable < 0) {
+				stable = 0;
+			}
+			if (stable < size) {
+				changed.set(stable, size);
+			}
+			if (changed.isEmpty() && size == area.length) {
+				cursor = mesh.getChangeCursor();
+				return 0;
+			}
+			
+			// copy on write
+			for (int t = size; t < area.length; t++) {
+				// removed triangles
+				total -= area[t];
+			}
+			area = Arrays.copyOf(area, size);
+			
+			double[] x = mesh.getXColumn();
+			double[] y = mesh.getYColumn();
+			int count = 0;
+			for (int t = changed.nextSetBit(0); t >= 0; t = changed.nextSetBit(t + 1)) {
+				double old = area[t];
+				CalcIncludeOverlap.calc(x, y, area, t, t + 1);
+				total += area[t] - old;
+				count++;
+			}
+			cursor = mesh.getChangeCursor();
+			return count;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate.impl;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.github.tamurashingo.juko.core.bean.PlantInstance;
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.AbstractCalc;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+
+/**
+ * Calculate an area of plants in parallel, out of consideration of overlap among each objects.
+ * <p>
+ * plants are split into fork/join tasks, and the triangles of a large plant
+ * are split into ranges of {@link #getThreshold()} triangles.
+ * the result is the same as {@link CalcIncludeOverlap}.
+ * {@link PlantInstance} is calculated from its prototype in one task.
+ * the area of each prototype is calculated once before the tasks, and is shared by its instances.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class ParallelCalcIncludeOverlap extends AbstractCalc {
+	
+	/** default number of triangles per task */
+	public static final int DEFAULT_THRESHOLD = 16384;
+	
+	/** the pool which runs the tasks */
+	private final ForkJoinPool pool;
+	
+	/** true if the pool is created by this calculator */
+	private final boolean ownPool;
+	
+	/** number of triangles per task */
+	private int threshold = DEFAULT_THRESHOLD;
+	
+	
+	/**
+	 * create a calculator which runs on the pool shared by the calculators.
+	 * the shared pool uses all available processors.
+	 */
+	public ParallelCalcIncludeOverlap() {
+		this(DefaultPool.POOL, false);
+	}
+	
+	/**
+	 * create a calculator with the specified parallelism.
+	 * the pool is created by this calculator, and is released by {@link #shutdown()}.
+	 * @param parallelism the number of worker threads
+	 */
+	public ParallelCalcIncludeOverlap(int parallelism) {
+		this(new ForkJoinPool(parallelism), true);
+	}
+	
+	/**
+	 * create a calculator which runs on the given pool.
+	 * @param pool fork/join pool
+	 */
+	public ParallelCalcIncludeOverlap(ForkJoinPool pool) {
+		this(pool, false);
+	}
+	
+	private ParallelCalcIncludeOverlap(ForkJoinPool pool, boolean ownPool) {
+		this.pool = pool;
+		this.ownPool = ownPool;
+	}
+	
+	
+	/**
+	 * shut down the pool if it is created by this calculator.
+	 * the shared pool and the given pool are not shut down.
+	 */
+	public void shutdown() {
+		if (ownPool) {
+			pool.shutdown();
+		}
+	}
+	
+	
+	/**
+	 * @return number of triangles per task
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+	
+	/**
+	 * @param threshold number of triangles per task
+	 */
+	public void setThreshold(int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("threshold:" + threshold);
+		}
+		this.threshold = threshold;
+	}
+	
+	
+	@Override
+	public AreaResult calcArea(List<? extends Plant> plants) {
+		Plant[] src = plants.toArray(new Plant[plants.size()]);
+		double[][] areas = new double[src.length][];
+		double[] totals = new double[src.length];
+		if (src.length > 0) {
+			Map<PlantObject, double[]> prototypes = calcPrototypes(src);
+			pool.invoke(new PlantTask(src, prototypes, areas, totals, 0, src.length));
+		}
+		return new AreaResult(plants, areas, totals);
+	}
+	
+	
+	/**
+	 * calculate the area of the prototypes of the instances which keep the projected area.
+	 * the tasks only read the result, so it needs no synchronization.
+	 * @param src plants
+	 * @return the area of each prototype
+	 */
+	private Map<PlantObject, double[]> calcPrototypes(Plant[] src) {
+		Map<PlantObject, double[]> prototypes = new IdentityHashMap<>();
+		for (Plant plant: src) {
+			if (!(plant instanceof PlantInstance)) {
+				continue;
+			}
+			PlantInstance instance = (PlantInstance)plant;
+			PlantObject prototype = instance.getPrototype();
+			if (Double.isNaN(instance.getProjectedAreaScale()) || prototypes.containsKey(prototype)) {
+				continue;
+			}
+			TriangleMesh mesh = prototype.getMesh();
+			double[] base = new double[mesh.size()];
+			pool.invoke(new RangeTask(mesh.getXColumn(), mesh.getYColumn(), base, 0, mesh.size()));
+			prototypes.put(prototype, base);
+		}
+		return prototypes;
+	}
+	
+	
+	/**
+	 * calculates the plants in the range.
+	 */
+	private class PlantTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Plant[] src;
+		/** the area of the prototypes. read only */
+		private final Map<PlantObject, double[]> prototypes;
+		private final double[][] areas;
+		private final double[] totals;
+		private final int from;
+		private final int to;
+		
+		PlantTask(Plant[] src, Map<PlantObject, double[]> prototypes, double[][] areas, double[] totals, int from, int to) {
+			this.src = src;
+			this.prototypes = prototypes;
+			this.areas = areas;
+			this.totals = totals;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new PlantTask(src, prototypes, areas, totals, from, mid),
+						new PlantTask(src, prototypes, areas, totals, mid, to));
+				return;
+			}
+			
+			double[] area;
+			if (src[from] instanceof PlantInstance) {
+				area = CalcIncludeOverlap.calc((PlantInstance)src[from], prototypes);
+			}
+			else {
+				TriangleMesh mesh = src[from].getMesh();
+				area = new double[mesh.size()];
+				new RangeTask(mesh.getXColumn(), mesh.getYColumn(), area, 0, mesh.size()).compute();
+			}
+			areas[from] = area;
+			// sum in order, so that the total is the same as the sequential one
+			totals[from] = AreaResult.sum(area);
+		}
+	}
+	
+	
+	/**
+	 * calculates the triangles in the range.
+	 */
+	private class RangeTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final double[] x;
+		private final double[] y;
+		private final double[] area;
+		private final int from;
+		private final int to;
+		
+		RangeTask(double[] x, double[] y, double[] area, int from, int to) {
+			this.x = x;
+			this.y = y;
+			this.area = area;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > threshold) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new RangeTask(x, y, area, from, mid),
+						new RangeTask(x, y, area, mid, to));
+				return;
+			}
+			CalcIncludeOverlap.calc(x, y, area, from, to);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.calculate.impl;
+
+/**
+ * uniform grid of triangles on the XY plane.
+ * <p>
+ * each triangle is registered in every cell which its bounding box overlaps.
+ * the cells are stored in flat arrays:
+ * the triangles of the cell {@code c} are {@code items[start[c]]} .. {@code items[start[c + 1] - 1]}.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+class TriangleGrid {
+	
+	/** lower bound of X */
+	final double minX;
+	/** lower bound of Y */
+	final double minY;
+	/** number of cells along X */
+	final int nx;
+	/** number of cells along Y */
+	final int ny;
+	/** cells per unit length along X */
+	private final double scaleX;
+	/** cells per unit length along Y */
+	private final double scaleY;
+	
+	/** first item of each cell. length is {@code nx * ny + 1} */
+	final int[] start;
+	/** triangle indexes */
+	final int[] items;
+	
+	
+	/**
+	 * build a grid which covers the triangles.
+	 * the size of a cell is {@code scale} times the average size of the triangles,
+	 * and the grid has at most {@code 4 * count} cells.
+	 * 
+	 * @param x X column. 3 entries per triangle
+	 * @param y Y column. 3 entries per triangle
+	 * @param valid if not null, only the valid triangles are registered
+	 * @param count number of triangles
+	 * @param scale size of a cell relative to the triangles
+	 * @return grid
+	 */
+	static TriangleGrid create(double[] x, double[] y, boolean[] valid, int count, double scale) {
+		double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+		double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+		int n = 0;
+		double extent = 0.0;
+		for (int t = 0; t < count; t++) {
+			if (valid != null && !valid[t]) {
+				continue;
+			}
+			n++;
+			int i = t * 3;
+			double tx0 = Math.min(x[i], Math.min(x[i + 1], x[i + 2]));
+			double tx1 = Math.max(x[i], Math.max(x[i + 1], x[i + 2]));
+			double ty0 = Math.min(y[i], Math.min(y[i + 1], y[i + 2]));
+			double ty1 = Math.max(y[i], Math.max(y[i + 1], y[i + 2]));
+			extent += Math.max(tx1 - tx0, ty1 - ty0);
+			x0 = Math.min(x0, tx0);
+			x1 = Math.max(x1, tx1);
+			y0 = Math.min(y0, ty0);
+			y1 = Math.max(y1, ty1);
+		}
+		if (n == 0) {
+			x0 = y0 = x1 = y1 = 0.0;
+		}
+		double w = Math.max(x1 - x0, Double.MIN_NORMAL);
+		double h = Math.max(y1 - y0, Double.MIN_NORMAL);
+		double cell = (n > 0) ? extent / n * scale : 1.0;
+		double maxCells = Math.max(1.0, 4.0 * n);
+		double columns = Math.max(1.0, Math.ceil(w / cell));
+		double rows = Math.max(1.0, Math.ceil(h / cell));
+		if (columns * rows > maxCells) {
+			double shrink = Math.sqrt(maxCells / (columns * rows));
+			columns = Math.max(1.0, Math.floor(columns * shrink));
+			rows = Math.max(1.0, Math.floor(rows * shrink));
+		}
+		return new TriangleGrid(x, y, valid, count, x0, y0, w / columns, h / rows, (int)columns, (int)rows);
+	}
+	
+	/**
+	 * build a grid with the specified cells.
+	 * triangles out of the grid are registered in the nearest cells.
+	 * 
+	 * @param x X column. 3 entries per triangle
+	 * @param y Y column. 3 entries per triangle
+	 * @param valid if not null, only the valid triangles are registered
+	 * @param count number of triangles
+	 * @param minX lower bound of X
+	 * @param minY lower bound of Y
+	 * @param cellWidth width of a cell
+	 * @param cellHeight height of a cell
+	 * @param nx number of cells along X
+	 * @param ny number of cells along Y
+	 */
+	TriangleGrid(double[] x, double[] y, boolean[] valid, int count,
+			double minX, double minY, double cellWidth, double cellHeight, int nx, int ny) {
+		this.minX = minX;
+		this.minY = minY;
+		this.nx = nx;
+		this.ny = ny;
+		this.scaleX = 1.0 / cellWidth;
+		this.scaleY = 1.0 / cellHeight;
+		
+		// count, then fill
+		int[] first = new int[nx * ny + 1];
+		int[] list = null;
+		int[] next = null;
+		for (int pass = 0; pass < 2; pass++) {
+			for (int t = 0; t < count; t++) {
+				if (valid != null && !valid[t]) {
+					continue;
+				}
+				int i = t * 3;
+				int cx0 = cellX(Math.min(x[i], Math.min(x[i + 1], x[i + 2])));
+				int cx1 = cellX(Math.max(x[i], Math.max(x[i + 1], x[i + 2])));
+				int cy0 = cellY(Math.min(y[i], Math.min(y[i + 1], y[i + 2])));
+				int cy1 = cellY(Math.max(y[i], Math.max(y[i + 1], y[i + 2])));
+				for (int cy = cy0; cy <= cy1; cy++) {
+					for (int cx = cx0; cx <= cx1; cx++) {
+						int c = cy * nx + cx;
+						if (pass == 0) {
+							first[c + 1]++;
+						}
+						else {
+							list[next[c]++] = t;
+						}
+					}
+				}
+			}
+			if (pass == 0) {
+				for (int c = 0; c < nx * ny; c++) {
+					first[c + 1] += first[c];
+				}
+				list = new int[first[nx * ny]];
+				next = first.clone();
+			}
+		}
+		this.start = first;
+		this.items = list;
+	}
+	
+	
+	/**
+	 * @param px position of X
+	 * @return the column of the cell. clamped to the grid
+	 */
+	int cellX(double px) {
+		int c = (int)((px - minX) * scaleX);
+		return c < 0 ? 0 : (c >= nx ? nx - 1 : c);
+	}
+	
+	/**
+	 * @param py position of Y
+	 * @return the row of the cell. clamped to the grid
+	 */
+	int cellY(double py) {
+		int c = (int)((py - minY) * scaleY);
+		return c < 0 ? 0 : (c >= ny ? ny - 1 : c);
+	}
+}
@@ -0,0 +1,123 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+
+/**
+ * the result of {@link PlantPipeline}.
+ * 
+ * @author tamura shingo
+ *
+ */
+public class PipelineResult {
+	
+	/** created plants in the order of the files */
+	private final List<Plant> plants;
+	
+	/** result of each plant. null if no calculator */
+	private final List<AreaResult> results;
+	
+	/** counters of each stage */
+	private final List<StageStatistics> statistics;
+	
+	/** running time (nanoseconds) */
+	private final long elapsedTime;
+	
+	
+	/**
+	 * create a result.
+	 * @param plants created plants in the order of the files
+	 * @param results result of each plant. null if no calculator
+	 * @param statistics counters of each stage
+	 * @param elapsedTime running time (nanoseconds)
+	 */
+	PipelineResult(List<? extends Plant> plants, List<AreaResult> results,
+			List<StageStatistics> statistics, long elapsedTime) {
+		this.plants = Collections.unmodifiableList(plants);
+		this.results = (results == null) ? null : Collections.unmodifiableList(results);
+		this.statistics = Collections.unmodifiableList(statistics);
+		this.elapsedTime = elapsedTime;
+	}
+	
+	
+	/**
+	 * @return created plants in the order of the files
+	 */
+	public List<Plant> getPlants() {
+		return plants;
+	}
+	
+	/**
+	 * returns the result of the calculator for each plant.
+	 * each result has one plant.
+	 * @return result of each plant, or null if the pipeline has no calculator
+	 */
+	public List<AreaResult> getResults() {
+		return results;
+	}
+	
+	/**
+	 * combine the result of each plant.
+	 * the result has only the area of each triangle and the total of each plant,
+	 * use {@link #getResults()} for the subclass of {@code AreaResult}.
+	 * @return combined result, or null if the pipeline has no calculator
+	 */
+	public AreaResult getAreaResult() {
+		if (results == null) {
+			return null;
+		}
+		List<Plant> list = new ArrayList<>(results.size());
+		double[][] areas = new double[results.size()][];
+		double[] totals = new double[results.size()];
+		for (int ix = 0; ix < areas.length; ix++) {
+			AreaResult r = results.get(ix);
+			list.add(r.getPlant(0));
+			areas[ix] = r.getAreas(0);
+			totals[ix] = r.getTotalArea(0);
+		}
+		return new AreaResult(list, areas, totals);
+	}
+	
+	/**
+	 * @return counters of each stage, in the order of the stages
+	 */
+	public List<StageStatistics> getStatistics() {
+		return statistics;
+	}
+	
+	/**
+	 * @return running time of the pipeline (nanoseconds)
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+}
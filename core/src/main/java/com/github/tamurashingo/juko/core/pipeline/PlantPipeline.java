@@ -0,0 +1,343 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+import com.github.tamurashingo.juko.core.calculate.CalcIF;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReaderException;
+import com.github.tamurashingo.juko.core.reader.impl.SimpleReader;
+import com.github.tamurashingo.juko.core.util.MessageProperty;
+import com.github.tamurashingo.juko.core.util.PointBuffer;
+
+/**
+ * read files and calculate the plants in pipelined stages.
+ * <p>
+ * the files flow through three stages, and each stage runs on its own thread.
+ * </p>
+ * <ol>
+ * <li>parse: stream a file and parse the vertexes ({@link SimpleReader#parse(java.nio.file.Path)})</li>
+ * <li>build: move the vertexes and create a plant ({@link SimpleReader#build(PointBuffer)})</li>
+ * <li>calculate: calculate the plant by the calculator</li>
+ * </ol>
+ * <p>
+ * the files are opened by the reader, so {@link com.github.tamurashingo.juko.core.reader.impl.MappedReader}
+ * maps them, and the charset is the one of the reader.
+ * the stages are connected by queues of {@link #getQueueCapacity()} files.
+ * when a queue is full, the previous stage waits, so the number of the parsed files in memory is bounded.
+ * while one file is parsed, the previous plants are built and calculated,
+ * so the throughput is limited by the slowest stage instead of the sum of the stages.
+ * {@link PipelineResult#getStatistics()} shows the utilization of each stage.
+ * </p>
+ * <p>
+ * the result is the same as {@link SimpleReader#read()} followed by {@link CalcIF#calcArea(List)}
+ * for each plant. the reader is used only for parsing and building,
+ * so it does not need to be opened.
+ * </p>
+ * <p>
+ * example.
+ * </p>
+ * <p>
+ * <code><pre>
+ * PlantPipeline pipeline = new PlantPipeline(new SimpleReader(), new CalcIncludeOverlap());
+ * PipelineResult result = pipeline.run(files);
+ * for (StageStatistics s: result.getStatistics()) {
+ *     System.out.println(s.getName() + ":" + s.getUtilization());
+ * }
+ * </pre></code>
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class PlantPipeline {
+	
+	/** default capacity of the queues */
+	public static final int DEFAULT_QUEUE_CAPACITY = 4;
+	
+	/** end of the files */
+	private static final Item END = new Item(-1, null);
+	
+	/** parser of the files */
+	private final SimpleReader reader;
+	
+	/** calculator. may be null */
+	private CalcIF calculator;
+	
+	/** capacity of the queues */
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+	
+	
+	/**
+	 * create a pipeline without a calculator.
+	 * @param reader parser of the files
+	 */
+	public PlantPipeline(SimpleReader reader) {
+		this(reader, null);
+	}
+	
+	/**
+	 * create a pipeline.
+	 * @param reader parser of the files
+	 * @param calculator calculator. if null, the plants are not calculated
+	 */
+	public PlantPipeline(SimpleReader reader, CalcIF calculator) {
+		this.reader = reader;
+		this.calculator = calculator;
+	}
+	
+	
+	/**
+	 * @return calculator, or null
+	 */
+	public CalcIF getCalculator() {
+		return calculator;
+	}
+	
+	/**
+	 * @param calculator calculator. if null, the plants are not calculated
+	 */
+	public void setCalculator(CalcIF calculator) {
+		this.calculator = calculator;
+	}
+	
+	/**
+	 * @return capacity of the queues (files)
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+	
+	/**
+	 * @param queueCapacity capacity of the queues (files)
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("queueCapacity:" + queueCapacity);
+		}
+		this.queueCapacity = queueCapacity;
+	}
+	
+	
+	/**
+	 * read and calculate the files.
+	 * @param files file names
+	 * @return created plants, results and counters
+	 * @throws PlantObjectReaderException the first error of the stages.
+	 *         the other stages are stopped.
+	 */
+	public PipelineResult run(final String... files) throws PlantObjectReaderException {
+		final PlantObject[] plants = new PlantObject[files.length];
+		final AreaResult[] results = (calculator == null) ? null : new AreaResult[files.length];
+		final CalcIF calc = calculator;
+		
+		BlockingQueue<Item> parsed = new ArrayBlockingQueue<>(queueCapacity);
+		BlockingQueue<Item> built = new ArrayBlockingQueue<>(queueCapacity);
+		
+		List<Stage> stages = new ArrayList<>();
+		stages.add(new Stage("parse", null, parsed) {
+			private int next = 0;
+			
+			@Override
+			Item take() {
+				return (next < files.length) ? new Item(next, files[next++]) : END;
+			}
+			
+			@Override
+			Object process(Item item) throws PlantObjectReaderException {
+				return reader.parse(Paths.get(item.file));
+			}
+		});
+		stages.add(new Stage("build", parsed, built) {
+			@Override
+			Object process(Item item) {
+				return reader.build((PointBuffer)item.value);
+			}
+		});
+		stages.add(new Stage("calculate", built, null) {
+			@Override
+			Object process(Item item) {
+				PlantObject plant = (PlantObject)item.value;
+				plants[item.index] = plant;
+				if (calc != null) {
+					results[item.index] = calc.calcArea(Collections.singletonList(plant));
+				}
+				return null;
+			}
+		});
+		
+		long start = System.nanoTime();
+		execute(stages, files);
+		long elapsed = System.nanoTime() - start;
+		
+		List<StageStatistics> statistics = new ArrayList<>(stages.size());
+		for (Stage stage: stages) {
+			statistics.add(stage.statistics);
+		}
+		return new PipelineResult(new ArrayList<>(Arrays.asList(plants)),
+				(results == null) ? null : new ArrayList<>(Arrays.asList(results)),
+				statistics, elapsed);
+	}
+	
+	
+	/**
+	 * run the stages, and wait for all of them.
+	 * @param stages stages
+	 * @param files file names for the error message
+	 * @throws PlantObjectReaderException the first error of the stages
+	 */
+	private void execute(List<Stage> stages, String[] files) throws PlantObjectReaderException {
+		ExecutorService executor = Executors.newFixedThreadPool(stages.size());
+		try {
+			ExecutorCompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+			for (Stage stage: stages) {
+				completion.submit(stage);
+			}
+			for (int ix = 0; ix < stages.size(); ix++) {
+				try {
+					completion.take().get();
+				}
+				catch (ExecutionException ex) {
+					Throwable cause = ex.getCause();
+					if (cause instanceof PlantObjectReaderException) {
+						throw (PlantObjectReaderException)cause;
+					}
+					throw new PlantObjectReaderException(cause, new MessageProperty("E.IO.000000", Arrays.toString(files)));
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000000", Arrays.toString(files)));
+				}
+			}
+		}
+		finally {
+			// stop the rest when an error occurs
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	/**
+	 * a file in the pipeline.
+	 */
+	private static class Item {
+		/** index of the file */
+		final int index;
+		/** file name */
+		final String file;
+		/** output of the previous stage */
+		Object value;
+		
+		Item(int index, String file) {
+			this.index = index;
+			this.file = file;
+		}
+	}
+	
+	
+	/**
+	 * a stage which takes files from the input queue and puts them to the output queue.
+	 */
+	private abstract static class Stage implements Callable<Void> {
+		
+		final StageStatistics statistics;
+		private final BlockingQueue<Item> in;
+		private final BlockingQueue<Item> out;
+		
+		Stage(String name, BlockingQueue<Item> in, BlockingQueue<Item> out) {
+			this.statistics = new StageStatistics(name);
+			this.in = in;
+			this.out = out;
+		}
+		
+		/**
+		 * @return the next file, or {@code END}
+		 * @throws InterruptedException
+		 */
+		Item take() throws InterruptedException {
+			return in.take();
+		}
+		
+		/**
+		 * process a file.
+		 * @param item file and the output of the previous stage
+		 * @return output of this stage
+		 * @throws Exception
+		 */
+		abstract Object process(Item item) throws Exception;
+		
+		@Override
+		public Void call() throws Exception {
+			while (true) {
+				long t0 = System.nanoTime();
+				Item item = take();
+				long t1 = System.nanoTime();
+				statistics.waitTime += t1 - t0;
+				if (item == END) {
+					if (out != null) {
+						out.put(END);
+					}
+					return null;
+				}
+				
+				try {
+					item.value = process(item);
+				}
+				catch (PlantObjectReaderException ex) {
+					throw ex;
+				}
+				catch (IOException ex) {
+					throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000010", item.file));
+				}
+				catch (Exception ex) {
+					throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000000", item.file));
+				}
+				long t2 = System.nanoTime();
+				statistics.busyTime += t2 - t1;
+				statistics.count++;
+				
+				if (out != null) {
+					out.put(item);
+				}
+				statistics.blockedTime += System.nanoTime() - t2;
+			}
+		}
+	}
+}
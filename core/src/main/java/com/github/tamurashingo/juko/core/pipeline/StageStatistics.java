@@ -0,0 +1,111 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.pipeline;
+
+/**
+ * counters of a stage of {@link PlantPipeline}.
+ * <p>
+ * the time of a stage is split into three parts.
+ * </p>
+ * <ul>
+ * <li>busy: processing items</li>
+ * <li>waiting: waiting for the previous stage (the stage is starved)</li>
+ * <li>blocked: waiting for the next stage (the queue is full)</li>
+ * </ul>
+ * <p>
+ * the slowest stage has the highest utilization,
+ * and the other stages spend their time waiting or blocked.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class StageStatistics {
+	
+	/** name of the stage */
+	private final String name;
+	
+	/** number of processed items */
+	int count;
+	/** time of processing (nanoseconds) */
+	long busyTime;
+	/** time of waiting for the input (nanoseconds) */
+	long waitTime;
+	/** time of waiting for the space of the output queue (nanoseconds) */
+	long blockedTime;
+	
+	
+	/**
+	 * @param name name of the stage
+	 */
+	StageStatistics(String name) {
+		this.name = name;
+	}
+	
+	
+	/**
+	 * @return name of the stage
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return number of processed items
+	 */
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return time of processing (nanoseconds)
+	 */
+	public long getBusyTime() {
+		return busyTime;
+	}
+	
+	/**
+	 * @return time of waiting for the previous stage (nanoseconds)
+	 */
+	public long getWaitTime() {
+		return waitTime;
+	}
+	
+	/**
+	 * @return time of waiting for the next stage (nanoseconds)
+	 */
+	public long getBlockedTime() {
+		return blockedTime;
+	}
+	
+	/**
+	 * @return ratio of the busy time to the running time of the stage (0.0 - 1.0)
+	 */
+	public double getUtilization() {
+		long total = busyTime + waitTime + blockedTime;
+		return (total == 0) ? 0.0 : (double)busyTime / total;
+	}
+}
@@ -62,6 +62,29 @@ public interface PlantObjectReader {
 	 * @throws PlantObjectReaderException if some error occurs.
 	 */
 	public List<PlantObject> read() throws PlantObjectReaderException;
+	
+	
+	/**
+	 * read some data and creates the next {@code PlantObject}.
+	 * <p>
+	 * only one {@code PlantObject} is kept in memory,
+	 * so it can be passed to the calculator as soon as it is created.
+	 * </p>
+	 * <p>
+	 * example:
+	 * <code><pre>
+	 * PlantObject plant;
+	 * while ((plant = reader.readNext()) != null) {
+	 *     AreaResult result = calc.calcArea(Collections.singletonList(plant));
+	 *     ...
+	 * }
+	 * </pre></code>
+	 * </p>
+	 * 
+	 * @return created {@code PlantObject}. if no more data, returns null.
+	 * @throws PlantObjectReaderException if some error occurs.
+	 */
+	public PlantObject readNext() throws PlantObjectReaderException;
 
 	
 	/**
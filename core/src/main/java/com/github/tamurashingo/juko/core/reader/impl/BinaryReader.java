@@ -0,0 +1,159 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.reader.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReader;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReaderException;
+import com.github.tamurashingo.juko.core.util.MessageProperty;
+import com.github.tamurashingo.juko.core.util.PlantObjectCodec;
+
+
+/**
+ * this class loads {@code PlantObject}s from binary files.
+ * <p>
+ * a file may contain some {@code PlantObject}s,
+ * which are written by {@link com.github.tamurashingo.juko.core.writer.impl.BinaryWriter}.
+ * the coordinates are copied into the {@code TriangleMesh} in bulk.
+ * </p>
+ *
+ * @see PlantObjectCodec
+ * @author tamura shingo
+ *
+ */
+public class BinaryReader implements PlantObjectReader {
+	
+	/**
+	 * given files.
+	 */
+	protected String[] files;
+	
+	/**
+	 * index of the file which is read next.
+	 */
+	protected int nextFile;
+	
+	/**
+	 * current file. null if no file is opened.
+	 */
+	protected FileChannel channel;
+	
+	private final PlantObjectCodec codec = new PlantObjectCodec();
+	
+	
+	@Override
+	public void open(String... args) throws PlantObjectReaderException {
+		close();
+		this.files = args;
+		this.nextFile = 0;
+	}
+	
+	/**
+	 * read all {@code PlantObject}s which are not read by {@code readNext} yet.
+	 */
+	@Override
+	public List<PlantObject> read() throws PlantObjectReaderException {
+		List<PlantObject> plants = new ArrayList<>();
+		
+		PlantObject p;
+		while ((p = readNext()) != null) {
+			plants.add(p);
+		}
+		
+		return plants;
+	}
+	
+	/**
+	 * read the next {@code PlantObject}.
+	 * when a file ends, the next file is opened.
+	 */
+	@Override
+	public PlantObject readNext() throws PlantObjectReaderException {
+		while (true) {
+			if (channel == null) {
+				if (files == null || nextFile >= files.length) {
+					return null;
+				}
+				openFile(files[nextFile++]);
+			}
+			
+			String file = files[nextFile - 1];
+			try {
+				PlantObject plant = codec.read(channel);
+				if (plant != null) {
+					return plant;
+				}
+			}
+			catch (EOFException | StreamCorruptedException ex) {
+				throw new PlantObjectReaderException("FormatError", ex, new MessageProperty("E.IO.000040", file));
+			}
+			catch (IOException ex) {
+				throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000010", file));
+			}
+			close();
+		}
+	}
+	
+	@Override
+	public void close() throws PlantObjectReaderException {
+		if (channel == null) {
+			return;
+		}
+		try {
+			channel.close();
+		}
+		catch (IOException ex) {
+			throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000010", files[nextFile - 1]));
+		}
+		finally {
+			channel = null;
+		}
+	}
+	
+	
+	/**
+	 * open a binary file.
+	 * @param file file name
+	 * @throws PlantObjectReaderException if the file cannot be opened.
+	 */
+	protected void openFile(String file) throws PlantObjectReaderException {
+		try {
+			channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+		}
+		catch (IOException ex) {
+			throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000010", file));
+		}
+	}
+}
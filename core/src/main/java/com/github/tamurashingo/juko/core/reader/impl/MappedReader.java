@@ -0,0 +1,82 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.reader.impl;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import com.github.tamurashingo.juko.core.util.LineReader;
+import com.github.tamurashingo.juko.core.util.MappedLineReader;
+
+
+/**
+ * this class loads TSV files like {@link SimpleReader} through memory-mapped files.
+ * <p>
+ * the coordinates are converted directly from the mapped memory,
+ * so no {@code String} is created for each line.
+ * the file is mapped in windows, so files larger than 2GB can be read.
+ * the file must be ASCII text.
+ * </p>
+ *
+ * @author tamura shingo
+ *
+ */
+public class MappedReader extends SimpleReader {
+	
+	/**
+	 * size of the mapped window in bytes.
+	 */
+	protected int windowSize = MappedLineReader.DEFAULT_WINDOW_SIZE;
+	
+	
+	/**
+	 * @return size of the mapped window in bytes
+	 */
+	public int getWindowSize() {
+		return windowSize;
+	}
+	
+	/**
+	 * set the size of the mapped window.
+	 * a line which is longer than the window is also read.
+	 * @param windowSize size of the mapped window in bytes
+	 */
+	public void setWindowSize(int windowSize) {
+		if (windowSize <= 0) {
+			throw new IllegalArgumentException("windowSize:" + windowSize);
+		}
+		this.windowSize = windowSize;
+	}
+	
+	
+	/**
+	 * open a file as a memory-mapped file.
+	 */
+	@Override
+	protected LineReader openReader(String file) throws IOException {
+		return new MappedLineReader(Paths.get(file), windowSize);
+	}
+}
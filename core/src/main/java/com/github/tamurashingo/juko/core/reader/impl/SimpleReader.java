@@ -25,23 +25,27 @@
  */
 package com.github.tamurashingo.juko.core.reader.impl;
 
-import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import com.github.tamurashingo.juko.core.bean.Affine4;
 import com.github.tamurashingo.juko.core.bean.PlantObject;
-import com.github.tamurashingo.juko.core.bean.Triangle;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
 import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.bean.Transform;
 import com.github.tamurashingo.juko.core.reader.PlantObjectReader;
 import com.github.tamurashingo.juko.core.reader.PlantObjectReaderException;
 import com.github.tamurashingo.juko.core.util.LineReader;
 import com.github.tamurashingo.juko.core.util.LineReaderException;
 import com.github.tamurashingo.juko.core.util.MessageProperty;
+import com.github.tamurashingo.juko.core.util.PointBuffer;
 
 
 /**
@@ -57,30 +61,153 @@ public class SimpleReader implements PlantObjectReader {
 	 * given files.
 	 */
 	protected String[] files;
+	
+	/**
+	 * index of the file which is read by {@code readNext}.
+	 */
+	protected int nextFile;
+	
+	/**
+	 * executor for reading files in parallel. if null, files are read one by one.
+	 */
+	protected ExecutorService executor;
+	
+	
+	/**
+	 * transform applied to the vertexes after the origin shift. may be null.
+	 */
+	protected Affine4 transform;
+	
+	
+	/**
+	 * @return transform applied to the vertexes, or null
+	 */
+	public Affine4 getTransform() {
+		return transform;
+	}
+	
+	/**
+	 * set the transform applied to the vertexes.
+	 * <p>
+	 * the transform is combined with the origin shift,
+	 * and applied to the vertexes in one pass before the triangles are created.
+	 * so the created plants are already transformed, for example by
+	 * {@code TransformUtil.createRotateX(rad).multiply(TransformUtil.createScale(s, s, s))}.
+	 * the subclasses and {@link com.github.tamurashingo.juko.core.pipeline.PlantPipeline}
+	 * apply it in the same way.
+	 * </p>
+	 * @param transform affine transform. if null, the vertexes are only moved to the origin.
+	 */
+	public void setTransform(Transform transform) {
+		this.transform = (transform == null) ? null : Affine4.valueOf(transform);
+	}
+	
+	/**
+	 * @return executor for reading files in parallel
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+	
+	/**
+	 * set the executor for reading files in parallel.
+	 * <p>
+	 * {@code read} parses the files on the executor.
+	 * the order of the result is the same as the order of the files,
+	 * and if some files have errors, the error of the first one is thrown.
+	 * the executor is not shut down by this class.
+	 * </p>
+	 * @param executor executor. if null, files are read one by one.
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
 
+	/**
+	 * read all files which are not read by {@code readNext} yet.
+	 */
 	@Override
 	public List<PlantObject> read() throws PlantObjectReaderException {
+		if (executor != null) {
+			return readParallel();
+		}
+		
 		List<PlantObject> plants = new ArrayList<>();
 		
-		for (String file: files) {
-			try (LineReader reader = new LineReader(new BufferedReader(new FileReader(file)))) {
-				PlantObject p = readMain(reader);
-				plants.add(p);
-			}
-			catch (IOException ex) {
-				throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000010", file));
+		PlantObject p;
+		while ((p = readNext()) != null) {
+			plants.add(p);
+		}
+		
+		return plants;
+	}
+	
+	/**
+	 * read all files which are not read by {@code readNext} yet on the executor.
+	 * @return created {@code PlantObject}s in the order of the files
+	 * @throws PlantObjectReaderException the error of the first file which has an error.
+	 */
+	protected List<PlantObject> readParallel() throws PlantObjectReaderException {
+		if (files == null) {
+			return new ArrayList<>();
+		}
+		
+		List<Future<PlantObject>> futures = new ArrayList<>(files.length - nextFile);
+		for (; nextFile < files.length; nextFile++) {
+			final String file = files[nextFile];
+			futures.add(executor.submit(new Callable<PlantObject>() {
+				@Override
+				public PlantObject call() throws PlantObjectReaderException {
+					return readFile(file);
+				}
+			}));
+		}
+		
+		List<PlantObject> plants = new ArrayList<>(futures.size());
+		int first = files.length - futures.size();
+		try {
+			for (int ix = 0; ix < futures.size(); ix++) {
+				try {
+					plants.add(futures.get(ix).get());
+				}
+				catch (ExecutionException ex) {
+					Throwable cause = ex.getCause();
+					if (cause instanceof PlantObjectReaderException) {
+						throw (PlantObjectReaderException)cause;
+					}
+					throw new PlantObjectReaderException(cause, new MessageProperty("E.IO.000000", files[first + ix]));
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000000", files[first + ix]));
+				}
 			}
-			catch (Exception ex) {
-				throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000000", file));
+		}
+		finally {
+			// stop the rest when an error occurs
+			for (Future<PlantObject> future: futures) {
+				future.cancel(true);
 			}
 		}
 		
 		return plants;
 	}
+	
+	/**
+	 * read the next file.
+	 */
+	@Override
+	public PlantObject readNext() throws PlantObjectReaderException {
+		if (files == null || nextFile >= files.length) {
+			return null;
+		}
+		return readFile(files[nextFile++]);
+	}
 
 	@Override
 	public void open(String... args) throws PlantObjectReaderException {
 		this.files = args;
+		this.nextFile = 0;
 	}
 
 	@Override
@@ -89,6 +216,36 @@ public class SimpleReader implements PlantObjectReader {
 	}
 	
 	
+	/**
+	 * create a {@code PlantObject} from a TSV file.
+	 * @param file file name
+	 * @return PlantObject created from a TSV file.
+	 * @throws PlantObjectReaderException
+	 */
+	protected PlantObject readFile(String file) throws PlantObjectReaderException {
+		try (LineReader reader = openReader(file)) {
+			return readMain(reader);
+		}
+		catch (IOException ex) {
+			throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000010", file));
+		}
+		catch (Exception ex) {
+			throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000000", file));
+		}
+	}
+	
+	
+	/**
+	 * open a file for {@code readFile}.
+	 * @param file file name
+	 * @return LineReader
+	 * @throws IOException if the file cannot be opened.
+	 */
+	protected LineReader openReader(String file) throws IOException {
+		return new LineReader(new FileReader(file));
+	}
+	
+	
 	/**
 	 * create a {@code PlantObject} from a TSV file.
 	 * @param reader LineReader
@@ -96,18 +253,64 @@ public class SimpleReader implements PlantObjectReader {
 	 * @throws PlantObjectReaderException
 	 */
 	protected PlantObject readMain(LineReader reader) throws PlantObjectReaderException {
+		return build(parse(reader));
+	}
+	
+	/**
+	 * read the vertexes of a file.
+	 * this is the first half of {@code readMain}, which depends on the format.
+	 * 
+	 * @param reader LineReader
+	 * @return vertex informations
+	 * @throws PlantObjectReaderException if occurs an IO error or a format error.
+	 * @see com.github.tamurashingo.juko.core.pipeline.PlantPipeline
+	 */
+	public PointBuffer parse(LineReader reader) throws PlantObjectReaderException {
 		try {
-			LinkedList<double[]> rawPoints = readAllPoints(reader);
-			LinkedList<double[]> normalizedPoints = originShift(rawPoints);
-			PlantObject plant = createPlant(normalizedPoints);
-			
-			return plant;
+			return readAllPoints(reader);
 		}
 		catch (LineReaderException ex) {
 			throw new PlantObjectReaderException(ex, new MessageProperty(""));
 		}
 	}
 	
+	/**
+	 * read the vertexes of a file, which is opened by {@link #openReader(String)}.
+	 * the file is streamed, so the whole file is not loaded in memory.
+	 * 
+	 * @param file file
+	 * @return vertex informations
+	 * @throws PlantObjectReaderException if occurs an IO error or a format error.
+	 * @see com.github.tamurashingo.juko.core.pipeline.PlantPipeline
+	 */
+	public PointBuffer parse(Path file) throws PlantObjectReaderException {
+		try (LineReader reader = openReader(file.toString())) {
+			return parse(reader);
+		}
+		catch (PlantObjectReaderException ex) {
+			throw ex;
+		}
+		catch (IOException ex) {
+			throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000010", file.toString()));
+		}
+		catch (Exception ex) {
+			throw new PlantObjectReaderException(ex, new MessageProperty("E.IO.000000", file.toString()));
+		}
+	}
+	
+	/**
+	 * move the vertexes to the origin and create a {@code PlantObject}.
+	 * this is the second half of {@code readMain}.
+	 * 
+	 * @param points vertex informations. moved in place.
+	 * @return PlantObject
+	 * @see com.github.tamurashingo.juko.core.pipeline.PlantPipeline
+	 */
+	public PlantObject build(PointBuffer points) {
+		originShift(points);
+		return createPlant(points);
+	}
+	
 	/**
 	 * read vertex informations.
 	 *  
@@ -116,11 +319,11 @@ public class SimpleReader implements PlantObjectReader {
 	 * @throws LineReaderException if occurs an IO error.
 	 * @throws PlantObjectReaderException if occurs a format error.
 	 */
-	protected LinkedList<double[]> readAllPoints(LineReader reader) throws LineReaderException, PlantObjectReaderException {
-		double[] p;
-		LinkedList<double[]> points = new LinkedList<>();
-		while ((p = readPoint(reader)) != null) {
-			points.add(p);
+	protected PointBuffer readAllPoints(LineReader reader) throws LineReaderException, PlantObjectReaderException {
+		double[] p = new double[3];
+		PointBuffer points = new PointBuffer();
+		while (readPoint(reader, p)) {
+			points.add(p[0], p[1], p[2]);
 		}
 		return points;
 	}
@@ -128,116 +331,99 @@ public class SimpleReader implements PlantObjectReader {
 	/**
 	 * move vertexes to origin.
 	 * last item is center vertexes.
+	 * if the transform is set, it is applied in the same pass.
 	 * 
-	 * @param points raw vertexes
-	 * @return moved vertexes
+	 * @param points raw vertexes. moved in place.
 	 */
-	protected LinkedList<double[]> originShift(LinkedList<double[]> points) {
+	protected void originShift(PointBuffer points) {
+		int last = points.size() - 1;
+		if (last < 0) {
+			return;
+		}
 		// get origin address;
-		double[] origin = points.peekLast();
-		LinkedList<double[]> newPoints = new LinkedList<>();
-		
-		for (double[] p: points) {
-			double[] newP = new double[] {
-					p[0] - origin[0],
-					p[1] - origin[1],
-					p[2] - origin[2],
-			};
-			newPoints.add(newP);
+		double ox = points.getX(last);
+		double oy = points.getY(last);
+		double oz = points.getZ(last);
+		if (transform == null) {
+			points.translate(-ox, -oy, -oz);
+			return;
+		}
+		// subtract the origin first, so that large coordinates do not lose precision
+		Affine4 a = transform;
+		double m00 = a.get(0, 0), m01 = a.get(0, 1), m02 = a.get(0, 2), m03 = a.get(0, 3);
+		double m10 = a.get(1, 0), m11 = a.get(1, 1), m12 = a.get(1, 2), m13 = a.get(1, 3);
+		double m20 = a.get(2, 0), m21 = a.get(2, 1), m22 = a.get(2, 2), m23 = a.get(2, 3);
+		double[] x = points.getXColumn();
+		double[] y = points.getYColumn();
+		double[] z = points.getZColumn();
+		for (int ix = 0; ix <= last; ix++) {
+			double px = x[ix] - ox;
+			double py = y[ix] - oy;
+			double pz = z[ix] - oz;
+			x[ix] = m00 * px + m01 * py + m02 * pz + m03;
+			y[ix] = m10 * px + m11 * py + m12 * pz + m13;
+			z[ix] = m20 * px + m21 * py + m22 * pz + m23;
 		}
-		
-		return newPoints;
 	}
 	
 	/**
 	 * create a {@code PlantObject} from vertexes.
 	 * {@code PlantType} is {@code LEAF}.
+	 * every 3 vertexes make a triangle.
+	 * <p>
+	 * the columns of {@code points} have the same layout as {@code TriangleMesh},
+	 * so the mesh uses them without copying, and {@code points} must not be used after this.
+	 * the rest vertexes (the origin) are ignored.
+	 * the buffer grows by 1.5 times, so the columns are trimmed
+	 * if the unused entries are more than 1/8 of the used entries.
+	 * </p>
 	 * 
 	 * @param points vertexes
 	 * @return PlantObject
 	 */
-	protected PlantObject createPlant(LinkedList<double[]> points) {
-		PlantObject plant = new PlantObject();
-		plant.setPlantType(PlantType.LEAF);
-		
-		Iterator<double[]> it = points.iterator();
-		Triangle t = null;
-		while ((t = createTriangle(it)) !=null) {
-			plant.addTriangle(t);
+	protected PlantObject createPlant(PointBuffer points) {
+		int size = points.size() / 3;
+		TriangleMesh mesh = TriangleMesh.wrap(points.getXColumn(), points.getYColumn(), points.getZColumn(), size);
+		if (points.getXColumn().length - size * 3 > (size * 3) >> 3) {
+			mesh.trimToSize();
 		}
-		
+		PlantObject plant = new PlantObject(mesh);
+		plant.setPlantType(PlantType.LEAF);
 		return plant;
 	}
 	
-	
-	/**
-	 * create a triangle object from 3 vertexes.
-	 * 
-	 * @param it iterator about vertex object.
-	 * @return {@code Triangle} object. if {@code it} has no item, returns null.
-	 */
-	protected Triangle createTriangle(Iterator<double[]> it) {
-		try {
-			Triangle t = new Triangle(it.next(), it.next(), it.next());
-			return t;
-		}
-		catch (NoSuchElementException ex) {
-			return null;
-		}
-	}
-	
 	/**
 	 * read a line and convert to array of double.
+	 * blank lines are skipped.
+	 * 
 	 * @param reader LineReader
-	 * @return array of double(vertex information). if EOF, return null.
+	 * @param point destination of the vertex information (X, Y, Z).
+	 * @return false if EOF.
 	 * @throws LineReaderException if IO error occurs.
 	 * @throws PlantObjectReaderException if format error occurs.
 	 */
-	protected double[] readPoint(LineReader reader) throws LineReaderException, PlantObjectReaderException {
-		String line = readLine(reader);
+	protected boolean readPoint(LineReader reader, double[] point) throws LineReaderException, PlantObjectReaderException {
+		int count;
+		try {
+			// when blank line, get next line
+			while ((count = reader.readValues('\t', point)) == 0) {
+				// skip
+			}
+		}
+		catch (NumberFormatException ex) {
+			throw new PlantObjectReaderException("FormatError", ex, new MessageProperty("E.IO.000020", reader.getLineCount()));
+		}
 		
 		// EOF
-		if (line == null) {
-			return null;
+		if (count < 0) {
+			return false;
 		}
-
-		String[] items = line.split("\t");
 		
 		// must have 3 items.
-		if (items.length != 3) {
-			throw new PlantObjectReaderException( "FormatError", new MessageProperty(""));
-		}
-		
-		double[] points = new double[items.length];
-		for (int ix = 0; ix < items.length; ix++) {
-			points[ix] = Double.parseDouble(items[ix]);
+		if (count != 3) {
+			throw new PlantObjectReaderException("FormatError", new MessageProperty("E.IO.000020", reader.getLineCount()));
 		}
-
-		return points;
-	}
-	
-	/**
-	 * get a line from a TSV file.
-	 * @param reader LineReader
-	 * @return a line. if EOF return null.
-	 * @throws LineReaderException if IO error occurs.
-	 */
-	protected String readLine(LineReader reader) throws LineReaderException {
-		String line = null;
-		boolean loopFlag = true;
 		
-		while (loopFlag) {
-			line = reader.readLine();
-			if (line == null) {
-				// EOF
-				break;
-			}
-			if (line.length() > 0) {
-				// get some items.
-				break;
-			}
-			// when blank line, get next line
-		}
-		return line;
+		return true;
 	}
 }
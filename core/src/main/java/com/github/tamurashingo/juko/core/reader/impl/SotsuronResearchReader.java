@@ -25,12 +25,9 @@
  */
 package com.github.tamurashingo.juko.core.reader.impl;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.NoSuchElementException;
-
 import com.github.tamurashingo.juko.core.bean.PlantObject;
-import com.github.tamurashingo.juko.core.bean.Triangle;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.util.PointBuffer;
 
 /**
  * read the tsv file that was used in my research.
@@ -61,59 +58,33 @@ import com.github.tamurashingo.juko.core.bean.Triangle;
 public class SotsuronResearchReader extends SimpleReader {
 	
 	@Override
-	protected PlantObject createPlant(LinkedList<double[]> points) {
+	protected PlantObject createPlant(PointBuffer points) {
 		PlantObject plant = new PlantObject();
 
-		Iterator<double[]> it = points.iterator();
-		double[][][] vertexes = null;
-		while ((vertexes = getLeaf(it)) != null) {
-			for (double[][] v: vertexes) {
-				plant.addTriangle(createTriangle(v));
-			}
+		TriangleMesh mesh = plant.getMesh();
+		mesh.ensureCapacity(points.size() / 9 * 7);
+		for (int ix = 0; ix + 9 <= points.size(); ix += 9) {
+			addLeaf(mesh, points, ix);
 		}
 
 		return plant;
 	}
 	
 	/**
-	 * get next leaf vertexes.
-	 * @param it iterator from {@code LinkedList<double[]>}
-	 * @return leaf vertexes. if {@code it} has no item, returns null.
+	 * add 7 triangles of a leaf.
+	 * @param mesh triangle storage
+	 * @param points vertexes
+	 * @param first index of v1
 	 */
-	protected double[][][] getLeaf(Iterator<double[]> it) {
-		try {
-			double[] v1 = it.next();
-			double[] v2 = it.next();
-			double[] v3 = it.next();
-			double[] v4 = it.next();
-			double[] v5 = it.next();
-			double[] v6 = it.next();
-			double[] v7 = it.next();
-			double[] v8 = it.next();
-			double[] v9 = it.next();
-			return new double[][][] {
-					 {v1, v2, v3},
-					 {v2, v3, v4},
-					 {v3, v4, v5},
-					 {v4, v5, v6},
-					 {v5, v6, v7},
-					 {v6, v7, v8},
-					 {v7, v8, v9},
-			};
-		}
-		catch (NoSuchElementException ex) {
-			return null;			
+	protected void addLeaf(TriangleMesh mesh, PointBuffer points, int first) {
+		double[] x = points.getXColumn();
+		double[] y = points.getYColumn();
+		double[] z = points.getZColumn();
+		for (int ix = first; ix < first + 7; ix++) {
+			mesh.add(x[ix],     y[ix],     z[ix],
+					x[ix + 1], y[ix + 1], z[ix + 1],
+					x[ix + 2], y[ix + 2], z[ix + 2]);
 		}
 	}
-	
-	
-	/**
-	 * create a triangle object from 3 vertexes.
-	 * @param v arrays of vertex
-	 * @return {@code Triangle} object
-	 */
-	protected Triangle createTriangle(double[][] v) {
-		return new Triangle(v[0], v[1], v[2]);
-	}
 
 }
@@ -0,0 +1,361 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.scene;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.Transform;
+
+/**
+ * a node of the scene graph, for example a plant, a branch or a leaf.
+ * <p>
+ * a node has a local transform relative to its parent and an optional geometry.
+ * the world transform is the product of the local transforms from the root,
+ * and is cached until the local transform of the node or its ancestor is changed.
+ * the geometry is given in the local coordinates, and {@link #getWorldPlant()}
+ * returns the plant transformed into the world coordinates.
+ * </p>
+ * <p>
+ * changing a node marks only its subtree as dirty,
+ * and the ancestors remember that a descendant is dirty.
+ * {@link #update()} visits only the dirty paths, and transforms the geometry of the dirty nodes
+ * into the meshes of their world plants, which are reused.
+ * the transformed meshes are marked as dirty, so that
+ * {@link com.github.tamurashingo.juko.core.calculate.impl.IncrementalCalcIncludeOverlap}
+ * recalculates only the moved plants.
+ * </p>
+ * <p>
+ * example.
+ * </p>
+ * <p>
+ * <code><pre>
+ * SceneNode root = new SceneNode("field");
+ * SceneNode branch = new SceneNode("branch", TransformUtil.createTranslate(0, 0, 1.5));
+ * root.addChild(branch);
+ * branch.addChild(new SceneNode("leaf", TransformUtil.createRotateX(0.2), leaf));
+ * 
+ * // wind
+ * branch.setLocalTransform(TransformUtil.createTranslate(0, 0, 1.5).multiply(TransformUtil.createRotateY(sway)));
+ * root.update();
+ * AreaResult result = calc.calcArea(root.getPlants());
+ * </pre></code>
+ * </p>
+ * <p>
+ * this class is not thread safe.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class SceneNode {
+	
+	/** name of the node */
+	private final String name;
+	
+	/** parent node. null if this is a root */
+	private SceneNode parent;
+	
+	/** child nodes */
+	private final List<SceneNode> children = new ArrayList<>();
+	
+	/** transform relative to the parent */
+	private Affine4 localTransform;
+	
+	/** cached transform relative to the root */
+	private Affine4 worldTransform;
+	
+	/** false if the world transform must be calculated. if false, all descendants are also false */
+	private boolean worldValid;
+	
+	/** geometry in the local coordinates. may be null */
+	private PlantObject geometry;
+	
+	/** geometry in the world coordinates */
+	private PlantObject worldPlant;
+	
+	/** false if the world plant must be transformed */
+	private boolean geometryValid;
+	
+	/** true if this node or a descendant must be updated. if true, all ancestors are also true */
+	private boolean pending;
+	
+	
+	/**
+	 * create a node without a transform and geometry.
+	 * @param name name of the node
+	 */
+	public SceneNode(String name) {
+		this(name, Affine4.IDENTITY, null);
+	}
+	
+	/**
+	 * create a node without geometry.
+	 * @param name name of the node
+	 * @param localTransform transform relative to the parent
+	 */
+	public SceneNode(String name, Transform localTransform) {
+		this(name, localTransform, null);
+	}
+	
+	/**
+	 * create a node.
+	 * @param name name of the node
+	 * @param localTransform transform relative to the parent
+	 * @param geometry geometry in the local coordinates. may be null
+	 */
+	public SceneNode(String name, Transform localTransform, PlantObject geometry) {
+		this.name = name;
+		this.localTransform = Affine4.valueOf(localTransform);
+		this.worldTransform = this.localTransform;
+		this.worldValid = true;
+		setGeometry(geometry);
+	}
+	
+	
+	/**
+	 * @return name of the node
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return parent node, or null if this is a root
+	 */
+	public SceneNode getParent() {
+		return parent;
+	}
+	
+	/**
+	 * @return read-only list of the child nodes
+	 */
+	public List<SceneNode> getChildren() {
+		return Collections.unmodifiableList(children);
+	}
+	
+	/**
+	 * add a child node.
+	 * if the child has another parent, it is removed from the parent.
+	 * @param child child node
+	 * @throws IllegalArgumentException if the child is this node or an ancestor of this node
+	 */
+	public void addChild(SceneNode child) {
+		for (SceneNode n = this; n != null; n = n.parent) {
+			if (n == child) {
+				throw new IllegalArgumentException("cycle:" + child.name);
+			}
+		}
+		if (child.parent != null) {
+			child.parent.children.remove(child);
+		}
+		child.parent = this;
+		children.add(child);
+		child.invalidateWorld();
+		markPending();
+	}
+	
+	/**
+	 * remove a child node. the child becomes a root.
+	 * @param child child node
+	 * @return true if the child is removed
+	 */
+	public boolean removeChild(SceneNode child) {
+		if (child.parent != this) {
+			return false;
+		}
+		children.remove(child);
+		child.parent = null;
+		child.invalidateWorld();
+		child.markPending();
+		return true;
+	}
+	
+	
+	/**
+	 * @return transform relative to the parent
+	 */
+	public Affine4 getLocalTransform() {
+		return localTransform;
+	}
+	
+	/**
+	 * set the transform relative to the parent.
+	 * the subtree of this node is marked as dirty.
+	 * @param localTransform transform relative to the parent
+	 */
+	public void setLocalTransform(Transform localTransform) {
+		this.localTransform = Affine4.valueOf(localTransform);
+		invalidateWorld();
+		markPending();
+	}
+	
+	/**
+	 * returns the transform relative to the root.
+	 * the transforms of the ancestors are calculated if they are dirty.
+	 * @return transform relative to the root
+	 */
+	public Affine4 getWorldTransform() {
+		if (!worldValid) {
+			worldTransform = (parent == null) ? localTransform : parent.getWorldTransform().multiply(localTransform);
+			worldValid = true;
+		}
+		return worldTransform;
+	}
+	
+	
+	/**
+	 * @return geometry in the local coordinates, or null
+	 */
+	public PlantObject getGeometry() {
+		return geometry;
+	}
+	
+	/**
+	 * set the geometry in the local coordinates.
+	 * a new world plant is created, so the old world plant is not changed after this.
+	 * @param geometry geometry. may be null
+	 */
+	public void setGeometry(PlantObject geometry) {
+		this.geometry = geometry;
+		if (geometry == null) {
+			worldPlant = null;
+			geometryValid = true;
+		}
+		else {
+			worldPlant = new PlantObject();
+			geometryValid = false;
+			markPending();
+		}
+	}
+	
+	/**
+	 * mark the geometry as dirty.
+	 * call this after the triangles of the geometry are changed.
+	 */
+	public void invalidateGeometry() {
+		if (geometry != null) {
+			geometryValid = false;
+			markPending();
+		}
+	}
+	
+	/**
+	 * returns the geometry in the world coordinates.
+	 * the same plant is returned until the geometry is replaced,
+	 * and its triangles are updated by {@link #update()} or this method.
+	 * @return transformed geometry, or null if this node has no geometry
+	 */
+	public PlantObject getWorldPlant() {
+		if (!geometryValid) {
+			transformGeometry();
+		}
+		return worldPlant;
+	}
+	
+	
+	/**
+	 * update the world transforms and the world plants of the dirty nodes in the subtree.
+	 * @return the number of the transformed geometries
+	 */
+	public int update() {
+		if (!pending) {
+			return 0;
+		}
+		pending = false;
+		int count = 0;
+		if (!geometryValid) {
+			transformGeometry();
+			count++;
+		}
+		for (SceneNode child: children) {
+			count += child.update();
+		}
+		return count;
+	}
+	
+	/**
+	 * update the subtree, and collect the world plants in depth-first order.
+	 * @return the world plants of the subtree
+	 */
+	public List<PlantObject> getPlants() {
+		update();
+		List<PlantObject> plants = new ArrayList<>();
+		collectPlants(plants);
+		return plants;
+	}
+	
+	
+	/**
+	 * @param plants destination of the world plants
+	 */
+	private void collectPlants(List<PlantObject> plants) {
+		if (worldPlant != null) {
+			plants.add(worldPlant);
+		}
+		for (SceneNode child: children) {
+			child.collectPlants(plants);
+		}
+	}
+	
+	/**
+	 * transform the geometry into the world plant.
+	 */
+	private void transformGeometry() {
+		getWorldTransform().applyTo(geometry.getMesh(), worldPlant.getMesh());
+		worldPlant.setPlantType(geometry.getPlantType());
+		geometryValid = true;
+	}
+	
+	/**
+	 * mark the world transforms and the geometries of the subtree as dirty.
+	 * the subtree of an invalid node is already invalid, so it is not visited.
+	 */
+	private void invalidateWorld() {
+		if (!worldValid) {
+			return;
+		}
+		worldValid = false;
+		geometryValid = (geometry == null);
+		pending = true;
+		for (SceneNode child: children) {
+			child.invalidateWorld();
+		}
+	}
+	
+	/**
+	 * mark this node and the ancestors as pending.
+	 */
+	private void markPending() {
+		pending = true;
+		for (SceneNode n = parent; n != null && !n.pending; n = n.parent) {
+			n.pending = true;
+		}
+	}
+}
@@ -0,0 +1,1017 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.spatial;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+
+/**
+ * bounding volume hierarchy over the triangles of some meshes.
+ * <p>
+ * the triangles of all meshes are numbered in order:
+ * the triangle {@code t} of the mesh {@code m} is the primitive
+ * {@code offset(m) + t}, see {@link #getMeshIndex(int)} and {@link #getTriangleIndex(int)}.
+ * </p>
+ * <p>
+ * the tree is built top-down by the surface area heuristic with binned centroids,
+ * and large subtrees are built in parallel on a fork/join pool.
+ * the nodes are stored in flat arrays, and the vertexes are copied in the order of the leaves.
+ * after the meshes are transformed, {@link #refit()} updates the bounds without rebuilding the tree.
+ * </p>
+ * <p>
+ * example.
+ * </p>
+ * <p>
+ * <code><pre>
+ * TriangleBVH bvh = new TriangleBVH(plants);
+ * TriangleHit hit = new TriangleHit();
+ * if (bvh.intersect(ox, oy, oz, dx, dy, dz, Double.POSITIVE_INFINITY, hit)) {
+ *     Plant plant = plants.get(bvh.getMeshIndex(hit.getPrimitive()));
+ *     ...
+ * }
+ * </pre></code>
+ * </p>
+ * the queries can be used by many threads at the same time, but not with {@link #refit()}.
+ *
+ * @author tamura shingo
+ *
+ */
+public class TriangleBVH {
+	
+	/** a node which has this number of triangles or less is a leaf */
+	private static final int MIN_LEAF_SIZE = 2;
+	
+	/** a node which has more triangles is always split */
+	private static final int MAX_LEAF_SIZE = 8;
+	
+	/** number of bins of the surface area heuristic */
+	private static final int BINS = 16;
+	
+	/** cost of visiting a node relative to intersecting a triangle */
+	private static final double TRAVERSAL_COST = 1.0;
+	
+	/** subtrees which have more triangles are built in parallel */
+	private static final int PARALLEL_THRESHOLD = 8192;
+	
+	
+	/** source meshes */
+	private final TriangleMesh[] meshes;
+	/** first primitive of each mesh. the last entry is the number of primitives */
+	private final int[] offsets;
+	
+	/** bounds of each node. {@code minX, minY, minZ, maxX, maxY, maxZ} */
+	private final double[] bounds;
+	/** each node has 2 entries. leaf: {@code first, count}. inner: {@code left child, 0}, right child is left + 1 */
+	private final int[] nodes;
+	/** number of nodes */
+	private final int nodeCount;
+	/** size of the traversal stack */
+	private final int stackSize;
+	
+	/** primitive of each slot in the order of the leaves */
+	private final int[] prims;
+	/** vertexes of each slot. 3 entries per slot */
+	private final double[] x;
+	private final double[] y;
+	private final double[] z;
+	
+	
+	/**
+	 * build a hierarchy over the triangles of the plants.
+	 * the mesh index is the index of the plant.
+	 * @param plants plants
+	 */
+	public TriangleBVH(List<? extends Plant> plants) {
+		this(null, meshesOf(plants));
+	}
+	
+	/**
+	 * build a hierarchy over the triangles of the plants in parallel.
+	 * the mesh index is the index of the plant.
+	 * @param pool fork/join pool
+	 * @param plants plants
+	 */
+	public TriangleBVH(ForkJoinPool pool, List<? extends Plant> plants) {
+		this(pool, meshesOf(plants));
+	}
+	
+	/**
+	 * build a hierarchy over the triangles of the meshes.
+	 * @param meshes meshes
+	 */
+	public TriangleBVH(TriangleMesh... meshes) {
+		this(null, meshes);
+	}
+	
+	/**
+	 * build a hierarchy over the triangles of the meshes in parallel.
+	 * @param pool fork/join pool. if null, built in this thread
+	 * @param meshes meshes
+	 */
+	public TriangleBVH(ForkJoinPool pool, TriangleMesh... meshes) {
+		this.meshes = meshes.clone();
+		this.offsets = new int[meshes.length + 1];
+		for (int m = 0; m < meshes.length; m++) {
+			offsets[m + 1] = offsets[m] + meshes[m].size();
+		}
+		int size = offsets[meshes.length];
+		
+		this.prims = new int[size];
+		this.x = new double[size * 3];
+		this.y = new double[size * 3];
+		this.z = new double[size * 3];
+		
+		Builder builder = new Builder(size);
+		double[] centroid = builder.root();
+		if (pool != null && size > PARALLEL_THRESHOLD) {
+			pool.invoke(new BuildTask(builder, 0, 0, size, centroid));
+		}
+		else {
+			builder.build(0, 0, size, centroid);
+		}
+		this.nodeCount = builder.next.get();
+		this.bounds = Arrays.copyOf(builder.bounds, nodeCount * 6);
+		this.nodes = Arrays.copyOf(builder.nodes, nodeCount * 2);
+		System.arraycopy(builder.order, 0, prims, 0, size);
+		loadVertices();
+		
+		// a traversal pushes at most one node per level besides the current path
+		int[] depth = new int[nodeCount];
+		int maxDepth = 0;
+		for (int node = 0; node < nodeCount; node++) {
+			if (nodes[node * 2 + 1] == 0 && nodes[node * 2] > 0) {
+				depth[nodes[node * 2]] = depth[nodes[node * 2] + 1] = depth[node] + 1;
+				maxDepth = Math.max(maxDepth, depth[node] + 1);
+			}
+		}
+		this.stackSize = maxDepth + 2;
+	}
+	
+	private static TriangleMesh[] meshesOf(List<? extends Plant> plants) {
+		TriangleMesh[] meshes = new TriangleMesh[plants.size()];
+		for (int ix = 0; ix < meshes.length; ix++) {
+			meshes[ix] = plants.get(ix).getMesh();
+		}
+		return meshes;
+	}
+	
+	
+	/**
+	 * @return the number of triangles
+	 */
+	public int size() {
+		return prims.length;
+	}
+	
+	/**
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+	
+	/**
+	 * @param primitive index of the primitive
+	 * @return index of the mesh (or the plant)
+	 */
+	public int getMeshIndex(int primitive) {
+		if (primitive < 0 || primitive >= prims.length) {
+			throw new IndexOutOfBoundsException("primitive:" + primitive);
+		}
+		// the last mesh which starts at or before the primitive
+		int lo = 0;
+		int hi = meshes.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (offsets[mid] <= primitive) {
+				lo = mid;
+			}
+			else {
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+	
+	/**
+	 * @param primitive index of the primitive
+	 * @return index of the triangle in the mesh
+	 */
+	public int getTriangleIndex(int primitive) {
+		return primitive - offsets[getMeshIndex(primitive)];
+	}
+	
+	/**
+	 * @param mesh index of the mesh
+	 * @param triangle index of the triangle in the mesh
+	 * @return index of the primitive
+	 */
+	public int getPrimitive(int mesh, int triangle) {
+		return offsets[mesh] + triangle;
+	}
+	
+	/**
+	 * returns the bounds of all triangles.
+	 * @return {@code minX, minY, minZ, maxX, maxY, maxZ}
+	 */
+	public double[] getBounds() {
+		return Arrays.copyOf(bounds, 6);
+	}
+	
+	
+	/**
+	 * update the bounds after the vertexes of the meshes are moved.
+	 * the tree is not rebuilt, so the queries become slower if the triangles move a lot.
+	 * @throws IllegalStateException if the number of triangles of a mesh is changed
+	 */
+	public void refit() {
+		for (int m = 0; m < meshes.length; m++) {
+			if (meshes[m].size() != offsets[m + 1] - offsets[m]) {
+				throw new IllegalStateException("mesh " + m + " is resized");
+			}
+		}
+		loadVertices();
+		
+		// children are always after their parent
+		for (int node = nodeCount - 1; node >= 0; node--) {
+			int b = node * 6;
+			int count = nodes[node * 2 + 1];
+			if (count > 0) {
+				int first = nodes[node * 2];
+				setEmpty(bounds, b);
+				for (int i = first * 3; i < (first + count) * 3; i++) {
+					expand(bounds, b, x[i], y[i], z[i]);
+				}
+			}
+			else if (nodes[node * 2] > 0) {
+				int left = nodes[node * 2] * 6;
+				int right = left + 6;
+				for (int k = 0; k < 3; k++) {
+					bounds[b + k] = Math.min(bounds[left + k], bounds[right + k]);
+					bounds[b + 3 + k] = Math.max(bounds[left + 3 + k], bounds[right + 3 + k]);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * copy the vertexes from the meshes in the order of the leaves.
+	 */
+	private void loadVertices() {
+		int m = 0;
+		for (int slot = 0; slot < prims.length; slot++) {
+			int p = prims[slot];
+			if (p < offsets[m] || p >= offsets[m + 1]) {
+				m = getMeshIndex(p);
+			}
+			int src = (p - offsets[m]) * 3;
+			TriangleMesh mesh = meshes[m];
+			System.arraycopy(mesh.getXColumn(), src, x, slot * 3, 3);
+			System.arraycopy(mesh.getYColumn(), src, y, slot * 3, 3);
+			System.arraycopy(mesh.getZColumn(), src, z, slot * 3, 3);
+		}
+	}
+	
+	
+	/**
+	 * find the nearest triangle which the ray hits.
+	 * 
+	 * @param ox origin of the ray
+	 * @param oy origin of the ray
+	 * @param oz origin of the ray
+	 * @param dx direction of the ray
+	 * @param dy direction of the ray
+	 * @param dz direction of the ray
+	 * @param maxDistance the largest distance, in the length of the direction
+	 * @param hit destination of the result
+	 * @return true if a triangle is hit
+	 */
+	public boolean intersect(double ox, double oy, double oz, double dx, double dy, double dz,
+			double maxDistance, TriangleHit hit) {
+		hit.clear();
+		double best = trace(ox, oy, oz, dx, dy, dz, maxDistance, -1, false, hit);
+		if (!hit.isHit()) {
+			return false;
+		}
+		hit.distance = best;
+		hit.x = ox + dx * best;
+		hit.y = oy + dy * best;
+		hit.z = oz + dz * best;
+		return true;
+	}
+	
+	/**
+	 * test whether the ray hits any triangle.
+	 * 
+	 * @param ox origin of the ray
+	 * @param oy origin of the ray
+	 * @param oz origin of the ray
+	 * @param dx direction of the ray
+	 * @param dy direction of the ray
+	 * @param dz direction of the ray
+	 * @param maxDistance the largest distance, in the length of the direction
+	 * @param ignore primitive which is not tested, such as the one the ray starts from. -1 for none
+	 * @return true if a triangle is hit
+	 */
+	public boolean occluded(double ox, double oy, double oz, double dx, double dy, double dz,
+			double maxDistance, int ignore) {
+		return trace(ox, oy, oz, dx, dy, dz, maxDistance, ignore, true, null) < maxDistance;
+	}
+	
+	/**
+	 * traverse the tree along the ray.
+	 * @return distance of the nearest hit, or of any hit if {@code any} is true. {@code maxDistance} if nothing is hit
+	 */
+	private double trace(double ox, double oy, double oz, double dx, double dy, double dz,
+			double maxDistance, int ignore, boolean any, TriangleHit hit) {
+		double ix = 1.0 / dx;
+		double iy = 1.0 / dy;
+		double iz = 1.0 / dz;
+		double best = maxDistance;
+		
+		int[] stack = new int[stackSize];
+		int sp = 0;
+		if (prims.length == 0 || enter(0, ox, oy, oz, ix, iy, iz, best) == Double.POSITIVE_INFINITY) {
+			return best;
+		}
+		stack[sp++] = 0;
+		while (sp > 0) {
+			int node = stack[--sp];
+			int count = nodes[node * 2 + 1];
+			if (count > 0) {
+				int first = nodes[node * 2];
+				for (int slot = first; slot < first + count; slot++) {
+					if (prims[slot] == ignore) {
+						continue;
+					}
+					double t = intersectTriangle(slot, ox, oy, oz, dx, dy, dz);
+					if (t > 0.0 && t < best) {
+						best = t;
+						if (any) {
+							return best;
+						}
+						hit.primitive = prims[slot];
+					}
+				}
+				continue;
+			}
+			int left = nodes[node * 2];
+			int right = left + 1;
+			double tl = enter(left, ox, oy, oz, ix, iy, iz, best);
+			double tr = enter(right, ox, oy, oz, ix, iy, iz, best);
+			// visit the nearer child first
+			if (tl <= tr) {
+				if (tr != Double.POSITIVE_INFINITY) {
+					stack[sp++] = right;
+				}
+				if (tl != Double.POSITIVE_INFINITY) {
+					stack[sp++] = left;
+				}
+			}
+			else {
+				if (tl != Double.POSITIVE_INFINITY) {
+					stack[sp++] = left;
+				}
+				stack[sp++] = right;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * slab test of a node.
+	 * @return the distance where the ray enters the node, or infinity if it does not
+	 */
+	private double enter(int node, double ox, double oy, double oz,
+			double ix, double iy, double iz, double maxDistance) {
+		int b = node * 6;
+		double near = 0.0;
+		double far = maxDistance;
+		
+		double t1 = (bounds[b] - ox) * ix;
+		double t2 = (bounds[b + 3] - ox) * ix;
+		// NaN, when the ray is on the plane of the slab, does not narrow the range
+		if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+		if (t1 > near) near = t1;
+		if (t2 < far) far = t2;
+		
+		t1 = (bounds[b + 1] - oy) * iy;
+		t2 = (bounds[b + 4] - oy) * iy;
+		if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+		if (t1 > near) near = t1;
+		if (t2 < far) far = t2;
+		
+		t1 = (bounds[b + 2] - oz) * iz;
+		t2 = (bounds[b + 5] - oz) * iz;
+		if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+		if (t1 > near) near = t1;
+		if (t2 < far) far = t2;
+		
+		return (near <= far) ? near : Double.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * Moller-Trumbore intersection.
+	 * @return distance of the hit, or NaN if the ray does not hit
+	 */
+	private double intersectTriangle(int slot, double ox, double oy, double oz,
+			double dx, double dy, double dz) {
+		int i = slot * 3;
+		double e1x = x[i + 1] - x[i], e1y = y[i + 1] - y[i], e1z = z[i + 1] - z[i];
+		double e2x = x[i + 2] - x[i], e2y = y[i + 2] - y[i], e2z = z[i + 2] - z[i];
+		double px = dy * e2z - dz * e2y;
+		double py = dz * e2x - dx * e2z;
+		double pz = dx * e2y - dy * e2x;
+		double det = e1x * px + e1y * py + e1z * pz;
+		if (det == 0.0) {
+			return Double.NaN;
+		}
+		double inv = 1.0 / det;
+		double sx = ox - x[i], sy = oy - y[i], sz = oz - z[i];
+		double u = (sx * px + sy * py + sz * pz) * inv;
+		if (u < 0.0 || u > 1.0) {
+			return Double.NaN;
+		}
+		double qx = sy * e1z - sz * e1y;
+		double qy = sz * e1x - sx * e1z;
+		double qz = sx * e1y - sy * e1x;
+		double v = (dx * qx + dy * qy + dz * qz) * inv;
+		if (v < 0.0 || u + v > 1.0) {
+			return Double.NaN;
+		}
+		return (e2x * qx + e2y * qy + e2z * qz) * inv;
+	}
+	
+	
+	/**
+	 * find the triangles whose bounding boxes overlap the box.
+	 * 
+	 * @param minX lower bound of the box
+	 * @param minY lower bound of the box
+	 * @param minZ lower bound of the box
+	 * @param maxX upper bound of the box
+	 * @param maxY upper bound of the box
+	 * @param maxZ upper bound of the box
+	 * @return primitives in ascending order
+	 */
+	public int[] query(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		int[] result = new int[16];
+		int found = 0;
+		
+		int[] stack = new int[stackSize];
+		int sp = 0;
+		if (prims.length > 0) {
+			stack[sp++] = 0;
+		}
+		while (sp > 0) {
+			int node = stack[--sp];
+			int b = node * 6;
+			if (bounds[b] > maxX || bounds[b + 3] < minX
+					|| bounds[b + 1] > maxY || bounds[b + 4] < minY
+					|| bounds[b + 2] > maxZ || bounds[b + 5] < minZ) {
+				continue;
+			}
+			int count = nodes[node * 2 + 1];
+			if (count == 0) {
+				stack[sp++] = nodes[node * 2];
+				stack[sp++] = nodes[node * 2] + 1;
+				continue;
+			}
+			int first = nodes[node * 2];
+			for (int slot = first; slot < first + count; slot++) {
+				int i = slot * 3;
+				if (Math.min(x[i], Math.min(x[i + 1], x[i + 2])) > maxX
+						|| Math.max(x[i], Math.max(x[i + 1], x[i + 2])) < minX
+						|| Math.min(y[i], Math.min(y[i + 1], y[i + 2])) > maxY
+						|| Math.max(y[i], Math.max(y[i + 1], y[i + 2])) < minY
+						|| Math.min(z[i], Math.min(z[i + 1], z[i + 2])) > maxZ
+						|| Math.max(z[i], Math.max(z[i + 1], z[i + 2])) < minZ) {
+					continue;
+				}
+				if (found == result.length) {
+					result = Arrays.copyOf(result, found * 2);
+				}
+				result[found++] = prims[slot];
+			}
+		}
+		result = Arrays.copyOf(result, found);
+		Arrays.sort(result);
+		return result;
+	}
+	
+	
+	/**
+	 * find the nearest triangle from the point.
+	 * 
+	 * @param px the point
+	 * @param py the point
+	 * @param pz the point
+	 * @param maxDistance the largest distance
+	 * @param hit destination of the result. the position is the nearest point on the triangle
+	 * @return true if a triangle is found
+	 */
+	public boolean nearest(double px, double py, double pz, double maxDistance, TriangleHit hit) {
+		hit.clear();
+		double best = maxDistance * maxDistance;
+		double[] closest = new double[3];
+		
+		int[] stack = new int[stackSize];
+		int sp = 0;
+		if (prims.length > 0) {
+			stack[sp++] = 0;
+		}
+		while (sp > 0) {
+			int node = stack[--sp];
+			if (boxDistance2(node, px, py, pz) > best) {
+				continue;
+			}
+			int count = nodes[node * 2 + 1];
+			if (count == 0) {
+				int left = nodes[node * 2];
+				int right = left + 1;
+				// visit the nearer child first
+				if (boxDistance2(left, px, py, pz) <= boxDistance2(right, px, py, pz)) {
+					stack[sp++] = right;
+					stack[sp++] = left;
+				}
+				else {
+					stack[sp++] = left;
+					stack[sp++] = right;
+				}
+				continue;
+			}
+			int first = nodes[node * 2];
+			for (int slot = first; slot < first + count; slot++) {
+				closestPoint(slot, px, py, pz, closest);
+				double ex = closest[0] - px;
+				double ey = closest[1] - py;
+				double ez = closest[2] - pz;
+				double d2 = ex * ex + ey * ey + ez * ez;
+				if (d2 < best || (d2 == best && hit.primitive >= 0 && prims[slot] < hit.primitive)) {
+					best = d2;
+					hit.primitive = prims[slot];
+					hit.x = closest[0];
+					hit.y = closest[1];
+					hit.z = closest[2];
+				}
+			}
+		}
+		if (!hit.isHit()) {
+			return false;
+		}
+		hit.distance = Math.sqrt(best);
+		return true;
+	}
+	
+	/**
+	 * @return square of the distance from the point to the box of the node
+	 */
+	private double boxDistance2(int node, double px, double py, double pz) {
+		int b = node * 6;
+		double ex = Math.max(0.0, Math.max(bounds[b] - px, px - bounds[b + 3]));
+		double ey = Math.max(0.0, Math.max(bounds[b + 1] - py, py - bounds[b + 4]));
+		double ez = Math.max(0.0, Math.max(bounds[b + 2] - pz, pz - bounds[b + 5]));
+		return ex * ex + ey * ey + ez * ez;
+	}
+	
+	/**
+	 * the nearest point on the triangle (Ericson, Real-Time Collision Detection 5.1.5).
+	 */
+	private void closestPoint(int slot, double px, double py, double pz, double[] out) {
+		int i = slot * 3;
+		double ax = x[i], ay = y[i], az = z[i];
+		double abx = x[i + 1] - ax, aby = y[i + 1] - ay, abz = z[i + 1] - az;
+		double acx = x[i + 2] - ax, acy = y[i + 2] - ay, acz = z[i + 2] - az;
+		double apx = px - ax, apy = py - ay, apz = pz - az;
+		
+		double d1 = abx * apx + aby * apy + abz * apz;
+		double d2 = acx * apx + acy * apy + acz * apz;
+		if (d1 <= 0.0 && d2 <= 0.0) {
+			set(out, ax, ay, az);
+			return;
+		}
+		
+		double bpx = px - x[i + 1], bpy = py - y[i + 1], bpz = pz - z[i + 1];
+		double d3 = abx * bpx + aby * bpy + abz * bpz;
+		double d4 = acx * bpx + acy * bpy + acz * bpz;
+		if (d3 >= 0.0 && d4 <= d3) {
+			set(out, x[i + 1], y[i + 1], z[i + 1]);
+			return;
+		}
+		
+		double vc = d1 * d4 - d3 * d2;
+		if (vc <= 0.0 && d1 >= 0.0 && d3 <= 0.0) {
+			double v = d1 / (d1 - d3);
+			set(out, ax + abx * v, ay + aby * v, az + abz * v);
+			return;
+		}
+		
+		double cpx = px - x[i + 2], cpy = py - y[i + 2], cpz = pz - z[i + 2];
+		double d5 = abx * cpx + aby * cpy + abz * cpz;
+		double d6 = acx * cpx + acy * cpy + acz * cpz;
+		if (d6 >= 0.0 && d5 <= d6) {
+			set(out, x[i + 2], y[i + 2], z[i + 2]);
+			return;
+		}
+		
+		double vb = d5 * d2 - d1 * d6;
+		if (vb <= 0.0 && d2 >= 0.0 && d6 <= 0.0) {
+			double w = d2 / (d2 - d6);
+			set(out, ax + acx * w, ay + acy * w, az + acz * w);
+			return;
+		}
+		
+		double va = d3 * d6 - d5 * d4;
+		if (va <= 0.0 && (d4 - d3) >= 0.0 && (d5 - d6) >= 0.0) {
+			double w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+			set(out, x[i + 1] + (x[i + 2] - x[i + 1]) * w,
+					y[i + 1] + (y[i + 2] - y[i + 1]) * w,
+					z[i + 1] + (z[i + 2] - z[i + 1]) * w);
+			return;
+		}
+		
+		double denom = 1.0 / (va + vb + vc);
+		double v = vb * denom;
+		double w = vc * denom;
+		if (Double.isNaN(v) || Double.isNaN(w)) {
+			// degenerate triangle
+			set(out, ax, ay, az);
+			return;
+		}
+		set(out, ax + abx * v + acx * w, ay + aby * v + acy * w, az + abz * v + acz * w);
+	}
+	
+	private static void set(double[] out, double px, double py, double pz) {
+		out[0] = px;
+		out[1] = py;
+		out[2] = pz;
+	}
+	
+	
+	private static void setEmpty(double[] b, int off) {
+		b[off] = b[off + 1] = b[off + 2] = Double.POSITIVE_INFINITY;
+		b[off + 3] = b[off + 4] = b[off + 5] = Double.NEGATIVE_INFINITY;
+	}
+	
+	private static void expand(double[] b, int off, double px, double py, double pz) {
+		if (px < b[off]) b[off] = px;
+		if (py < b[off + 1]) b[off + 1] = py;
+		if (pz < b[off + 2]) b[off + 2] = pz;
+		if (px > b[off + 3]) b[off + 3] = px;
+		if (py > b[off + 4]) b[off + 4] = py;
+		if (pz > b[off + 5]) b[off + 5] = pz;
+	}
+	
+	private static double halfArea(double[] b, int off) {
+		double ex = b[off + 3] - b[off];
+		double ey = b[off + 4] - b[off + 1];
+		double ez = b[off + 5] - b[off + 2];
+		if (ex < 0.0) {
+			// empty
+			return 0.0;
+		}
+		return ex * ey + ey * ez + ez * ex;
+	}
+	
+	
+	/**
+	 * work area for building the tree.
+	 */
+	private class Builder {
+		
+		/** bounds of each primitive, in the same order as {@code order} */
+		final double[] primBounds;
+		/** primitives of the nodes */
+		final int[] order;
+		/** bin of each primitive while a node is split */
+		final byte[] bins;
+		/** node storage */
+		final double[] bounds;
+		final int[] nodes;
+		/** next free node */
+		final AtomicInteger next = new AtomicInteger(1);
+		
+		Builder(int size) {
+			this.primBounds = new double[size * 6];
+			this.order = new int[size];
+			this.bins = new byte[size];
+			int maxNodes = Math.max(1, size * 2 - 1);
+			this.bounds = new double[maxNodes * 6];
+			this.nodes = new int[maxNodes * 2];
+			
+			int p = 0;
+			for (TriangleMesh mesh: meshes) {
+				double[] mx = mesh.getXColumn();
+				double[] my = mesh.getYColumn();
+				double[] mz = mesh.getZColumn();
+				for (int t = 0; t < mesh.size(); t++, p++) {
+					order[p] = p;
+					int b = p * 6;
+					setEmpty(primBounds, b);
+					for (int i = t * 3; i < t * 3 + 3; i++) {
+						expand(primBounds, b, mx[i], my[i], mz[i]);
+					}
+				}
+			}
+		}
+		
+		/**
+		 * compute the bounds of the root.
+		 * @return bounds of the centroids
+		 */
+		double[] root() {
+			double[] centroid = new double[6];
+			computeBounds(0, 0, order.length, centroid);
+			return centroid;
+		}
+		
+		/**
+		 * build the subtree in this thread.
+		 */
+		void build(int node, int start, int end, double[] centroid) {
+			double[] leftCentroid = new double[6];
+			double[] rightCentroid = new double[6];
+			int mid = split(node, start, end, centroid, leftCentroid, rightCentroid);
+			if (mid < 0) {
+				return;
+			}
+			int left = nodes[node * 2];
+			build(left, start, mid, leftCentroid);
+			build(left + 1, mid, end, rightCentroid);
+		}
+		
+		/**
+		 * make a leaf or split the node.
+		 * the bounds of the node are already computed.
+		 * the bounds of the children are computed here.
+		 * 
+		 * @param centroid bounds of the centroids of the node
+		 * @param leftCentroid destination of the bounds of the centroids of the left child
+		 * @param rightCentroid destination of the bounds of the centroids of the right child
+		 * @return the end of the left child, or -1 if the node is a leaf
+		 */
+		int split(int node, int start, int end, double[] centroid, double[] leftCentroid, double[] rightCentroid) {
+			int count = end - start;
+			if (count <= MIN_LEAF_SIZE) {
+				return leaf(node, start, count);
+			}
+			
+			// the longest axis of the centroids
+			int axis = 0;
+			double extent = centroid[3] - centroid[0];
+			for (int k = 1; k < 3; k++) {
+				if (centroid[3 + k] - centroid[k] > extent) {
+					axis = k;
+					extent = centroid[3 + k] - centroid[k];
+				}
+			}
+			if (!(extent > 0.0)) {
+				// all centroids are the same
+				if (count <= MAX_LEAF_SIZE) {
+					return leaf(node, start, count);
+				}
+				return splitMiddle(node, start, end, leftCentroid, rightCentroid);
+			}
+			
+			// small nodes use fewer bins
+			int binSize = Math.min(BINS, count);
+			double min = centroid[axis];
+			double scale = binSize / extent;
+			int[] binCount = new int[binSize];
+			double[] binBounds = new double[binSize * 6];
+			for (int k = 0; k < binSize; k++) {
+				setEmpty(binBounds, k * 6);
+			}
+			for (int k = start; k < end; k++) {
+				int pb = k * 6;
+				double center = (primBounds[pb + axis] + primBounds[pb + 3 + axis]) * 0.5;
+				int bin = (int)((center - min) * scale);
+				if (bin >= binSize) {
+					bin = binSize - 1;
+				}
+				bins[k] = (byte)bin;
+				binCount[bin]++;
+				bin *= 6;
+				for (int c = 0; c < 3; c++) {
+					if (primBounds[pb + c] < binBounds[bin + c]) {
+						binBounds[bin + c] = primBounds[pb + c];
+					}
+					if (primBounds[pb + 3 + c] > binBounds[bin + 3 + c]) {
+						binBounds[bin + 3 + c] = primBounds[pb + 3 + c];
+					}
+				}
+			}
+			
+			// cost of splitting before each bin
+			double[] rightCost = new double[binSize];
+			double[] acc = new double[6];
+			setEmpty(acc, 0);
+			int n = 0;
+			for (int k = binSize - 1; k > 0; k--) {
+				if (binCount[k] > 0) {
+					n += binCount[k];
+					union(acc, 0, binBounds, k * 6);
+				}
+				rightCost[k] = n * halfArea(acc, 0);
+			}
+			setEmpty(acc, 0);
+			n = 0;
+			int bestSplit = -1;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (int k = 1; k < binSize; k++) {
+				if (binCount[k - 1] == 0) {
+					continue;
+				}
+				n += binCount[k - 1];
+				union(acc, 0, binBounds, (k - 1) * 6);
+				if (n == count) {
+					continue;
+				}
+				double cost = n * halfArea(acc, 0) + rightCost[k];
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestSplit = k;
+				}
+			}
+			if (bestSplit < 0) {
+				return splitMiddle(node, start, end, leftCentroid, rightCentroid);
+			}
+			
+			double area = halfArea(bounds, node * 6);
+			double leafCost = count * area;
+			double splitCost = TRAVERSAL_COST * area + bestCost;
+			if (count <= MAX_LEAF_SIZE && !(splitCost < leafCost)) {
+				return leaf(node, start, count);
+			}
+			
+			// partition by the bin
+			setEmpty(leftCentroid, 0);
+			setEmpty(rightCentroid, 0);
+			int i = start;
+			int j = end - 1;
+			while (i <= j) {
+				if (bins[i] < bestSplit) {
+					expandCentroid(leftCentroid, i * 6);
+					i++;
+				}
+				else {
+					swap(i, j);
+					expandCentroid(rightCentroid, j * 6);
+					j--;
+				}
+			}
+			
+			int left = inner(node);
+			int lb = left * 6;
+			int rb = lb + 6;
+			setEmpty(bounds, lb);
+			setEmpty(bounds, rb);
+			for (int k = 0; k < binSize; k++) {
+				if (binCount[k] > 0) {
+					union(bounds, k < bestSplit ? lb : rb, binBounds, k * 6);
+				}
+			}
+			return i;
+		}
+		
+		/**
+		 * split the node at the middle of the primitives.
+		 */
+		private int splitMiddle(int node, int start, int end, double[] leftCentroid, double[] rightCentroid) {
+			int mid = (start + end) >>> 1;
+			int left = inner(node);
+			computeBounds(left, start, mid, leftCentroid);
+			computeBounds(left + 1, mid, end, rightCentroid);
+			return mid;
+		}
+		
+		private void computeBounds(int node, int start, int end, double[] centroid) {
+			int b = node * 6;
+			setEmpty(bounds, b);
+			setEmpty(centroid, 0);
+			for (int k = start; k < end; k++) {
+				int pb = k * 6;
+				expand(bounds, b, primBounds[pb], primBounds[pb + 1], primBounds[pb + 2]);
+				expand(bounds, b, primBounds[pb + 3], primBounds[pb + 4], primBounds[pb + 5]);
+				expandCentroid(centroid, pb);
+			}
+		}
+		
+		private void expandCentroid(double[] centroid, int pb) {
+			expand(centroid, 0,
+					(primBounds[pb] + primBounds[pb + 3]) * 0.5,
+					(primBounds[pb + 1] + primBounds[pb + 4]) * 0.5,
+					(primBounds[pb + 2] + primBounds[pb + 5]) * 0.5);
+		}
+		
+		private void swap(int i, int j) {
+			int tmp = order[i];
+			order[i] = order[j];
+			order[j] = tmp;
+			byte bin = bins[i];
+			bins[i] = bins[j];
+			bins[j] = bin;
+			for (int pi = i * 6, pj = j * 6, k = 0; k < 6; k++) {
+				double d = primBounds[pi + k];
+				primBounds[pi + k] = primBounds[pj + k];
+				primBounds[pj + k] = d;
+			}
+		}
+		
+		private int leaf(int node, int start, int count) {
+			nodes[node * 2] = start;
+			nodes[node * 2 + 1] = count;
+			return -1;
+		}
+		
+		/**
+		 * @return index of the left child
+		 */
+		private int inner(int node) {
+			int left = next.getAndAdd(2);
+			nodes[node * 2] = left;
+			nodes[node * 2 + 1] = 0;
+			return left;
+		}
+		
+		private void union(double[] dst, int off, double[] src, int srcOff) {
+			for (int k = 0; k < 3; k++) {
+				if (src[srcOff + k] < dst[off + k]) {
+					dst[off + k] = src[srcOff + k];
+				}
+				if (src[srcOff + 3 + k] > dst[off + 3 + k]) {
+					dst[off + 3 + k] = src[srcOff + 3 + k];
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * builds a subtree. large subtrees are split into tasks.
+	 */
+	private static class BuildTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Builder builder;
+		private final int node;
+		private final int start;
+		private final int end;
+		private final double[] centroid;
+		
+		BuildTask(Builder builder, int node, int start, int end, double[] centroid) {
+			this.builder = builder;
+			this.node = node;
+			this.start = start;
+			this.end = end;
+			this.centroid = centroid;
+		}
+		
+		@Override
+		protected void compute() {
+			if (end - start <= PARALLEL_THRESHOLD) {
+				builder.build(node, start, end, centroid);
+				return;
+			}
+			double[] leftCentroid = new double[6];
+			double[] rightCentroid = new double[6];
+			int mid = builder.split(node, start, end, centroid, leftCentroid, rightCentroid);
+			if (mid < 0) {
+				return;
+			}
+			int left = builder.nodes[node * 2];
+			invokeAll(new BuildTask(builder, left, start, mid, leftCentroid),
+					new BuildTask(builder, left + 1, mid, end, rightCentroid));
+		}
+	}
+}
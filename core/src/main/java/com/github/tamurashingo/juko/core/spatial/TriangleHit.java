@@ -0,0 +1,101 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.spatial;
+
+/**
+ * the result of a query to {@link TriangleBVH}.
+ * <p>
+ * an instance can be reused for many queries, so that no object is created for each query.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class TriangleHit {
+	
+	/** index of the triangle. -1 if nothing is found */
+	int primitive = -1;
+	/** distance of the hit */
+	double distance;
+	/** position of the hit */
+	double x, y, z;
+	
+	
+	/**
+	 * @return true if a triangle is found
+	 */
+	public boolean isHit() {
+		return primitive >= 0;
+	}
+	
+	/**
+	 * returns the index of the triangle in the {@code TriangleBVH}.
+	 * @return index of the triangle, or -1 if nothing is found
+	 * @see TriangleBVH#getMeshIndex(int)
+	 * @see TriangleBVH#getTriangleIndex(int)
+	 */
+	public int getPrimitive() {
+		return primitive;
+	}
+	
+	/**
+	 * returns the distance from the origin of the ray or the query point.
+	 * for a ray, the distance is measured in the length of the direction vector.
+	 * @return distance
+	 */
+	public double getDistance() {
+		return distance;
+	}
+	
+	/**
+	 * @return position of X
+	 */
+	public double getX() {
+		return x;
+	}
+	
+	/**
+	 * @return position of Y
+	 */
+	public double getY() {
+		return y;
+	}
+	
+	/**
+	 * @return position of Z
+	 */
+	public double getZ() {
+		return z;
+	}
+	
+	/**
+	 * clear the result.
+	 */
+	void clear() {
+		primitive = -1;
+		distance = Double.POSITIVE_INFINITY;
+	}
+}
@@ -0,0 +1,262 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * this class provides static methods for converting characters to {@code double}
+ * without creating a {@code String}.
+ * <p>
+ * decimal numbers which have at most 15 digits and a small exponent are converted directly.
+ * it gives the same value as {@link Double#parseDouble(String)},
+ * because both the digits and the power of ten are exact in {@code double}.
+ * other numbers are converted by {@link Double#parseDouble(String)}.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class DoubleParser {
+	
+	/** exact powers of ten */
+	private static final double[] POW10 = {
+		1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,
+		1e8,  1e9,  1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+		1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+	};
+	
+	/** the largest integer which is exact in {@code double} */
+	private static final long MAX_EXACT = 1L << 53;
+	
+	/** the number of digits which does not overflow {@code long} */
+	private static final int MAX_DIGITS = 18;
+	
+	
+	/**
+	 * no instance.
+	 */
+	private DoubleParser() {
+	}
+	
+	
+	/**
+	 * convert characters to {@code double}.
+	 * leading and trailing whitespace is ignored like {@link Double#parseDouble(String)}.
+	 * 
+	 * @param buf characters
+	 * @param from first index (inclusive)
+	 * @param to last index (exclusive)
+	 * @return the value
+	 * @throws NumberFormatException if the characters are not a number.
+	 */
+	public static double parse(char[] buf, int from, int to) {
+		return parse(CharBuffer.wrap(buf), from, to);
+	}
+	
+	/**
+	 * convert ASCII characters to {@code double}.
+	 * leading and trailing whitespace is ignored like {@link Double#parseDouble(String)}.
+	 * 
+	 * @param buf ASCII characters. the position is not changed.
+	 * @param from first index (inclusive)
+	 * @param to last index (exclusive)
+	 * @return the value
+	 * @throws NumberFormatException if the characters are not a number.
+	 * @see #parse(char[], int, int)
+	 */
+	public static double parse(ByteBuffer buf, int from, int to) {
+		return parse(new AsciiSequence(buf), from, to);
+	}
+	
+	/**
+	 * convert characters to {@code double}.
+	 * leading and trailing whitespace is ignored like {@link Double#parseDouble(String)}.
+	 * 
+	 * @param buf characters
+	 * @param from first index (inclusive)
+	 * @param to last index (exclusive)
+	 * @return the value
+	 * @throws NumberFormatException if the characters are not a number.
+	 */
+	public static double parse(CharSequence buf, int from, int to) {
+		while (from < to && buf.charAt(from) <= ' ') {
+			from++;
+		}
+		while (to > from && buf.charAt(to - 1) <= ' ') {
+			to--;
+		}
+		if (from == to) {
+			throw new NumberFormatException("empty String");
+		}
+		
+		int ix = from;
+		boolean negative = false;
+		char c = buf.charAt(ix);
+		if (c == '-' || c == '+') {
+			negative = (c == '-');
+			ix++;
+		}
+		
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean point = false;
+		boolean hasDigit = false;
+		for (; ix < to; ix++) {
+			c = buf.charAt(ix);
+			if (c >= '0' && c <= '9') {
+				hasDigit = true;
+				if (mantissa == 0 && c == '0') {
+					// leading zero
+					if (point) {
+						scale--;
+					}
+					continue;
+				}
+				if (digits >= MAX_DIGITS) {
+					return slowParse(buf, from, to);
+				}
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (point) {
+					scale--;
+				}
+			}
+			else if (c == '.' && !point) {
+				point = true;
+			}
+			else {
+				break;
+			}
+		}
+		if (!hasDigit) {
+			return slowParse(buf, from, to);
+		}
+		
+		if (ix < to) {
+			c = buf.charAt(ix);
+			if (c != 'e' && c != 'E') {
+				return slowParse(buf, from, to);
+			}
+			ix++;
+			boolean negativeExp = false;
+			if (ix < to && (buf.charAt(ix) == '-' || buf.charAt(ix) == '+')) {
+				negativeExp = (buf.charAt(ix) == '-');
+				ix++;
+			}
+			if (ix == to) {
+				return slowParse(buf, from, to);
+			}
+			int exp = 0;
+			for (; ix < to; ix++) {
+				c = buf.charAt(ix);
+				if (c < '0' || c > '9' || exp > 1000) {
+					return slowParse(buf, from, to);
+				}
+				exp = exp * 10 + (c - '0');
+			}
+			scale += negativeExp ? -exp : exp;
+		}
+		
+		if (!isExact(mantissa, scale)) {
+			return slowParse(buf, from, to);
+		}
+		return toDouble(negative, mantissa, scale);
+	}
+	
+	
+	/**
+	 * @return true if {@code mantissa * 10^scale} can be computed exactly.
+	 */
+	private static boolean isExact(long mantissa, int scale) {
+		return mantissa == 0 || (mantissa <= MAX_EXACT && scale >= -22 && scale <= 22);
+	}
+	
+	/**
+	 * compute {@code mantissa * 10^scale}.
+	 */
+	private static double toDouble(boolean negative, long mantissa, int scale) {
+		if (mantissa == 0) {
+			return negative ? -0.0 : 0.0;
+		}
+		double value = (double)mantissa;
+		if (scale < 0) {
+			value /= POW10[-scale];
+		}
+		else {
+			value *= POW10[scale];
+		}
+		return negative ? -value : value;
+	}
+	
+	
+	/**
+	 * convert by {@link Double#parseDouble(String)}.
+	 */
+	private static double slowParse(CharSequence buf, int from, int to) {
+		return Double.parseDouble(buf.subSequence(from, to).toString());
+	}
+	
+	
+	/**
+	 * ASCII characters in a {@code ByteBuffer}.
+	 * the indexes are absolute, and the position of the buffer is not used.
+	 */
+	private static class AsciiSequence implements CharSequence {
+		
+		private final ByteBuffer buf;
+		
+		AsciiSequence(ByteBuffer buf) {
+			this.buf = buf;
+		}
+		
+		@Override
+		public char charAt(int index) {
+			return (char)(buf.get(index) & 0xff);
+		}
+		
+		@Override
+		public int length() {
+			return buf.limit();
+		}
+		
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			char[] chars = new char[end - start];
+			for (int ix = start; ix < end; ix++) {
+				chars[ix - start] = charAt(ix);
+			}
+			return new String(chars);
+		}
+		
+		@Override
+		public String toString() {
+			return subSequence(0, length()).toString();
+		}
+	}
+}
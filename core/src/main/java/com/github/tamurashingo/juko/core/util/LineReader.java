@@ -27,24 +27,57 @@ package com.github.tamurashingo.juko.core.util;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
 
 /**
  * this class provides the feature for reading lines and counting newlines.
+ * <p>
+ * {@link #readValues(char, double[])} converts a line to numbers
+ * without creating a {@code String}.
+ * </p>
+ * <p>
+ * the characters are read from a {@link Source}.
+ * a subclass reads lines from another source by giving it to the constructor,
+ * for example {@link MappedLineReader}.
+ * </p>
  * 
  * @author tamura shingo
  *
  */
 public class LineReader implements AutoCloseable {
 	
-	private BufferedReader in;
+	/** default buffer size */
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	
+	private final Source src;
 	private int line = 0;
 	
+	/** the last line was terminated by '\r', so skip next '\n' */
+	private boolean skipLF = false;
+	
 	/**
 	 * Constructor.
 	 * @param in input data
 	 */
 	public LineReader( BufferedReader in ) {
-		this.in = in;
+		this((Reader)in);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param in input data
+	 */
+	public LineReader( Reader in ) {
+		this(new ReaderSource(in));
+	}
+	
+	/**
+	 * Constructor for subclasses which read lines from other sources.
+	 * @param src source of the characters
+	 */
+	protected LineReader( Source src ) {
+		this.src = src;
 	}
 	
 	/**
@@ -59,16 +92,67 @@ public class LineReader implements AutoCloseable {
 	 * @see {@link java.io.BufferedReader#readLine()}
 	 */
 	public String readLine() throws LineReaderException {
-		try {
-			String str = in.readLine();
-			if (str != null) {
-				this.line++;
+		int end = nextLine();
+		if (end < 0) {
+			return null;
+		}
+		String str = src.substring(src.pos, end);
+		consume(end);
+		return str;
+	}
+	
+	/**
+	 * Reads a line of text and converts it to numbers.
+	 * <p>
+	 * the line is split by {@code separator} like {@link String#split(String)},
+	 * so trailing empty fields are not counted.
+	 * if the line has more fields than {@code values}, the rest is counted but not converted.
+	 * </p>
+	 * 
+	 * @param separator field separator
+	 * @param values destination of the numbers
+	 * @return the number of fields. 0 if the line is empty. -1 if the end of the stream has been reached
+	 * @throws LineReaderException if an I/O error occurs
+	 * @throws NumberFormatException if a field is not a number, or the line has only separators.
+	 *         the line is counted by {@link #getLineCount()}.
+	 */
+	public int readValues(char separator, double[] values) throws LineReaderException {
+		int end = nextLine();
+		if (end < 0) {
+			return -1;
+		}
+		
+		// the characters stay in the source until the next read
+		int begin = src.pos;
+		consume(end);
+		
+		int count = 0;
+		int empty = 0;
+		int start = begin;
+		for (int ix = begin; ix <= end; ix++) {
+			if (ix < end && src.charAt(ix) != separator) {
+				continue;
+			}
+			if (ix == start) {
+				// empty field. an error, unless it is trailing
+				empty++;
 			}
-			return str;
+			else {
+				if (empty > 0) {
+					throw new NumberFormatException("empty String");
+				}
+				if (count < values.length) {
+					values[count] = DoubleParser.parse(src, start, ix);
+				}
+				count++;
+			}
+			start = ix + 1;
 		}
-		catch ( IOException ex ) {
-			throw new LineReaderException( ex, new MessageProperty("E.IO.000030", line) ); 
+		if (count == 0 && end > begin) {
+			// only separators
+			throw new NumberFormatException("empty String");
 		}
+		return count;
 	}
 	
 	/**
@@ -81,7 +165,175 @@ public class LineReader implements AutoCloseable {
 
 	@Override
 	public void close() throws Exception {
-		in.close();
+		src.close();
 	}
 	
+	
+	/**
+	 * find the end of the next line.
+	 * the line is stored from {@code src.pos} to the result.
+	 * 
+	 * @return the end of the line (exclusive), or -1 if the end of the stream has been reached
+	 * @throws LineReaderException if an I/O error occurs
+	 */
+	private int nextLine() throws LineReaderException {
+		try {
+			if (skipLF) {
+				if (src.pos == src.limit && !src.eof) {
+					src.fill();
+				}
+				if (src.pos < src.limit && src.charAt(src.pos) == '\n') {
+					src.pos++;
+				}
+				skipLF = false;
+			}
+			
+			int scan = src.pos;
+			while (true) {
+				for (; scan < src.limit; scan++) {
+					char c = src.charAt(scan);
+					if (c == '\n' || c == '\r') {
+						return scan;
+					}
+				}
+				if (src.eof) {
+					return (src.pos < src.limit) ? src.limit : -1;
+				}
+				scan -= src.pos;
+				src.fill();
+				scan += src.pos;
+			}
+		}
+		catch ( IOException ex ) {
+			throw new LineReaderException( ex, new MessageProperty("E.IO.000030", line) ); 
+		}
+	}
+	
+	/**
+	 * skip the line and the line-termination character.
+	 * @param end the end of the line
+	 */
+	private void consume(int end) {
+		if (end < src.limit) {
+			skipLF = (src.charAt(end) == '\r');
+			src.pos = end + 1;
+		}
+		else {
+			src.pos = end;
+		}
+		this.line++;
+	}
+	
+	
+	/**
+	 * a source of the characters, which keeps the unread characters
+	 * from {@link #pos} to {@link #limit}.
+	 * the fields are converted by {@link DoubleParser#parse(CharSequence, int, int)}.
+	 */
+	protected abstract static class Source implements CharSequence {
+		
+		/** start of the unread characters */
+		protected int pos = 0;
+		/** end of the available characters */
+		protected int limit = 0;
+		/** no characters follow {@link #limit} */
+		protected boolean eof = false;
+		
+		/**
+		 * @param index index between {@code pos} and {@code limit}
+		 * @return the character
+		 */
+		@Override
+		public abstract char charAt(int index);
+		
+		/**
+		 * make more characters available after {@code limit}.
+		 * the unread characters are kept, but {@code pos} may be moved.
+		 * sets {@code eof} if the end of the input has been reached.
+		 * @throws IOException if an I/O error occurs
+		 */
+		protected abstract void fill() throws IOException;
+		
+		/**
+		 * @param start first index (inclusive)
+		 * @param end last index (exclusive)
+		 * @return the characters as a string
+		 */
+		protected abstract String substring(int start, int end);
+		
+		/**
+		 * close the input.
+		 * @throws IOException if an I/O error occurs
+		 */
+		protected abstract void close() throws IOException;
+		
+		/**
+		 * @return {@code limit}
+		 */
+		@Override
+		public int length() {
+			return limit;
+		}
+		
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return substring(start, end);
+		}
+		
+		@Override
+		public String toString() {
+			return substring(pos, limit);
+		}
+	}
+	
+	
+	/**
+	 * reads the characters from a {@code Reader} into a buffer.
+	 */
+	private static class ReaderSource extends Source {
+		
+		private final Reader in;
+		private char[] buf = new char[DEFAULT_BUFFER_SIZE];
+		
+		ReaderSource(Reader in) {
+			this.in = in;
+		}
+		
+		@Override
+		public char charAt(int index) {
+			return buf[index];
+		}
+		
+		@Override
+		protected void fill() throws IOException {
+			if (pos > 0) {
+				System.arraycopy(buf, pos, buf, 0, limit - pos);
+				limit -= pos;
+				pos = 0;
+			}
+			else if (limit == buf.length) {
+				// the line is longer than the buffer
+				buf = Arrays.copyOf(buf, buf.length * 2);
+			}
+			int n = in.read(buf, limit, buf.length - limit);
+			if (n < 0) {
+				eof = true;
+			}
+			else {
+				limit += n;
+			}
+		}
+		
+		@Override
+		protected String substring(int start, int end) {
+			return new String(buf, start, end - start);
+		}
+		
+		@Override
+		protected void close() throws IOException {
+			if (in != null) {
+				in.close();
+			}
+		}
+	}
 }
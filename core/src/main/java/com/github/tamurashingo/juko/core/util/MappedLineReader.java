@@ -0,0 +1,163 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * this class reads lines of ASCII text from a memory-mapped file.
+ * <p>
+ * the file is mapped in windows of {@link #getWindowSize()} bytes,
+ * so files larger than 2GB can be read.
+ * when a line crosses the end of a window, the next window is mapped
+ * from the beginning of the line.
+ * </p>
+ * <p>
+ * {@link #readValues(char, double[])} converts numbers directly from the mapped memory.
+ * the bytes are treated as ISO-8859-1.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class MappedLineReader extends LineReader {
+	
+	/** default window size (256MB) */
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+	
+	private final MappedSource src;
+	
+	
+	/**
+	 * Constructor.
+	 * @param file input file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public MappedLineReader( Path file ) throws IOException {
+		this(file, DEFAULT_WINDOW_SIZE);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param file input file
+	 * @param windowSize size of the mapped window in bytes
+	 * @throws IOException if the file cannot be opened
+	 */
+	public MappedLineReader( Path file, int windowSize ) throws IOException {
+		this(new MappedSource(file, windowSize));
+	}
+	
+	private MappedLineReader( MappedSource src ) {
+		super(src);
+		this.src = src;
+	}
+	
+	/**
+	 * @return size of the mapped window in bytes
+	 */
+	public int getWindowSize() {
+		return src.windowSize;
+	}
+	
+	
+	/**
+	 * reads the bytes from the mapped windows. the bytes are treated as ISO-8859-1.
+	 */
+	private static class MappedSource extends Source {
+		
+		private final FileChannel channel;
+		
+		/** size of the file */
+		private final long fileSize;
+		/** size of the window */
+		private int windowSize;
+		
+		/** current window */
+		private MappedByteBuffer buf;
+		/** file position of the current window */
+		private long base = 0;
+		
+		MappedSource( Path file, int windowSize ) throws IOException {
+			if (windowSize <= 0) {
+				throw new IllegalArgumentException("windowSize:" + windowSize);
+			}
+			this.windowSize = windowSize;
+			this.channel = FileChannel.open(file, StandardOpenOption.READ);
+			try {
+				this.fileSize = channel.size();
+				fill();
+			}
+			catch ( IOException ex ) {
+				channel.close();
+				throw ex;
+			}
+		}
+		
+		@Override
+		public char charAt(int index) {
+			return (char)(buf.get(index) & 0xff);
+		}
+		
+		/**
+		 * map the next window from the unread bytes.
+		 */
+		@Override
+		protected void fill() throws IOException {
+			if (pos == 0 && limit == windowSize) {
+				// the line is longer than the window
+				if (windowSize == Integer.MAX_VALUE) {
+					throw new IOException("line too long");
+				}
+				windowSize = (int)Math.min(Integer.MAX_VALUE, (long)windowSize * 2);
+			}
+			base += pos;
+			long size = Math.min(windowSize, fileSize - base);
+			buf = channel.map(FileChannel.MapMode.READ_ONLY, base, size);
+			pos = 0;
+			limit = (int)size;
+			eof = (base + size == fileSize);
+		}
+		
+		@Override
+		protected String substring(int start, int end) {
+			char[] chars = new char[end - start];
+			for (int ix = start; ix < end; ix++) {
+				chars[ix - start] = charAt(ix);
+			}
+			return new String(chars);
+		}
+		
+		@Override
+		protected void close() throws IOException {
+			buf = null;
+			channel.close();
+		}
+	}
+}
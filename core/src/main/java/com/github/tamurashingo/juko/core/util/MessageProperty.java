@@ -44,4 +44,12 @@ public class MessageProperty implements java.io.Serializable {
 		}
 	}
 	
+	public String getMessageId() {
+		return messageId;
+	}
+	
+	public String[] getArgs() {
+		return msgArgs == null ? new String[0] : msgArgs.clone();
+	}
+	
 }
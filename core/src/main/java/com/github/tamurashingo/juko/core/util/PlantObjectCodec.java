@@ -0,0 +1,267 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+
+/**
+ * this class converts {@code PlantObject} to the binary format and back.
+ * <p>
+ * a record has the following layout. all values are little-endian.
+ * </p>
+ * <table>
+ * <tr><td>int</td><td>magic number ({@code "JUKO"})</td></tr>
+ * <tr><td>int</td><td>version</td></tr>
+ * <tr><td>int</td><td>plant type (ordinal, -1 if null)</td></tr>
+ * <tr><td>int</td><td>flags ({@link #FLAG_AREA})</td></tr>
+ * <tr><td>long</td><td>number of triangles (n)</td></tr>
+ * <tr><td>double[n * 3]</td><td>X column</td></tr>
+ * <tr><td>double[n * 3]</td><td>Y column</td></tr>
+ * <tr><td>double[n * 3]</td><td>Z column</td></tr>
+ * <tr><td>double[n]</td><td>area column, if {@link #FLAG_AREA} is set</td></tr>
+ * </table>
+ * <p>
+ * the columns are the same as {@link TriangleMesh},
+ * so they are copied in bulk. records can be written one after another.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class PlantObjectCodec {
+	
+	/** magic number */
+	public static final int MAGIC = 0x4F4B554A;
+	
+	/** current version */
+	public static final int VERSION = 1;
+	
+	/** flag: the area column is written */
+	public static final int FLAG_AREA = 1;
+	
+	/** size of the header in bytes */
+	public static final int HEADER_SIZE = 24;
+	
+	/** size of the transfer buffer in bytes */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	/*
+	 * the buffers are cast to Buffer before clear(), flip() and limit(int).
+	 * JDK 9 added the overloads which return ByteBuffer and DoubleBuffer,
+	 * and the classes compiled against them fail on Java 7 and 8 with NoSuchMethodError.
+	 */
+	
+	/** transfer buffer. the header is stored at first. */
+	private final ByteBuffer buf;
+	/** transfer buffer as doubles */
+	private final DoubleBuffer doubles;
+	
+	
+	/**
+	 * Constructor.
+	 * an instance has a direct transfer buffer for the file channels, so it should be used by one thread.
+	 */
+	public PlantObjectCodec() {
+		this(ByteBuffer.allocateDirect(BUFFER_SIZE));
+	}
+	
+	/**
+	 * Constructor.
+	 * an instance has a heap transfer buffer of the size.
+	 * a heap buffer is suitable for the streams, which copy the bytes to a byte array anyway.
+	 * @param bufferSize size of the transfer buffer in bytes. at least {@link #HEADER_SIZE}
+	 */
+	public PlantObjectCodec(int bufferSize) {
+		this(ByteBuffer.allocate(Math.max(HEADER_SIZE, bufferSize & ~7)));
+	}
+	
+	private PlantObjectCodec(ByteBuffer buf) {
+		this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+		this.doubles = buf.asDoubleBuffer();
+	}
+	
+	
+	/**
+	 * write a record.
+	 * 
+	 * @param plant plant object
+	 * @param writeArea if true, the calculated areas are written
+	 * @param out destination
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void write(PlantObject plant, boolean writeArea, WritableByteChannel out) throws IOException {
+		TriangleMesh mesh = plant.getMesh();
+		int size = mesh.size();
+		PlantType type = plant.getPlantType();
+		
+		((Buffer)buf).clear();
+		buf.putInt(MAGIC);
+		buf.putInt(VERSION);
+		buf.putInt(type == null ? -1 : type.ordinal());
+		buf.putInt(writeArea ? FLAG_AREA : 0);
+		buf.putLong(size);
+		((Buffer)buf).flip();
+		writeFully(out);
+		
+		writeColumn(mesh.getXColumn(), size * 3, out);
+		writeColumn(mesh.getYColumn(), size * 3, out);
+		writeColumn(mesh.getZColumn(), size * 3, out);
+		if (writeArea) {
+			writeColumn(mesh.getAreaColumn(), size, out);
+		}
+	}
+	
+	/**
+	 * read a record.
+	 * if the source is a {@code SeekableByteChannel} (for example {@code FileChannel}),
+	 * the size of the record is checked against the remaining bytes before the mesh is allocated.
+	 * 
+	 * @param in source
+	 * @return plant object, or null if the end of the stream has been reached before the record
+	 * @throws EOFException if the end of the stream has been reached in the record
+	 * @throws StreamCorruptedException if the record is not the binary format, or has unknown flags
+	 * @throws IOException if an I/O error occurs
+	 */
+	public PlantObject read(ReadableByteChannel in) throws IOException {
+		((Buffer)buf).clear().limit(HEADER_SIZE);
+		if (!readFully(in, true)) {
+			return null;
+		}
+		((Buffer)buf).flip();
+		int magic = buf.getInt();
+		int version = buf.getInt();
+		int type = buf.getInt();
+		int flags = buf.getInt();
+		long size = buf.getLong();
+		
+		if (magic != MAGIC) {
+			throw new StreamCorruptedException("magic:" + Integer.toHexString(magic));
+		}
+		if (version != VERSION) {
+			throw new StreamCorruptedException("version:" + version);
+		}
+		if ((flags & ~FLAG_AREA) != 0) {
+			throw new StreamCorruptedException("flags:" + Integer.toHexString(flags));
+		}
+		PlantType[] types = PlantType.values();
+		if (type < -1 || type >= types.length) {
+			throw new StreamCorruptedException("plant type:" + type);
+		}
+		if (size < 0 || size > Integer.MAX_VALUE / 3) {
+			throw new StreamCorruptedException("size:" + size);
+		}
+		if (in instanceof SeekableByteChannel) {
+			SeekableByteChannel ch = (SeekableByteChannel)in;
+			long remaining = ch.size() - ch.position();
+			long bytes = size * (((flags & FLAG_AREA) != 0) ? 10 : 9) * 8;
+			if (bytes > remaining) {
+				throw new EOFException("size:" + size + ", remaining bytes:" + remaining);
+			}
+		}
+		
+		PlantObject plant = new PlantObject();
+		plant.setPlantType(type < 0 ? null : types[type]);
+		TriangleMesh mesh = plant.getMesh();
+		int n = (int)size;
+		mesh.setSize(n);
+		readColumn(mesh.getXColumn(), n * 3, in);
+		readColumn(mesh.getYColumn(), n * 3, in);
+		readColumn(mesh.getZColumn(), n * 3, in);
+		if ((flags & FLAG_AREA) != 0) {
+			readColumn(mesh.getAreaColumn(), n, in);
+		}
+		return plant;
+	}
+	
+	
+	/**
+	 * write doubles through the transfer buffer.
+	 */
+	private void writeColumn(double[] column, int length, WritableByteChannel out) throws IOException {
+		int capacity = doubles.capacity();
+		for (int off = 0; off < length; off += capacity) {
+			int n = Math.min(capacity, length - off);
+			((Buffer)doubles).clear();
+			doubles.put(column, off, n);
+			((Buffer)buf).clear().limit(n * 8);
+			writeFully(out);
+		}
+	}
+	
+	/**
+	 * read doubles through the transfer buffer.
+	 */
+	private void readColumn(double[] column, int length, ReadableByteChannel in) throws IOException {
+		int capacity = doubles.capacity();
+		for (int off = 0; off < length; off += capacity) {
+			int n = Math.min(capacity, length - off);
+			((Buffer)buf).clear().limit(n * 8);
+			readFully(in, false);
+			((Buffer)doubles).clear();
+			doubles.get(column, off, n);
+		}
+	}
+	
+	/**
+	 * write all remaining bytes of the transfer buffer.
+	 */
+	private void writeFully(WritableByteChannel out) throws IOException {
+		while (buf.hasRemaining()) {
+			out.write(buf);
+		}
+	}
+	
+	/**
+	 * fill the transfer buffer.
+	 * @param allowEOF if true, returns false when no bytes are read
+	 * @return false if the end of the stream has been reached before any bytes
+	 * @throws EOFException if the end of the stream has been reached in the middle
+	 */
+	private boolean readFully(ReadableByteChannel in, boolean allowEOF) throws IOException {
+		while (buf.hasRemaining()) {
+			if (in.read(buf) < 0) {
+				if (allowEOF && buf.position() == 0) {
+					return false;
+				}
+				throw new EOFException();
+			}
+		}
+		return true;
+	}
+}
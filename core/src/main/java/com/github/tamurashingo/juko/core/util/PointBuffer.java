@@ -0,0 +1,193 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.util;
+
+import java.util.Arrays;
+
+/**
+ * growable buffer of 3D points.
+ * <p>
+ * the positions of X, Y, Z are stored in separate primitive arrays.
+ * </p>
+ * 
+ * @author tamura shingo
+ *
+ */
+public class PointBuffer {
+	
+	/** default capacity (number of points) */
+	private static final int DEFAULT_CAPACITY = 64;
+	
+	/** X column */
+	private double[] x;
+	/** Y column */
+	private double[] y;
+	/** Z column */
+	private double[] z;
+	
+	/** number of points */
+	private int size;
+	
+	
+	/**
+	 * create an empty buffer.
+	 */
+	public PointBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * create an empty buffer with the specified capacity.
+	 * @param capacity initial number of points
+	 */
+	public PointBuffer(int capacity) {
+		x = new double[capacity];
+		y = new double[capacity];
+		z = new double[capacity];
+	}
+	
+	
+	/**
+	 * @return the number of points
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * add a point.
+	 * @param px position of X
+	 * @param py position of Y
+	 * @param pz position of Z
+	 */
+	public void add(double px, double py, double pz) {
+		if (size == x.length) {
+			ensureCapacity(size + 1);
+		}
+		x[size] = px;
+		y[size] = py;
+		z[size] = pz;
+		size++;
+	}
+	
+	/**
+	 * remove all points.
+	 */
+	public void clear() {
+		size = 0;
+	}
+	
+	/**
+	 * @param ix index of the point
+	 * @return position of X
+	 */
+	public double getX(int ix) {
+		checkIndex(ix);
+		return x[ix];
+	}
+	
+	/**
+	 * @param ix index of the point
+	 * @return position of Y
+	 */
+	public double getY(int ix) {
+		checkIndex(ix);
+		return y[ix];
+	}
+	
+	/**
+	 * @param ix index of the point
+	 * @return position of Z
+	 */
+	public double getZ(int ix) {
+		checkIndex(ix);
+		return z[ix];
+	}
+	
+	/**
+	 * returns the X column.
+	 * the array is not copied and may be longer than {@code size()}.
+	 * @return X column
+	 */
+	public double[] getXColumn() {
+		return x;
+	}
+	
+	/**
+	 * returns the Y column.
+	 * the array is not copied and may be longer than {@code size()}.
+	 * @return Y column
+	 */
+	public double[] getYColumn() {
+		return y;
+	}
+	
+	/**
+	 * returns the Z column.
+	 * the array is not copied and may be longer than {@code size()}.
+	 * @return Z column
+	 */
+	public double[] getZColumn() {
+		return z;
+	}
+	
+	/**
+	 * move all points.
+	 * @param dx distance of X
+	 * @param dy distance of Y
+	 * @param dz distance of Z
+	 */
+	public void translate(double dx, double dy, double dz) {
+		for (int ix = 0; ix < size; ix++) {
+			x[ix] += dx;
+			y[ix] += dy;
+			z[ix] += dz;
+		}
+	}
+	
+	/**
+	 * increase the capacity.
+	 * @param capacity required number of points
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity <= x.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, x.length + (x.length >> 1) + 1);
+		x = Arrays.copyOf(x, newCapacity);
+		y = Arrays.copyOf(y, newCapacity);
+		z = Arrays.copyOf(z, newCapacity);
+	}
+	
+	/**
+	 * @param ix index of the point
+	 */
+	private void checkIndex(int ix) {
+		if (ix < 0 || ix >= size) {
+			throw new IndexOutOfBoundsException("index:" + ix + ", size:" + size);
+		}
+	}
+}
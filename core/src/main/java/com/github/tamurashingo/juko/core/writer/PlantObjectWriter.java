@@ -0,0 +1,82 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.writer;
+
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+
+
+/**
+ * writer interface for storing {@code PlantObject}s.
+ * @author tamura shingo
+ *
+ */
+public interface PlantObjectWriter {
+	
+	/**
+	 * prepare inner state for {@code write}.
+	 * <p>
+	 * example:
+	 * <ul>
+	 * <li>open file</li>
+	 * <li>open socket</li>
+	 * <li>open database connection</li>
+	 * <li>...</li>
+	 * </ul>
+	 * </p>
+	 * 
+	 * @param args parameter for open
+	 * @throws PlantObjectWriterException if some error occurs.
+	 */
+	public void open(String... args) throws PlantObjectWriterException;
+	
+	
+	/**
+	 * write {@code PlantObject}s.
+	 * 
+	 * @param plants {@code PlantObject}s
+	 * @throws PlantObjectWriterException if some error occurs.
+	 */
+	public void write(List<PlantObject> plants) throws PlantObjectWriterException;
+	
+	
+	/**
+	 * write a {@code PlantObject}.
+	 * 
+	 * @param plant {@code PlantObject}
+	 * @throws PlantObjectWriterException if some error occurs.
+	 */
+	public void write(PlantObject plant) throws PlantObjectWriterException;
+	
+	
+	/**
+	 * ends {@code write}.
+	 * 
+	 * @throws PlantObjectWriterException if some error occurs.
+	 */
+	public void close() throws PlantObjectWriterException;
+}
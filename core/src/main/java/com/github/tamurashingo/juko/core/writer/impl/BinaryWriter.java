@@ -0,0 +1,131 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.github.tamurashingo.juko.core.writer.impl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.util.MessageProperty;
+import com.github.tamurashingo.juko.core.util.PlantObjectCodec;
+import com.github.tamurashingo.juko.core.writer.PlantObjectWriter;
+import com.github.tamurashingo.juko.core.writer.PlantObjectWriterException;
+
+
+/**
+ * this class writes {@code PlantObject}s to a file in the binary format.
+ * <p>
+ * the file can be read by {@link com.github.tamurashingo.juko.core.reader.impl.BinaryReader}.
+ * </p>
+ *
+ * @see PlantObjectCodec
+ * @author tamura shingo
+ *
+ */
+public class BinaryWriter implements PlantObjectWriter {
+	
+	/** output file */
+	protected String file;
+	
+	/** output channel */
+	protected FileChannel channel;
+	
+	/** if true, the calculated areas are written */
+	protected boolean writeArea = true;
+	
+	private final PlantObjectCodec codec = new PlantObjectCodec();
+	
+	
+	/**
+	 * @return true if the calculated areas are written
+	 */
+	public boolean isWriteArea() {
+		return writeArea;
+	}
+	
+	/**
+	 * @param writeArea if true, the calculated areas are written
+	 */
+	public void setWriteArea(boolean writeArea) {
+		this.writeArea = writeArea;
+	}
+	
+	/**
+	 * create or truncate the file.
+	 * @param args file name
+	 */
+	@Override
+	public void open(String... args) throws PlantObjectWriterException {
+		if (args == null || args.length != 1) {
+			throw new PlantObjectWriterException(new MessageProperty("E.IO.000000", Arrays.toString(args)));
+		}
+		this.file = args[0];
+		try {
+			this.channel = FileChannel.open(Paths.get(file),
+					StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		catch (IOException ex) {
+			throw new PlantObjectWriterException(ex, new MessageProperty("E.IO.000010", file));
+		}
+	}
+	
+	@Override
+	public void write(List<PlantObject> plants) throws PlantObjectWriterException {
+		for (PlantObject plant: plants) {
+			write(plant);
+		}
+	}
+	
+	@Override
+	public void write(PlantObject plant) throws PlantObjectWriterException {
+		try {
+			codec.write(plant, writeArea, channel);
+		}
+		catch (IOException ex) {
+			throw new PlantObjectWriterException(ex, new MessageProperty("E.IO.000010", file));
+		}
+	}
+	
+	@Override
+	public void close() throws PlantObjectWriterException {
+		if (channel == null) {
+			return;
+		}
+		try {
+			channel.close();
+		}
+		catch (IOException ex) {
+			throw new PlantObjectWriterException(ex, new MessageProperty("E.IO.000010", file));
+		}
+		finally {
+			channel = null;
+		}
+	}
+}
@@ -0,0 +1,164 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.bean;
+
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.Transform;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+
+public class Affine4Test {
+	
+	Affine4 a = TransformUtil.createTranslate(1.0, 2.0, 3.0)
+			.multiply(TransformUtil.createRotateX(0.3))
+			.multiply(TransformUtil.createScale(0.5, 2.0, 3.0));
+	
+	@Test
+	public void testMultiply() {
+		Affine4 b = TransformUtil.createRotateZ(1.2);
+		double[][] expected = a.getMatrix().multiply(b.getMatrix()).getData();
+		double[][] actual = a.multiply(b).getMatrix().getData();
+		
+		assertArrayEquals( expected[0], actual[0], 0.000001 );
+		assertArrayEquals( expected[1], actual[1], 0.000001 );
+		assertArrayEquals( expected[2], actual[2], 0.000001 );
+		assertArrayEquals( expected[3], actual[3], 0.000001 );
+		
+		Transform t = a.multiply((Transform)b);
+		assertTrue(t instanceof Affine4);
+	}
+	
+	@Test
+	public void testMultiplyMixed() {
+		// a projective transform, which is not converted to Affine4
+		Transform p = new Transform(new double[][] {
+				{ 1.0, 0.0, 0.0, 1.0 },
+				{ 0.0, 2.0, 0.0, 0.0 },
+				{ 0.0, 0.0, 1.0, 0.0 },
+				{ 0.0, 0.0, 0.5, 1.0 },
+		});
+		double[][] expected = a.getMatrix().multiply(p.getMatrix()).getData();
+		double[][] actual = a.multiply(p).getMatrix().getData();
+		for (int r = 0; r < 4; r++) {
+			assertArrayEquals(expected[r], actual[r], 1e-12);
+		}
+		
+		expected = p.getMatrix().multiply(a.getMatrix()).getData();
+		actual = p.multiply(a).getMatrix().getData();
+		for (int r = 0; r < 4; r++) {
+			assertArrayEquals(expected[r], actual[r], 1e-12);
+		}
+	}
+	
+	@Test
+	public void testInverse() {
+		double[][] m = a.multiply(a.inverse()).getMatrix().getData();
+		
+		assertArrayEquals( new double[]{ 1, 0, 0, 0 }, m[0], 0.000001 );
+		assertArrayEquals( new double[]{ 0, 1, 0, 0 }, m[1], 0.000001 );
+		assertArrayEquals( new double[]{ 0, 0, 1, 0 }, m[2], 0.000001 );
+		assertArrayEquals( new double[]{ 0, 0, 0, 1 }, m[3], 0.000001 );
+		
+		assertEquals(3.0, a.determinant(), 0.000001);
+	}
+	
+	@Test
+	public void testApplyTo() {
+		TriangleMesh mesh = new TriangleMesh();
+		mesh.add(new double[]{  0.0,  1.0, 0.0 },
+				new double[]{  1.0, -1.0, 0.0 },
+				new double[]{ -1.0, -1.0, 0.0 });
+		mesh.setArea(0, 2.0);
+		
+		TriangleMesh dst = new TriangleMesh();
+		Affine4 rotz = TransformUtil.createRotateZ( 90.0 * Math.PI / 180 );
+		rotz.applyTo(mesh, dst);
+		
+		assertEquals(1, dst.size());
+		assertEquals(-1.0, dst.getX(0, 0), 0.01);
+		assertEquals( 1.0, dst.getY(0, 1), 0.01);
+		assertEquals( 0.0, mesh.getX(0, 0), 0.01);
+		
+		rotz.applyTo(mesh);
+		assertEquals(-1.0, mesh.getX(0, 0), 0.01);
+		assertEquals( 1.0, mesh.getY(0, 1), 0.01);
+		assertEquals( 2.0, mesh.getArea(0), 0.01);
+	}
+	
+	@Test
+	public void testValueOf() {
+		Transform t = new Transform(a.getMatrix().getData());
+		Affine4 b = Affine4.valueOf(t);
+		
+		for (int row = 0; row < 4; row++) {
+			for (int col = 0; col < 4; col++) {
+				assertEquals(a.get(row, col), b.get(row, col), 0.000001);
+			}
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testValueOfNotAffine() {
+		Affine4.valueOf(new Transform(new double[][] {
+				{ 1.0, 2.0, 3.0, 4.0 },
+				{ 1.1, 2.1, 3.1, 4.1 },
+				{ 1.2, 2.2, 3.2, 4.2 },
+				{ 1.3, 2.3, 3.3, 4.3 },
+		}));
+	}
+	
+	@Test
+	public void testSerialize() throws Exception {
+		Affine4 b = null;
+		ByteArrayOutputStream outBuf = new ByteArrayOutputStream();
+		try ( ObjectOutputStream out = new ObjectOutputStream( outBuf ) ) {
+			out.writeObject( a );
+			byte[] buf = outBuf.toByteArray();
+			
+			try ( ByteArrayInputStream inBuf = new ByteArrayInputStream( buf ) ) {
+				ObjectInputStream in = new ObjectInputStream( inBuf );
+				b = (Affine4)in.readObject();
+			}
+		}
+		
+		for (int row = 0; row < 4; row++) {
+			for (int col = 0; col < 4; col++) {
+				assertEquals(a.get(row, col), b.get(row, col), 0.000001);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,151 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.bean;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.PlantInstance;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+
+public class PlantInstanceTest {
+	
+	private static PlantObject createPlant() {
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		p.addTriangle(new double[]{ 0.0, 0.0, 0.0 },
+				new double[]{ 2.0, 0.0, 0.0 },
+				new double[]{ 0.0, 2.0, 1.0 });
+		return p;
+	}
+	
+	@Test
+	public void testMesh() {
+		PlantObject p = createPlant();
+		PlantInstance i = new PlantInstance(p, TransformUtil.createTranslate(10.0, 0.0, 0.0));
+		
+		assertSame(p, i.getPrototype());
+		assertEquals(PlantType.LEAF, i.getPlantType());
+		assertEquals(1, i.getTriangles().size());
+		assertTrue(i.isDirty());
+		p.getMesh().clearDirty();
+		assertFalse(i.isDirty());
+		
+		TriangleMesh m = i.getMesh();
+		assertEquals(12.0, m.getX(0, 1), 0.0);
+		assertEquals(2.0, m.getY(0, 2), 0.0);
+		// the prototype is not changed
+		assertEquals(2.0, p.getMesh().getX(0, 1), 0.0);
+		
+		// each call creates a new copy from the prototype
+		m.setVertex(0, 1, 0.0, 0.0, 0.0);
+		assertNotSame(m, i.getMesh());
+		assertEquals(12.0, i.getMesh().getX(0, 1), 0.0);
+		p.getMesh().setVertex(0, 1, 3.0, 0.0, 0.0);
+		assertEquals(13.0, i.getMesh().getX(0, 1), 0.0);
+		p.getMesh().setVertex(0, 1, 2.0, 0.0, 0.0);
+		
+		PlantObject plain = i.toPlantObject();
+		assertEquals(PlantObject.class, plain.getClass());
+		assertEquals(PlantType.LEAF, plain.getPlantType());
+		assertEquals(12.0, plain.getMesh().getX(0, 1), 0.0);
+		
+		// the triangles are transformed on access
+		assertEquals(12.0, i.getTriangles().get(0).getX(1), 0.0);
+		assertEquals(1.0, i.getTriangles().get(0).getZ(2), 0.0);
+		try {
+			i.getTriangles().get(1);
+			fail();
+		}
+		catch (IndexOutOfBoundsException ex) {
+			// ok
+		}
+		
+		// a moved instance is dirty, but the prototype is not
+		p.getMesh().clearDirty();
+		assertFalse(i.isDirty());
+		i.applyTransform(TransformUtil.createTranslate(0.0, 5.0, 0.0));
+		assertTrue(i.isDirty());
+		assertFalse(p.isDirty());
+		assertEquals(12.0, i.getMesh().getX(0, 1), 0.0);
+		assertEquals(7.0, i.getMesh().getY(0, 2), 0.0);
+		i.clearDirty();
+		assertFalse(i.isDirty());
+		i.setTransform(Affine4.IDENTITY);
+		assertTrue(i.isDirty());
+	}
+	
+	@Test
+	public void testNested() {
+		PlantObject p = createPlant();
+		PlantInstance i1 = new PlantInstance(p, TransformUtil.createRotateZ(Math.PI / 2));
+		PlantInstance i2 = new PlantInstance(i1, TransformUtil.createTranslate(1.0, 0.0, 0.0));
+		
+		assertSame(p, i2.getPrototype());
+		// rotate, then translate
+		assertEquals(1.0, i2.getMesh().getX(0, 1), 1e-12);
+		assertEquals(2.0, i2.getMesh().getY(0, 1), 1e-12);
+	}
+	
+	@Test
+	public void testProjectedAreaScale() {
+		PlantObject p = createPlant();
+		Affine4 rz = TransformUtil.createRotateZ(0.3);
+		assertEquals(1.0, new PlantInstance(p, rz).getProjectedAreaScale(), 1e-12);
+		assertEquals(6.0, new PlantInstance(p, TransformUtil.createScale(2.0, -3.0, 4.0)).getProjectedAreaScale(), 1e-12);
+		assertTrue(Double.isNaN(new PlantInstance(p, TransformUtil.createRotateX(0.3)).getProjectedAreaScale()));
+	}
+	
+	@Test
+	public void testSerialize() throws Exception {
+		PlantObject p = createPlant();
+		PlantInstance i = new PlantInstance(p, TransformUtil.createTranslate(0.0, 0.0, 3.0));
+		
+		ByteArrayOutputStream outBuf = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(outBuf)) {
+			out.writeObject(i);
+		}
+		PlantObject copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(outBuf.toByteArray()))) {
+			copy = (PlantObject)in.readObject();
+		}
+		
+		assertEquals(PlantObject.class, copy.getClass());
+		assertEquals(PlantType.LEAF, copy.getPlantType());
+		assertEquals(1, copy.getMesh().size());
+		assertEquals(4.0, copy.getMesh().getZ(0, 2), 0.0);
+	}
+}
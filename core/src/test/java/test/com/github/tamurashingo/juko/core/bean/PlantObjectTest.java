@@ -2,11 +2,21 @@ package test.com.github.tamurashingo.juko.core.bean;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
 
 import com.github.tamurashingo.juko.core.bean.PlantObject;
 import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
 import com.github.tamurashingo.juko.core.bean.Triangle;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
 
 public class PlantObjectTest {
 
@@ -31,4 +41,133 @@ public class PlantObjectTest {
 		assertArrayEquals(new double[]{ -1.0,  1.0, 0.0 }, p2.getTriangles().get(0).getPosition()[2], 0.001);
 	}
 
+	@Test
+	public void testSerialize() throws Exception {
+		PlantObject p1 = new PlantObject();
+		p1.setPlantType(PlantType.SHIELD);
+		p1.addTriangle(new Triangle(new double[]{  0.0, -1.0, 0.0 },
+				new double[]{  1.0,  1.0, 0.0 },
+				new double[]{ -1.0,  1.0, 0.0 }));
+		p1.addTriangle(new double[]{ 1.0, 2.0, 3.0 },
+				new double[]{ 4.0, 5.0, 6.0 },
+				new double[]{ 7.0, 8.0, 9.0 });
+		
+		PlantObject p2 = null;
+		ByteArrayOutputStream outBuf = new ByteArrayOutputStream();
+		try ( ObjectOutputStream out = new ObjectOutputStream( outBuf ) ) {
+			out.writeObject( p1 );
+			byte[] buf = outBuf.toByteArray();
+			
+			try ( ByteArrayInputStream inBuf = new ByteArrayInputStream( buf ) ) {
+				ObjectInputStream in = new ObjectInputStream( inBuf );
+				p2 = (PlantObject)in.readObject();
+			}
+		}
+		
+		assertEquals(PlantType.SHIELD, p2.getPlantType());
+		assertEquals(2, p2.getTriangles().size());
+		assertArrayEquals(new double[]{ -1.0,  1.0, 0.0 }, p2.getTriangles().get(0).getPosition()[2], 0.001);
+		assertArrayEquals(new double[]{ 4.0, 5.0, 6.0 }, p2.getTriangles().get(1).getPosition()[1], 0.001);
+	}
+	
+	/*-
+	 * the old versions declare List<Triangle> triangles.
+	 * the new streams have a string in it, so the old versions fail to read them.
+	 */
+	@Test
+	public void testSerializeMarker() throws Exception {
+		PlantObject p1 = new PlantObject();
+		p1.addTriangle(new double[]{ 1.0, 2.0, 3.0 },
+				new double[]{ 4.0, 5.0, 6.0 },
+				new double[]{ 7.0, 8.0, 9.0 });
+		String stream = new String(serialize(p1), "ISO-8859-1");
+		// TC_STRING, length and the value of triangles
+		assertTrue(stream.contains("t\0\020PlantObjectCodec"));
+	}
+	
+	private static byte[] serialize(Object obj) throws Exception {
+		ByteArrayOutputStream outBuf = new ByteArrayOutputStream();
+		try ( ObjectOutputStream out = new ObjectOutputStream( outBuf ) ) {
+			out.writeObject( obj );
+		}
+		return outBuf.toByteArray();
+	}
+	
+	private static Object deserialize(byte[] buf) throws Exception {
+		try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( buf ) ) ) {
+			return in.readObject();
+		}
+	}
+	
+	/*-
+	 * the stream of the old version, which has the triangles as List<Triangle>.
+	 * same plant as testSerialize.
+	 */
+	@Test
+	public void testSerializeLegacy() throws Exception {
+		PlantObject p;
+		try ( InputStream res = getClass().getResourceAsStream("legacy-plant.ser");
+				ObjectInputStream in = new ObjectInputStream( res ) ) {
+			p = (PlantObject)in.readObject();
+		}
+		
+		assertEquals(PlantType.SHIELD, p.getPlantType());
+		assertEquals(2, p.getTriangles().size());
+		assertArrayEquals(new double[]{ -1.0,  1.0, 0.0 }, p.getTriangles().get(0).getPosition()[2], 0.0);
+		assertArrayEquals(new double[]{ 4.0, 5.0, 6.0 }, p.getTriangles().get(1).getPosition()[1], 0.0);
+	}
+	
+	@Test
+	public void testSerializeLarge() throws Exception {
+		Random rand = new Random(1);
+		PlantObject p1 = new PlantObject();
+		TriangleMesh mesh = p1.getMesh();
+		int size = 100000;
+		for (int t = 0; t < size; t++) {
+			mesh.add(rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					rand.nextDouble(), rand.nextDouble(), rand.nextDouble());
+			mesh.setArea(t, t);
+		}
+		
+		byte[] buf = serialize(p1);
+		// 9 doubles and the area per triangle, and the headers of the blocks
+		assertTrue(buf.length < size * 81 + 4096);
+		
+		PlantObject p2 = (PlantObject)deserialize(buf);
+		assertNull(p2.getPlantType());
+		assertEquals(size, p2.getMesh().size());
+		for (int t = 0; t < size; t += 997) {
+			assertEquals(mesh.getX(t, 0), p2.getMesh().getX(t, 0), 0.0);
+			assertEquals(mesh.getY(t, 1), p2.getMesh().getY(t, 1), 0.0);
+			assertEquals(mesh.getZ(t, 2), p2.getMesh().getZ(t, 2), 0.0);
+			assertEquals(t, p2.getMesh().getArea(t), 0.0);
+		}
+	}
+	
+	@Test
+	public void testSerializeList() throws Exception {
+		List<Object> list = new ArrayList<>();
+		for (int ix = 0; ix < 5; ix++) {
+			PlantObject p = new PlantObject();
+			p.setPlantType(PlantType.LEAF);
+			for (int t = 0; t < ix; t++) {
+				p.addTriangle(new double[]{ ix, t, 0 }, new double[]{ 1, 0, 0 }, new double[]{ 0, 1, 0 });
+			}
+			list.add(p);
+			list.add("plant" + ix);
+		}
+		
+		@SuppressWarnings("unchecked")
+		List<Object> copy = (List<Object>)deserialize(serialize(list));
+		assertEquals(10, copy.size());
+		for (int ix = 0; ix < 5; ix++) {
+			PlantObject p = (PlantObject)copy.get(ix * 2);
+			assertEquals(ix, p.getMesh().size());
+			if (ix > 0) {
+				assertEquals(ix, p.getMesh().getX(ix - 1, 0), 0.0);
+			}
+			assertEquals("plant" + ix, copy.get(ix * 2 + 1));
+		}
+	}
 }
@@ -0,0 +1,221 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.bean;
+
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.bean.Triangle;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+
+public class TriangleMeshTest {
+	
+	@Test
+	public void testAdd() {
+		TriangleMesh mesh = new TriangleMesh(1);
+		for (int ix = 0; ix < 10; ix++) {
+			int t = mesh.add(
+					new double[]{ ix, 0.0, 0.0 },
+					new double[]{ ix, 1.0, 0.0 },
+					new double[]{ ix, 1.0, 1.0 });
+			assertEquals(ix, t);
+		}
+		
+		assertEquals(10, mesh.size());
+		assertEquals(5.0, mesh.getX(5, 2), 0.01);
+		assertEquals(1.0, mesh.getY(5, 1), 0.01);
+		assertEquals(1.0, mesh.getZ(5, 2), 0.01);
+		
+		double[] x = mesh.getXColumn();
+		assertEquals(7.0, x[7 * 3 + 1], 0.01);
+	}
+	
+	@Test
+	public void testGetTriangle() {
+		TriangleMesh mesh = new TriangleMesh();
+		mesh.add(new double[]{  0.0, -1.0, 0.0 },
+				new double[]{  1.0,  1.0, 0.0 },
+				new double[]{ -1.0,  1.0, 0.0 });
+		mesh.setArea(0, 2.0);
+		
+		Triangle t = mesh.getTriangle(0);
+		double[][] points = t.getPosition();
+		
+		assertArrayEquals( new double[]{ 0.0, -1.0, 0.0 }, points[0], 0.01 );
+		assertArrayEquals( new double[]{ 1.0, 1.0, 0.0 }, points[1], 0.01 );
+		assertArrayEquals( new double[]{ -1.0, 1.0, 0.0 }, points[2], 0.01 );
+		assertEquals(2.0, t.getCalculatedArea(), 0.01);
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		TriangleMesh mesh = new TriangleMesh();
+		mesh.getX(0, 0);
+	}
+	
+	@Test
+	public void testClone() {
+		TriangleMesh mesh = new TriangleMesh();
+		mesh.add(new double[]{  0.0, -1.0, 0.0 },
+				new double[]{  1.0,  1.0, 0.0 },
+				new double[]{ -1.0,  1.0, 0.0 });
+		
+		TriangleMesh m2 = (TriangleMesh)mesh.clone();
+		m2.setVertex(0, 0, 5.0, 5.0, 5.0);
+		m2.setArea(0, 3.0);
+		
+		assertFalse("m2's column is another instance.", mesh.getXColumn() == m2.getXColumn());
+		assertEquals(0.0, mesh.getX(0, 0), 0.01);
+		assertEquals(5.0, m2.getX(0, 0), 0.01);
+		assertNotEquals(mesh.getArea(0), m2.getArea(0), 0.01);
+	}
+
+	@Test
+	public void testDirty() {
+		TriangleMesh mesh = new TriangleMesh();
+		for (int ix = 0; ix < 10; ix++) {
+			mesh.add(ix, 0.0, 0.0, ix + 1.0, 0.0, 0.0, ix, 1.0, 0.0);
+		}
+		assertEquals(10, mesh.getDirtyCount());
+		mesh.clearDirty();
+		assertEquals(-1, mesh.nextDirty(0));
+		
+		mesh.setVertex(3, 1, 5.0, 5.0, 5.0);
+		mesh.setArea(5, 1.0);
+		mesh.markDirty(7, 9);
+		assertTrue(mesh.isDirty(3));
+		assertFalse(mesh.isDirty(5));
+		assertEquals(3, mesh.nextDirty(0));
+		assertEquals(7, mesh.nextDirty(4));
+		assertEquals(8, mesh.nextDirty(8));
+		assertEquals(-1, mesh.nextDirty(9));
+		
+		TriangleMesh m2 = (TriangleMesh)mesh.clone();
+		mesh.setSize(8);
+		assertEquals(2, mesh.getDirtyCount());
+		mesh.setSize(12);
+		assertEquals(6, mesh.getDirtyCount());
+		assertEquals(3, m2.getDirtyCount());
+		
+		mesh.clearDirty();
+		TransformUtil.createTranslate(1.0, 0.0, 0.0).applyTo(mesh);
+		assertEquals(12, mesh.getDirtyCount());
+	}
+	
+	@Test
+	public void testChanges() {
+		TriangleMesh mesh = new TriangleMesh();
+		for (int ix = 0; ix < 10; ix++) {
+			mesh.add(ix, 0.0, 0.0, ix + 1.0, 0.0, 0.0, ix, 1.0, 0.0);
+		}
+		long cursor = mesh.getChangeCursor();
+		BitSet changed = new BitSet();
+		assertEquals(10, mesh.getChanges(cursor, changed));
+		assertTrue(changed.isEmpty());
+		
+		// the dirty marks do not affect the changes
+		mesh.setVertex(3, 1, 5.0, 5.0, 5.0);
+		mesh.markDirty(7, 9);
+		mesh.clearDirty();
+		assertEquals(10, mesh.getChanges(cursor, changed));
+		assertEquals("{3, 7, 8}", changed.toString());
+		
+		// removed and added again
+		cursor = mesh.getChangeCursor();
+		changed.clear();
+		mesh.setSize(6);
+		mesh.setSize(12);
+		assertEquals(6, mesh.getChanges(cursor, changed));
+		assertTrue(changed.isEmpty());
+		
+		// all triangles are changed
+		cursor = mesh.getChangeCursor();
+		TransformUtil.createTranslate(1.0, 0.0, 0.0).applyTo(mesh);
+		assertEquals(-1, mesh.getChanges(cursor, changed));
+		
+		// too many changes
+		cursor = mesh.getChangeCursor();
+		for (int ix = 0; ix < 100; ix++) {
+			mesh.markDirty(ix % 12);
+		}
+		assertEquals(-1, mesh.getChanges(cursor, changed));
+	}
+	
+	@Test
+	public void testWrap() {
+		// 2 triangles and a rest vertex
+		double[] x = { 0, 1, 0, 0, 2, 0, 9, 0 };
+		double[] y = { 0, 0, 1, 0, 0, 2, 9, 0 };
+		double[] z = { 0, 0, 0, 1, 1, 1, 9, 0 };
+		TriangleMesh mesh = TriangleMesh.wrap(x, y, z, 2);
+		
+		assertEquals(2, mesh.size());
+		assertSame(x, mesh.getXColumn());
+		assertEquals(2.0, mesh.getY(1, 2), 0.0);
+		assertEquals(2, mesh.getDirtyCount());
+		// the area column has no slack
+		assertEquals(2, mesh.getAreaColumn().length);
+		
+		// grows beyond the wrapped columns
+		mesh.add(new double[]{ 5, 5, 5 }, new double[]{ 6, 5, 5 }, new double[]{ 5, 6, 5 });
+		assertEquals(3, mesh.size());
+		assertEquals(6.0, mesh.getX(2, 1), 0.0);
+		assertEquals(1.0, mesh.getZ(1, 0), 0.0);
+		assertEquals(0.0, mesh.getArea(2), 0.0);
+		
+		mesh.trimToSize();
+		assertEquals(9, mesh.getXColumn().length);
+		assertEquals(3, mesh.getAreaColumn().length);
+		assertEquals(6.0, mesh.getX(2, 1), 0.0);
+	}
+	
+	@Test
+	public void testWrapGrowArea() {
+		// the vertex columns have room for 2 more triangles
+		TriangleMesh mesh = TriangleMesh.wrap(new double[12], new double[12], new double[12], 2);
+		double[] x = mesh.getXColumn();
+		mesh.add(new double[]{ 5, 5, 5 }, new double[]{ 6, 5, 5 }, new double[]{ 5, 6, 5 });
+		mesh.setArea(2, 0.5);
+		assertSame(x, mesh.getXColumn());
+		assertTrue(mesh.getAreaColumn().length >= 3);
+		assertTrue(mesh.getAreaColumn().length <= 4);
+		mesh.add(new double[]{ 5, 5, 5 }, new double[]{ 6, 5, 5 }, new double[]{ 5, 6, 5 });
+		assertSame(x, mesh.getXColumn());
+		assertEquals(0.5, mesh.getArea(2), 0.0);
+		assertEquals(4, mesh.size());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testWrapTooShort() {
+		TriangleMesh.wrap(new double[6], new double[6], new double[5], 2);
+	}
+
+}
@@ -96,6 +96,53 @@ public class TriangleTest {
 		assertArrayEquals( new double[]{ -1.0, 1.0, 0.0 }, points[2], 0.01 );
 	}
 	
+	/** "triangle version:1" stream of (0, -1, 0), (1, 1, 0), (-1, 1, 0.5) */
+	private static final String VERSION1 =
+			"aced00057372002f636f6d2e6769746875622e74616d7572617368696e676f2e6a756b6f2e636f72652e6265616e2e"
+			+ "547269616e676c65000000000000000103000144000e63616c63756c61746564417265617870775c0012747269616e"
+			+ "676c652076657273696f6e3a310000000000000000bff000000000000000000000000000003ff00000000000003ff0"
+			+ "0000000000000000000000000000bff00000000000003ff00000000000003fe000000000000078";
+	
+	@Test
+	public void testSerializeCompatible() throws Exception {
+		byte[] expected = new byte[VERSION1.length() / 2];
+		for (int ix = 0; ix < expected.length; ix++) {
+			expected[ix] = (byte)Integer.parseInt(VERSION1.substring(ix * 2, ix * 2 + 2), 16);
+		}
+		
+		Triangle t = new Triangle(0.0, -1.0, 0.0, 1.0, 1.0, 0.0, -1.0, 1.0, 0.5);
+		ByteArrayOutputStream outBuf = new ByteArrayOutputStream();
+		try ( ObjectOutputStream out = new ObjectOutputStream( outBuf ) ) {
+			out.writeObject( t );
+		}
+		assertArrayEquals( expected, outBuf.toByteArray() );
+		
+		try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( expected ) ) ) {
+			t = (Triangle)in.readObject();
+		}
+		assertArrayEquals( new double[]{ 0.0, -1.0, 0.0, 1.0, 1.0, 0.0, -1.0, 1.0, 0.5 }, t.getPosition( new double[9] ), 0.0 );
+	}
+	
+	@Test
+	public void testAccessors() {
+		assertEquals( -1.0, triangle.get(0, 1), 0.0 );
+		assertEquals( -1.0, triangle.getX(2), 0.0 );
+		assertEquals( 1.0, triangle.getY(1), 0.0 );
+		assertEquals( 0.0, triangle.getZ(2), 0.0 );
+		assertArrayEquals( new double[]{ 1.0, 1.0, 0.0 }, triangle.getPosition(1, new double[3]), 0.0 );
+		assertArrayEquals( new double[]{ 0.0, 0.0, 4.0 }, triangle.getNormal(new double[3]), 0.0 );
+		assertEquals( 2.0, triangle.getSurfaceArea(), 1e-12 );
+		assertEquals( 2.0, triangle.getProjectedArea(), 1e-12 );
+		
+		try {
+			triangle.get(3, 0);
+			fail();
+		}
+		catch (IndexOutOfBoundsException ex) {
+			// ok
+		}
+	}
+	
 	@Test
 	public void testClone() throws Exception {
 		Triangle t = (Triangle)triangle.clone();
@@ -0,0 +1,166 @@
+package test.com.github.tamurashingo.juko.core.calculate.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.PlantInstance;
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.calculate.UnionAreaResult;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcExcludeOverlap;
+
+public class CalcExcludeOverlapTest {
+	
+	private static PlantObject plant(double[]... triangles) {
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		for (double[] t: triangles) {
+			p.getMesh().add(t[0], t[1], 0.0, t[2], t[3], 0.0, t[4], t[5], 0.0);
+		}
+		return p;
+	}
+	
+	private static double union(PlantObject p) {
+		return new CalcExcludeOverlap().calcArea(Collections.singletonList(p)).getUnionArea(0);
+	}
+	
+	@Test
+	public void testUnion() {
+		double[] t = { 0.0, 0.0, 2.0, 0.0, 0.0, 2.0 };
+		double[] flipped = { 0.0, 0.0, 0.0, 2.0, 2.0, 0.0 };
+		
+		// same triangles
+		assertEquals(2.0, union(plant(t, t)), 1e-12);
+		assertEquals(2.0, union(plant(t, flipped, t)), 1e-12);
+		
+		/*-
+		 * adjacent triangles
+		 * +--+
+		 * |\ |
+		 * | \|
+		 * +--+
+		 */
+		assertEquals(4.0, union(plant(t, new double[]{ 2.0, 0.0, 2.0, 2.0, 0.0, 2.0 })), 1e-12);
+		
+		// inner triangle
+		assertEquals(2.0, union(plant(t, new double[]{ 0.1, 0.1, 0.5, 0.1, 0.1, 0.5 })), 1e-12);
+		
+		// on the same base line
+		assertEquals(3.5, union(plant(t, new double[]{ 1.0, 0.0, 3.0, 0.0, 1.0, 2.0 })), 1e-12);
+		
+		// disjoint and degenerate
+		assertEquals(4.0, union(plant(t,
+				new double[]{ 5.0, 5.0, 7.0, 5.0, 5.0, 7.0 },
+				new double[]{ 0.0, 0.0, 1.0, 1.0, 2.0, 2.0 })), 1e-12);
+		
+		assertEquals(0.0, union(plant()), 0.0);
+	}
+	
+	@Test
+	public void testRandom() {
+		Random rand = new Random(1);
+		PlantObject p = new PlantObject();
+		TriangleMesh mesh = p.getMesh();
+		for (int t = 0; t < 50; t++) {
+			double x = rand.nextDouble();
+			double y = rand.nextDouble();
+			mesh.add(x, y, rand.nextDouble(),
+					x + rand.nextDouble() * 0.4 - 0.2, y + rand.nextDouble() * 0.4 - 0.2, rand.nextDouble(),
+					x + rand.nextDouble() * 0.4 - 0.2, y + rand.nextDouble() * 0.4 - 0.2, rand.nextDouble());
+		}
+		
+		// count the covered points of a fine grid
+		int res = 1000;
+		long hit = 0;
+		for (int r = 0; r < res; r++) {
+			for (int c = 0; c < res; c++) {
+				double px = -0.2 + (c + 0.5) * 1.4 / res;
+				double py = -0.2 + (r + 0.5) * 1.4 / res;
+				for (int t = 0; t < mesh.size(); t++) {
+					if (inside(mesh, t, px, py)) {
+						hit++;
+						break;
+					}
+				}
+			}
+		}
+		double expected = hit * (1.4 / res) * (1.4 / res);
+		assertEquals(expected, union(p), expected * 0.002);
+	}
+	
+	private static boolean inside(TriangleMesh m, int t, double px, double py) {
+		double[] s = new double[3];
+		for (int v = 0; v < 3; v++) {
+			int w = (v + 1) % 3;
+			s[v] = (m.getX(t, w) - m.getX(t, v)) * (py - m.getY(t, v))
+					- (m.getY(t, w) - m.getY(t, v)) * (px - m.getX(t, v));
+		}
+		return (s[0] >= 0 && s[1] >= 0 && s[2] >= 0) || (s[0] <= 0 && s[1] <= 0 && s[2] <= 0);
+	}
+	
+	@Test
+	public void testResult() {
+		double[] t = { 0.0, 0.0, 2.0, 0.0, 0.0, 2.0 };
+		double[] half = { 0.0, 0.0, 1.0, 0.0, 0.0, 1.0 };
+		List<PlantObject> plants = Arrays.asList(plant(t, half), plant(t));
+		
+		CalcExcludeOverlap calc = new CalcExcludeOverlap();
+		UnionAreaResult result = calc.calcArea(plants);
+		assertEquals(2.0, result.getUnionArea(0), 1e-12);
+		assertEquals(2.5, result.getIncludedArea(0), 1e-12);
+		assertEquals(0.2, result.getOverlapRatio(0), 1e-12);
+		assertEquals(0.0, result.getOverlapRatio(1), 1e-12);
+		assertEquals(4.0, result.getTotalArea(), 1e-12);
+		assertEquals(1.0 - 4.0 / 4.5, result.getOverlapRatio(), 1e-12);
+		
+		// each triangle has its own area
+		assertEquals(0.5, result.getArea(0, 1), 1e-12);
+		List<PlantObject> copied = calc.calc(plants);
+		assertEquals(0.5, copied.get(0).getMesh().getArea(1), 1e-12);
+	}
+	
+	@Test
+	public void testInstance() {
+		Random rand = new Random(2);
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		for (int t = 0; t < 200; t++) {
+			double x = rand.nextDouble() * 4.0, y = rand.nextDouble() * 4.0;
+			p.getMesh().add(x, y, rand.nextDouble(),
+					x + rand.nextDouble(), y + rand.nextDouble(), rand.nextDouble(),
+					x + rand.nextDouble(), y - rand.nextDouble(), rand.nextDouble());
+		}
+		
+		Affine4[] transforms = {
+				TransformUtil.createTranslate(10.0, -3.0, 1.0).multiply(TransformUtil.createRotateZ(2.0)),
+				TransformUtil.createScale(-1.5, 2.0, 1.0),
+				TransformUtil.createRotateX(0.3),
+		};
+		List<Plant> instances = new ArrayList<>();
+		List<PlantObject> copies = new ArrayList<>();
+		for (Affine4 transform: transforms) {
+			instances.add(new PlantInstance(p, transform));
+			PlantObject copy = (PlantObject)p.clone();
+			copy.applyTransform(transform);
+			copies.add(copy);
+		}
+		
+		UnionAreaResult expected = new CalcExcludeOverlap().calcArea(copies);
+		UnionAreaResult actual = new CalcExcludeOverlap().calcArea(instances);
+		for (int ix = 0; ix < transforms.length; ix++) {
+			assertArrayEquals(expected.getAreas(ix), actual.getAreas(ix), 1e-12);
+			assertEquals(expected.getUnionArea(ix), actual.getUnionArea(ix), 1e-9);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package test.com.github.tamurashingo.juko.core.calculate.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.calculate.GeometrySummary;
+import com.github.tamurashingo.juko.core.calculate.GeometrySummary.Metric;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcGeometrySummary;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcIncludeOverlap;
+
+public class CalcGeometrySummaryTest {
+	
+	@Test
+	public void testSquares() {
+		PlantObject p = new PlantObject();
+		// horizontal square, area 4, centroid (1, 1, 0)
+		p.getMesh().add(0.0, 0.0, 0.0, 2.0, 0.0, 0.0, 2.0, 2.0, 0.0);
+		p.getMesh().add(0.0, 0.0, 0.0, 2.0, 2.0, 0.0, 0.0, 2.0, 0.0);
+		// square tilted by 45 degrees, area 4, centroid (3, 1, 1/sqrt(2))
+		double h = Math.sqrt(2.0);
+		p.getMesh().add(2.0, 0.0, 0.0, 2.0 + h, 0.0, h, 2.0 + h, 2.0, h);
+		p.getMesh().add(2.0, 0.0, 0.0, 2.0 + h, 2.0, h, 2.0, 2.0, 0.0);
+		
+		GeometrySummary s = new CalcGeometrySummary().calc(p);
+		assertEquals(4, s.getTriangleCount());
+		assertEquals(4.0 + 2.0 * h, s.getProjectedArea(), 1e-12);
+		assertEquals(8.0, s.getSurfaceArea(), 1e-12);
+		assertArrayEquals(new double[]{ 0.0, 0.0, 0.0, 2.0 + h, 2.0, h }, s.getBounds(), 1e-12);
+		assertArrayEquals(new double[]{ (1.0 + 2.0 + h / 2) / 2, 1.0, h / 4 }, s.getCentroid(), 1e-12);
+		assertEquals(Math.PI / 8, s.getMeanInclination(), 1e-12);
+		
+		double[] d = s.getInclinationDistribution();
+		assertEquals(9, d.length);
+		assertEquals(0.5, d[0], 1e-12);
+		// 45 degrees is the beginning of the fifth range
+		assertEquals(0.5, d[4], 1e-12);
+	}
+	
+	@Test
+	public void testSelected() {
+		Random rand = new Random(1);
+		PlantObject p = new PlantObject();
+		for (int t = 0; t < 1000; t++) {
+			p.getMesh().add(rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					rand.nextDouble(), rand.nextDouble(), rand.nextDouble());
+		}
+		List<PlantObject> plants = Arrays.asList(p, new PlantObject());
+		
+		CalcGeometrySummary calc = new CalcGeometrySummary(Metric.PROJECTED_AREA, Metric.INCLINATION_DISTRIBUTION);
+		calc.setInclinationBins(3);
+		List<GeometrySummary> list = calc.calc(plants);
+		GeometrySummary s = list.get(0);
+		assertTrue(s.has(Metric.PROJECTED_AREA));
+		assertFalse(s.has(Metric.SURFACE_AREA));
+		assertEquals(new CalcIncludeOverlap().calcArea(Collections.singletonList(p)).getTotalArea(),
+				s.getProjectedArea(), 1e-9);
+		double[] d = s.getInclinationDistribution();
+		assertEquals(3, d.length);
+		assertEquals(1.0, d[0] + d[1] + d[2], 1e-12);
+		try {
+			s.getSurfaceArea();
+			fail();
+		}
+		catch (IllegalStateException ex) {
+			// OK
+		}
+		
+		// empty plant
+		GeometrySummary empty = list.get(1);
+		assertEquals(0, empty.getTriangleCount());
+		assertEquals(0.0, empty.getProjectedArea(), 0.0);
+		assertArrayEquals(new double[3], empty.getInclinationDistribution(), 0.0);
+		
+		GeometrySummary all = new CalcGeometrySummary().calc(new PlantObject());
+		assertTrue(Double.isNaN(all.getBounds()[0]));
+		assertTrue(Double.isNaN(all.getCentroid()[0]));
+		assertTrue(Double.isNaN(all.getMeanInclination()));
+	}
+}
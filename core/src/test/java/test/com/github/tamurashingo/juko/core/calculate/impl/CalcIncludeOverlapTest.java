@@ -3,16 +3,24 @@ package test.com.github.tamurashingo.juko.core.calculate.impl;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.PlantInstance;
+import com.github.tamurashingo.juko.core.bean.Plant;
 import com.github.tamurashingo.juko.core.bean.PlantObject;
 import com.github.tamurashingo.juko.core.bean.TransformUtil;
 import com.github.tamurashingo.juko.core.bean.Triangle;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
 import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
 import com.github.tamurashingo.juko.core.calculate.CalcIF;
 import com.github.tamurashingo.juko.core.calculate.impl.CalcIncludeOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.ParallelCalcIncludeOverlap;
 
 public class CalcIncludeOverlapTest {
 
@@ -70,5 +78,77 @@ public class CalcIncludeOverlapTest {
 		assertEquals(2.0, result.get(0).getTriangles().get(0).getCalculatedArea(), 0.001);
 	}
 	
+	@Test
+	public void testCalcArea() {
+		
+		/*-
+		 * |\
+		 * | \
+		 * +--
+		 */
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		p.addTriangle(new double[]{ 0.0, 0.0, 0.0 },
+				new double[]{ 2.0, 0.0, 0.0 },
+				new double[]{ 0.0, 2.0, 0.0 });
+		p.addTriangle(new double[]{ 0.0, 0.0, 0.0 },
+				new double[]{ 1.0, 0.0, 5.0 },
+				new double[]{ 0.0, 1.0, 5.0 });
+		
+		List<PlantObject> list = new ArrayList<>();
+		list.add(p);
 
+		CalcIF c = new CalcIncludeOverlap();
+		AreaResult result = c.calcArea(list);
+		
+		assertEquals(1, result.size());
+		assertTrue("plant is not copied.", p == result.getPlant(0));
+		assertEquals(2.0, result.getArea(0, 0), 0.001);
+		assertEquals(0.5, result.getArea(0, 1), 0.001);
+		assertEquals(2.5, result.getTotalArea(0), 0.001);
+		assertEquals(2.5, result.getTotalArea(), 0.001);
+		assertEquals(0.0, p.getMesh().getArea(0), 0.001);
+	}
+	
+	@Test
+	public void testInstance() {
+		Random rand = new Random(1);
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		for (int t = 0; t < 100; t++) {
+			p.getMesh().add(rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					rand.nextDouble(), rand.nextDouble(), rand.nextDouble());
+		}
+		
+		Affine4[] transforms = {
+				TransformUtil.createTranslate(3.0, 4.0, 5.0).multiply(TransformUtil.createRotateZ(0.7)),
+				TransformUtil.createScale(2.0, 0.5, 3.0),
+				TransformUtil.createRotateX(0.4).multiply(TransformUtil.createRotateY(1.1)),
+		};
+		List<Plant> instances = new ArrayList<>();
+		List<PlantObject> copies = new ArrayList<>();
+		for (Affine4 transform: transforms) {
+			instances.add(new PlantInstance(p, transform));
+			PlantObject copy = (PlantObject)p.clone();
+			copy.applyTransform(transform);
+			copies.add(copy);
+		}
+		
+		AreaResult expected = new CalcIncludeOverlap().calcArea(copies);
+		AreaResult actual = new CalcIncludeOverlap().calcArea(instances);
+		AreaResult parallel = new ParallelCalcIncludeOverlap(1).calcArea(instances);
+		for (int ix = 0; ix < transforms.length; ix++) {
+			assertArrayEquals(expected.getAreas(ix), actual.getAreas(ix), 1e-12);
+			assertArrayEquals(expected.getAreas(ix), parallel.getAreas(ix), 1e-12);
+		}
+		
+		// the copies of the instances keep the calculated area
+		List<PlantObject> calculated = new CalcIncludeOverlap().calc(instances);
+		for (int ix = 0; ix < transforms.length; ix++) {
+			TriangleMesh mesh = calculated.get(ix).getMesh();
+			assertEquals(PlantObject.class, calculated.get(ix).getClass());
+			assertArrayEquals(expected.getAreas(ix), Arrays.copyOf(mesh.getAreaColumn(), mesh.size()), 1e-12);
+		}
+	}
 }
@@ -0,0 +1,93 @@
+package test.com.github.tamurashingo.juko.core.calculate.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.calculate.EstimatedAreaResult;
+import com.github.tamurashingo.juko.core.calculate.UnionAreaResult;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcExcludeOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcMonteCarloOverlap;
+
+public class CalcMonteCarloOverlapTest {
+	
+	@Test
+	public void testSquares() {
+		/*-
+		 * two squares of 2x2 which overlap by 1x1
+		 */
+		PlantObject p = new PlantObject();
+		p.getMesh().add(0.0, 0.0, 0.0, 2.0, 0.0, 0.0, 2.0, 2.0, 0.0);
+		p.getMesh().add(0.0, 0.0, 0.0, 2.0, 2.0, 0.0, 0.0, 2.0, 0.0);
+		p.getMesh().add(1.0, 1.0, 1.0, 3.0, 1.0, 1.0, 3.0, 3.0, 1.0);
+		p.getMesh().add(1.0, 1.0, 1.0, 3.0, 3.0, 1.0, 1.0, 3.0, 1.0);
+		PlantObject empty = new PlantObject();
+		List<PlantObject> plants = Arrays.asList(p, empty);
+		
+		CalcMonteCarloOverlap calc = new CalcMonteCarloOverlap(2);
+		calc.setSeed(10L);
+		EstimatedAreaResult result = calc.calcArea(plants);
+		assertEquals(7.0, result.getUnionArea(0), 7.0 * 0.03);
+		assertTrue(result.getLowerBound(0) < result.getUnionArea(0));
+		assertTrue(result.getUpperBound(0) > result.getUnionArea(0));
+		assertTrue(result.getRelativeError(0) <= 0.01);
+		assertEquals(8.0, result.getIncludedArea(0), 1e-12);
+		assertEquals(1.0 / 8.0, result.getOverlapRatio(0), 0.03);
+		assertEquals(0.95, result.getConfidenceLevel(), 0.0);
+		assertEquals(0, result.getSampleCount(0) % (32 * 32));
+		
+		assertEquals(0.0, result.getUnionArea(1), 0.0);
+		assertEquals(0, result.getSampleCount(1));
+		
+		// a full box has no variance
+		PlantObject full = new PlantObject();
+		full.getMesh().add(0.0, 0.0, 0.0, 2.0, 0.0, 0.0, 2.0, 2.0, 0.0);
+		full.getMesh().add(0.0, 0.0, 0.0, 2.0, 2.0, 0.0, 0.0, 2.0, 0.0);
+		result = calc.calcArea(Arrays.asList(full));
+		assertEquals(4.0, result.getUnionArea(0), 0.0);
+		assertEquals(CalcMonteCarloOverlap.DEFAULT_MIN_BATCHES * 32 * 32, result.getSampleCount(0));
+		
+		// the minimum is rounded up to a round
+		calc.setMinBatches(CalcMonteCarloOverlap.ROUND + 1);
+		result = calc.calcArea(Arrays.asList(full));
+		assertEquals(CalcMonteCarloOverlap.ROUND * 2 * 32 * 32, result.getSampleCount(0));
+	}
+	
+	@Test
+	public void testReproducible() {
+		Random rand = new Random(1);
+		PlantObject p = new PlantObject();
+		for (int t = 0; t < 2000; t++) {
+			double cx = rand.nextDouble() * 10.0;
+			double cy = rand.nextDouble() * 10.0;
+			p.getMesh().add(cx, cy, 0.0, cx + rand.nextDouble(), cy, 0.0, cx, cy + rand.nextDouble(), 0.0);
+		}
+		List<PlantObject> plants = Arrays.asList(p);
+		UnionAreaResult exact = new CalcExcludeOverlap().calcArea(plants);
+		
+		CalcMonteCarloOverlap c1 = new CalcMonteCarloOverlap(1);
+		CalcMonteCarloOverlap c4 = new CalcMonteCarloOverlap(4);
+		c1.setSeed(5L);
+		c4.setSeed(5L);
+		EstimatedAreaResult r1 = c1.calcArea(plants);
+		EstimatedAreaResult r4 = c4.calcArea(plants);
+		assertEquals(r1.getUnionArea(0), r4.getUnionArea(0), 0.0);
+		assertEquals(r1.getSampleCount(0), r4.getSampleCount(0));
+		assertEquals(exact.getUnionArea(0), r1.getUnionArea(0), 3 * r1.getStandardError(0) + 1e-9);
+		
+		c1.setSeed(6L);
+		assertNotEquals(r1.getUnionArea(0), c1.calcArea(plants).getUnionArea(0), 0.0);
+		
+		// a tighter target needs more batches
+		c1.setTargetRelativeError(0.002);
+		EstimatedAreaResult tight = c1.calcArea(plants);
+		assertTrue(tight.getSampleCount(0) > r1.getSampleCount(0));
+		assertTrue(tight.getRelativeError(0) <= 0.002);
+		assertEquals(exact.getUnionArea(0), tight.getUnionArea(0), 3 * tight.getStandardError(0));
+	}
+}
@@ -0,0 +1,97 @@
+package test.com.github.tamurashingo.juko.core.calculate.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.calculate.DirectionAreaResult;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcIncludeOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcMultiDirection;
+
+public class CalcMultiDirectionTest {
+	
+	@Test
+	public void testTriangle() {
+		/*-
+		 * |\
+		 * | \
+		 * +--
+		 */
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		p.getMesh().add(0.0, 0.0, 0.0, 2.0, 0.0, 0.0, 0.0, 2.0, 0.0);
+		
+		CalcMultiDirection calc = CalcMultiDirection.grid(
+				new double[]{ Math.PI / 2, Math.PI / 4, 0.0 },
+				new double[]{ 0.0, Math.PI / 3 });
+		assertEquals(6, calc.getDirectionCount());
+		
+		DirectionAreaResult result = calc.calcArea(Collections.singletonList(p));
+		assertEquals(Math.PI / 4, result.getElevation(2), 0.0);
+		assertEquals(Math.PI / 3, result.getAzimuth(3), 0.0);
+		assertEquals(2.0, result.getArea(0, 0), 1e-12);
+		assertEquals(2.0, result.getArea(1, 0), 1e-12);
+		assertEquals(Math.sqrt(2.0), result.getArea(2, 0), 1e-12);
+		assertEquals(Math.sqrt(2.0), result.getArea(3, 0), 1e-12);
+		assertEquals(0.0, result.getArea(4, 0), 1e-12);
+		assertEquals(2.0, result.getSurfaceArea(0), 1e-12);
+	}
+	
+	/*-
+	 * the projected area is the same as the area of the rotated plant on the XY plane.
+	 */
+	@Test
+	public void testSameAsRotated() {
+		Random rand = new Random(1);
+		PlantObject p1 = new PlantObject();
+		PlantObject p2 = new PlantObject();
+		for (PlantObject p: Arrays.asList(p1, p2)) {
+			TriangleMesh mesh = p.getMesh();
+			for (int t = 0; t < 3000; t++) {
+				mesh.add(rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+						rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+						rand.nextDouble(), rand.nextDouble(), rand.nextDouble());
+			}
+		}
+		List<PlantObject> plants = Arrays.asList(p1, p2);
+		
+		Affine4[] rotations = {
+				TransformUtil.createRotateX(0.3),
+				TransformUtil.createRotateY(-1.2).multiply(TransformUtil.createRotateZ(0.7)),
+				TransformUtil.createRotateZ(2.0).multiply(TransformUtil.createRotateX(1.0)),
+		};
+		double[] el = new double[rotations.length];
+		double[] az = new double[rotations.length];
+		for (int ix = 0; ix < rotations.length; ix++) {
+			// the Z axis after the rotation
+			Affine4 r = rotations[ix];
+			el[ix] = Math.asin(r.get(2, 2));
+			az[ix] = Math.atan2(r.get(2, 1), r.get(2, 0));
+		}
+		DirectionAreaResult result = new CalcMultiDirection(el, az).calcArea(plants);
+		
+		for (int ix = 0; ix < rotations.length; ix++) {
+			for (int p = 0; p < plants.size(); p++) {
+				TriangleMesh rotated = (TriangleMesh)plants.get(p).getMesh().clone();
+				rotations[ix].applyTo(rotated);
+				PlantObject q = new PlantObject();
+				for (int t = 0; t < rotated.size(); t++) {
+					q.addTriangle(rotated.getTriangle(t));
+				}
+				double expected = new CalcIncludeOverlap().calcArea(Collections.singletonList(q)).getTotalArea();
+				assertEquals(expected, result.getArea(ix, p), expected * 1e-12);
+			}
+		}
+		assertEquals(result.getArea(1, 0) + result.getArea(1, 1), result.getTotalArea(1), 1e-9);
+	}
+}
@@ -0,0 +1,98 @@
+package test.com.github.tamurashingo.juko.core.calculate.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+import com.github.tamurashingo.juko.core.calculate.RasterAreaResult;
+import com.github.tamurashingo.juko.core.calculate.RasterCoverage;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcExcludeOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcRasterOverlap;
+
+public class CalcRasterOverlapTest {
+	
+	@Test
+	public void testOverlap() {
+		/*-
+		 * lower triangle (z = 0) and upper half triangle (z = 1)
+		 */
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		p.getMesh().add(0.0, 0.0, 0.0, 2.0, 0.0, 0.0, 0.0, 2.0, 0.0);
+		p.getMesh().add(0.0, 0.0, 1.0, 1.0, 0.0, 1.0, 0.0, 1.0, 1.0);
+		
+		CalcRasterOverlap calc = new CalcRasterOverlap(1);
+		calc.setResolution(400);
+		RasterAreaResult result = calc.calcArea(Collections.singletonList(p));
+		
+		assertEquals(2.0, result.getCoveredArea(0), 0.02);
+		assertEquals(1.5, result.getArea(0, 0), 0.02);
+		assertEquals(0.5, result.getArea(0, 1), 0.02);
+		assertEquals(result.getCoveredArea(0), AreaResult.sum(result.getAreas(0)), 1e-9);
+		
+		RasterCoverage coverage = result.getCoverage(0);
+		assertEquals(400, coverage.getWidth());
+		assertEquals(400, coverage.getHeight());
+		assertEquals(1, coverage.getTopTriangle(10, 10));
+		assertEquals(0, coverage.getTopTriangle(10, 300));
+		assertEquals(-1, coverage.getTopTriangle(399, 399));
+		
+		double pixelArea = coverage.getPixelSize() * coverage.getPixelSize();
+		long[] histogram = result.getDepthHistogram(0);
+		assertEquals(1.5, histogram[1] * pixelArea, 0.02);
+		assertEquals(0.5, histogram[2] * pixelArea, 0.02);
+		assertEquals(400 * 400, histogram[0] + histogram[1] + histogram[2]);
+	}
+	
+	@Test
+	public void testSameAsExact() {
+		Random rand = new Random(1);
+		PlantObject p = new PlantObject();
+		TriangleMesh mesh = p.getMesh();
+		for (int t = 0; t < 500; t++) {
+			double x = rand.nextDouble();
+			double y = rand.nextDouble();
+			mesh.add(x, y, rand.nextDouble(),
+					x + rand.nextDouble() * 0.2 - 0.1, y + rand.nextDouble() * 0.2 - 0.1, rand.nextDouble(),
+					x + rand.nextDouble() * 0.2 - 0.1, y + rand.nextDouble() * 0.2 - 0.1, rand.nextDouble());
+		}
+		List<PlantObject> plants = Collections.singletonList(p);
+		double exact = new CalcExcludeOverlap().calcArea(plants).getUnionArea(0);
+		
+		CalcRasterOverlap calc1 = new CalcRasterOverlap(1);
+		CalcRasterOverlap calc3 = new CalcRasterOverlap(3);
+		calc1.setResolution(1000);
+		calc3.setResolution(1000);
+		RasterAreaResult result1 = calc1.calcArea(plants);
+		RasterAreaResult result3 = calc3.calcArea(plants);
+		
+		assertEquals(exact, result1.getCoveredArea(0), exact * 0.002);
+		// independent of the parallelism
+		assertArrayEquals(result1.getCoverage(0).getTopTriangles(), result3.getCoverage(0).getTopTriangles());
+		assertArrayEquals(result1.getDepthHistogram(0), result3.getDepthHistogram(0));
+	}
+	
+	@Test
+	public void testEmpty() {
+		CalcRasterOverlap calc = new CalcRasterOverlap(1);
+		calc.setKeepTopTriangles(false);
+		PlantObject empty = new PlantObject();
+		PlantObject point = new PlantObject();
+		point.getMesh().add(1.0, 1.0, 0.0, 1.0, 1.0, 0.0, 1.0, 1.0, 0.0);
+		RasterAreaResult result = calc.calcArea(Arrays.asList(empty, point));
+		
+		assertEquals(0.0, result.getTotalArea(), 0.0);
+		assertEquals(0, result.getCoverage(1).getWidth());
+		assertEquals(0.0, result.getArea(1, 0), 0.0);
+		assertFalse(result.getCoverage(0).hasTopTriangles());
+	}
+}
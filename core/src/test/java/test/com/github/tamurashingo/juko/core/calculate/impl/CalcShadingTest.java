@@ -0,0 +1,122 @@
+package test.com.github.tamurashingo.juko.core.calculate.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+import com.github.tamurashingo.juko.core.calculate.ShadingAreaResult;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcIncludeOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcShading;
+
+public class CalcShadingTest {
+	
+	/**
+	 * square of (x0, y0) - (x1, y1) at z.
+	 */
+	private static PlantObject square(PlantType type, double x0, double y0, double x1, double y1, double z) {
+		PlantObject p = new PlantObject();
+		p.setPlantType(type);
+		p.getMesh().add(x0, y0, z, x1, y0, z, x1, y1, z);
+		p.getMesh().add(x0, y0, z, x1, y1, z, x0, y1, z);
+		return p;
+	}
+	
+	@Test
+	public void testNoShadow() {
+		Random rand = new Random(1);
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		for (int t = 0; t < 100; t++) {
+			// far from each other
+			double cx = t * 10.0;
+			p.getMesh().add(cx + rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					cx + rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					cx + rand.nextDouble(), rand.nextDouble(), rand.nextDouble());
+		}
+		List<PlantObject> plants = Collections.singletonList(p);
+		ShadingAreaResult result = new CalcShading(1).calcArea(plants);
+		AreaResult expected = new CalcIncludeOverlap().calcArea(plants);
+		for (int t = 0; t < 100; t++) {
+			assertEquals(expected.getArea(0, t), result.getArea(0, t), 1e-12);
+		}
+		assertEquals(expected.getTotalArea(0), result.getProjectedArea(0), 1e-9);
+		assertEquals(1.0, result.getSunlitRatio(0), 1e-12);
+	}
+	
+	@Test
+	public void testShield() {
+		PlantObject leaf = square(PlantType.LEAF, 0.0, 0.0, 2.0, 2.0, 0.0);
+		// covers the left half of the leaf
+		PlantObject shield = square(PlantType.SHIELD, -1.0, -1.0, 1.0, 3.0, 1.0);
+		List<PlantObject> plants = Arrays.asList(leaf, shield);
+		
+		CalcShading calc = new CalcShading(2);
+		calc.setSamples(32);
+		ShadingAreaResult result = calc.calcArea(plants);
+		assertEquals(4.0, result.getProjectedArea(0), 1e-12);
+		assertEquals(2.0, result.getSunlitArea(0), 0.1);
+		assertEquals(2.0, result.getShadedArea(0), 0.1);
+		assertEquals(0.0, result.getTotalArea(1), 0.0);
+		assertEquals(0.0, result.getProjectedArea(1), 0.0);
+		assertEquals(0.5, result.getSunlitRatio(), 0.025);
+		
+		// the light is at +X, and the shadow moves to -X by 1
+		calc.setLightDirection(Math.PI / 4, 0.0);
+		result = calc.calcArea(plants);
+		assertEquals(4.0 / Math.sqrt(2.0), result.getProjectedArea(0), 1e-12);
+		assertEquals(1.0, result.getSunlitRatio(0), 0.0);
+		
+		// the light is at -X, and the shadow moves to +X by 1
+		calc.setLightDirection(Math.PI / 4, Math.PI);
+		result = calc.calcArea(plants);
+		assertEquals(0.0, result.getSunlitArea(0), 0.0);
+		
+		// a leaf casts a shadow, too
+		leaf.setPlantType(PlantType.LEAF);
+		shield.setPlantType(PlantType.LEAF);
+		calc.setLightDirection(Math.PI / 2, 0.0);
+		result = calc.calcArea(plants);
+		assertEquals(2.0, result.getSunlitArea(0), 0.1);
+		assertEquals(8.0, result.getSunlitArea(1), 1e-12);
+	}
+	
+	@Test
+	public void testParallel() {
+		Random rand = new Random(2);
+		PlantObject p1 = new PlantObject();
+		PlantObject p2 = new PlantObject();
+		p1.setPlantType(PlantType.LEAF);
+		p2.setPlantType(PlantType.SHIELD);
+		for (PlantObject p: Arrays.asList(p1, p2)) {
+			TriangleMesh mesh = p.getMesh();
+			for (int t = 0; t < 5000; t++) {
+				double cx = rand.nextDouble() * 10.0;
+				double cy = rand.nextDouble() * 10.0;
+				double cz = rand.nextDouble() * 10.0;
+				mesh.add(cx + rand.nextDouble(), cy + rand.nextDouble(), cz + rand.nextDouble(),
+						cx + rand.nextDouble(), cy + rand.nextDouble(), cz + rand.nextDouble(),
+						cx + rand.nextDouble(), cy + rand.nextDouble(), cz + rand.nextDouble());
+			}
+		}
+		List<PlantObject> plants = Arrays.asList(p1, p2);
+		
+		CalcShading c1 = new CalcShading(1);
+		CalcShading c4 = new CalcShading(4);
+		c1.setLightDirection(1.0, 2.0);
+		c4.setLightDirection(1.0, 2.0);
+		ShadingAreaResult r1 = c1.calcArea(plants);
+		ShadingAreaResult r4 = c4.calcArea(plants);
+		assertArrayEquals(r1.getAreas(0), r4.getAreas(0), 0.0);
+		assertTrue(r1.getSunlitRatio(0) > 0.0 && r1.getSunlitRatio(0) < 1.0);
+		assertEquals(0.0, r1.getTotalArea(1), 0.0);
+	}
+}
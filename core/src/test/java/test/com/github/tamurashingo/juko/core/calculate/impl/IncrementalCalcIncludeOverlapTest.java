@@ -0,0 +1,146 @@
+package test.com.github.tamurashingo.juko.core.calculate.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcIncludeOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.IncrementalCalcIncludeOverlap;
+
+public class IncrementalCalcIncludeOverlapTest {
+	
+	private static void addRandom(TriangleMesh mesh, Random rand, int count) {
+		for (int t = 0; t < count; t++) {
+			mesh.add(rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					rand.nextDouble(), rand.nextDouble(), rand.nextDouble(),
+					rand.nextDouble(), rand.nextDouble(), rand.nextDouble());
+		}
+	}
+	
+	private static void assertSame(List<PlantObject> plants, AreaResult actual) {
+		AreaResult expected = new CalcIncludeOverlap().calcArea(plants);
+		for (int p = 0; p < plants.size(); p++) {
+			assertArrayEquals(expected.getAreas(p), actual.getAreas(p), 0.0);
+			assertEquals(expected.getTotalArea(p), actual.getTotalArea(p), 1e-9);
+		}
+	}
+	
+	@Test
+	public void testIncremental() {
+		Random rand = new Random(1);
+		PlantObject p1 = new PlantObject();
+		PlantObject p2 = new PlantObject();
+		addRandom(p1.getMesh(), rand, 1000);
+		addRandom(p2.getMesh(), rand, 500);
+		List<PlantObject> plants = Arrays.asList(p1, p2);
+		
+		IncrementalCalcIncludeOverlap calc = new IncrementalCalcIncludeOverlap();
+		AreaResult result = calc.calcArea(plants);
+		assertEquals(1500, calc.getRecalculatedCount());
+		assertSame(plants, result);
+		// the plants are not changed
+		assertTrue(p1.isDirty());
+		
+		// nothing is changed
+		result = calc.calcArea(plants);
+		assertEquals(0, calc.getRecalculatedCount());
+		assertSame(plants, result);
+		
+		// move some vertexes
+		p1.getMesh().setVertex(10, 0, 2.0, 3.0, 0.0);
+		p1.getMesh().setVertex(20, 2, -1.0, 0.5, 0.0);
+		p2.getMesh().setVertex(499, 1, 0.0, 0.0, 0.0);
+		result = calc.calcArea(plants);
+		assertEquals(3, calc.getRecalculatedCount());
+		assertSame(plants, result);
+		
+		// add and remove
+		addRandom(p1.getMesh(), rand, 5);
+		p2.getMesh().setSize(400);
+		result = calc.calcArea(plants);
+		assertEquals(5, calc.getRecalculatedCount());
+		assertEquals(1005, result.getAreas(0).length);
+		assertEquals(400, result.getAreas(1).length);
+		assertSame(plants, result);
+		
+		// remove and add again
+		p2.getMesh().setSize(390);
+		addRandom(p2.getMesh(), rand, 10);
+		result = calc.calcArea(plants);
+		assertEquals(10, calc.getRecalculatedCount());
+		assertSame(plants, result);
+		
+		// transform
+		p2.applyTransform(TransformUtil.createRotateX(0.5));
+		result = calc.calcArea(plants);
+		assertEquals(400, calc.getRecalculatedCount());
+		assertSame(plants, result);
+	}
+	
+	@Test
+	public void testPlants() {
+		Random rand = new Random(2);
+		PlantObject p1 = new PlantObject();
+		PlantObject p2 = new PlantObject();
+		addRandom(p1.getMesh(), rand, 100);
+		addRandom(p2.getMesh(), rand, 200);
+		
+		IncrementalCalcIncludeOverlap calc = new IncrementalCalcIncludeOverlap();
+		calc.calcArea(Arrays.asList(p1));
+		
+		// p2 is new, and p1 is given twice
+		List<PlantObject> plants = Arrays.asList(p1, p2, p1);
+		AreaResult result = calc.calcArea(plants);
+		assertEquals(200, calc.getRecalculatedCount());
+		assertSame(plants, result);
+		
+		// a cloned plant is another plant
+		PlantObject p3 = (PlantObject)p1.clone();
+		result = calc.calcArea(Arrays.asList(p3));
+		assertEquals(100, calc.getRecalculatedCount());
+		
+		calc.reset();
+		calc.calcArea(plants);
+		assertEquals(300, calc.getRecalculatedCount());
+	}
+	
+	@Test
+	public void testShared() {
+		Random rand = new Random(3);
+		PlantObject p1 = new PlantObject();
+		addRandom(p1.getMesh(), rand, 100);
+		List<PlantObject> plants = Arrays.asList(p1);
+		
+		IncrementalCalcIncludeOverlap calc1 = new IncrementalCalcIncludeOverlap();
+		IncrementalCalcIncludeOverlap calc2 = new IncrementalCalcIncludeOverlap();
+		AreaResult first = calc1.calcArea(plants);
+		double[] areas = first.getAreas(0).clone();
+		calc2.calcArea(plants);
+		
+		// both calculators see the change
+		p1.getMesh().setVertex(5, 0, 2.0, 3.0, 0.0);
+		AreaResult result1 = calc1.calcArea(plants);
+		assertEquals(1, calc1.getRecalculatedCount());
+		assertSame(plants, result1);
+		AreaResult result2 = calc2.calcArea(plants);
+		assertEquals(1, calc2.getRecalculatedCount());
+		assertSame(plants, result2);
+		
+		// the last result is not overwritten
+		assertArrayEquals(areas, first.getAreas(0), 0.0);
+		assertNotEquals(areas[5], result1.getAreas(0)[5], 0.0);
+		
+		// an unchanged plant shares the array with the last result
+		AreaResult result3 = calc1.calcArea(plants);
+		assertEquals(0, calc1.getRecalculatedCount());
+		assertTrue(result1.getAreas(0) == result3.getAreas(0));
+	}
+}
@@ -0,0 +1,148 @@
+package test.com.github.tamurashingo.juko.core.calculate.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.Plant;
+import com.github.tamurashingo.juko.core.bean.PlantInstance;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+import com.github.tamurashingo.juko.core.calculate.CalcIF;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcIncludeOverlap;
+import com.github.tamurashingo.juko.core.calculate.impl.ParallelCalcIncludeOverlap;
+
+public class ParallelCalcIncludeOverlapTest {
+
+	@Test
+	public void testSameAsSequential() {
+		Random rand = new Random(1234);
+		List<PlantObject> list = new ArrayList<>();
+		for (int ix = 0; ix < 5; ix++) {
+			PlantObject p = new PlantObject();
+			p.setPlantType(PlantType.LEAF);
+			int n = (ix == 0) ? 1000 : rand.nextInt(50);
+			for (int t = 0; t < n; t++) {
+				p.addTriangle(
+						new double[]{ rand.nextDouble(), rand.nextDouble(), rand.nextDouble() },
+						new double[]{ rand.nextDouble(), rand.nextDouble(), rand.nextDouble() },
+						new double[]{ rand.nextDouble(), rand.nextDouble(), rand.nextDouble() });
+			}
+			list.add(p);
+		}
+		
+		ParallelCalcIncludeOverlap parallel = new ParallelCalcIncludeOverlap(4);
+		parallel.setThreshold(7);
+		List<PlantObject> result = parallel.calc(list);
+		List<PlantObject> expected = new CalcIncludeOverlap().calc(list);
+		
+		assertEquals(expected.size(), result.size());
+		for (int ix = 0; ix < expected.size(); ix++) {
+			assertFalse("result is another instance.", list.get(ix) == result.get(ix));
+			int size = expected.get(ix).getMesh().size();
+			assertEquals(size, result.get(ix).getMesh().size());
+			for (int t = 0; t < size; t++) {
+				assertEquals(expected.get(ix).getMesh().getArea(t), result.get(ix).getMesh().getArea(t), 0.0);
+			}
+		}
+	}
+	
+	@Test
+	public void testCalcArea() {
+		Random rand = new Random(5678);
+		List<PlantObject> list = new ArrayList<>();
+		for (int ix = 0; ix < 3; ix++) {
+			PlantObject p = new PlantObject();
+			p.setPlantType(PlantType.LEAF);
+			for (int t = 0; t < 500; t++) {
+				p.addTriangle(
+						new double[]{ rand.nextDouble(), rand.nextDouble(), rand.nextDouble() },
+						new double[]{ rand.nextDouble(), rand.nextDouble(), rand.nextDouble() },
+						new double[]{ rand.nextDouble(), rand.nextDouble(), rand.nextDouble() });
+			}
+			list.add(p);
+		}
+		
+		ParallelCalcIncludeOverlap parallel = new ParallelCalcIncludeOverlap(4);
+		parallel.setThreshold(13);
+		AreaResult result = parallel.calcArea(list);
+		AreaResult expected = new CalcIncludeOverlap().calcArea(list);
+		
+		assertEquals(expected.size(), result.size());
+		for (int ix = 0; ix < expected.size(); ix++) {
+			assertArrayEquals(expected.getAreas(ix), result.getAreas(ix), 0.0);
+			assertEquals(expected.getTotalArea(ix), result.getTotalArea(ix), 0.0);
+		}
+	}
+	
+	@Test
+	public void testInstances() {
+		Random rand = new Random(91);
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		for (int t = 0; t < 300; t++) {
+			p.addTriangle(
+					new double[]{ rand.nextDouble(), rand.nextDouble(), rand.nextDouble() },
+					new double[]{ rand.nextDouble(), rand.nextDouble(), rand.nextDouble() },
+					new double[]{ rand.nextDouble(), rand.nextDouble(), rand.nextDouble() });
+		}
+		List<Plant> list = new ArrayList<>();
+		list.add(p);
+		for (int ix = 0; ix < 6; ix++) {
+			list.add(new PlantInstance(p, TransformUtil.createRotateZ(ix * 0.5)));
+		}
+		list.add(new PlantInstance(p, TransformUtil.createScale(2.0, 3.0, 1.0)));
+		list.add(new PlantInstance(p, TransformUtil.createRotateX(0.7)));
+		
+		ParallelCalcIncludeOverlap parallel = new ParallelCalcIncludeOverlap(4);
+		parallel.setThreshold(17);
+		AreaResult result = parallel.calcArea(list);
+		AreaResult expected = new CalcIncludeOverlap().calcArea(list);
+		
+		assertEquals(expected.size(), result.size());
+		for (int ix = 0; ix < expected.size(); ix++) {
+			assertArrayEquals(expected.getAreas(ix), result.getAreas(ix), 0.0);
+			assertEquals(expected.getTotalArea(ix), result.getTotalArea(ix), 0.0);
+		}
+		parallel.shutdown();
+	}
+	
+	@Test
+	public void testEmpty() {
+		CalcIF c = new ParallelCalcIncludeOverlap(2);
+		assertEquals(0, c.calc(new ArrayList<PlantObject>()).size());
+		assertEquals(0, c.calcArea(new ArrayList<PlantObject>()).size());
+	}
+	
+	@Test
+	public void testShutdown() {
+		PlantObject p = new PlantObject();
+		p.addTriangle(new double[]{ 0.0, 0.0, 0.0 }, new double[]{ 1.0, 0.0, 0.0 }, new double[]{ 0.0, 1.0, 0.0 });
+		List<PlantObject> list = Arrays.asList(p);
+		
+		// the shared pool is not shut down
+		ParallelCalcIncludeOverlap shared = new ParallelCalcIncludeOverlap();
+		shared.shutdown();
+		assertEquals(0.5, new ParallelCalcIncludeOverlap().calcArea(list).getTotalArea(0), 0.0);
+		
+		ParallelCalcIncludeOverlap owned = new ParallelCalcIncludeOverlap(2);
+		assertEquals(0.5, owned.calcArea(list).getTotalArea(0), 0.0);
+		owned.shutdown();
+		try {
+			owned.calcArea(list);
+			fail();
+		}
+		catch (RejectedExecutionException ex) {
+			// ok
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.pipeline;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.calculate.AreaResult;
+import com.github.tamurashingo.juko.core.calculate.impl.CalcIncludeOverlap;
+import com.github.tamurashingo.juko.core.pipeline.PipelineResult;
+import com.github.tamurashingo.juko.core.pipeline.PlantPipeline;
+import com.github.tamurashingo.juko.core.pipeline.StageStatistics;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReaderException;
+import com.github.tamurashingo.juko.core.reader.impl.MappedReader;
+import com.github.tamurashingo.juko.core.reader.impl.SimpleReader;
+
+public class PlantPipelineTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * create a file of random triangles. the last line is the origin.
+	 */
+	private String createFile(Random rand, int triangles) throws IOException {
+		File file = folder.newFile();
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+			for (int ix = 0; ix < triangles * 3 + 1; ix++) {
+				out.write(rand.nextInt(100) + "\t" + rand.nextInt(100) + "\t" + rand.nextInt(100) + "\n");
+			}
+		}
+		return file.getAbsolutePath();
+	}
+	
+	@Test
+	public void testRun() throws Exception {
+		Random rand = new Random(1);
+		String[] files = new String[10];
+		for (int ix = 0; ix < files.length; ix++) {
+			files[ix] = createFile(rand, 10 + ix * 5);
+		}
+		
+		SimpleReader reader = new SimpleReader();
+		reader.open(files);
+		List<PlantObject> expected = reader.read();
+		AreaResult expectedResult = new CalcIncludeOverlap().calcArea(expected);
+		
+		PlantPipeline pipeline = new PlantPipeline(new SimpleReader(), new CalcIncludeOverlap());
+		pipeline.setQueueCapacity(1);
+		PipelineResult result = pipeline.run(files);
+		
+		assertEquals(files.length, result.getPlants().size());
+		AreaResult actual = result.getAreaResult();
+		for (int ix = 0; ix < files.length; ix++) {
+			assertArrayEquals(expected.get(ix).getMesh().getXColumn(), result.getPlants().get(ix).getMesh().getXColumn(), 0.0);
+			assertSame(result.getPlants().get(ix), actual.getPlant(ix));
+			assertArrayEquals(expectedResult.getAreas(ix), actual.getAreas(ix), 0.0);
+		}
+		assertEquals(expectedResult.getTotalArea(), actual.getTotalArea(), 1e-9);
+		
+		assertEquals(3, result.getStatistics().size());
+		for (StageStatistics s: result.getStatistics()) {
+			assertEquals(files.length, s.getCount());
+			assertTrue(s.getUtilization() >= 0.0 && s.getUtilization() <= 1.0);
+		}
+		assertEquals("parse", result.getStatistics().get(0).getName());
+		assertEquals("calculate", result.getStatistics().get(2).getName());
+	}
+	
+	@Test
+	public void testNoCalculator() throws Exception {
+		String file = createFile(new Random(2), 3);
+		PipelineResult result = new PlantPipeline(new SimpleReader()).run(file, file);
+		assertEquals(2, result.getPlants().size());
+		assertEquals(3, result.getPlants().get(1).getMesh().size());
+		assertNull(result.getResults());
+		assertNull(result.getAreaResult());
+	}
+	
+	@Test
+	public void testMappedReader() throws Exception {
+		String file = createFile(new Random(4), 50);
+		SimpleReader reader = new SimpleReader();
+		reader.open(file);
+		PlantObject expected = reader.readNext();
+		
+		// the file is opened by the reader
+		MappedReader mapped = new MappedReader();
+		mapped.setWindowSize(64);
+		PipelineResult result = new PlantPipeline(mapped).run(file);
+		assertArrayEquals(expected.getMesh().getXColumn(), result.getPlants().get(0).getMesh().getXColumn(), 0.0);
+	}
+	
+	@Test
+	public void testError() throws Exception {
+		Random rand = new Random(3);
+		String[] files = new String[20];
+		for (int ix = 0; ix < files.length; ix++) {
+			files[ix] = createFile(rand, 5);
+		}
+		files[3] = new File(folder.getRoot(), "missing").getAbsolutePath();
+		
+		PlantPipeline pipeline = new PlantPipeline(new SimpleReader(), new CalcIncludeOverlap());
+		pipeline.setQueueCapacity(1);
+		try {
+			pipeline.run(files);
+			fail();
+		}
+		catch (PlantObjectReaderException ex) {
+			// ok
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.reader.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReader;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReaderException;
+import com.github.tamurashingo.juko.core.reader.impl.BinaryReader;
+import com.github.tamurashingo.juko.core.util.PlantObjectCodec;
+import com.github.tamurashingo.juko.core.writer.PlantObjectWriter;
+import com.github.tamurashingo.juko.core.writer.impl.BinaryWriter;
+
+public class BinaryReaderTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * create a plant which has the triangles.
+	 */
+	private static PlantObject createPlant(PlantType type, int size, double seed) {
+		PlantObject plant = new PlantObject();
+		plant.setPlantType(type);
+		TriangleMesh mesh = plant.getMesh();
+		for (int t = 0; t < size; t++) {
+			double d = seed + t;
+			mesh.add(d, d + 0.1, d + 0.2, d + 1.0, d + 1.1, d + 1.2, -d, -d * 2, -d * 3);
+			mesh.setArea(t, d * 0.5);
+		}
+		return plant;
+	}
+	
+	private String write(boolean writeArea, PlantObject... plants) throws Exception {
+		String file = folder.newFile().getPath();
+		BinaryWriter writer = new BinaryWriter();
+		writer.setWriteArea(writeArea);
+		writer.open(file);
+		writer.write(Arrays.asList(plants));
+		writer.close();
+		return file;
+	}
+	
+	private static void assertMeshEquals(TriangleMesh expected, TriangleMesh actual, boolean area) {
+		assertEquals(expected.size(), actual.size());
+		for (int t = 0; t < expected.size(); t++) {
+			for (int v = 0; v < 3; v++) {
+				assertEquals(expected.getX(t, v), actual.getX(t, v), 0.0);
+				assertEquals(expected.getY(t, v), actual.getY(t, v), 0.0);
+				assertEquals(expected.getZ(t, v), actual.getZ(t, v), 0.0);
+			}
+			assertEquals(area ? expected.getArea(t) : 0.0, actual.getArea(t), 0.0);
+		}
+	}
+	
+	/*-
+	 * write and read plants, larger than the transfer buffer.
+	 */
+	@Test
+	public void testReadWrite() throws Exception {
+		PlantObject p1 = createPlant(PlantType.LEAF, 5000, 1.0);
+		PlantObject p2 = createPlant(PlantType.SHIELD, 0, 0.0);
+		PlantObject p3 = createPlant(null, 3, -10.0);
+		String file = write(true, p1, p2, p3);
+		assertEquals(PlantObjectCodec.HEADER_SIZE * 3 + (5003 * 10) * 8, new File(file).length());
+		
+		PlantObjectReader reader = new BinaryReader();
+		reader.open(file);
+		List<PlantObject> obj = reader.read();
+		reader.close();
+		
+		assertEquals(3, obj.size());
+		assertEquals(PlantType.LEAF, obj.get(0).getPlantType());
+		assertEquals(PlantType.SHIELD, obj.get(1).getPlantType());
+		assertNull(obj.get(2).getPlantType());
+		assertMeshEquals(p1.getMesh(), obj.get(0).getMesh(), true);
+		assertMeshEquals(p2.getMesh(), obj.get(1).getMesh(), true);
+		assertMeshEquals(p3.getMesh(), obj.get(2).getMesh(), true);
+	}
+	
+	/*-
+	 * read some files without areas one by one.
+	 */
+	@Test
+	public void testReadNext() throws Exception {
+		PlantObject p1 = createPlant(PlantType.LEAF, 2, 1.0);
+		PlantObject p2 = createPlant(PlantType.LEAF, 3, 2.0);
+		String file1 = write(false, p1);
+		String file2 = write(false);
+		String file3 = write(false, p2, p1);
+		
+		PlantObjectReader reader = new BinaryReader();
+		reader.open(file1, file2, file3);
+		List<PlantObject> obj = new ArrayList<>();
+		PlantObject p;
+		while ((p = reader.readNext()) != null) {
+			obj.add(p);
+		}
+		assertNull(reader.readNext());
+		reader.close();
+		
+		assertEquals(3, obj.size());
+		assertMeshEquals(p1.getMesh(), obj.get(0).getMesh(), false);
+		assertMeshEquals(p2.getMesh(), obj.get(1).getMesh(), false);
+		assertMeshEquals(p1.getMesh(), obj.get(2).getMesh(), false);
+	}
+	
+	/*-
+	 * read a broken file.
+	 */
+	@Test
+	public void testFormatError() throws Exception {
+		String file = write(true, createPlant(PlantType.LEAF, 2, 1.0));
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() - 1);
+		}
+		String text = folder.newFile().getPath();
+		try (RandomAccessFile raf = new RandomAccessFile(text, "rw")) {
+			raf.writeBytes("1.0\t2.0\t3.0\n0.0\t0.0\t0.0\n");
+		}
+		
+		for (String f: new String[]{ file, text }) {
+			PlantObjectReader reader = new BinaryReader();
+			reader.open(f);
+			try {
+				reader.read();
+				fail("not reached");
+			}
+			catch ( PlantObjectReaderException ex ) {
+				assertEquals("E.IO.000040", ex.getMessageProperty().getMessageId());
+				assertArrayEquals(new String[]{ f }, ex.getMessageProperty().getArgs());
+			}
+			reader.close();
+		}
+	}
+	
+	/*-
+	 * read a truncated file whose header has a large number of triangles.
+	 * the mesh is not allocated.
+	 */
+	@Test
+	public void testTruncated() throws Exception {
+		String file = write(false, createPlant(PlantType.LEAF, 1000, 1.0));
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			// number of triangles (little-endian long)
+			raf.seek(16);
+			raf.write(new byte[]{ 0, 0, 0, 0x20, 0, 0, 0, 0 });
+			raf.setLength(PlantObjectCodec.HEADER_SIZE + 100);
+		}
+		
+		PlantObjectReader reader = new BinaryReader();
+		reader.open(file);
+		try {
+			reader.readNext();
+			fail("not reached");
+		}
+		catch ( PlantObjectReaderException ex ) {
+			assertEquals("E.IO.000040", ex.getMessageProperty().getMessageId());
+		}
+		reader.close();
+	}
+	
+	/*-
+	 * read a file whose header has an unknown flag.
+	 */
+	@Test
+	public void testUnknownFlag() throws Exception {
+		String file = write(true, createPlant(PlantType.LEAF, 2, 1.0));
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			// flags (little-endian int)
+			raf.seek(12);
+			raf.write(new byte[]{ 3, 0, 0, 0 });
+		}
+		
+		PlantObjectReader reader = new BinaryReader();
+		reader.open(file);
+		try {
+			reader.readNext();
+			fail("not reached");
+		}
+		catch ( PlantObjectReaderException ex ) {
+			assertEquals("E.IO.000040", ex.getMessageProperty().getMessageId());
+		}
+		reader.close();
+	}
+}
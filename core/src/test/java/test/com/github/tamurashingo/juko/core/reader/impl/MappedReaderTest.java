@@ -0,0 +1,154 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.reader.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReader;
+import com.github.tamurashingo.juko.core.reader.PlantObjectReaderException;
+import com.github.tamurashingo.juko.core.reader.impl.MappedReader;
+import com.github.tamurashingo.juko.core.reader.impl.SimpleReader;
+
+public class MappedReaderTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * create a file which contains the text.
+	 */
+	private String createFile(String text) throws IOException {
+		File file = folder.newFile();
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(text.getBytes(StandardCharsets.US_ASCII));
+		}
+		return file.getPath();
+	}
+	
+	private static List<PlantObject> read(PlantObjectReader reader, String file) throws PlantObjectReaderException {
+		reader.open(file);
+		List<PlantObject> plants = reader.read();
+		reader.close();
+		return plants;
+	}
+	
+	/*-
+	 * read the same result as SimpleReader, with windows smaller than a line.
+	 */
+	@Test
+	public void testSameAsSimpleReader() throws Exception {
+		StringBuilder text = new StringBuilder();
+		for (int ix = 0; ix < 300; ix++) {
+			text.append(ix * 0.5).append('\t').append(-ix).append('\t').append(ix % 7 + 0.125);
+			// mix line terminators and blank lines
+			text.append((ix % 3 == 0) ? "\r\n" : (ix % 3 == 1) ? "\n" : "\r");
+			if (ix % 50 == 0) {
+				text.append("\n");
+			}
+		}
+		text.append("1.5\t2.5\t3.5");
+		String file = createFile(text.toString());
+		
+		TriangleMesh expected = read(new SimpleReader(), file).get(0).getMesh();
+		assertEquals(100, expected.size());
+		for (int windowSize: new int[]{ 1, 7, 64, 4096 }) {
+			MappedReader reader = new MappedReader();
+			reader.setWindowSize(windowSize);
+			TriangleMesh actual = read(reader, file).get(0).getMesh();
+			assertEquals(expected.size(), actual.size());
+			for (int t = 0; t < expected.size(); t++) {
+				for (int v = 0; v < 3; v++) {
+					assertEquals(expected.getX(t, v), actual.getX(t, v), 0.0);
+					assertEquals(expected.getY(t, v), actual.getY(t, v), 0.0);
+					assertEquals(expected.getZ(t, v), actual.getZ(t, v), 0.0);
+				}
+			}
+		}
+	}
+	
+	/*-
+	 * read an empty file.
+	 */
+	@Test
+	public void testEmpty() throws Exception {
+		String file = createFile("");
+		List<PlantObject> obj = read(new MappedReader(), file);
+		assertEquals(1, obj.size());
+		assertEquals(0, obj.get(0).getMesh().size());
+	}
+	
+	/*-
+	 * file not found.
+	 */
+	@Test
+	public void testNotFound() throws Exception {
+		PlantObjectReader reader = new MappedReader();
+		reader.open(new File(folder.getRoot(), "notfound.tsv").getPath());
+		try {
+			reader.read();
+			fail("not reached");
+		}
+		catch ( PlantObjectReaderException ex ) {
+			assertEquals("E.IO.000010", ex.getMessageProperty().getMessageId());
+		}
+		reader.close();
+	}
+	
+	/*-
+	 * read tsv which has a broken number.
+	 */
+	@Test
+	public void testNumberFormatError() throws Exception {
+		String file = createFile("1.0\t2.0\t3.0\r\n\r\n4.0\t5.x\t6.0\r\n7.0\t8.0\t9.0\r\n");
+		
+		MappedReader reader = new MappedReader();
+		reader.setWindowSize(5);
+		reader.open(file);
+		try {
+			reader.read();
+			fail("not reached");
+		}
+		catch ( PlantObjectReaderException ex ) {
+			PlantObjectReaderException cause = (PlantObjectReaderException)ex.getCause();
+			assertEquals("E.IO.000020", cause.getMessageProperty().getMessageId());
+			assertArrayEquals(new String[]{"3"}, cause.getMessageProperty().getArgs());
+		}
+		reader.close();
+	}
+}
@@ -27,93 +27,106 @@ package test.com.github.tamurashingo.juko.core.reader.impl;
 
 import static org.junit.Assert.*;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import mockit.Expectations;
-import mockit.Mock;
-import mockit.MockClass;
-import mockit.MockUp;
-import mockit.Mocked;
-import mockit.Mockit;
-
-
-import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.github.tamurashingo.juko.core.bean.PlantObject;
 import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
 import com.github.tamurashingo.juko.core.reader.PlantObjectReader;
 import com.github.tamurashingo.juko.core.reader.PlantObjectReaderException;
 import com.github.tamurashingo.juko.core.reader.impl.SimpleReader;
-import com.github.tamurashingo.juko.core.util.LineReader;
 
 public class SimpleReaderTest {
 	
-	@BeforeClass
-	public static void setUpClass() {
-		Mockit.setUpMocks();
-		
-		//
-		// disable constructors.
-		//
-		new MockUp<Reader>() {
-			@Mock void $init(Object obj){}
-		};
-		new MockUp<FileReader>() {
-			@Mock void $init(String file){}
-		};
-		new MockUp<BufferedReader>() {
-			@Mock void $init(Reader reader){}
-		};
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * create a file which contains the lines.
+	 */
+	private String createFile(String... lines) throws IOException {
+		File file = folder.newFile();
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+			for (String line: lines) {
+				out.write(line);
+				out.write("\n");
+			}
+		}
+		return file.getPath();
 	}
 	
 	@Test
 	public void testSample() throws Exception {
-		@MockClass(realClass=com.github.tamurashingo.juko.core.util.LineReader.class)
-		class MockLineReader {
-			@Mock
-			public String readLine() throws IOException {
-				throw new IOException();
-			}
-		}
-		
 		PlantObjectReader reader = new SimpleReader();
-		reader.open("");
+		reader.open(new File(folder.getRoot(), "notfound.tsv").getPath());
 		try {
 			reader.read();
 			fail("not reached");
 		}
 		catch ( PlantObjectReaderException ex ) {
 			// ok
+			assertEquals("E.IO.000010", ex.getMessageProperty().getMessageId());
 		}
 		reader.close();
 	}
 	
+	/*-
+	 * the transform is applied after the origin shift.
+	 */
+	@Test
+	public void testTransform() throws Exception {
+		String file = createFile(
+				"101.0\t2.0\t3.0",
+				"104.0\t5.0\t6.0",
+				"107.0\t8.0\t9.0",
+				"100.0\t0.0\t0.0");
+		
+		SimpleReader reader = new SimpleReader();
+		reader.setTransform(TransformUtil.createRotateZ(Math.PI / 2).multiply(TransformUtil.createScale(2.0, 2.0, 2.0)));
+		reader.open(file);
+		PlantObject p = reader.read().get(0);
+		double[][] points = p.getTriangles().get(0).getPosition();
+		assertArrayEquals(new double[]{ -4.0, 2.0, 6.0 }, points[0], 1e-9);
+		assertArrayEquals(new double[]{ -10.0, 8.0, 12.0 }, points[1], 1e-9);
+		assertArrayEquals(new double[]{ -16.0, 14.0, 18.0 }, points[2], 1e-9);
+		reader.close();
+		
+		// same as transforming the plant after reading
+		SimpleReader plain = new SimpleReader();
+		plain.open(file);
+		PlantObject expected = plain.read().get(0);
+		expected.applyTransform(reader.getTransform());
+		assertArrayEquals(Arrays.copyOf(expected.getMesh().getXColumn(), 3), Arrays.copyOf(p.getMesh().getXColumn(), 3), 1e-12);
+		
+		reader.setTransform(null);
+		assertNull(reader.getTransform());
+	}
+	
 	/*-
 	 * read normal tsv format.
 	 */
 	@Test
 	public void testRead1() throws Exception {
-		new Expectations() {
-			@Mocked(methods="readLine")
-			private LineReader lineReader;
-			{
-				//
-				lineReader.readLine();
-				result = "1.0\t2.0\t3.0";
-				result = "4.0\t5.0\t6.0";
-				result = "7.0\t8.0\t9.0";
-				result = "0.0\t0.0\t0.0";
-				result = null;
-			}
-		};
+		String file = createFile(
+				"1.0\t2.0\t3.0",
+				"4.0\t5.0\t6.0",
+				"7.0\t8.0\t9.0",
+				"0.0\t0.0\t0.0");
 
 		PlantObjectReader reader = new SimpleReader();
-		reader.open("");
+		reader.open(file);
 		List<PlantObject> obj = reader.read();
 		assertEquals(1, obj.size());
 		assertEquals(PlantType.LEAF, obj.get(0).getPlantType());
@@ -133,23 +146,15 @@ public class SimpleReaderTest {
 	 */
 	@Test
 	public void testRead2() throws Exception {
-		new Expectations() {
-			@Mocked(methods="readLine")
-			private LineReader lineReader;
-			{
-				//
-				lineReader.readLine();
-				result = "1.0\t2.0\t3.0";
-				result = "4.0\t5.0\t6.0";
-				result = "7.0\t8.0\t9.0";
-				result = "";
-				result = "0.0\t0.0\t0.0";
-				result = null;
-			}
-		};
+		String file = createFile(
+				"1.0\t2.0\t3.0",
+				"4.0\t5.0\t6.0",
+				"7.0\t8.0\t9.0",
+				"",
+				"0.0\t0.0\t0.0");
 
 		PlantObjectReader reader = new SimpleReader();
-		reader.open("");
+		reader.open(file);
 		List<PlantObject> obj = reader.read();
 		assertEquals(1, obj.size());
 		assertEquals(PlantType.LEAF, obj.get(0).getPlantType());
@@ -168,23 +173,15 @@ public class SimpleReaderTest {
 	 */
 	@Test
 	public void testRead3() throws Exception {
-		new Expectations() {
-			@Mocked(methods="readLine")
-			private LineReader lineReader;
-			{
-				//
-				lineReader.readLine();
-				result = "1.0\t2.0\t3.0";
-				result = "4.0\t5.0\t6.0";
-				result = "7.0\t8.0\t9.0";
-				result = "";
-				result = "3.0\t2.0\t1.0";
-				result = null;
-			}
-		};
+		String file = createFile(
+				"1.0\t2.0\t3.0",
+				"4.0\t5.0\t6.0",
+				"7.0\t8.0\t9.0",
+				"",
+				"3.0\t2.0\t1.0");
 
 		PlantObjectReader reader = new SimpleReader();
-		reader.open("");
+		reader.open(file);
 		List<PlantObject> obj = reader.read();
 		assertEquals(1, obj.size());
 		assertEquals(PlantType.LEAF, obj.get(0).getPlantType());
@@ -197,4 +194,152 @@ public class SimpleReaderTest {
 		reader.close();
 		
 	}
+	
+	/*-
+	 * read tsv which has 2 items in a line.
+	 */
+	@Test
+	public void testFormatError() throws Exception {
+		String file = createFile(
+				"1.0\t2.0\t3.0",
+				"",
+				"4.0\t5.0",
+				"7.0\t8.0\t9.0");
+
+		PlantObjectReader reader = new SimpleReader();
+		reader.open(file);
+		try {
+			reader.read();
+			fail("not reached");
+		}
+		catch ( PlantObjectReaderException ex ) {
+			PlantObjectReaderException cause = (PlantObjectReaderException)ex.getCause();
+			assertEquals("E.IO.000020", cause.getMessageProperty().getMessageId());
+			assertArrayEquals(new String[]{"3"}, cause.getMessageProperty().getArgs());
+		}
+		reader.close();
+	}
+	
+	/*-
+	 * read tsv which has a broken number.
+	 */
+	@Test
+	public void testNumberFormatError() throws Exception {
+		String file = createFile(
+				"1.0\t2.0\t3.0",
+				"4.0\t5.x\t6.0",
+				"7.0\t8.0\t9.0");
+
+		PlantObjectReader reader = new SimpleReader();
+		reader.open(file);
+		try {
+			reader.read();
+			fail("not reached");
+		}
+		catch ( PlantObjectReaderException ex ) {
+			PlantObjectReaderException cause = (PlantObjectReaderException)ex.getCause();
+			assertEquals("E.IO.000020", cause.getMessageProperty().getMessageId());
+			assertArrayEquals(new String[]{"2"}, cause.getMessageProperty().getArgs());
+		}
+		reader.close();
+	}
+	
+	/*-
+	 * read files one by one.
+	 */
+	@Test
+	public void testReadNext() throws Exception {
+		String file1 = createFile(
+				"1.0\t2.0\t3.0",
+				"4.0\t5.0\t6.0",
+				"7.0\t8.0\t9.0",
+				"0.0\t0.0\t0.0");
+		String file2 = createFile(
+				"1.0\t2.0\t3.0",
+				"4.0\t5.0\t6.0",
+				"7.0\t8.0\t9.0",
+				"1.0\t2.0\t3.0",
+				"4.0\t5.0\t6.0",
+				"7.0\t8.0\t9.0",
+				"0.0\t0.0\t0.0");
+
+		PlantObjectReader reader = new SimpleReader();
+		reader.open(file1, file2);
+		PlantObject p1 = reader.readNext();
+		assertEquals(1, p1.getMesh().size());
+		PlantObject p2 = reader.readNext();
+		assertEquals(2, p2.getMesh().size());
+		assertNull(reader.readNext());
+		assertEquals(0, reader.read().size());
+		reader.close();
+		
+		reader.open(file1, file2);
+		assertEquals(2, reader.read().size());
+		reader.close();
+	}
+	
+	/*-
+	 * read files in parallel.
+	 */
+	/*-
+	 * the columns of a large plant do not keep the growth slack of the buffer.
+	 */
+	@Test
+	public void testCapacity() throws Exception {
+		String[] lines = new String[3000 * 3 + 1];
+		for (int ix = 0; ix < lines.length; ix++) {
+			lines[ix] = ix + "\t" + (ix % 7) + "\t0";
+		}
+		PlantObjectReader reader = new SimpleReader();
+		reader.open(createFile(lines));
+		PlantObject p = reader.readNext();
+		reader.close();
+		
+		assertEquals(3000, p.getMesh().size());
+		assertTrue(p.getMesh().getXColumn().length <= 3000 * 3 * 9 / 8);
+		assertEquals(3000, p.getMesh().getAreaColumn().length);
+	}
+	
+	@Test
+	public void testReadParallel() throws Exception {
+		String[] files = new String[20];
+		for (int ix = 0; ix < files.length; ix++) {
+			files[ix] = createFile(
+					ix + ".0\t2.0\t3.0",
+					"4.0\t5.0\t6.0",
+					"7.0\t8.0\t9.0",
+					"0.0\t0.0\t0.0");
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			SimpleReader reader = new SimpleReader();
+			reader.setExecutor(executor);
+			reader.open(files);
+			List<PlantObject> obj = reader.read();
+			assertEquals(files.length, obj.size());
+			for (int ix = 0; ix < files.length; ix++) {
+				assertEquals(ix, obj.get(ix).getMesh().getX(0, 0), 0.01);
+			}
+			reader.close();
+			
+			String notFound1 = new File(folder.getRoot(), "notfound1.tsv").getPath();
+			String notFound2 = new File(folder.getRoot(), "notfound2.tsv").getPath();
+			files[5] = notFound1;
+			files[15] = notFound2;
+			reader.open(files);
+			try {
+				reader.read();
+				fail("not reached");
+			}
+			catch ( PlantObjectReaderException ex ) {
+				assertEquals("E.IO.000010", ex.getMessageProperty().getMessageId());
+				assertArrayEquals(new String[]{ notFound1 }, ex.getMessageProperty().getArgs());
+			}
+			reader.close();
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
 }
@@ -0,0 +1,131 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.scene;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.Affine4;
+import com.github.tamurashingo.juko.core.bean.PlantObject;
+import com.github.tamurashingo.juko.core.bean.PlantObject.PlantType;
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.scene.SceneNode;
+
+public class SceneNodeTest {
+	
+	private static PlantObject createLeaf() {
+		PlantObject p = new PlantObject();
+		p.setPlantType(PlantType.LEAF);
+		p.addTriangle(new double[]{ 0.0, 0.0, 0.0 },
+				new double[]{ 1.0, 0.0, 0.0 },
+				new double[]{ 0.0, 1.0, 0.0 });
+		return p;
+	}
+	
+	@Test
+	public void testWorldTransform() {
+		SceneNode root = new SceneNode("root", TransformUtil.createTranslate(10.0, 0.0, 0.0));
+		SceneNode branch = new SceneNode("branch", TransformUtil.createRotateZ(Math.PI / 2));
+		SceneNode leaf = new SceneNode("leaf", TransformUtil.createTranslate(1.0, 0.0, 0.0), createLeaf());
+		root.addChild(branch);
+		branch.addChild(leaf);
+		
+		double[] p = { 0.0, 0.0, 0.0 };
+		leaf.getWorldTransform().transformPoint(p);
+		assertArrayEquals(new double[]{ 10.0, 1.0, 0.0 }, p, 1e-12);
+		
+		PlantObject world = leaf.getWorldPlant();
+		assertEquals(PlantType.LEAF, world.getPlantType());
+		assertEquals(10.0, world.getMesh().getX(0, 1), 1e-12);
+		assertEquals(2.0, world.getMesh().getY(0, 1), 1e-12);
+		// the geometry is not changed
+		assertEquals(1.0, leaf.getGeometry().getMesh().getX(0, 1), 0.0);
+		
+		root.setLocalTransform(Affine4.IDENTITY);
+		p = new double[]{ 0.0, 0.0, 0.0 };
+		leaf.getWorldTransform().transformPoint(p);
+		assertArrayEquals(new double[]{ 0.0, 1.0, 0.0 }, p, 1e-12);
+		assertSame(world, leaf.getWorldPlant());
+		assertEquals(0.0, world.getMesh().getX(0, 1), 1e-12);
+		
+		// the old world plant is kept when the geometry is replaced
+		leaf.setGeometry(createLeaf());
+		PlantObject replaced = leaf.getWorldPlant();
+		assertNotSame(world, replaced);
+		assertEquals(0.0, replaced.getMesh().getX(0, 1), 1e-12);
+		root.setLocalTransform(TransformUtil.createTranslate(5.0, 0.0, 0.0));
+		assertEquals(5.0, leaf.getWorldPlant().getMesh().getX(0, 1), 1e-12);
+		assertEquals(0.0, world.getMesh().getX(0, 1), 1e-12);
+	}
+	
+	@Test
+	public void testUpdate() {
+		SceneNode root = new SceneNode("root");
+		SceneNode[] branches = new SceneNode[4];
+		for (int b = 0; b < branches.length; b++) {
+			branches[b] = new SceneNode("branch" + b, TransformUtil.createTranslate(b, 0.0, 0.0));
+			root.addChild(branches[b]);
+			for (int l = 0; l < 3; l++) {
+				branches[b].addChild(new SceneNode("leaf" + l, TransformUtil.createTranslate(0.0, l, 0.0), createLeaf()));
+			}
+		}
+		
+		assertEquals(12, root.update());
+		assertEquals(0, root.update());
+		
+		// only the leaves of the moved branch
+		branches[2].setLocalTransform(TransformUtil.createTranslate(2.0, 0.0, 5.0));
+		assertEquals(3, root.update());
+		List<PlantObject> plants = root.getPlants();
+		assertEquals(12, plants.size());
+		assertEquals(5.0, plants.get(6).getMesh().getZ(0, 0), 0.0);
+		assertEquals(0.0, plants.get(3).getMesh().getZ(0, 0), 0.0);
+		
+		// geometry
+		SceneNode leaf = branches[1].getChildren().get(0);
+		leaf.getGeometry().getMesh().setVertex(0, 0, 0.0, 0.0, 1.0);
+		leaf.invalidateGeometry();
+		assertEquals(1, root.update());
+		assertEquals(1.0, leaf.getWorldPlant().getMesh().getZ(0, 0), 0.0);
+		
+		// move a subtree to another parent
+		branches[3].addChild(branches[0]);
+		assertEquals(3, root.getChildren().size());
+		assertEquals(3, root.update());
+		assertEquals(3.0, branches[0].getChildren().get(0).getWorldPlant().getMesh().getX(0, 0), 0.0);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testCycle() {
+		SceneNode root = new SceneNode("root");
+		SceneNode child = new SceneNode("child");
+		root.addChild(child);
+		child.addChild(root);
+	}
+}
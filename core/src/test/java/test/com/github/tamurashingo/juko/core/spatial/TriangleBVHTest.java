@@ -0,0 +1,292 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.spatial;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.bean.TransformUtil;
+import com.github.tamurashingo.juko.core.bean.TriangleMesh;
+import com.github.tamurashingo.juko.core.spatial.TriangleBVH;
+import com.github.tamurashingo.juko.core.spatial.TriangleHit;
+
+public class TriangleBVHTest {
+	
+	private static TriangleMesh createMesh(Random rand, int size, double offset) {
+		TriangleMesh mesh = new TriangleMesh();
+		for (int t = 0; t < size; t++) {
+			double cx = offset + rand.nextDouble() * 10.0;
+			double cy = rand.nextDouble() * 10.0;
+			double cz = rand.nextDouble() * 10.0;
+			mesh.add(cx + rand.nextDouble() - 0.5, cy + rand.nextDouble() - 0.5, cz + rand.nextDouble() - 0.5,
+					cx + rand.nextDouble() - 0.5, cy + rand.nextDouble() - 0.5, cz + rand.nextDouble() - 0.5,
+					cx + rand.nextDouble() - 0.5, cy + rand.nextDouble() - 0.5, cz + rand.nextDouble() - 0.5);
+		}
+		return mesh;
+	}
+	
+	@Test
+	public void testPrimitive() {
+		Random rand = new Random(1);
+		TriangleMesh m1 = createMesh(rand, 5, 0.0);
+		TriangleMesh m2 = new TriangleMesh();
+		TriangleMesh m3 = createMesh(rand, 7, 0.0);
+		TriangleBVH bvh = new TriangleBVH(m1, m2, m3);
+		
+		assertEquals(12, bvh.size());
+		assertEquals(0, bvh.getMeshIndex(4));
+		assertEquals(4, bvh.getTriangleIndex(4));
+		assertEquals(2, bvh.getMeshIndex(5));
+		assertEquals(0, bvh.getTriangleIndex(5));
+		assertEquals(11, bvh.getPrimitive(2, 6));
+		
+		TriangleHit hit = new TriangleHit();
+		TriangleBVH empty = new TriangleBVH(new TriangleMesh());
+		assertFalse(empty.intersect(0.0, 0.0, 0.0, 1.0, 0.0, 0.0, Double.POSITIVE_INFINITY, hit));
+		assertFalse(empty.nearest(0.0, 0.0, 0.0, Double.POSITIVE_INFINITY, hit));
+		assertEquals(0, empty.query(-1.0, -1.0, -1.0, 1.0, 1.0, 1.0).length);
+	}
+	
+	@Test
+	public void testRay() {
+		Random rand = new Random(2);
+		TriangleMesh m1 = createMesh(rand, 3000, 0.0);
+		TriangleMesh m2 = createMesh(rand, 2000, 5.0);
+		TriangleBVH bvh = new TriangleBVH(m1, m2);
+		
+		TriangleHit hit = new TriangleHit();
+		int hits = 0;
+		for (int ix = 0; ix < 500; ix++) {
+			double ox = rand.nextDouble() * 20.0 - 2.0;
+			double oy = rand.nextDouble() * 12.0 - 1.0;
+			double oz = -5.0;
+			double dx = rand.nextDouble() - 0.5;
+			double dy = rand.nextDouble() - 0.5;
+			double dz = 1.0;
+			double[] expected = bruteRay(Arrays.asList(m1, m2), ox, oy, oz, dx, dy, dz);
+			boolean found = bvh.intersect(ox, oy, oz, dx, dy, dz, Double.POSITIVE_INFINITY, hit);
+			assertEquals(expected[0] >= 0, found);
+			assertEquals(found, bvh.occluded(ox, oy, oz, dx, dy, dz, Double.POSITIVE_INFINITY, -1));
+			if (found) {
+				hits++;
+				assertEquals((int)expected[0], hit.getPrimitive());
+				assertEquals(expected[1], hit.getDistance(), 1e-12);
+				assertEquals(oz + dz * expected[1], hit.getZ(), 1e-12);
+				assertFalse(bvh.occluded(ox, oy, oz, dx, dy, dz, expected[1] * 0.999, -1));
+			}
+		}
+		assertTrue(hits > 100);
+	}
+	
+	@Test
+	public void testQueryAndNearest() {
+		Random rand = new Random(3);
+		TriangleMesh mesh = createMesh(rand, 4000, 0.0);
+		TriangleBVH bvh = new TriangleBVH(mesh);
+		
+		for (int ix = 0; ix < 100; ix++) {
+			double minX = rand.nextDouble() * 10.0;
+			double minY = rand.nextDouble() * 10.0;
+			double minZ = rand.nextDouble() * 10.0;
+			double size = rand.nextDouble() * 2.0;
+			List<Integer> expected = new ArrayList<>();
+			for (int t = 0; t < mesh.size(); t++) {
+				if (overlap(mesh, t, minX, minY, minZ, minX + size, minY + size, minZ + size)) {
+					expected.add(t);
+				}
+			}
+			int[] actual = bvh.query(minX, minY, minZ, minX + size, minY + size, minZ + size);
+			assertEquals(expected.size(), actual.length);
+			for (int k = 0; k < actual.length; k++) {
+				assertEquals(expected.get(k).intValue(), actual[k]);
+			}
+		}
+		
+		TriangleHit hit = new TriangleHit();
+		for (int ix = 0; ix < 100; ix++) {
+			double px = rand.nextDouble() * 14.0 - 2.0;
+			double py = rand.nextDouble() * 14.0 - 2.0;
+			double pz = rand.nextDouble() * 14.0 - 2.0;
+			double best = Double.POSITIVE_INFINITY;
+			for (int t = 0; t < mesh.size(); t++) {
+				best = Math.min(best, bruteDistance(mesh, t, px, py, pz));
+			}
+			assertTrue(bvh.nearest(px, py, pz, Double.POSITIVE_INFINITY, hit));
+			assertEquals(best, hit.getDistance(), 1e-9);
+			assertEquals(best, bruteDistance(mesh, hit.getPrimitive(), px, py, pz), 1e-9);
+			double ex = hit.getX() - px, ey = hit.getY() - py, ez = hit.getZ() - pz;
+			assertEquals(best, Math.sqrt(ex * ex + ey * ey + ez * ez), 1e-9);
+			assertFalse(bvh.nearest(px, py, pz, best * 0.999, hit));
+		}
+	}
+	
+	@Test
+	public void testRefitAndParallel() {
+		Random rand = new Random(4);
+		TriangleMesh mesh = createMesh(rand, 40000, 0.0);
+		TriangleMesh copy = (TriangleMesh)mesh.clone();
+		TriangleBVH bvh = new TriangleBVH(mesh);
+		TriangleBVH sequential = new TriangleBVH(copy);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		TriangleBVH parallel = new TriangleBVH(pool, copy);
+		pool.shutdown();
+		assertEquals(sequential.getNodeCount(), parallel.getNodeCount());
+		
+		TransformUtil.createRotateZ(0.5).multiply(TransformUtil.createTranslate(3.0, -2.0, 1.0)).applyTo(mesh);
+		bvh.refit();
+		
+		TriangleHit hit = new TriangleHit();
+		TriangleHit other = new TriangleHit();
+		for (int ix = 0; ix < 200; ix++) {
+			double ox = rand.nextDouble() * 20.0 - 5.0;
+			double oy = rand.nextDouble() * 20.0 - 5.0;
+			double[] expected = bruteRay(Arrays.asList(mesh), ox, oy, 20.0, 0.1, -0.2, -1.0);
+			assertEquals(expected[0] >= 0, bvh.intersect(ox, oy, 20.0, 0.1, -0.2, -1.0, Double.POSITIVE_INFINITY, hit));
+			if (hit.isHit()) {
+				assertEquals((int)expected[0], hit.getPrimitive());
+			}
+			
+			// the same tree is built in parallel
+			parallel.nearest(ox, oy, 5.0, Double.POSITIVE_INFINITY, hit);
+			sequential.nearest(ox, oy, 5.0, Double.POSITIVE_INFINITY, other);
+			assertEquals(other.getPrimitive(), hit.getPrimitive());
+			assertEquals(other.getDistance(), hit.getDistance(), 0.0);
+		}
+		
+		double[] bounds = bvh.getBounds();
+		for (int t = 0; t < mesh.size(); t++) {
+			for (int v = 0; v < 3; v++) {
+				assertTrue(mesh.getX(t, v) >= bounds[0] && mesh.getX(t, v) <= bounds[3]);
+				assertTrue(mesh.getY(t, v) >= bounds[1] && mesh.getY(t, v) <= bounds[4]);
+			}
+		}
+		
+		mesh.setSize(10);
+		try {
+			bvh.refit();
+			fail();
+		}
+		catch (IllegalStateException ex) {
+			// OK
+		}
+	}
+	
+	
+	/**
+	 * @return {primitive, distance}
+	 */
+	private static double[] bruteRay(List<TriangleMesh> meshes, double ox, double oy, double oz,
+			double dx, double dy, double dz) {
+		double[] best = { -1, Double.POSITIVE_INFINITY };
+		int offset = 0;
+		for (TriangleMesh mesh: meshes) {
+			for (int t = 0; t < mesh.size(); t++) {
+				double[] a = vertex(mesh, t, 0);
+				double[] b = vertex(mesh, t, 1);
+				double[] c = vertex(mesh, t, 2);
+				// plane of the triangle
+				double[] n = cross(sub(b, a), sub(c, a));
+				double denom = dot(n, new double[]{ dx, dy, dz });
+				if (denom == 0.0) {
+					continue;
+				}
+				double s = dot(n, sub(a, new double[]{ ox, oy, oz })) / denom;
+				if (s <= 0.0 || s >= best[1]) {
+					continue;
+				}
+				double[] p = { ox + dx * s, oy + dy * s, oz + dz * s };
+				if (dot(n, cross(sub(b, a), sub(p, a))) >= 0
+						&& dot(n, cross(sub(c, b), sub(p, b))) >= 0
+						&& dot(n, cross(sub(a, c), sub(p, c))) >= 0) {
+					best[0] = offset + t;
+					best[1] = s;
+				}
+			}
+			offset += mesh.size();
+		}
+		return best;
+	}
+	
+	private static double bruteDistance(TriangleMesh mesh, int t, double px, double py, double pz) {
+		double[] a = vertex(mesh, t, 0);
+		double[] b = vertex(mesh, t, 1);
+		double[] c = vertex(mesh, t, 2);
+		double[] p = { px, py, pz };
+		double[] n = cross(sub(b, a), sub(c, a));
+		double h = dot(n, sub(p, a)) / dot(n, n);
+		double[] q = { px - n[0] * h, py - n[1] * h, pz - n[2] * h };
+		if (dot(n, cross(sub(b, a), sub(q, a))) >= 0
+				&& dot(n, cross(sub(c, b), sub(q, b))) >= 0
+				&& dot(n, cross(sub(a, c), sub(q, c))) >= 0) {
+			return Math.abs(h) * Math.sqrt(dot(n, n));
+		}
+		return Math.min(segment(a, b, p), Math.min(segment(b, c, p), segment(c, a, p)));
+	}
+	
+	private static double segment(double[] a, double[] b, double[] p) {
+		double[] ab = sub(b, a);
+		double s = Math.max(0.0, Math.min(1.0, dot(sub(p, a), ab) / dot(ab, ab)));
+		double[] d = sub(p, new double[]{ a[0] + ab[0] * s, a[1] + ab[1] * s, a[2] + ab[2] * s });
+		return Math.sqrt(dot(d, d));
+	}
+	
+	private static boolean overlap(TriangleMesh mesh, int t, double minX, double minY, double minZ,
+			double maxX, double maxY, double maxZ) {
+		double[] lo = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+		double[] hi = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+		for (int v = 0; v < 3; v++) {
+			double[] p = vertex(mesh, t, v);
+			for (int k = 0; k < 3; k++) {
+				lo[k] = Math.min(lo[k], p[k]);
+				hi[k] = Math.max(hi[k], p[k]);
+			}
+		}
+		return lo[0] <= maxX && hi[0] >= minX && lo[1] <= maxY && hi[1] >= minY && lo[2] <= maxZ && hi[2] >= minZ;
+	}
+	
+	private static double[] vertex(TriangleMesh mesh, int t, int v) {
+		return new double[]{ mesh.getX(t, v), mesh.getY(t, v), mesh.getZ(t, v) };
+	}
+	
+	private static double[] sub(double[] a, double[] b) {
+		return new double[]{ a[0] - b[0], a[1] - b[1], a[2] - b[2] };
+	}
+	
+	private static double[] cross(double[] a, double[] b) {
+		return new double[]{ a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0] };
+	}
+	
+	private static double dot(double[] a, double[] b) {
+		return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+	}
+}
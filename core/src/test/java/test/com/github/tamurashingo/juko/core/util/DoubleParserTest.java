@@ -0,0 +1,102 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.util;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.util.DoubleParser;
+
+public class DoubleParserTest {
+	
+	private static double parse(String s) {
+		char[] buf = s.toCharArray();
+		return DoubleParser.parse(buf, 0, buf.length);
+	}
+
+	@Test
+	public void testSameAsParseDouble() {
+		String[] values = {
+				"0", "-0", "0.0", "1", "-1", "+1.5", " 2.25 ", "1.", ".5", "0.1", "0.3",
+				"123.456", "-0.000123", "1e10", "1E-5", "6.02214076e23", "1.7976931348623157E308",
+				"4.9e-324", "123456789012345678901234", "0.1234567890123456789",
+				"NaN", "-Infinity", "1d", "2.5f", "0x1p3",
+		};
+		for (String s: values) {
+			assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(parse(s)));
+		}
+	}
+	
+	@Test
+	public void testRandom() {
+		Random rand = new Random(42);
+		for (int ix = 0; ix < 100000; ix++) {
+			double d = (rand.nextDouble() - 0.5) * Math.pow(10, rand.nextInt(12) - 4);
+			String s = (ix % 2 == 0) ? Double.toString(d) : String.format("%.6f", d);
+			assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(parse(s)));
+		}
+	}
+	
+	@Test
+	public void testByteBuffer() {
+		String[] values = {
+				"0", "-0", "1", "+1.5", " 2.25 ", ".5", "0.1", "-0.000123", "1E-5",
+				"1.7976931348623157E308", "123456789012345678901234", "NaN",
+		};
+		for (String s: values) {
+			// parse from the middle of a buffer
+			byte[] b = ("\t" + s + "\t").getBytes(StandardCharsets.US_ASCII);
+			double d = DoubleParser.parse(ByteBuffer.wrap(b), 1, b.length - 1);
+			assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(d));
+		}
+	}
+	
+	@Test
+	public void testCharSequence() {
+		String[] values = { "0", "-1", " 2.25 ", "1E-5", "123456789012345678901234", "NaN" };
+		for (String s: values) {
+			String line = "x," + s + ",y";
+			double d = DoubleParser.parse(line, 2, line.length() - 2);
+			assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(d));
+		}
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testEmpty() {
+		parse("  ");
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testIllegal() {
+		parse("1.2.3");
+	}
+
+}
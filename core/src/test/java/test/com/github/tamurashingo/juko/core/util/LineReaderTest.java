@@ -0,0 +1,100 @@
+/*-
+ * The MIT License
+ * 
+ * Copyright (c) 2002, 2013 tamura shingo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject
+ * to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package test.com.github.tamurashingo.juko.core.util;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.github.tamurashingo.juko.core.util.LineReader;
+
+public class LineReaderTest {
+
+	@Test
+	public void testReadLine() throws Exception {
+		try (LineReader reader = new LineReader(new StringReader("a\nbc\r\n\rd"))) {
+			assertEquals("a", reader.readLine());
+			assertEquals("bc", reader.readLine());
+			assertEquals("", reader.readLine());
+			assertEquals("d", reader.readLine());
+			assertNull(reader.readLine());
+			assertEquals(4, reader.getLineCount());
+		}
+	}
+	
+	@Test
+	public void testReadValues() throws Exception {
+		double[] v = new double[3];
+		try (LineReader reader = new LineReader(new StringReader("1.5\t-2\t3e2\r\n\n4\t5\t6\t\t\n7\t8\n1\t2\t3\t4"))) {
+			assertEquals(3, reader.readValues('\t', v));
+			assertArrayEquals(new double[]{ 1.5, -2.0, 300.0 }, v, 0.0);
+			assertEquals(0, reader.readValues('\t', v));
+			assertEquals(3, reader.readValues('\t', v));
+			assertArrayEquals(new double[]{ 4.0, 5.0, 6.0 }, v, 0.0);
+			assertEquals(2, reader.readValues('\t', v));
+			assertEquals(4, reader.readValues('\t', v));
+			assertEquals(-1, reader.readValues('\t', v));
+			assertEquals(5, reader.getLineCount());
+		}
+	}
+	
+	@Test
+	public void testLongLine() throws Exception {
+		StringBuilder buf = new StringBuilder();
+		for (int ix = 0; ix < 5000; ix++) {
+			buf.append("1.25\t");
+		}
+		buf.append("\n2\t3\t4\n");
+		double[] v = new double[3];
+		try (LineReader reader = new LineReader(new StringReader(buf.toString()))) {
+			assertEquals(5000, reader.readValues('\t', v));
+			assertArrayEquals(new double[]{ 1.25, 1.25, 1.25 }, v, 0.0);
+			assertEquals(3, reader.readValues('\t', v));
+			assertArrayEquals(new double[]{ 2.0, 3.0, 4.0 }, v, 0.0);
+		}
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testEmptyField() throws Exception {
+		try (LineReader reader = new LineReader(new StringReader("1\t\t3\n"))) {
+			reader.readValues('\t', new double[3]);
+		}
+	}
+	
+	@Test
+	public void testSeparatorOnly() throws Exception {
+		try (LineReader reader = new LineReader(new StringReader("\t\t\n1\t2\t3\n"))) {
+			reader.readValues('\t', new double[3]);
+			fail();
+		}
+		catch (NumberFormatException ex) {
+			// ok
+		}
+	}
+
+}